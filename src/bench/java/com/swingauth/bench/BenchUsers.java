@@ -0,0 +1,130 @@
+package com.swingauth.bench;
+
+import com.swingauth.matching.MatchPolicy;
+import com.swingauth.matching.Matchmaker;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 매칭 벤치마크 공용 가짜 참가자/규칙 (DB 없이 재현 가능한 결과를 위해 결정적으로 생성)
+ */
+final class BenchUsers {
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    static final class FakeUser {
+        final int id;
+        final double rating;
+
+        FakeUser(int id, double rating) {
+            this.id = id;
+            this.rating = rating;
+        }
+    }
+
+    private BenchUsers() {}
+
+    /**
+     * 부하 생성기가 registerUsername에 보낼 세션 토큰 (username -> token)
+     * - 서버 운영자가 SessionTokenMain load-test로 만든 파일 (한 줄에 "username<탭>token")
+     *   부하 생성기는 서명 키를 읽지 않음
+     */
+    static Map<String, String> loadSessionTokens(String file) {
+        if (file == null) {
+            throw new IllegalArgumentException("--tokens=<파일> 필요 (서버에서 SessionTokenMain load-test로 생성)");
+        }
+        Path path = Paths.get(file);
+        Map<String, String> tokens = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) tokens.put(line.substring(0, tab), line.substring(tab + 1).trim());
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("토큰 파일을 읽을 수 없습니다: " + path, e);
+        }
+        return tokens;
+    }
+
+    /**
+     * 가상 사용자 username의 토큰 (파일에 없으면 예외)
+     */
+    static String sessionToken(Map<String, String> tokens, String username) {
+        String token = tokens.get(username);
+        if (token == null) {
+            throw new IllegalArgumentException("토큰 파일에 " + username + "이(가) 없습니다 (인원/접두사 확인)");
+        }
+        return token;
+    }
+
+    static FakeUser[] create(int count) {
+        FakeUser[] users = new FakeUser[count];
+        for (int i = 0; i < count; i++) {
+            users[i] = new FakeUser(i, 1.0 + (i * 7919 % 400) / 100.0);
+        }
+        return users;
+    }
+
+    /**
+     * 쌍마다 고정된 확률로 블랙리스트 (대칭)
+     */
+    static boolean excluded(FakeUser a, FakeUser b, double rate) {
+        if (rate <= 0) return false;
+        int lo = Math.min(a.id, b.id);
+        int hi = Math.max(a.id, b.id);
+        int h = lo * 0x9E3779B1 ^ hi * 0x85EBCA6B;
+        h ^= h >>> 15;
+        return (h & 0xFFFF) < rate * 0x10000;
+    }
+
+    /**
+     * 영상통화형 규칙: 블랙리스트 + 평균 평점 높은 쌍 우선
+     * @param scoreCost 점수 계산 1회당 CPU 비용 (평점 조회 비용 모사)
+     */
+    static MatchPolicy<FakeUser> rated(double exclusionRate, int scoreCost) {
+        return MatchPolicy.of(
+            u -> true,
+            (a, b) -> excluded(a, b, exclusionRate),
+            (a, b) -> {
+                if (scoreCost > 0) Blackhole.consumeCPU(scoreCost);
+                return (a.rating + b.rating) / 2.0;
+            });
+    }
+
+    /**
+     * 랜덤채팅형 규칙: 블랙리스트 + 선착순
+     */
+    static MatchPolicy<FakeUser> fifo(double exclusionRate) {
+        return MatchPolicy.of(u -> true, (a, b) -> excluded(a, b, exclusionRate), MatchPolicy.fifo());
+    }
+
+    /**
+     * 대기열이 비워질 때까지 대기 (매칭 불가로 남은 참가자는 제한 시간 후 취소)
+     */
+    static void drain(Matchmaker<?> matchmaker, String[] keys) {
+        drainTo(matchmaker, keys, 0);
+    }
+
+    /**
+     * 대기 인원이 remaining 명이 될 때까지 대기 (남은 이번 배치 참가자는 제한 시간 후 취소)
+     */
+    static void drainTo(Matchmaker<?> matchmaker, String[] keys, int remaining) {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (matchmaker.size() > remaining && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(10_000);
+        }
+        if (matchmaker.size() > remaining) {
+            for (String key : keys) {
+                matchmaker.cancel(key);
+            }
+        }
+    }
+}
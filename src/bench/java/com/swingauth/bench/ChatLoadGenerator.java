@@ -0,0 +1,326 @@
+package com.swingauth.bench;
+
+import com.swingauth.metrics.Histogram;
+import io.socket.client.IO;
+import io.socket.client.Socket;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 랜덤채팅 서버 부하 생성기 (화면 없이 가상 사용자 N명)
+ * - 사용자마다: 접속 -> registerUsername -> startMatching -> 매칭되면 메시지 주고받기 -> 가끔 접속 끊고 재접속
+ * - 메시지는 "ping:보낸이:순번:시각"이고 받은 쪽이 "pong:..."으로 돌려보내 왕복 시간(RTT) 측정
+ *   (같은 JVM에서 보내고 받으므로 System.nanoTime 비교 가능)
+ * - 5초마다 진행 상황, 끝나면 매칭 지연/RTT 백분위와 오류율 출력
+ *
+ * 실행 (서버는 같은 머신에서 ChatServerMain으로 실행):
+ *   java -cp target/classes:$(cat cp.txt) com.swingauth.bench.ChatLoadGenerator \
+ *     --url=http://localhost:3001 --tokens=load-tokens.txt --users=500 --duration=60 --msgRate=0.5 --churn=2 --rampUp=10
+ * 옵션:
+ *   users: 가상 사용자 수, duration: 측정 시간(초), msgRate: 사용자당 초당 메시지 수,
+ *   churn: 사용자당 분당 임의 접속 종료 횟수, rampUp: 전원 접속까지 걸리는 시간(초)
+ * 참고: socket.io 클라이언트는 이벤트 처리 스레드 하나를 공유하므로 수천 명 이상은 프로세스를 나눠 실행
+ * 참고: registerUsername에는 --tokens 파일의 세션 토큰을 보냄 (서버에서 SessionTokenMain load-test load <users> <파일>로 생성)
+ * 참고: 서버 요청 제한(chat.limit.sendMessage, 기본 초당 10회)을 넘는 msgRate는 일부 메시지가 버려짐
+ */
+public class ChatLoadGenerator {
+    private static final long REPORT_INTERVAL_SECONDS = 5;
+
+    private final String url;
+    private final int users;
+    private final int durationSeconds;
+    private final double msgRate;
+    private final double churnPerMinute;
+    private final int rampUpSeconds;
+    private final Map<String, String> sessionTokens;
+
+    private final OkHttpClient http;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+            Thread t = new Thread(r, "load-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    private final List<SimUser> simUsers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    // 측정값
+    private final Histogram matchLatencyMillis = new Histogram();
+    private final Histogram rttMicros = new Histogram();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder unexpectedDisconnects = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder sendSkipped = new LongAdder(); // 보낼 시점에 연결/매칭이 안 되어 있던 경우
+    private final LongAdder partnerDisconnects = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger matched = new AtomicInteger();
+
+    ChatLoadGenerator(Map<String, String> options) {
+        this.url = options.getOrDefault("url", "http://localhost:3001");
+        this.users = Integer.parseInt(options.getOrDefault("users", "100"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        this.msgRate = Double.parseDouble(options.getOrDefault("msgRate", "0.5"));
+        this.churnPerMinute = Double.parseDouble(options.getOrDefault("churn", "1"));
+        this.rampUpSeconds = Integer.parseInt(options.getOrDefault("rampUp", "10"));
+        this.sessionTokens = BenchUsers.loadSessionTokens(options.get("tokens"));
+
+        // 모든 가상 사용자가 OkHttpClient 하나를 공유 (스레드/커넥션 풀 공유)
+        // WebSocket은 연결 동안 디스패처 슬롯을 점유하므로 기본 제한(64, 호스트당 5)을 사용자 수에 맞춤
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(users * 2 + 16);
+        dispatcher.setMaxRequestsPerHost(users * 2 + 16);
+        this.http = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .readTimeout(1, TimeUnit.MINUTES)
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new ConcurrentHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        ChatLoadGenerator generator = new ChatLoadGenerator(options);
+        boolean ok = generator.run();
+        System.exit(ok ? 0 : 1);
+    }
+
+    boolean run() throws InterruptedException {
+        System.out.printf("부하 생성: %s, 사용자 %d명, %d초, 사용자당 %.2f msg/s, 분당 접속 종료 %.1f회%n",
+            url, users, durationSeconds, msgRate, churnPerMinute);
+
+        long rampDelayNanos = users > 0 ? TimeUnit.SECONDS.toNanos(rampUpSeconds) / users : 0;
+        for (int i = 0; i < users; i++) {
+            SimUser user = new SimUser(i);
+            simUsers.add(user);
+            scheduler.schedule(user::connect, rampDelayNanos * i, TimeUnit.NANOSECONDS);
+        }
+        scheduler.scheduleAtFixedRate(this::churn, 1, 1, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(rampUpSeconds + durationSeconds));
+        running = false;
+        for (SimUser user : simUsers) {
+            user.close();
+        }
+        scheduler.shutdownNow();
+        http.dispatcher().executorService().shutdown();
+        http.connectionPool().evictAll();
+        return summary();
+    }
+
+    /**
+     * 매 초 사용자마다 churnPerMinute/60 확률로 접속 종료 후 1~3초 뒤 재접속
+     */
+    private void churn() {
+        double p = churnPerMinute / 60.0;
+        if (p <= 0) return;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (SimUser user : simUsers) {
+            if (user.isConnected() && random.nextDouble() < p) {
+                user.disconnectAndReconnect(1000 + random.nextInt(2000));
+            }
+        }
+    }
+
+    private long lastSent;
+    private long lastReceived;
+
+    private void report() {
+        long s = sent.sum();
+        long r = received.sum();
+        System.out.printf("[진행] 접속 %d, 매칭 %d, 보냄 %.0f/s, 받음 %.0f/s, RTT(us) %s, 오류 %d%n",
+            connected.get(), matched.get(),
+            (s - lastSent) / (double) REPORT_INTERVAL_SECONDS, (r - lastReceived) / (double) REPORT_INTERVAL_SECONDS,
+            rttMicros.snapshot(), errorCount());
+        lastSent = s;
+        lastReceived = r;
+    }
+
+    private long errorCount() {
+        return connectErrors.sum() + unexpectedDisconnects.sum();
+    }
+
+    private boolean summary() {
+        Histogram.Snapshot match = matchLatencyMillis.snapshot();
+        Histogram.Snapshot rtt = rttMicros.snapshot();
+        long attempts = connects.sum() + connectErrors.sum();
+        double errorRate = attempts == 0 ? 0 : (double) errorCount() / attempts;
+        double sendSkipRate = (sent.sum() + sendSkipped.sum()) == 0 ? 0
+            : (double) sendSkipped.sum() / (sent.sum() + sendSkipped.sum());
+
+        System.out.println("═══════════════ 결과 ═══════════════");
+        System.out.printf("접속 %d회, 접속 실패 %d회, 비정상 종료 %d회 (오류율 %.2f%%)%n",
+            connects.sum(), connectErrors.sum(), unexpectedDisconnects.sum(), errorRate * 100);
+        System.out.printf("매칭 %d회, 매칭 지연(ms) p50=%d p90=%d p99=%d max=%d%n",
+            matches.sum(), match.p50, match.p90, match.p99, match.max);
+        System.out.printf("메시지 보냄 %d, 받음 %d, 상대 종료 %d, 보내기 건너뜀 %.2f%%%n",
+            sent.sum(), received.sum(), partnerDisconnects.sum(), sendSkipRate * 100);
+        System.out.printf("RTT(us) p50=%d p90=%d p99=%d max=%d (%d건)%n", rtt.p50, rtt.p90, rtt.p99, rtt.max, rtt.count);
+        return connects.sum() > 0 && errorRate < 0.01;
+    }
+
+    /**
+     * 가상 사용자 한 명
+     */
+    private final class SimUser {
+        private final int index;
+        private final String username;
+        private final String sessionToken;
+        private volatile Socket socket;
+        private volatile boolean isConnected;
+        private volatile boolean isMatched;
+        private volatile boolean closing;
+        private volatile long matchStartNanos;
+        private final AtomicInteger seq = new AtomicInteger();
+        // 매칭될 때마다 증가, 매칭이 끝나면(상대 종료/접속 종료) 증가: 이전 매칭의 메시지 예약은 값이 달라 멈춤
+        private final AtomicInteger matchGeneration = new AtomicInteger();
+
+        SimUser(int index) {
+            this.index = index;
+            this.username = "load" + index;
+            this.sessionToken = BenchUsers.sessionToken(sessionTokens, username);
+        }
+
+        boolean isConnected() {
+            return isConnected;
+        }
+
+        void connect() {
+            if (!running) return;
+            IO.Options options = IO.Options.builder()
+                .setTransports(new String[]{"websocket"})
+                .setReconnection(false)
+                .setForceNew(true)
+                .setTimeout(20000)
+                .build();
+            options.callFactory = http;
+            options.webSocketFactory = http;
+
+            Socket s = IO.socket(java.net.URI.create(url), options);
+            s.on(Socket.EVENT_CONNECT, args -> {
+                isConnected = true;
+                connected.incrementAndGet();
+                connects.increment();
+                s.emit("registerUsername", sessionToken);
+                startMatching(s);
+            });
+            s.on(Socket.EVENT_CONNECT_ERROR, args -> {
+                connectErrors.increment();
+                if (running && !closing) {
+                    scheduler.schedule(this::connect, 2, TimeUnit.SECONDS);
+                }
+            });
+            s.on(Socket.EVENT_DISCONNECT, args -> {
+                matchGeneration.incrementAndGet();
+                if (isConnected) connected.decrementAndGet();
+                if (isMatched) matched.decrementAndGet();
+                isConnected = false;
+                isMatched = false;
+                if (running && !closing) {
+                    unexpectedDisconnects.increment();
+                    scheduler.schedule(this::connect, 1, TimeUnit.SECONDS);
+                }
+            });
+            s.on("matched", args -> {
+                matchLatencyMillis.record((System.nanoTime() - matchStartNanos) / 1_000_000);
+                matches.increment();
+                if (!isMatched) matched.incrementAndGet();
+                isMatched = true;
+                scheduleNextMessage(matchGeneration.incrementAndGet());
+            });
+            s.on("partnerDisconnected", args -> {
+                matchGeneration.incrementAndGet();
+                partnerDisconnects.increment();
+                if (isMatched) matched.decrementAndGet();
+                isMatched = false;
+                startMatching(s);
+            });
+            s.on("receiveMessage", args -> onMessage(s, args));
+            socket = s;
+            closing = false;
+            s.connect();
+        }
+
+        private void startMatching(Socket s) {
+            matchStartNanos = System.nanoTime();
+            s.emit("startMatching");
+        }
+
+        private void onMessage(Socket s, Object[] args) {
+            received.increment();
+            try {
+                String text = new JSONObject(args[0].toString()).getString("text");
+                if (text.startsWith("ping:")) {
+                    s.emit("sendMessage", "pong:" + text.substring(5));
+                } else if (text.startsWith("pong:")) {
+                    // pong:보낸이:순번:시각
+                    String[] parts = text.split(":");
+                    if (parts.length == 4 && Integer.parseInt(parts[1]) == index) {
+                        rttMicros.record((System.nanoTime() - Long.parseLong(parts[3])) / 1000);
+                    }
+                }
+            } catch (Exception e) {
+                // 형식이 다른 메시지는 무시
+            }
+        }
+
+        /**
+         * 지수 분포 간격으로 다음 메시지 예약 (평균 msgRate/s, 매칭 하나당 예약 체인 하나)
+         */
+        private void scheduleNextMessage(int generation) {
+            if (msgRate <= 0 || !running) return;
+            double u = ThreadLocalRandom.current().nextDouble();
+            long delayMicros = (long) (-Math.log(1 - u) / msgRate * 1_000_000);
+            scheduler.schedule(() -> sendPing(generation), delayMicros, TimeUnit.MICROSECONDS);
+        }
+
+        private void sendPing(int generation) {
+            if (!running || generation != matchGeneration.get()) return; // 끝난 매칭의 예약 (다음 matched에서 새로 예약)
+            Socket s = socket;
+            if (s == null || !isConnected || !isMatched) {
+                sendSkipped.increment();
+                return; // 다음 matched 이벤트에서 다시 예약
+            }
+            s.emit("sendMessage", "ping:" + index + ":" + seq.incrementAndGet() + ":" + System.nanoTime());
+            sent.increment();
+            scheduleNextMessage(generation);
+        }
+
+        void disconnectAndReconnect(long delayMillis) {
+            matchGeneration.incrementAndGet();
+            closing = true;
+            Socket s = socket;
+            if (s != null) s.disconnect();
+            if (isConnected) connected.decrementAndGet();
+            if (isMatched) matched.decrementAndGet();
+            isConnected = false;
+            isMatched = false;
+            scheduler.schedule(this::connect, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void close() {
+            closing = true;
+            Socket s = socket;
+            if (s != null) s.disconnect();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.swingauth.bench;
+
+import com.swingauth.chat.server.ChatRelayCodec;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅 중계 메시지 인코딩: 기존 방식(SimpleDateFormat + JSONObject) vs ChatRelayCodec
+ * 메시지당 할당량은 GC 프로파일러로 확인 (gc.alloc.rate.norm = 메시지당 바이트):
+ *   java -cp target/swing-mongo-auth-0.0.1-SNAPSHOT.jar org.openjdk.jmh.Main ChatRelayCodec -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatRelayCodecBenchmark {
+
+    @Param({"short", "long", "escaped"})
+    public String kind;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        switch (kind) {
+            case "long":
+                text = "안녕하세요 반갑습니다. ".repeat(20);
+                break;
+            case "escaped":
+                text = "he said \"hi\"\n<script>alert('x')</script>\\";
+                break;
+            default:
+                text = "안녕하세요!";
+        }
+    }
+
+    @Benchmark
+    public String legacy() {
+        JSONObject messageData = new JSONObject();
+        messageData.put("text", text);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        messageData.put("timestamp", sdf.format(new Date()));
+        return messageData.toString();
+    }
+
+    @Benchmark
+    public String codec() {
+        return ChatRelayCodec.encode(text);
+    }
+}
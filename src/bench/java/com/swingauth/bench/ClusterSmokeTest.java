@@ -0,0 +1,119 @@
+package com.swingauth.bench;
+
+import com.swingauth.cluster.ClusterBackends;
+import com.swingauth.cluster.ClusterBrokerServer;
+import com.swingauth.cluster.ClusterMatchBridge;
+import com.swingauth.cluster.ClusterWaiter;
+import com.swingauth.cluster.TcpClusterBackend;
+import com.swingauth.matching.MatchPolicy;
+import com.swingauth.matching.Matchmaker;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 한 머신에서 JVM 여러 개로 노드 간 매칭/중계 확인
+ * - 브로커를 띄우고 노드 JVM 2개를 실행, 노드마다 대기자 1명씩 넣음
+ * - 두 대기자가 서로 다른 노드인데도 매칭되고, RTC 메시지가 상대 노드까지 전달되면 성공 (종료 코드 0)
+ *
+ * 실행 (노드 JVM이 같은 클래스패스를 쓰므로 exec:java 대신 java로 직접 실행):
+ *   mvn -Pbench compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ *   java -cp target/classes:$(cat cp.txt) com.swingauth.bench.ClusterSmokeTest
+ */
+public class ClusterSmokeTest {
+    private static final long TIMEOUT_SECONDS = 30;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "node".equals(args[0])) {
+            runNode(Integer.parseInt(args[1]), args[2], args[3]);
+            return;
+        }
+
+        // 이번 실행에서만 쓰는 공유 비밀값 (노드 JVM에는 환경 변수로 전달)
+        String secret = UUID.randomUUID().toString();
+        ClusterBrokerServer broker = new ClusterBrokerServer(ClusterBackends.DEFAULT_BROKER_HOST, 0, secret);
+        broker.start();
+
+        List<Process> nodes = new ArrayList<>();
+        CountDownLatch relayed = new CountDownLatch(2);
+        for (String node : new String[]{"node-a", "node-b"}) {
+            ProcessBuilder builder = new ProcessBuilder(
+                System.getProperty("java.home") + "/bin/java",
+                "-cp", System.getProperty("java.class.path"),
+                ClusterSmokeTest.class.getName(), "node", String.valueOf(broker.getPort()), node, "user-" + node)
+                .redirectErrorStream(true);
+            builder.environment().put("CLUSTER_SECRET", secret);
+            Process process = builder.start();
+            nodes.add(process);
+            Thread pump = new Thread(() -> {
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        System.out.println("[" + node + "] " + line);
+                        if (line.startsWith("RELAYED ")) relayed.countDown();
+                    }
+                } catch (Exception ignored) {
+                }
+            });
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        boolean ok = relayed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (Process process : nodes) {
+            process.destroy();
+        }
+        broker.stop();
+        System.out.println(ok ? "성공: 노드 간 매칭과 메시지 중계 확인" : "실패: 제한 시간 안에 중계 메시지를 받지 못함");
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * 노드 하나: 대기자 1명을 로컬 매칭 엔진에 넣고 바로 공용 대기열로 넘김
+     */
+    private static void runNode(int brokerPort, String nodeId, String user) throws Exception {
+        TcpClusterBackend backend = new TcpClusterBackend(ClusterBackends.DEFAULT_BROKER_HOST, brokerPort, nodeId,
+            ClusterBackends.sharedSecret());
+        Matchmaker<String> matchmaker = new Matchmaker<>(nodeId, 1, 1000,
+            MatchPolicy.of(u -> true, (a, b) -> false, MatchPolicy.fifo()),
+            (a, b) -> System.out.println("LOCAL " + a + " " + b));
+        CountDownLatch done = new CountDownLatch(1);
+
+        AtomicReference<ClusterMatchBridge<String>> bridge = new AtomicReference<>();
+        bridge.set(new ClusterMatchBridge<>(backend, "smoke", matchmaker, u -> true, u -> u, (a, b) -> false, 0,
+            new ClusterMatchBridge.Listener<>() {
+                @Override
+                public void onLocalMatched(String first, String second) {
+                    System.out.println("LOCAL " + first + " " + second);
+                }
+
+                @Override
+                public void onRemoteMatched(String pairId, String local, ClusterWaiter remote) {
+                    System.out.println("MATCHED " + local + " <-> " + remote.getUsername() + "@" + remote.getNodeId());
+                    bridge.get().relay(remote.getNodeId(), new JSONObject()
+                        .put("type", "rtc").put("pairId", pairId).put("message", "offer from " + local));
+                }
+
+                @Override
+                public void onRelay(String fromNode, JSONObject message) {
+                    System.out.println("RELAYED " + message.optString("message") + " (from " + fromNode + ")");
+                    done.countDown();
+                }
+            }));
+
+        matchmaker.enqueue(user, user, null);
+        done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        bridge.get().shutdown();
+        matchmaker.shutdown();
+        backend.close();
+    }
+}
@@ -0,0 +1,101 @@
+package com.swingauth.bench;
+
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로그 출력 처리량: 기존 방식(System.out.println + 문자열 연결) vs 비동기 Logger
+ * - 여러 스레드가 동시에 로그를 남기는 중계/매칭 경로를 흉내냄 (@Threads)
+ * - sink: null = 버리는 스트림 (락/문자열 조립 비용만), file = System.out과 같은 구성(128바이트 버퍼 + 줄마다 flush)의 파일
+ * - async* 는 호출 스레드가 버퍼에 넣는 비용만 측정. writer가 따라가지 못하면 로그를 버리므로
+ *   버린 건수(log_events_dropped_total)는 측정 후 표준 오류로 함께 출력
+ *   java -cp target/swing-mongo-auth-0.0.1-SNAPSHOT.jar org.openjdk.jmh.Main LoggingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final Logger log = Logger.get(LoggingBenchmark.class);
+    private static final Logger sampledLog = log.sampled(1000);
+
+    @Param({"null", "file"})
+    public String sink;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final String clientId = "5f0c6e0a-8d1b-4c55-9a51-2f7f3f1c9b10";
+    private final String partnerId = "0b9e6a3c-1f4d-4e2a-8c7b-6d5e4f3a2b1c";
+    private PrintStream originalOut;
+    private PrintStream sinkStream;
+    private File sinkFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        OutputStream target;
+        if ("file".equals(sink)) {
+            sinkFile = File.createTempFile("logging-bench", ".log");
+            target = new FileOutputStream(sinkFile);
+        } else {
+            target = OutputStream.nullOutputStream();
+        }
+        sinkStream = new PrintStream(new BufferedOutputStream(target, 128), true);
+        originalOut = System.out;
+        System.setOut(sinkStream);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        // writer가 남은 로그를 sink로 모두 내보낼 때까지 기다린 뒤 원래 스트림 복구
+        Thread.sleep(500);
+        System.setOut(originalOut);
+        sinkStream.close();
+        if (sinkFile != null) {
+            sinkFile.delete();
+        }
+        System.err.println(MetricRegistry.getInstance().scrape().lines()
+            .filter(line -> line.startsWith("log_events_"))
+            .reduce((a, b) -> a + ", " + b).orElse(""));
+    }
+
+    /**
+     * 기존 방식: 호출 스레드에서 문자열을 만들고 동기화된 PrintStream에 바로 출력
+     */
+    @Benchmark
+    public void println() {
+        System.out.println("메시지 전송 완료: " + clientId + " -> " + partnerId + " #" + sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public void asyncInfo() {
+        log.info("메시지 전송 완료: {} -> {} #{}", clientId, partnerId, sequence.incrementAndGet());
+    }
+
+    /**
+     * 메시지마다 발생하는 이벤트용 표본 로그 (1000건 중 1건)
+     */
+    @Benchmark
+    public void asyncSampled() {
+        sampledLog.info("메시지 전송 완료: {} -> {} #{}", clientId, partnerId, sequence.incrementAndGet());
+    }
+
+    /**
+     * 꺼진 레벨 (DEBUG): 레벨 비교만 하고 반환
+     */
+    @Benchmark
+    public void asyncDisabled() {
+        log.debug("메시지 전송 완료: {} -> {} #{}", clientId, partnerId, sequence.incrementAndGet());
+    }
+}
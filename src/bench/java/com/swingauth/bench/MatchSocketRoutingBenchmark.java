@@ -0,0 +1,102 @@
+package com.swingauth.bench;
+
+import com.swingauth.video.server.MatchManager;
+import com.swingauth.video.server.MatchSocket;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 영상통화 시그널링 메시지 라우팅(MatchSocket.onWebSocketText) 1건 처리 시간
+ * - 같은 방의 두 소켓을 가짜 Session(메모리)으로 연결하고, 한쪽이 보낸 메시지가 상대에게 전달되기까지 측정
+ * - message: rtcIce(짧은 ICE 후보), rtcOffer(약 2KB SDP), leaveQueue(JSON 파싱 경로)
+ * - DB를 쓰지 않는 경로만 측정 (registerUsername/submitRating은 로그 출력/DB 저장이 비용 대부분)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchSocketRoutingBenchmark {
+
+    @Param({"rtcIce", "rtcOffer", "leaveQueue"})
+    public String message;
+
+    private final LongAdder delivered = new LongAdder();
+    private MatchSocket caller;
+    private MatchSocket callee;
+    private MatchManager.Room room;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        caller = new MatchSocket();
+        callee = new MatchSocket();
+        caller.onWebSocketConnect(fakeSession(delivered));
+        callee.onWebSocketConnect(fakeSession(delivered));
+        room = MatchManager.getInstance().createRoom(caller, callee);
+
+        switch (message) {
+            case "rtcOffer":
+                text = "{\"type\":\"rtc.offer\",\"roomId\":\"" + room.roomId + "\",\"data\":{\"type\":\"offer\",\"sdp\":\""
+                    + "v=0\\r\\no=- 4611731400430051336 2 IN IP4 127.0.0.1\\r\\na=candidate:1 1 udp 2122260223 192.168.0.10 50000 typ host\\r\\n".repeat(20)
+                    + "\"}}";
+                break;
+            case "leaveQueue":
+                text = "{\"type\":\"leaveQueue\"}";
+                break;
+            default:
+                text = "{\"type\":\"rtc.ice\",\"roomId\":\"" + room.roomId + "\",\"data\":{\"candidate\":"
+                    + "\"candidate:1 1 udp 2122260223 192.168.0.10 50000 typ host\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MatchManager.getInstance().removeRoom(room.roomId);
+        caller.onWebSocketClose(1000, "bench");
+        callee.onWebSocketClose(1000, "bench");
+    }
+
+    @Benchmark
+    public long route() {
+        caller.onWebSocketText(text);
+        return delivered.sum();
+    }
+
+    /**
+     * 항상 열려 있고, 보낸 메시지 수만 세는 Session
+     */
+    private static Session fakeSession(LongAdder delivered) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+            RemoteEndpoint.class.getClassLoader(), new Class<?>[]{RemoteEndpoint.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("send")) delivered.increment();
+                return defaultValue(method.getReturnType());
+            });
+        return (Session) Proxy.newProxyInstance(
+            Session.class.getClassLoader(), new Class<?>[]{Session.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getRemote":
+                        return remote;
+                    case "isOpen":
+                        return true;
+                    default:
+                        return defaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+}
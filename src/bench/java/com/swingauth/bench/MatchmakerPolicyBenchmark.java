@@ -0,0 +1,85 @@
+package com.swingauth.bench;
+
+import com.swingauth.bench.BenchUsers.FakeUser;
+import com.swingauth.matching.MatchPolicy;
+import com.swingauth.matching.Matchmaker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 영상통화(평점 우선)/랜덤채팅(선착순) 규칙별 매칭 엔진 처리량
+ * - exclusionRate: 임의의 두 참가자가 블랙리스트일 확률
+ *   (0.5처럼 높으면 예전 ChatServer의 poll/re-offer 방식은 같은 쌍을 계속 다시 꺼내며 돌 수 있음)
+ * - queued: 측정 전에 미리 채워 두는, 서로 모두 블랙리스트인 대기자 수 (도착 1건당 훑는 길이)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakerPolicyBenchmark {
+    private static final int BATCH = 1024;
+
+    @Param({"video", "chat"})
+    public String policy;
+
+    @Param({"0.01", "0.5"})
+    public double exclusionRate;
+
+    @Param({"0", "256"})
+    public int queued;
+
+    private Matchmaker<FakeUser> matchmaker;
+    private final AtomicLong matchedPairs = new AtomicLong();
+    private FakeUser[] users;
+    private String[] keys;
+    private long generation;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        MatchPolicy<FakeUser> base = "chat".equals(policy)
+            ? BenchUsers.fifo(exclusionRate)
+            : BenchUsers.rated(exclusionRate, 0);
+        // 미리 채운 대기자(id >= BATCH)는 서로, 그리고 누구와도 매칭 불가
+        MatchPolicy<FakeUser> withStuck = MatchPolicy.of(
+            base::isAlive,
+            (a, b) -> a.id >= BATCH || b.id >= BATCH || base.isExcluded(a, b),
+            base::score);
+        matchmaker = new Matchmaker<>("bench-" + policy, 1, 1000, withStuck,
+            (first, second) -> matchedPairs.incrementAndGet());
+
+        FakeUser[] all = BenchUsers.create(BATCH + queued);
+        users = new FakeUser[BATCH];
+        System.arraycopy(all, 0, users, 0, BATCH);
+        for (int i = BATCH; i < all.length; i++) {
+            matchmaker.enqueue("stuck:" + i, all[i], null);
+        }
+        keys = new String[BATCH];
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        generation++;
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = generation + ":" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        matchmaker.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long enqueueAndMatch() {
+        for (int i = 0; i < BATCH; i++) {
+            matchmaker.enqueue(keys[i], users[i], null);
+        }
+        BenchUsers.drainTo(matchmaker, keys, queued);
+        return matchedPairs.get();
+    }
+}
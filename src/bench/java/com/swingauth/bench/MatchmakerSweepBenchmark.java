@@ -0,0 +1,84 @@
+package com.swingauth.bench;
+
+import com.swingauth.bench.BenchUsers.FakeUser;
+import com.swingauth.matching.MatchPolicy;
+import com.swingauth.matching.Matchmaker;
+import com.swingauth.matching.Relaxation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 대기열 전체 재검사(MatchManager.tryMatch -> Matchmaker.sweep) 1회 소요 시간
+ * - queueSize: 대기 인원 (재검사는 대기자 쌍마다 규칙을 확인하므로 O(n^2))
+ * - blocked: 대기자들이 서로 매칭되지 못하는 이유
+ *   excluded = 모든 쌍이 블랙리스트 (제외 조건만 확인),
+ *   lowScore = 점수가 완화 기준 미달 (영상통화처럼 쌍마다 점수 계산)
+ * - 매칭이 일어나지 않으므로 매 측정마다 같은 대기열을 다시 훑음
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakerSweepBenchmark {
+
+    @Param({"16", "256", "2048"})
+    public int queueSize;
+
+    @Param({"excluded", "lowScore"})
+    public String blocked;
+
+    private Matchmaker<FakeUser> matchmaker;
+    private final AtomicLong queueNotifications = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean excluded = "excluded".equals(blocked);
+        MatchPolicy<FakeUser> rated = BenchUsers.rated(0, 0);
+        MatchPolicy<FakeUser> policy = MatchPolicy.of(u -> true, (a, b) -> excluded, rated::score);
+        // 평점(1~5)으로는 넘을 수 없는 기준 + 측정 중에는 완화/자동 재검사가 일어나지 않을 만큼 긴 SLA
+        Relaxation relaxation = new Relaxation(100.0, TimeUnit.HOURS.toMillis(1));
+        matchmaker = new Matchmaker<>("bench-sweep", 1, TimeUnit.HOURS.toMillis(1), policy, relaxation,
+            new Matchmaker.Listener<>() {
+                @Override
+                public void onMatched(FakeUser first, FakeUser second) {
+                    throw new IllegalStateException("매칭되면 안 되는 대기열입니다.");
+                }
+
+                @Override
+                public void onQueueChanged(int shard, List<FakeUser> shardWaiting, int totalWaiting) {
+                    queueNotifications.incrementAndGet();
+                }
+            });
+
+        FakeUser[] users = BenchUsers.create(queueSize);
+        for (FakeUser user : users) {
+            matchmaker.enqueue("waiting:" + user.id, user, null);
+        }
+        // 도착 처리가 모두 끝날 때까지 대기
+        while (queueNotifications.get() < queueSize) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        matchmaker.shutdown();
+    }
+
+    @Benchmark
+    public long sweep() {
+        long before = queueNotifications.get();
+        matchmaker.sweep();
+        long after;
+        while ((after = queueNotifications.get()) == before) {
+            Thread.onSpinWait();
+        }
+        return after;
+    }
+}
@@ -0,0 +1,77 @@
+package com.swingauth.bench;
+
+import com.swingauth.bench.BenchUsers.FakeUser;
+import com.swingauth.matching.Matchmaker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 샤드 수에 따른 매칭 처리량 (매칭 완료된 참가자 수/초)
+ * - 참가자는 regions 개 지역에 고르게 분포, 드물게(1%) 서로 매칭 불가인 쌍이 존재
+ * - scoreCost: 점수 계산 1회당 CPU 비용 (평점 조회 비용 모사, Blackhole.consumeCPU 토큰)
+ * - 코어 수까지 늘려보려면: -p shards=1,2,4,8,16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakerThroughputBenchmark {
+    private static final int BATCH = 4096;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"16"})
+    public int regions;
+
+    @Param({"0", "200"})
+    public int scoreCost;
+
+    private Matchmaker<FakeUser> matchmaker;
+    private final AtomicLong matchedPairs = new AtomicLong();
+    private FakeUser[] users;
+    private String[] keys;
+    private String[] regionKeys;
+    private long generation;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int shardCount = Math.min(shards, Runtime.getRuntime().availableProcessors());
+        matchmaker = new Matchmaker<>("bench", shardCount, 50,
+            BenchUsers.rated(0.01, scoreCost), (first, second) -> matchedPairs.incrementAndGet());
+
+        users = BenchUsers.create(BATCH);
+        regionKeys = new String[regions];
+        for (int i = 0; i < regions; i++) {
+            regionKeys[i] = "region-" + i;
+        }
+        keys = new String[BATCH];
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        generation++;
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = generation + ":" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        matchmaker.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long enqueueAndMatch() {
+        for (int i = 0; i < BATCH; i++) {
+            matchmaker.enqueue(keys[i], users[i], regionKeys[i % regionKeys.length]);
+        }
+        BenchUsers.drain(matchmaker, keys);
+        return matchedPairs.get();
+    }
+}
@@ -0,0 +1,79 @@
+package com.swingauth.bench;
+
+import com.swingauth.comment.Comment;
+import com.swingauth.model.Post;
+import com.swingauth.model.User;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MongoDB 문서 -> 모델 변환(fromDoc) 1건 소요 시간
+ * - 게시판 목록/댓글/로그인에서 조회 결과마다 호출되는 경로
+ * - 문서는 실제 컬렉션과 같은 필드 구성으로 메모리에서 생성 (DB 불필요)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelMappingBenchmark {
+
+    private Document postDoc;
+    private Document commentDoc;
+    private Document userDoc;
+
+    @Setup
+    public void setUp() {
+        Date now = new Date();
+        ObjectId postId = new ObjectId();
+        postDoc = new Document("_id", postId)
+            .append("board", "자유게시판")
+            .append("title", "오늘 잠실 날씨 어떤가요?")
+            .append("content", "퇴근길에 비 온다던데 우산 챙겨야 할까요? ".repeat(10))
+            .append("authorUsername", "user123")
+            .append("neighborhood", "서울특별시 송파구")
+            .append("createdAt", now)
+            .append("likesCount", 12);
+        commentDoc = new Document("_id", new ObjectId())
+            .append("postId", postId)
+            .append("authorUsername", "user456")
+            .append("content", "저녁부터 온다고 하네요.")
+            .append("createdAt", now);
+        userDoc = new Document("_id", new ObjectId())
+            .append("username", "user123")
+            .append("passwordHash", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2ZFUeNwHc5XLgk6l3Zk1C2e")
+            .append("createdAt", now)
+            .append("lastLoginAt", now)
+            .append("lastKnownIp", "192.168.0.10")
+            .append("lat", 37.5133)
+            .append("lon", 127.1001)
+            .append("country", "KR")
+            .append("region", "Seoul")
+            .append("city", "Songpa-gu")
+            .append("neighborhood", "Seoul Songpa-gu")
+            .append("videoCallCount", 31)
+            .append("videoTotalRating", 120)
+            .append("randomChatCount", 8)
+            .append("chatTotalRating", 33);
+    }
+
+    @Benchmark
+    public Post post() {
+        return Post.fromDoc(postDoc);
+    }
+
+    @Benchmark
+    public Comment comment() {
+        return Comment.fromDoc(commentDoc);
+    }
+
+    @Benchmark
+    public User user() {
+        return User.fromDoc(userDoc);
+    }
+}
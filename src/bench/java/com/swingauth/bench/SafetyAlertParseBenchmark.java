@@ -0,0 +1,61 @@
+package com.swingauth.bench;
+
+import com.swingauth.service.SafetyAlertService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 행안부 재난문자 API 응답 파싱(SafetyAlertService.parseMoisAlerts) 1회 소요 시간
+ * - 응답 본문은 실제 API와 같은 필드 구성으로 메모리에서 생성 (네트워크/DB 불필요)
+ * - items: 응답에 담긴 알림 수, region: 지역 키워드 필터 ("" = 전국)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SafetyAlertParseBenchmark {
+    private static final String[] AREAS = {
+        "서울특별시 송파구", "부산광역시 해운대구", "경기도 수원시", "충청남도 천안시", "제주특별자치도 제주시"
+    };
+
+    @Param({"30", "300"})
+    public int items;
+
+    @Param({"", "서울"})
+    public String region;
+
+    private String body;
+
+    @Setup
+    public void setUp() {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < items; i++) {
+            String crtDt = String.format("2024-01-%02d %02d:%02d:00", 1 + i % 28, i % 24, i % 60);
+            array.put(new JSONObject()
+                .put("SN", String.valueOf(200000 + i))
+                .put("MSG_CN", "오늘 " + (i % 24) + "시 호우경보 발효, 하천 주변 접근을 자제하시기 바랍니다.")
+                .put("RCPTN_RGN_NM", AREAS[i % AREAS.length])
+                .put("CRT_DT", crtDt)
+                .put("REG_YMD", crtDt.substring(0, 10))
+                .put("MDFCN_YMD", crtDt.substring(0, 10))
+                .put("EMRG_STEP_NM", i % 3 == 0 ? "안전안내" : "긴급재난")
+                .put("DST_SE_NM", "호우"));
+        }
+        body = new JSONObject()
+            .put("header", new JSONObject().put("resultCode", "00").put("resultMsg", "NORMAL SERVICE"))
+            .put("numOfRows", items)
+            .put("body", array)
+            .toString();
+    }
+
+    @Benchmark
+    public List<SafetyAlertService.Alert> parse() {
+        return SafetyAlertService.parseMoisAlerts(body, region);
+    }
+}
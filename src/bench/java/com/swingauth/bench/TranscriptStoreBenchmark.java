@@ -0,0 +1,68 @@
+package com.swingauth.bench;
+
+import com.swingauth.chat.transcript.TranscriptStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 대화 기록 저장소 처리량 (초당 디스크에 기록 완료된 메시지 수)
+ * - 배치만큼 append한 뒤 기록 스레드가 모두 쓸 때까지 대기
+ * - pairs: 동시에 대화 중인 쌍 수 (쌍별 색인 크기에 영향)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscriptStoreBenchmark {
+    private static final int BATCH = 8192;
+
+    @Param({"100", "10000"})
+    public int pairs;
+
+    private Path directory;
+    private TranscriptStore store;
+    private String[] users;
+    private long expected;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("transcript-bench");
+        store = new TranscriptStore(directory, 64 * 1024 * 1024, TimeUnit.DAYS.toMillis(1), BATCH * 2);
+        users = new String[pairs * 2];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = "user" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long appendAndPersist() {
+        for (int i = 0; i < BATCH; i++) {
+            int pair = i % pairs;
+            while (!store.append(users[pair * 2], users[pair * 2 + 1], "안녕하세요 메시지 " + i)) {
+                Thread.onSpinWait();
+            }
+        }
+        expected += BATCH;
+        while (store.getWrittenCount() < expected) {
+            Thread.onSpinWait();
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,443 @@
+package com.swingauth.bench;
+
+import com.swingauth.metrics.Histogram;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 영상통화 시그널링 서버(ServerLauncher /ws) 부하 생성기 (브라우저 없이 Jetty WebSocket 클라이언트 N개)
+ * - 사용자마다: 접속 -> hello 수신 -> registerUsername -> joinQueue -> matched
+ *   -> 발신자(userId가 작은 쪽)가 rtc.offer + rtc.ice 묶음 전송, 수신자는 rtc.answer + rtc.ice 묶음으로 응답
+ *   -> 통화 유지 후 발신자가 endCall -> 양쪽 평점 제출(submitRating) -> 잠시 후 다시 joinQueue
+ * - 측정: 대기열 등록~매칭 지연, offer~answer 중계 왕복 시간, ICE 단방향 중계 지연, 평점 응답 지연,
+ *   서버 쪽 실패(접속 실패, 비정상 종료, 전송 실패, answer/평점 응답 없음)
+ *   (같은 JVM에서 보내고 받으므로 System.nanoTime 비교 가능)
+ *
+ * 실행 (서버는 같은 머신에서 ServerLauncher로 실행):
+ *   java -cp target/classes:$(cat cp.txt) com.swingauth.bench.VideoLoadGenerator \
+ *     --url=ws://localhost:8080/ws --tokens=videoload-tokens.txt --users=1000 --duration=60 --rampUp=10 --callSeconds=5
+ * 옵션:
+ *   url: 기본값은 ~/.video-call-server-port 에 저장된 포트 (없으면 8080),
+ *   users: 가상 사용자 수, duration: 측정 시간(초), rampUp: 전원 접속까지 걸리는 시간(초),
+ *   callSeconds: 평균 통화 시간(초), iceBurst: 한쪽이 보내는 ICE 후보 수, sdpBytes: 가짜 SDP 크기,
+ *   ratingProb: 통화 후 평점을 제출할 확률, thinkMillis: 통화 종료 후 다시 대기열에 들어가기까지 시간,
+ *   usernamePrefix: 가상 사용자 이름 접두사 (DB에 있는 계정을 쓰려면 prefix0, prefix1 ... 형태로 준비)
+ * 참고: registerUsername에는 --tokens 파일의 세션 토큰을 보냄 (서버에서 SessionTokenMain load-test <usernamePrefix> <users> <파일>로 생성)
+ */
+public class VideoLoadGenerator {
+    private static final long REPORT_INTERVAL_SECONDS = 5;
+    private static final long RESPONSE_TIMEOUT_MILLIS = 10_000; // answer/평점 응답이 이 시간 안에 없으면 실패
+
+    private final URI uri;
+    private final int users;
+    private final int durationSeconds;
+    private final int rampUpSeconds;
+    private final double callSeconds;
+    private final int iceBurst;
+    private final String fakeSdp;
+    private final double ratingProb;
+    private final long thinkMillis;
+    private final String usernamePrefix;
+    private final Map<String, String> sessionTokens;
+
+    private final WebSocketClient client = new WebSocketClient();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+            Thread t = new Thread(r, "load-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+    private final List<SimUser> simUsers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    // 측정값
+    private final Histogram matchLatencyMillis = new Histogram();
+    private final Histogram offerRttMicros = new Histogram();
+    private final Histogram iceLatencyMicros = new Histogram();
+    private final Histogram ratingLatencyMillis = new Histogram();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder unexpectedCloses = new LongAdder();
+    private final LongAdder socketErrors = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder answerTimeouts = new LongAdder();
+    private final LongAdder ratingTimeouts = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder signalingSent = new LongAdder();
+    private final LongAdder signalingReceived = new LongAdder();
+    private final LongAdder ratings = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger inCall = new AtomicInteger();
+
+    VideoLoadGenerator(Map<String, String> options) {
+        this.uri = URI.create(options.getOrDefault("url", "ws://localhost:" + savedServerPort() + "/ws"));
+        this.users = Integer.parseInt(options.getOrDefault("users", "200"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        this.rampUpSeconds = Integer.parseInt(options.getOrDefault("rampUp", "10"));
+        this.callSeconds = Double.parseDouble(options.getOrDefault("callSeconds", "5"));
+        this.iceBurst = Integer.parseInt(options.getOrDefault("iceBurst", "8"));
+        this.fakeSdp = "v=0 " + "a".repeat(Math.max(0, Integer.parseInt(options.getOrDefault("sdpBytes", "2000"))));
+        this.ratingProb = Double.parseDouble(options.getOrDefault("ratingProb", "0.8"));
+        this.thinkMillis = Long.parseLong(options.getOrDefault("thinkMillis", "1000"));
+        this.usernamePrefix = options.getOrDefault("usernamePrefix", "videoload");
+        this.sessionTokens = BenchUsers.loadSessionTokens(options.get("tokens"));
+
+        // 대기열에서 오래 기다려도 클라이언트 쪽에서 먼저 끊지 않도록
+        client.setIdleTimeout(Duration.ofMinutes(10));
+        client.setMaxTextMessageSize(1024 * 1024);
+    }
+
+    /**
+     * ServerLauncher가 저장한 포트 (~/.video-call-server-port), 없으면 8080
+     */
+    private static int savedServerPort() {
+        try {
+            Path portFile = Paths.get(System.getProperty("user.home"), ".video-call-server-port");
+            if (Files.exists(portFile)) {
+                return Integer.parseInt(Files.readAllLines(portFile).get(0).trim());
+            }
+        } catch (Exception e) {
+            // 기본 포트 사용
+        }
+        return 8080;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        VideoLoadGenerator generator = new VideoLoadGenerator(options);
+        boolean ok = generator.run();
+        System.exit(ok ? 0 : 1);
+    }
+
+    boolean run() throws Exception {
+        System.out.printf("부하 생성: %s, 사용자 %d명, %d초, 평균 통화 %.1f초, ICE %d개, SDP %dB%n",
+            uri, users, durationSeconds, callSeconds, iceBurst, fakeSdp.length());
+        client.start();
+
+        long rampDelayNanos = users > 0 ? TimeUnit.SECONDS.toNanos(rampUpSeconds) / users : 0;
+        for (int i = 0; i < users; i++) {
+            SimUser user = new SimUser(i);
+            simUsers.add(user);
+            scheduler.schedule(user::connect, rampDelayNanos * i, TimeUnit.NANOSECONDS);
+        }
+        scheduler.scheduleAtFixedRate(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(rampUpSeconds + durationSeconds));
+        running = false;
+        for (SimUser user : simUsers) {
+            user.close();
+        }
+        scheduler.shutdownNow();
+        try {
+            client.stop();
+        } catch (Exception e) {
+            // 종료 중 오류는 결과에 영향 없음
+        }
+        return summary();
+    }
+
+    private long lastMatches;
+    private long lastSignaling;
+
+    private void report() {
+        long m = matches.sum();
+        long s = signalingReceived.sum();
+        System.out.printf("[진행] 접속 %d, 통화 중 %d, 매칭 %.1f/s, 시그널링 수신 %.0f/s, offer RTT(us) %s, 실패 %d%n",
+            connected.get(), inCall.get(),
+            (m - lastMatches) / (double) REPORT_INTERVAL_SECONDS, (s - lastSignaling) / (double) REPORT_INTERVAL_SECONDS,
+            offerRttMicros.snapshot(), failureCount());
+        lastMatches = m;
+        lastSignaling = s;
+    }
+
+    private long failureCount() {
+        return connectErrors.sum() + unexpectedCloses.sum() + socketErrors.sum() + sendFailures.sum()
+            + answerTimeouts.sum() + ratingTimeouts.sum();
+    }
+
+    private boolean summary() {
+        Histogram.Snapshot match = matchLatencyMillis.snapshot();
+        Histogram.Snapshot offer = offerRttMicros.snapshot();
+        Histogram.Snapshot ice = iceLatencyMicros.snapshot();
+        Histogram.Snapshot rating = ratingLatencyMillis.snapshot();
+        long operations = connects.sum() + connectErrors.sum() + signalingSent.sum() + ratings.sum();
+        double failureRate = operations == 0 ? 0 : (double) failureCount() / operations;
+
+        System.out.println("═══════════════ 결과 ═══════════════");
+        System.out.printf("접속 %d회, 접속 실패 %d회, 비정상 종료 %d회, 소켓 오류 %d회, 전송 실패 %d회%n",
+            connects.sum(), connectErrors.sum(), unexpectedCloses.sum(), socketErrors.sum(), sendFailures.sum());
+        System.out.printf("매칭 %d회, 통화 종료 %d회, 매칭 지연(ms) p50=%d p90=%d p99=%d max=%d%n",
+            matches.sum(), calls.sum(), match.p50, match.p90, match.p99, match.max);
+        System.out.printf("시그널링 보냄 %d, 받음 %d, answer 없음 %d%n",
+            signalingSent.sum(), signalingReceived.sum(), answerTimeouts.sum());
+        System.out.printf("offer->answer RTT(us) p50=%d p90=%d p99=%d max=%d (%d건)%n",
+            offer.p50, offer.p90, offer.p99, offer.max, offer.count);
+        System.out.printf("ICE 중계 지연(us) p50=%d p90=%d p99=%d max=%d (%d건)%n",
+            ice.p50, ice.p90, ice.p99, ice.max, ice.count);
+        System.out.printf("평점 %d건, 응답 없음 %d건, 응답 지연(ms) p50=%d p99=%d max=%d%n",
+            ratings.sum(), ratingTimeouts.sum(), rating.p50, rating.p99, rating.max);
+        System.out.printf("실패율 %.2f%%%n", failureRate * 100);
+        return connects.sum() > 0 && failureRate < 0.01;
+    }
+
+    /**
+     * 가상 사용자 한 명 (Jetty가 세션별 메시지를 순서대로 전달하고, 예약 작업과의 경합은 synchronized로 처리)
+     */
+    private final class SimUser implements WebSocketListener {
+        private final int index;
+        private final String username;
+        private final String sessionToken;
+        private volatile Session session;
+        private volatile boolean closing;
+
+        private String userId;
+        private String roomId;
+        private String partnerUsername;
+        private long joinNanos;
+        private long offerNanos;     // 보낸 offer의 시각 (answer 받으면 0)
+        private long ratingNanos;    // 보낸 평점의 시각 (응답 받으면 0)
+        private int callSeq;
+
+        SimUser(int index) {
+            this.index = index;
+            this.username = usernamePrefix + index;
+            this.sessionToken = BenchUsers.sessionToken(sessionTokens, username);
+        }
+
+        void connect() {
+            if (!running) return;
+            closing = false;
+            try {
+                client.connect(this, uri).whenComplete((s, error) -> {
+                    if (error != null) {
+                        connectErrors.increment();
+                        if (running) scheduler.schedule(this::connect, 2, TimeUnit.SECONDS);
+                    }
+                });
+            } catch (Exception e) {
+                connectErrors.increment();
+                if (running) scheduler.schedule(this::connect, 2, TimeUnit.SECONDS);
+            }
+        }
+
+        void close() {
+            closing = true;
+            Session s = session;
+            if (s != null && s.isOpen()) s.close();
+        }
+
+        @Override
+        public void onWebSocketConnect(Session session) {
+            this.session = session;
+            connected.incrementAndGet();
+            connects.increment();
+        }
+
+        @Override
+        public synchronized void onWebSocketText(String message) {
+            JSONObject json;
+            try {
+                json = new JSONObject(message);
+            } catch (Exception e) {
+                return;
+            }
+            long now = System.nanoTime();
+            switch (json.optString("type")) {
+                case "hello":
+                    userId = json.optString("userId");
+                    send(new JSONObject().put("type", "registerUsername").put("username", username).put("token", sessionToken));
+                    joinQueue();
+                    break;
+                case "matched":
+                    onMatched(json, now);
+                    break;
+                case "rtc.offer": {
+                    signalingReceived.increment();
+                    JSONObject data = json.getJSONObject("data");
+                    send(new JSONObject().put("type", "rtc.answer").put("roomId", roomId)
+                        .put("data", new JSONObject().put("type", "answer").put("sdp", fakeSdp)
+                            .put("offerAt", data.getLong("sentAt"))));
+                    sendIceBurst();
+                    break;
+                }
+                case "rtc.answer":
+                    signalingReceived.increment();
+                    if (offerNanos != 0) {
+                        offerRttMicros.record((now - json.getJSONObject("data").getLong("offerAt")) / 1000);
+                        offerNanos = 0;
+                    }
+                    break;
+                case "rtc.ice": {
+                    signalingReceived.increment();
+                    JSONObject data = json.optJSONObject("data");
+                    if (data != null) iceLatencyMicros.record((now - data.getLong("sentAt")) / 1000);
+                    break;
+                }
+                case "callEnded":
+                    endCall(false);
+                    break;
+                case "ratingSubmitted":
+                    if (ratingNanos != 0) {
+                        ratingLatencyMillis.record((now - ratingNanos) / 1_000_000);
+                        ratingNanos = 0;
+                    }
+                    break;
+                default:
+                    // enqueued 등 대기열 상태 메시지는 무시
+                    break;
+            }
+        }
+
+        private void joinQueue() {
+            if (!running || closing) return;
+            joinNanos = System.nanoTime();
+            send(new JSONObject().put("type", "joinQueue"));
+        }
+
+        private void onMatched(JSONObject json, long now) {
+            matchLatencyMillis.record((now - joinNanos) / 1_000_000);
+            matches.increment();
+            inCall.incrementAndGet();
+            roomId = json.getString("roomId");
+            partnerUsername = json.optString("partnerUsername");
+            int call = ++callSeq;
+
+            // 브라우저와 같은 규칙: userId가 사전순으로 작은 쪽이 offer를 보냄
+            String peerId = json.optString("peerId");
+            if (userId != null && userId.compareTo(peerId) < 0) {
+                offerNanos = now;
+                send(new JSONObject().put("type", "rtc.offer").put("roomId", roomId)
+                    .put("data", new JSONObject().put("type", "offer").put("sdp", fakeSdp).put("sentAt", now)));
+                sendIceBurst();
+                scheduler.schedule(() -> checkAnswer(call), RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+                double u = ThreadLocalRandom.current().nextDouble();
+                long holdMillis = (long) (-Math.log(1 - u) * callSeconds * 1000);
+                scheduler.schedule(() -> hangUp(call), holdMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void sendIceBurst() {
+            for (int i = 0; i < iceBurst; i++) {
+                send(new JSONObject().put("type", "rtc.ice").put("roomId", roomId)
+                    .put("data", new JSONObject()
+                        .put("candidate", "candidate:" + i + " 1 udp 2122260223 10.0.0." + (index % 250) + " " + (50000 + i) + " typ host")
+                        .put("sdpMid", "0").put("sentAt", System.nanoTime())));
+            }
+        }
+
+        private synchronized void checkAnswer(int call) {
+            if (call == callSeq && offerNanos != 0) {
+                answerTimeouts.increment();
+                offerNanos = 0;
+            }
+        }
+
+        private synchronized void hangUp(int call) {
+            if (call != callSeq || roomId == null) return;
+            send(new JSONObject().put("type", "endCall").put("roomId", roomId));
+            endCall(true);
+        }
+
+        /**
+         * 통화 종료 처리: 평점 제출 후 잠시 뒤 다시 대기열에 들어감
+         */
+        private void endCall(boolean initiator) {
+            if (roomId == null) return;
+            roomId = null;
+            offerNanos = 0;
+            inCall.decrementAndGet();
+            if (initiator) calls.increment();
+
+            if (ThreadLocalRandom.current().nextDouble() < ratingProb && partnerUsername != null) {
+                long sentAt = System.nanoTime();
+                ratingNanos = sentAt;
+                ratings.increment();
+                send(new JSONObject().put("type", "submitRating")
+                    .put("currentUsername", username).put("partnerUsername", partnerUsername)
+                    .put("rating", 1 + ThreadLocalRandom.current().nextInt(5)).put("serviceType", "randomVideo"));
+                scheduler.schedule(() -> checkRating(sentAt), RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            scheduler.schedule(this::rejoin, thinkMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void checkRating(long sentAt) {
+            if (ratingNanos == sentAt) {
+                ratingTimeouts.increment();
+                ratingNanos = 0;
+            }
+        }
+
+        private synchronized void rejoin() {
+            if (roomId == null) joinQueue();
+        }
+
+        private void send(JSONObject message) {
+            Session s = session;
+            if (s == null || !s.isOpen()) {
+                if (!closing && running) sendFailures.increment();
+                return;
+            }
+            String type = message.getString("type");
+            if (type.startsWith("rtc.")) signalingSent.increment();
+            s.getRemote().sendString(message.toString(), new WriteCallback() {
+                @Override
+                public void writeFailed(Throwable x) {
+                    if (!closing && running) sendFailures.increment();
+                }
+            });
+        }
+
+        @Override
+        public synchronized void onWebSocketClose(int statusCode, String reason) {
+            connected.decrementAndGet();
+            if (roomId != null) {
+                roomId = null;
+                inCall.decrementAndGet();
+            }
+            offerNanos = 0;
+            ratingNanos = 0;
+            session = null;
+            if (running && !closing) {
+                unexpectedCloses.increment();
+                scheduler.schedule(this::connect, 1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            if (running && !closing) socketErrors.increment();
+        }
+
+        @Override
+        public void onWebSocketBinary(byte[] payload, int offset, int len) {
+            // 시그널링은 텍스트 메시지만 사용
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.swingauth;
+
+import com.swingauth.cluster.ClusterBackends;
+import com.swingauth.cluster.ClusterBrokerServer;
+
+/**
+ * 다중 노드 구성용 공유 상태 브로커 실행
+ * 각 서버 노드는 -Dcluster.mode=tcp -Dcluster.broker=host:port 로 접속
+ * 브로커와 노드 모두 같은 -Dcluster.secret (CLUSTER_SECRET) 필요, 대기 주소는 -Dcluster.brokerHost (기본 127.0.0.1)
+ */
+public class ClusterBrokerMain {
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : ClusterBackends.DEFAULT_BROKER_PORT;
+        System.out.println("=== 클러스터 브로커 시작 ===");
+
+        try {
+            ClusterBrokerServer broker = new ClusterBrokerServer(
+                ClusterBackends.brokerBindHost(), port, ClusterBackends.sharedSecret());
+            broker.start();
+            System.out.println("브로커를 종료하려면 Ctrl+C를 누르세요.");
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                System.out.println("\n브로커 종료 중...");
+                broker.stop();
+            }));
+
+            Thread.currentThread().join();
+        } catch (Exception e) {
+            System.err.println("클러스터 브로커 시작 실패: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.swingauth;
+
+import com.swingauth.service.ModerationQueue;
+
+import java.util.List;
+
+/**
+ * 신고 처리 대기열 관리 작업 실행
+ * - top [k]            : 최근 신고가 많은 사용자 상위 k명 (기본 20명)
+ * - dismiss <username> : 처리한 사용자를 대기열에서 뺌
+ * - backfill           : 대기열에 반영되지 않은 신고만 더하기 (실행 중에도 안전)
+ * - rebuild            : reports 전체로 대기열 다시 만들기 (실행 중에 들어온 신고를 덮어쓸 수 있음)
+ */
+public class ModerationMain {
+    private static final int DEFAULT_TOP = 20;
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            switch (args[0]) {
+                case "top": {
+                    int k = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TOP;
+                    List<ModerationQueue.Entry> entries = ModerationQueue.top(k);
+                    System.out.println("=== 신고 처리 대기열 상위 " + k + "명 ===");
+                    for (int i = 0; i < entries.size(); i++) {
+                        System.out.println((i + 1) + ". " + entries.get(i));
+                    }
+                    if (entries.isEmpty()) {
+                        System.out.println("대기 중인 사용자가 없습니다.");
+                    }
+                    break;
+                }
+                case "dismiss":
+                    if (args.length < 2) {
+                        printUsage();
+                        System.exit(1);
+                    }
+                    boolean removed = ModerationQueue.dismiss(args[1]);
+                    System.out.println(removed ? "대기열에서 뺌: " + args[1] : "대기열에 없음: " + args[1]);
+                    break;
+                case "backfill": {
+                    long startMillis = System.currentTimeMillis();
+                    ModerationQueue.backfill();
+                    System.out.println("미반영 신고 반영 완료: " + (System.currentTimeMillis() - startMillis) + "ms");
+                    break;
+                }
+                case "rebuild": {
+                    long startMillis = System.currentTimeMillis();
+                    ModerationQueue.rebuild();
+                    System.out.println("대기열 재생성 완료: " + (System.currentTimeMillis() - startMillis) + "ms");
+                    break;
+                }
+                default:
+                    printUsage();
+                    System.exit(1);
+            }
+        } catch (Exception e) {
+            System.err.println("신고 처리 대기열 작업 실패: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0); // MongoDB 클라이언트 스레드가 남아 있어도 종료
+    }
+
+    private static void printUsage() {
+        System.out.println("사용법: ModerationMain <명령>");
+        System.out.println("  top [k]             최근 신고가 많은 사용자 상위 k명 (기본 " + DEFAULT_TOP + "명)");
+        System.out.println("  dismiss <username>  처리한 사용자를 대기열에서 뺌");
+        System.out.println("  backfill            대기열에 반영되지 않은 신고만 더하기");
+        System.out.println("  rebuild             reports 전체로 대기열 다시 만들기");
+    }
+}
@@ -0,0 +1,86 @@
+package com.swingauth;
+
+import com.swingauth.service.DataMigrations;
+import com.swingauth.util.RatingUtil;
+
+/**
+ * 평점 집계 관리 작업 실행
+ * - rebuild [묶음크기] [--restart] : 모든 사용자의 평균 평점 재계산 (중단되면 다시 실행 시 이어서 진행)
+ * - recalc <username>           : 한 사용자의 평균 평점 재계산
+ * - reset-all                   : 모든 평균 평점 삭제 (이후 rebuild로 다시 만들 수 있음)
+ * - show <user1> <user2>        : 두 사용자의 평균 평점 조회 (username 또는 ObjectId)
+ * - migrate                     : 적용되지 않은 데이터 마이그레이션 실행 (평점 집계, 신고 처리 대기열)
+ */
+public class RatingMaintenanceMain {
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            switch (args[0]) {
+                case "rebuild": {
+                    int chunkSize = DEFAULT_CHUNK_SIZE;
+                    boolean restart = false;
+                    for (int i = 1; i < args.length; i++) {
+                        if ("--restart".equals(args[i])) {
+                            restart = true;
+                        } else {
+                            chunkSize = Integer.parseInt(args[i]);
+                        }
+                    }
+                    System.out.println("=== 평균 평점 전체 재계산 (묶음 " + chunkSize + "명" + (restart ? ", 처음부터" : "") + ") ===");
+                    long startMillis = System.currentTimeMillis();
+                    RatingUtil.RebuildProgress last = RatingUtil.rebuildAllAverageRatings(chunkSize, restart,
+                        progress -> System.out.println("진행: " + progress));
+                    System.out.println("재계산 완료: " + last.usersDone + "명, "
+                        + (System.currentTimeMillis() - startMillis) + "ms");
+                    break;
+                }
+                case "recalc":
+                    requireArgs(args, 2);
+                    boolean ok = RatingUtil.recalculateUserAverageRating(args[1]);
+                    System.out.println(ok ? "재계산 완료: " + args[1] : "재계산 실패 (사용자를 찾을 수 없음): " + args[1]);
+                    if (!ok) System.exit(1);
+                    break;
+                case "reset-all":
+                    System.out.println("삭제된 평균 평점 문서: " + RatingUtil.resetAllAverageRatings());
+                    break;
+                case "show":
+                    requireArgs(args, 3);
+                    System.out.print(RatingUtil.getTwoUsersAverageRatings(args[1], args[2]));
+                    break;
+                case "migrate":
+                    DataMigrations.applyPending();
+                    break;
+                default:
+                    printUsage();
+                    System.exit(1);
+            }
+        } catch (Exception e) {
+            System.err.println("평점 관리 작업 실패: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0); // MongoDB 클라이언트 스레드가 남아 있어도 종료
+    }
+
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            printUsage();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("사용법: RatingMaintenanceMain <명령>");
+        System.out.println("  rebuild [묶음크기] [--restart]  모든 사용자의 평균 평점 재계산 (기본 묶음 " + DEFAULT_CHUNK_SIZE + "명)");
+        System.out.println("  recalc <username>             한 사용자의 평균 평점 재계산");
+        System.out.println("  reset-all                     모든 평균 평점 삭제");
+        System.out.println("  show <user1> <user2>          두 사용자의 평균 평점 조회");
+        System.out.println("  migrate                       적용되지 않은 데이터 마이그레이션 실행");
+    }
+}
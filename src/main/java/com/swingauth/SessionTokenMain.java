@@ -0,0 +1,110 @@
+package com.swingauth;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.swingauth.db.Mongo;
+import com.swingauth.service.SessionTokens;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.io.BufferedWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+/**
+ * 세션 토큰 관리 작업 실행 (서명 키가 있는 서버 쪽에서만 실행)
+ * - issue <username>                   : 계정의 세션 토큰 출력
+ * - load-test <접두사> <인원> <파일>   : 부하 생성기용 토큰 파일 만들기 (한 줄에 "username<탭>token")
+ *   접두사0, 접두사1 ... 계정이 DB에 있으면 그 _id, 없으면 username에서 만든 고정 _id로 발급
+ *   (ChatLoadGenerator/VideoLoadGenerator --tokens=<파일>로 전달)
+ */
+public class SessionTokenMain {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            SessionTokens tokens = SessionTokens.getInstance();
+            switch (args[0]) {
+                case "issue": {
+                    requireArgs(args, 2);
+                    Document user = findUser(args[1]);
+                    if (user == null) {
+                        System.out.println("사용자를 찾을 수 없음: " + args[1]);
+                        System.exit(1);
+                    }
+                    System.out.println(tokens.issue(user));
+                    break;
+                }
+                case "load-test": {
+                    requireArgs(args, 4);
+                    String prefix = args[1];
+                    int count = Integer.parseInt(args[2]);
+                    int existing = 0;
+                    try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[3]), StandardCharsets.UTF_8)) {
+                        for (int i = 0; i < count; i++) {
+                            String username = prefix + i;
+                            Document user = findUser(username);
+                            if (user != null) {
+                                existing++;
+                            } else {
+                                user = new Document("_id", fixedId(username)).append("username", username);
+                            }
+                            out.write(username + "\t" + tokens.issue(user));
+                            out.newLine();
+                        }
+                    }
+                    System.out.println("토큰 " + count + "개 저장 (DB 계정 " + existing + "명): " + args[3]);
+                    break;
+                }
+                default:
+                    printUsage();
+                    System.exit(1);
+            }
+        } catch (Exception e) {
+            System.err.println("세션 토큰 작업 실패: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0); // MongoDB 클라이언트 스레드가 남아 있어도 종료
+    }
+
+    private static Document findUser(String username) {
+        return Mongo.users()
+            .find(Filters.eq("username", username))
+            .projection(Projections.include("username", "region"))
+            .first();
+    }
+
+    /**
+     * DB에 없는 부하 테스트 사용자용 _id (username에서 만든 고정 값, 다시 만들어도 같은 _id로 평점이 쌓임)
+     */
+    private static ObjectId fixedId(String username) {
+        UUID uuid = UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer hash = ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits());
+        byte[] id = new byte[12];
+        System.arraycopy(hash.array(), 0, id, 0, id.length);
+        return new ObjectId(id);
+    }
+
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            printUsage();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("사용법: SessionTokenMain <명령>");
+        System.out.println("  issue <username>                  계정의 세션 토큰 출력");
+        System.out.println("  load-test <접두사> <인원> <파일>  부하 생성기용 토큰 파일 만들기");
+    }
+}
@@ -0,0 +1,110 @@
+package com.swingauth.chat.server;
+
+import com.swingauth.logging.Logger;
+import com.swingauth.util.TokenBucket;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 채팅 서버 이벤트별 요청 제한
+ * - 세션마다 이벤트별 토큰 버킷 (상태는 연결 시 만든 AtomicLongArray 하나)
+ * - 초과 시 동작: DROP(이벤트 무시) 또는 DISCONNECT(연결 종료)
+ * - 설정: -Dchat.limit.<이벤트>=초당횟수,버스트,drop|disconnect  (예: -Dchat.limit.sendMessage=10,20,drop)
+ */
+public final class ChatRateLimits {
+    private static final Logger log = Logger.get(ChatRateLimits.class);
+
+    public enum Action { DROP, DISCONNECT }
+
+    public enum Event {
+        REGISTER_USERNAME("registerUsername", 1, 3, Action.DROP),
+        ISSUE_SESSION_TOKEN("issueSessionToken", 0.4, 4, Action.DROP), // 발급 1회 = challenge + proof 2회
+        START_MATCHING("startMatching", 1, 3, Action.DROP),
+        END_MATCHING("endMatching", 2, 5, Action.DROP),
+        SEND_MESSAGE("sendMessage", 10, 20, Action.DROP),
+        SUBMIT_RATING("submitRating", 1, 3, Action.DROP);
+
+        public final String eventName;
+        final double defaultRate;
+        final int defaultBurst;
+        final Action defaultAction;
+
+        Event(String eventName, double defaultRate, int defaultBurst, Action defaultAction) {
+            this.eventName = eventName;
+            this.defaultRate = defaultRate;
+            this.defaultBurst = defaultBurst;
+            this.defaultAction = defaultAction;
+        }
+    }
+
+    private static final Event[] EVENTS = Event.values();
+
+    private final TokenBucket[] buckets = new TokenBucket[EVENTS.length];
+    private final Action[] actions = new Action[EVENTS.length];
+    private final LongAdder[] rejected = new LongAdder[EVENTS.length];
+    private final LongAdder disconnects = new LongAdder();
+
+    public ChatRateLimits() {
+        for (Event event : EVENTS) {
+            int i = event.ordinal();
+            double rate = event.defaultRate;
+            int burst = event.defaultBurst;
+            Action action = event.defaultAction;
+
+            String setting = System.getProperty("chat.limit." + event.eventName);
+            if (setting != null && !setting.isBlank()) {
+                // 값 하나라도 잘못되면 (형식 오류, rate <= 0, burst < 1) 이 이벤트는 기본값 그대로 사용
+                try {
+                    String[] parts = setting.split(",");
+                    double configuredRate = Double.parseDouble(parts[0].trim());
+                    int configuredBurst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : burst;
+                    Action configuredAction = parts.length > 2 ? Action.valueOf(parts[2].trim().toUpperCase()) : action;
+                    if (!(configuredRate > 0) || configuredBurst < 1) {
+                        throw new IllegalArgumentException("rate > 0, burst >= 1 이어야 함");
+                    }
+                    rate = configuredRate;
+                    burst = configuredBurst;
+                    action = configuredAction;
+                } catch (Exception e) {
+                    log.warn("잘못된 요청 제한 설정 무시: chat.limit.{}={}", event.eventName, setting);
+                }
+            }
+            buckets[i] = new TokenBucket(rate, burst);
+            actions[i] = action;
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 세션 하나의 버킷 상태 (연결 시 한 번 생성)
+     */
+    public AtomicLongArray newSessionState() {
+        return TokenBucket.newState(EVENTS.length);
+    }
+
+    /**
+     * @return 허용되면 null, 초과면 취할 동작
+     */
+    public Action check(AtomicLongArray sessionState, Event event) {
+        int i = event.ordinal();
+        if (buckets[i].tryAcquire(sessionState, i)) return null;
+        rejected[i].increment();
+        if (actions[i] == Action.DISCONNECT) disconnects.increment();
+        return actions[i];
+    }
+
+    /**
+     * 이벤트별 거부 횟수 (누적)
+     */
+    public long getRejectedCount(Event event) {
+        return rejected[event.ordinal()].sum();
+    }
+
+    /**
+     * 요청 제한으로 끊은 연결 수 (누적)
+     */
+    public long getDisconnectCount() {
+        return disconnects.sum();
+    }
+}
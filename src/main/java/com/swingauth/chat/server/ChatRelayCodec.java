@@ -0,0 +1,121 @@
+package com.swingauth.chat.server;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 채팅 중계 메시지 인코딩: {"text":"...","timestamp":"yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"}
+ * - 클라이언트(RandomChatFrame)가 문자열로 받아 JSON으로 파싱하므로 형식은 기존과 동일하게 유지
+ * - JSONObject 트리를 만들지 않고 스레드별로 재사용하는 StringBuilder에 바로 기록 (메시지당 String 하나만 생성)
+ * - 타임스탬프는 초 단위까지 캐시하고 밀리초만 덧붙임 (SimpleDateFormat 생성/시간대 설정 제거)
+ */
+public final class ChatRelayCodec {
+    private static final DateTimeFormatter SECOND_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.").withZone(ZoneOffset.UTC);
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024; // 큰 메시지 후에는 버퍼를 버려 메모리 유지 방지
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    /**
+     * 초 단위 타임스탬프 앞부분 캐시 (불변 객체를 통째로 교체하므로 락 없이 공유)
+     */
+    private static final class SecondPrefix {
+        final long epochSecond;
+        final String prefix;
+
+        SecondPrefix(long epochSecond) {
+            this.epochSecond = epochSecond;
+            this.prefix = SECOND_FORMAT.format(Instant.ofEpochSecond(epochSecond));
+        }
+    }
+
+    private static volatile SecondPrefix cachedPrefix = new SecondPrefix(0);
+
+    private ChatRelayCodec() {}
+
+    public static String encode(String text) {
+        return encode(text, System.currentTimeMillis());
+    }
+
+    public static String encode(String text, long epochMillis) {
+        String safeText = text == null ? "" : text;
+        StringBuilder sb = BUFFER.get();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            sb = new StringBuilder(256);
+            BUFFER.set(sb);
+        }
+        sb.setLength(0);
+        sb.ensureCapacity(safeText.length() + 48);
+
+        sb.append("{\"text\":\"");
+        appendEscaped(sb, safeText);
+        sb.append("\",\"timestamp\":\"");
+        appendTimestamp(sb, epochMillis);
+        sb.append("\"}");
+        return sb.toString();
+    }
+
+    static void appendTimestamp(StringBuilder sb, long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        SecondPrefix prefix = cachedPrefix;
+        if (prefix.epochSecond != second) {
+            prefix = new SecondPrefix(second);
+            cachedPrefix = prefix;
+        }
+        int millis = (int) (epochMillis - second * 1000); // 0..999 (음수 시각도 floorDiv 기준)
+        sb.append(prefix.prefix)
+            .append((char) ('0' + millis / 100))
+            .append((char) ('0' + millis / 10 % 10))
+            .append((char) ('0' + millis % 10))
+            .append('Z');
+    }
+
+    /**
+     * JSON 문자열 이스케이프 (org.json과 같은 규칙: 따옴표, 역슬래시, "</", 제어 문자)
+     */
+    static void appendEscaped(StringBuilder sb, String s) {
+        char prev = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '/':
+                    if (prev == '<') sb.append('\\');
+                    sb.append(c);
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+                        sb.append("\\u")
+                            .append(HEX[(c >> 12) & 0xF])
+                            .append(HEX[(c >> 8) & 0xF])
+                            .append(HEX[(c >> 4) & 0xF])
+                            .append(HEX[c & 0xF]);
+                    } else {
+                        sb.append(c);
+                    }
+            }
+            prev = c;
+        }
+    }
+}
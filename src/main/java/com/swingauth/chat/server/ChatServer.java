@@ -3,26 +3,112 @@ package com.swingauth.chat.server;
 import com.corundumstudio.socketio.*;
 import com.corundumstudio.socketio.listener.ConnectListener;
 import com.corundumstudio.socketio.listener.DisconnectListener;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.swingauth.cluster.ClusterBackend;
+import com.swingauth.cluster.ClusterBackends;
+import com.swingauth.cluster.ClusterMatchBridge;
+import com.swingauth.cluster.ClusterWaiter;
+import com.swingauth.chat.transcript.TranscriptStore;
+import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.matching.CachedExclusion;
+import com.swingauth.matching.MatchPolicy;
+import com.swingauth.matching.Matchmaker;
+import com.swingauth.matching.PairExclusionIndex;
+import com.swingauth.metrics.MetricRegistry;
+import com.swingauth.service.AutoBanEngine;
+import com.swingauth.service.DataMigrations;
+import com.swingauth.service.RatingIngestQueue;
 import com.swingauth.service.RatingService;
+import com.swingauth.service.SessionTokens;
+import io.netty.channel.Channel;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.net.InetAddress;
 import java.net.NetworkInterface;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class ChatServer {
+    private static final long BLACKLIST_CACHE_TTL_MILLIS = 10 * 60 * 1000L; // 블랙리스트 판정 캐시 유지 시간
+    private static final long STEAL_AFTER_MILLIS = 1000;
+    private static final int SHARD_COUNT = Integer.getInteger("chat.match.shards", 1); // 선착순 매칭이므로 기본 1개
+    // 다중 노드 구성 시 이 시간 이상 노드 안에서 매칭되지 못하면 공용 대기열로 넘김
+    private static final long CLUSTER_EXPORT_AFTER_MILLIS = Long.getLong("cluster.exportAfterMillis", 5000L);
+    private static final int AUTH_THREADS = 2;
+    private static final long TOKEN_CHALLENGE_TTL_MILLIS = 30_000; // 토큰 발급 challenge 유효 시간
+    private static final Logger log = Logger.get(ChatServer.class);
+    // 메시지마다 발생하는 중계 로그는 N건 중 1건만 출력 (-Dlog.sample.chatRelay, 1이면 전부)
+    private static final Logger relayLog = log.sampled(Integer.getInteger("log.sample.chatRelay", 1000));
+
     private static ChatServer instance;
     private SocketIOServer server;
-    private final Queue<SocketIOClient> matchQueue = new LinkedList<>();
-    private final Map<String, String> matchedPairs = new HashMap<>(); // clientId -> matchedClientId
-    private final Map<String, SocketIOClient> clients = new HashMap<>();
-    private final Map<String, String> clientIdToUsername = new HashMap<>(); // clientId -> username
+    private final Map<String, String> matchedPairs = new ConcurrentHashMap<>(); // clientId -> matchedClientId
+    private final Map<String, SocketIOClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, String> clientIdToUsername = new ConcurrentHashMap<>(); // clientId -> username
+    private final Map<String, ObjectId> clientIdToAccountId = new ConcurrentHashMap<>(); // clientId -> 토큰으로 확인된 사용자 _id
+    private final Map<String, String> remotePartners = new ConcurrentHashMap<>(); // clientId -> 상대가 접속한 다른 노드
+    private final Map<String, String> partnerUsernames = new ConcurrentHashMap<>(); // clientId -> 매칭된 상대 username
+    private final Map<String, String> ratablePartners = new ConcurrentHashMap<>(); // clientId -> 평점을 남길 수 있는 마지막 상대 username (대화 종료 후에도 유지)
+    private final ChatRateLimits rateLimits = new ChatRateLimits();
+    private final ChatServerStats stats = new ChatServerStats(clients::size);
+    private ScheduledExecutorService statsReporter;
+    private ExecutorService authExecutor; // 토큰 발급 시 계정 조회, 등록 시 정지 여부 조회
+    private final Map<String, TokenChallenge> tokenChallenges = new ConcurrentHashMap<>(); // clientId -> 발급 대기 중인 challenge (일회용)
+    private final TranscriptStore transcripts = TranscriptStore.fromSystemProperties(); // 신고/제재 근거용 대화 기록
+    private final Map<UUID, AtomicLongArray> rateState = new ConcurrentHashMap<>(); // 세션 -> 이벤트별 버킷 상태
     private final RatingService ratingService = new RatingService();
+    private final PairExclusionIndex blacklistedPairs = new PairExclusionIndex(BLACKLIST_CACHE_TTL_MILLIS);
+    // 랜덤채팅 매칭 규칙: 블랙리스트 쌍 제외 + 선착순
+    private final Matchmaker<SocketIOClient> matchmaker = new Matchmaker<>(
+        "chat", SHARD_COUNT, STEAL_AFTER_MILLIS,
+        MatchPolicy.of(SocketIOClient::isChannelOpen,
+            new CachedExclusion<>(blacklistedPairs, ChatServer::clientIdOf, this::isBlacklisted),
+            MatchPolicy.fifo()),
+        this::onPairMatched);
+    private final ClusterMatchBridge<SocketIOClient> cluster = createClusterBridge(); // 단일 노드면 null
     private int port = 3001;
     private boolean isRunning = false;
 
-    private ChatServer() {}
+    private ChatServer() {
+        registerMetrics();
+        // 자동 블랙리스트로 정지된 계정은 접속 중이어도 바로 종료
+        AutoBanEngine.getInstance().addListener(this::onBanned);
+    }
+
+    /**
+     * 이미 세고 있는 통계(ChatServerStats, 요청 제한, 대화 기록)를 /metrics에 노출 (값 복사 없이 읽기만)
+     */
+    private void registerMetrics() {
+        MetricRegistry metrics = MetricRegistry.getInstance();
+        metrics.gauge("chat_connected_clients", "랜덤채팅 접속자 수", stats::getConnectedClients);
+        metrics.gauge("chat_queue_waiting", "랜덤채팅 대기 인원", matchmaker::size);
+        metrics.gauge("chat_matched_clients", "대화 중인 랜덤채팅 접속자 수", matchedPairs::size);
+        metrics.gauge("chat_pending_outbound_bytes", "소켓에 아직 쓰지 못한 송신 바이트", stats::getPendingOutboundBytes);
+        metrics.histogram("chat_relay_latency_microseconds", "메시지 수신부터 상대에게 넘기기까지(us)",
+            stats.getRelayLatencyMicros());
+        metrics.histogram("chat_match_wait_millis", "랜덤채팅 매칭까지 대기 시간(ms)", matchmaker.getWaitTimes());
+        for (ChatRateLimits.Event event : ChatRateLimits.Event.values()) {
+            metrics.counter("chat_events_total", "랜덤채팅 이벤트 수신 수",
+                () -> stats.getEventCount(event), "event", event.eventName);
+            metrics.counter("chat_rate_limited_total", "요청 제한으로 거부된 이벤트 수",
+                () -> rateLimits.getRejectedCount(event), "event", event.eventName);
+        }
+        metrics.counter("chat_rate_limit_disconnects_total", "요청 제한으로 끊은 연결 수", rateLimits::getDisconnectCount);
+        if (transcripts != null) {
+            metrics.counter("chat_transcript_written_total", "대화 기록에 저장된 메시지 수", transcripts::getWrittenCount);
+            metrics.counter("chat_transcript_dropped_total", "대기열이 가득 차 저장하지 못한 메시지 수", transcripts::getDroppedCount);
+        }
+    }
 
     public static synchronized ChatServer getInstance() {
         if (instance == null) {
@@ -38,30 +124,45 @@ public class ChatServer {
     public void start() {
         // 이미 실행 중이면 재시작하지 않음
         if (isRunning && server != null) {
-            System.out.println("채팅 서버가 이미 실행 중입니다.");
+            log.info("채팅 서버가 이미 실행 중입니다.");
             return;
         }
-        Configuration config = new Configuration();
-        // 0.0.0.0으로 설정하여 모든 네트워크 인터페이스에서 접근 가능하도록 함
-        config.setHostname("0.0.0.0");
-        config.setPort(port);
-        
-        // CORS 설정
-        config.setOrigin("*");
-        
-        // Socket.io 호환성 설정
-        config.setAllowCustomRequests(true);
-        config.setUpgradeTimeout(10000);
-        config.setPingTimeout(60000);
-        config.setPingInterval(25000);
+        ChatServerSettings settings = ChatServerSettings.load();
+        port = settings.port;
+        log.info("채팅 서버 설정: {}", settings);
+        // 다른 프로세스(앱)에서 자동 블랙리스트로 정지된 계정도 주기적으로 확인해 접속 종료
+        AutoBanEngine.getInstance().startWatching();
+        // 평점 집계/신고 대기열 1회성 마이그레이션 (평점을 받기 전에 끝냄, 이미 적용됐으면 조회 1번)
+        DataMigrations.applyPending();
+        // 세션 토큰 서명 키 준비 (설정이 없으면 서버 로컬 키 파일을 만듦), 읽지 못하면 토큰 발급/등록을 모두 거부
+        try {
+            SessionTokens.ensureServerSecret();
+            SessionTokens.getInstance();
+        } catch (Exception e) {
+            log.error("세션 토큰 서명 키를 읽지 못해 사용자 등록을 거부합니다: {}", e.getMessage());
+        }
+        authExecutor = Executors.newFixedThreadPool(AUTH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "chat-auth");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-        server = new SocketIOServer(config);
+        server = new SocketIOServer(settings.toConfiguration());
+        // 송신 대기 바이트 집계를 위해 접속 채널 등록
+        server.setPipelineFactory(new SocketIOChannelInitializer() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                super.initChannel(ch);
+                stats.track(ch);
+            }
+        });
 
         // 연결 이벤트
         server.addConnectListener(new ConnectListener() {
             @Override
             public void onConnect(SocketIOClient client) {
-                System.out.println("클라이언트 연결: " + client.getSessionId());
+                log.debug("클라이언트 연결: {}", client.getSessionId());
+                rateState.put(client.getSessionId(), rateLimits.newSessionState());
                 clients.put(client.getSessionId().toString(), client);
             }
         });
@@ -71,170 +172,494 @@ public class ChatServer {
             @Override
             public void onDisconnect(SocketIOClient client) {
                 String clientId = client.getSessionId().toString();
-                System.out.println("클라이언트 연결 해제: " + clientId);
+                log.debug("클라이언트 연결 해제: {}", clientId);
                 endMatching(client);
                 clients.remove(clientId);
                 clientIdToUsername.remove(clientId);
+                clientIdToAccountId.remove(clientId);
+                ratablePartners.remove(clientId);
+                tokenChallenges.remove(clientId);
+                blacklistedPairs.removeUser(clientId);
+                rateState.remove(client.getSessionId());
+            }
+        });
+
+        // username 등록: 로그인 때 받은 서명 토큰을 확인 (토큰 확인은 DB 조회 없음, 정지 여부만 chat-auth 스레드에서 조회)
+        server.addEventListener("registerUsername", String.class, (client, credential, ackSender) -> {
+            if (!admit(client, ChatRateLimits.Event.REGISTER_USERNAME)) return;
+            String clientId = client.getSessionId().toString();
+            SessionTokens.Claims claims = authenticate(credential);
+            if (claims == null) {
+                log.warn("Username 등록 거부 (토큰 확인 실패): clientId={}", clientId);
+                return;
+            }
+            clientIdToUsername.put(clientId, claims.username);
+            if (claims.userId != null) {
+                clientIdToAccountId.put(clientId, claims.userId);
             }
+            log.debug("Username 등록: clientId={}, username={}", clientId, claims.username);
+            // 토큰은 정지 전에 발급됐을 수 있으므로 정지 여부를 DB에서 확인 (이벤트 루프 밖에서)
+            // 등록을 먼저 해 두어 확인 중에 정지돼도 onBanned가 이 연결을 찾음
+            authExecutor.execute(() -> rejectIfBanned(client, clientId, claims));
         });
 
-        // username 등록
-        server.addEventListener("registerUsername", String.class, (client, username, ackSender) -> {
+        // 세션 토큰 발급: 서명 키는 서버에만 있으므로 다른 컴퓨터의 앱은 로그인 후 여기서 토큰을 받음
+        // 1) {username} -> {challenge}  2) {username, proof} -> {token} 또는 {error}
+        // proof는 앱이 로그인 때 읽은 비밀번호 해시로 challenge에 서명한 값 (비밀번호를 다시 보내지 않고 BCrypt도 다시 돌리지 않음)
+        server.addEventListener("issueSessionToken", String.class, (client, data, ackSender) -> {
+            if (!admit(client, ChatRateLimits.Event.ISSUE_SESSION_TOKEN)) return;
             String clientId = client.getSessionId().toString();
-            if (username != null && !username.isBlank() && !username.equals("unknown")) {
-                clientIdToUsername.put(clientId, username);
-                System.out.println("Username 등록: clientId=" + clientId + ", username=" + username);
+            JSONObject request;
+            try {
+                request = new JSONObject(data);
+            } catch (JSONException e) {
+                sendTokenReply(ackSender, new JSONObject().put("error", "잘못된 요청입니다."));
+                return;
+            }
+            String username = request.optString("username");
+            if (!request.has("proof")) {
+                String challenge = SessionTokens.newChallenge();
+                tokenChallenges.put(clientId, new TokenChallenge(username, challenge,
+                    System.currentTimeMillis() + TOKEN_CHALLENGE_TTL_MILLIS));
+                sendTokenReply(ackSender, new JSONObject().put("challenge", challenge));
+                return;
             }
+            TokenChallenge challenge = tokenChallenges.remove(clientId); // 성공/실패와 관계없이 한 번만 사용
+            String proof = request.optString("proof");
+            authExecutor.execute(() -> sendTokenReply(ackSender, issueSessionToken(challenge, username, proof)));
         });
 
         // 매칭 시작
         server.addEventListener("startMatching", Object.class, (client, data, ackSender) -> {
+            if (!admit(client, ChatRateLimits.Event.START_MATCHING)) return;
             String clientId = client.getSessionId().toString();
-            System.out.println("startMatching 이벤트 수신: " + clientId + ", 데이터: " + data);
-            if (!matchQueue.contains(client) && !matchedPairs.containsKey(clientId)) {
-                matchQueue.offer(client);
+            log.debug("startMatching 이벤트 수신: {}, 데이터: {}", clientId, data);
+            boolean exported = cluster != null && cluster.isExported(clientId);
+            if (!matchmaker.isQueued(clientId) && !exported && !matchedPairs.containsKey(clientId)) {
                 client.sendEvent("matchingStarted");
-                System.out.println("매칭 시작: " + clientId + ", 대기열 크기: " + matchQueue.size());
-                tryMatch();
+                // 매칭 시도는 매칭 엔진 스레드에서 처리 (블랙리스트 DB 조회가 이벤트 루프를 막지 않도록)
+                matchmaker.enqueue(clientId, client, null);
+                log.debug("매칭 시작: {}", clientId);
             } else {
-                System.out.println("이미 대기열에 있거나 매칭 중: " + clientId);
+                log.debug("이미 대기열에 있거나 매칭 중: {}", clientId);
             }
         });
 
         // 매칭 종료
         server.addEventListener("endMatching", Object.class, (client, data, ackSender) -> {
+            if (!admit(client, ChatRateLimits.Event.END_MATCHING)) return;
             endMatching(client);
         });
 
+        // 평점 제출 ({rating}): 마지막으로 매칭된 상대에게만, 저장 큐에 넣고 바로 응답 (DB 저장은 RatingIngestQueue 스레드)
+        // 응답: "ok" | "busy"(큐가 가득 참, 다시 제출) | "invalid"
+        server.addEventListener("submitRating", String.class, (client, data, ackSender) -> {
+            if (!admit(client, ChatRateLimits.Event.SUBMIT_RATING)) return;
+            String status = submitRating(clientIdOf(client), data);
+            if (ackSender.isAckRequested()) {
+                ackSender.sendAckData(status);
+            }
+        });
+
         // 메시지 전송
         server.addEventListener("sendMessage", String.class, (client, data, ackSender) -> {
+            if (!admit(client, ChatRateLimits.Event.SEND_MESSAGE)) return;
+            long receivedAt = System.nanoTime();
             String clientId = client.getSessionId().toString();
-            System.out.println("메시지 수신: " + clientId + ", 내용: " + data);
             String matchedClientId = matchedPairs.get(clientId);
-            System.out.println("매칭된 상대 ID: " + matchedClientId);
+            log.debug("메시지 수신: {} -> {}", clientId, matchedClientId);
+            String remoteNode = matchedClientId != null ? remotePartners.get(clientId) : null;
             if (matchedClientId != null) {
+                recordTranscript(clientId, data);
+            }
+            if (remoteNode != null && cluster != null) {
+                // 상대가 다른 노드에 접속해 있으면 그 노드로 중계
+                cluster.relay(remoteNode, new JSONObject()
+                    .put("type", "chat").put("to", matchedClientId).put("text", data));
+                stats.recordRelay(receivedAt);
+                relayLog.info("메시지 중계: {} -> {} (노드 {})", clientId, matchedClientId, remoteNode);
+            } else if (matchedClientId != null) {
                 SocketIOClient matchedClient = clients.get(matchedClientId);
                 if (matchedClient != null && matchedClient.isChannelOpen()) {
-                    JSONObject messageData = new JSONObject();
-                    messageData.put("text", data);
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-                    sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-                    messageData.put("timestamp", sdf.format(new Date()));
-                    matchedClient.sendEvent("receiveMessage", messageData.toString());
-                    System.out.println("메시지 전송 완료: " + clientId + " -> " + matchedClientId);
+                    deliverMessage(matchedClient, data);
+                    stats.recordRelay(receivedAt);
+                    relayLog.info("메시지 전송 완료: {} -> {}", clientId, matchedClientId);
                 } else {
-                    System.out.println("매칭된 상대 클라이언트가 없거나 연결이 끊어짐: " + matchedClientId);
+                    log.debug("매칭된 상대 클라이언트가 없거나 연결이 끊어짐: {}", matchedClientId);
                 }
             } else {
-                System.out.println("매칭된 상대가 없음. 클라이언트 ID: " + clientId + ", 매칭 맵: " + matchedPairs);
+                log.debug("매칭된 상대가 없음. 클라이언트 ID: {}", clientId);
             }
         });
 
         try {
             server.start();
             isRunning = true;
-            System.out.println("═══════════════════════════════════════════════════════════");
-            System.out.println("✅ 채팅 서버가 포트 " + port + "에서 시작되었습니다.");
-            System.out.println("═══════════════════════════════════════════════════════════");
-            System.out.println("서버 주소: http://0.0.0.0:" + port);
-            System.out.println("\n📡 다른 컴퓨터에서 접속하려면 아래 IP 주소 중 하나를 사용하세요:");
+            startStatsReporter(settings.statsIntervalSeconds);
+            log.info("═══════════════════════════════════════════════════════════");
+            log.info("✅ 채팅 서버가 포트 {}에서 시작되었습니다.", port);
+            log.info("═══════════════════════════════════════════════════════════");
+            log.info("서버 주소: http://0.0.0.0:{}", port);
+            log.info("📡 다른 컴퓨터에서 접속하려면 아래 IP 주소 중 하나를 사용하세요:");
             printLocalIPAddresses();
-            System.out.println("\n💡 클라이언트에서 서버 IP를 설정하는 방법:");
-            System.out.println("   1. 환경 변수: CHAT_SERVER_HOST=192.168.x.x");
-            System.out.println("   2. 시스템 속성: -Dchat.server.host=192.168.x.x");
-            System.out.println("   3. 연결 실패 시 자동으로 IP 입력 다이얼로그가 표시됩니다.");
-            System.out.println("═══════════════════════════════════════════════════════════");
+            log.info("💡 클라이언트에서 서버 IP를 설정하는 방법:");
+            log.info("   1. 환경 변수: CHAT_SERVER_HOST=192.168.x.x");
+            log.info("   2. 시스템 속성: -Dchat.server.host=192.168.x.x");
+            log.info("   3. 연결 실패 시 자동으로 IP 입력 다이얼로그가 표시됩니다.");
+            log.info("═══════════════════════════════════════════════════════════");
         } catch (Exception e) {
             isRunning = false;
-            System.err.println("채팅 서버 시작 실패: " + e.getMessage());
+            log.error("채팅 서버 시작 실패: {}", e.getMessage());
             if (e.getCause() instanceof java.net.BindException) {
-                System.err.println("포트 " + port + "가 이미 사용 중입니다. 기존 서버가 실행 중일 수 있습니다.");
+                log.error("포트 {}가 이미 사용 중입니다. 기존 서버가 실행 중일 수 있습니다.", port);
             }
             throw e;
         }
     }
 
-    private synchronized void tryMatch() {
-        while (matchQueue.size() >= 2) {
-            SocketIOClient user1 = matchQueue.poll();
-            SocketIOClient user2 = matchQueue.poll();
+    private static SessionTokens.Claims authenticate(String credential) {
+        try {
+            return SessionTokens.getInstance().authenticate(credential);
+        } catch (IllegalStateException e) {
+            return null; // 서명 키가 없으면 모두 거부
+        }
+    }
+
+    private void rejectIfBanned(SocketIOClient client, String clientId, SessionTokens.Claims claims) {
+        String banReason;
+        try {
+            banReason = AutoBanEngine.getInstance().banReason(claims.userId, claims.username);
+        } catch (Exception e) {
+            // 확인하지 못하면 토큰 확인 실패와 같이 등록하지 않음
+            log.warn("정지 여부 확인 실패, 등록 취소: {} ({})", claims.username, e.getMessage());
+            clientIdToUsername.remove(clientId, claims.username);
+            clientIdToAccountId.remove(clientId);
+            return;
+        }
+        if (banReason == null) return;
+        log.info("정지된 계정 등록 거부: {} (clientId={})", claims.username, clientId);
+        clientIdToUsername.remove(clientId, claims.username);
+        clientIdToAccountId.remove(clientId);
+        client.sendEvent("banned", banReason);
+        client.disconnect();
+    }
 
-            if (user1 == null || user2 == null) {
-                if (user1 != null) matchQueue.offer(user1);
-                if (user2 != null) matchQueue.offer(user2);
-                break;
-            }
+    /**
+     * 토큰 발급 대기 중인 challenge (연결마다 하나, 일회용)
+     */
+    private static final class TokenChallenge {
+        final String username;
+        final String nonce;
+        final long expiresAtMillis;
+
+        TokenChallenge(String username, String nonce, long expiresAtMillis) {
+            this.username = username;
+            this.nonce = nonce;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
 
-            if (!user1.isChannelOpen() || !user2.isChannelOpen()) {
-                if (user1.isChannelOpen()) matchQueue.offer(user1);
-                if (user2.isChannelOpen()) matchQueue.offer(user2);
-                continue;
+    /**
+     * challenge 서명 확인 후 토큰 발급 (chat-auth 스레드, 계정 문서 1회 조회)
+     */
+    private JSONObject issueSessionToken(TokenChallenge challenge, String username, String proof) {
+        if (challenge == null || !challenge.username.equals(username)
+                || challenge.expiresAtMillis < System.currentTimeMillis()) {
+            return new JSONObject().put("error", "로그인 확인 요청이 만료되었습니다. 다시 시도하세요.");
+        }
+        try {
+            Document found = Mongo.users()
+                .find(Filters.eq("username", username))
+                .projection(Projections.include("username", "region", "passwordHash", "isBanned"))
+                .first();
+            if (found == null
+                    || !SessionTokens.verifyChallengeProof(found.getString("passwordHash"), username, challenge.nonce, proof)) {
+                return new JSONObject().put("error", "로그인 확인에 실패했습니다.");
             }
+            if (Boolean.TRUE.equals(found.get("isBanned"))) {
+                return new JSONObject().put("error", "정지된 계정입니다. 관리자에게 문의하세요.");
+            }
+            return new JSONObject().put("token", SessionTokens.getInstance().issue(found));
+        } catch (IllegalStateException e) {
+            return new JSONObject().put("error", "서버에 세션 토큰 서명 키가 없습니다.");
+        } catch (Exception e) {
+            log.error("세션 토큰 발급 실패: {}", e.getMessage());
+            return new JSONObject().put("error", "서버 오류");
+        }
+    }
 
-            String user1Id = user1.getSessionId().toString();
-            String user2Id = user2.getSessionId().toString();
+    private static void sendTokenReply(AckRequest ackSender, JSONObject reply) {
+        if (ackSender.isAckRequested()) {
+            ackSender.sendAckData(reply.toString());
+        }
+    }
 
-            // username 가져오기
-            String user1Username = clientIdToUsername.getOrDefault(user1Id, "unknown");
-            String user2Username = clientIdToUsername.getOrDefault(user2Id, "unknown");
+    /**
+     * 요청 제한 확인. 초과면 설정에 따라 이벤트를 버리거나 연결을 끊음
+     * @return 이벤트를 처리해도 되면 true
+     */
+    private boolean admit(SocketIOClient client, ChatRateLimits.Event event) {
+        stats.recordEvent(event);
+        AtomicLongArray state = rateState.get(client.getSessionId());
+        if (state == null) {
+            state = rateState.computeIfAbsent(client.getSessionId(), id -> rateLimits.newSessionState());
+        }
+        ChatRateLimits.Action action = rateLimits.check(state, event);
+        if (action == null) return true;
+        if (action == ChatRateLimits.Action.DISCONNECT) {
+            log.warn("요청 제한 초과로 연결 종료: {} ({})", client.getSessionId(), event.eventName);
+            client.disconnect();
+        }
+        return false;
+    }
 
-            // 블랙리스트 체크: 두 사용자 간 평균 평점이 2점 이하이면 매칭 불가
-            if (!user1Username.equals("unknown") && !user2Username.equals("unknown")) {
-                if (ratingService.isBlacklisted(user1Username, user2Username)) {
-                    System.out.println("블랙리스트로 인해 매칭 차단: " + user1Username + " <-> " + user2Username);
-                    // 대기열에 다시 추가하여 다른 사용자와 매칭 시도
-                    matchQueue.offer(user1);
-                    matchQueue.offer(user2);
-                    continue;
+    /**
+     * 대화 기록 (큐에 넣기만 하므로 중계를 늦추지 않음)
+     */
+    private void recordTranscript(String clientId, String text) {
+        if (transcripts == null) return;
+        String partner = partnerUsernames.get(clientId);
+        if (partner == null) return;
+        transcripts.append(clientIdToUsername.getOrDefault(clientId, clientId), partner, text);
+    }
+
+    /**
+     * 두 사용자의 대화 기록 조회 (신고 처리/자동 제재 근거 확인용)
+     */
+    public TranscriptStore getTranscripts() {
+        return transcripts;
+    }
+
+    public ChatRateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * 상대에게 채팅 메시지 전달 ({text, timestamp})
+     */
+    private void deliverMessage(SocketIOClient target, String text) {
+        target.sendEvent("receiveMessage", ChatRelayCodec.encode(text));
+    }
+
+    /**
+     * 다중 노드 설정(cluster.mode)이 있으면 노드 간 매칭 연결 생성
+     */
+    private ClusterMatchBridge<SocketIOClient> createClusterBridge() {
+        ClusterBackend backend = ClusterBackends.shared();
+        if (backend == null) return null;
+        return new ClusterMatchBridge<>(backend, "chat", matchmaker,
+            SocketIOClient::isChannelOpen,
+            client -> clientIdToUsername.getOrDefault(clientIdOf(client), "unknown"),
+            (a, b) -> !"unknown".equals(a.getUsername()) && !"unknown".equals(b.getUsername())
+                && ratingService.isBlacklisted(a.getUsername(), b.getUsername()),
+            CLUSTER_EXPORT_AFTER_MILLIS, new ChatClusterListener());
+    }
+
+    /**
+     * 다른 노드와의 매칭/중계 메시지 처리
+     */
+    private class ChatClusterListener implements ClusterMatchBridge.Listener<SocketIOClient> {
+        @Override
+        public void onLocalMatched(SocketIOClient first, SocketIOClient second) {
+            onPairMatched(first, second);
+        }
+
+        @Override
+        public void onRemoteMatched(String pairId, SocketIOClient local, ClusterWaiter remote) {
+            String localId = clientIdOf(local);
+            matchedPairs.put(localId, remote.getKey());
+            remotePartners.put(localId, remote.getNodeId());
+            partnerUsernames.put(localId, remote.getUsername());
+            ratablePartners.put(localId, remote.getUsername());
+
+            JSONObject data = new JSONObject();
+            data.put("partnerId", remote.getKey());
+            data.put("partnerUsername", remote.getUsername());
+            local.sendEvent("matched", data.toString());
+            log.info("매칭 완료: {} <-> {} (노드 {})", localId, remote.getKey(), remote.getNodeId());
+        }
+
+        @Override
+        public void onRelay(String fromNode, JSONObject message) {
+            String to = message.optString("to", null);
+            if (to == null) return;
+            SocketIOClient client = clients.get(to);
+            String type = message.optString("type");
+            if ("chat".equals(type)) {
+                if (client != null && client.isChannelOpen()) {
+                    deliverMessage(client, message.optString("text"));
+                }
+            } else if ("pairEnded".equals(type)) {
+                matchedPairs.remove(to);
+                remotePartners.remove(to);
+                partnerUsernames.remove(to);
+                if (client != null) {
+                    client.sendEvent("partnerDisconnected");
                 }
             }
+        }
+    }
 
-            matchedPairs.put(user1Id, user2Id);
-            matchedPairs.put(user2Id, user1Id);
+    /**
+     * 정지된 계정의 접속 종료 (대화 상대 알림/대기열 정리는 연결 해제 처리에서, 중복 호출 안전)
+     */
+    private void onBanned(String username, String reason) {
+        for (Map.Entry<String, String> entry : clientIdToUsername.entrySet()) {
+            if (!username.equals(entry.getValue())) continue;
+            SocketIOClient client = clients.get(entry.getKey());
+            if (client == null) continue;
+            log.info("정지된 계정 접속 종료: {} (clientId={})", username, entry.getKey());
+            client.sendEvent("banned", reason == null ? "" : reason);
+            client.disconnect();
+        }
+    }
 
-            // matched 이벤트에 partnerId (Socket ID)와 partnerUsername 전달
-            JSONObject user1Data = new JSONObject();
-            user1Data.put("partnerId", user2Id);
-            user1Data.put("partnerUsername", user2Username);
-            
-            JSONObject user2Data = new JSONObject();
-            user2Data.put("partnerId", user1Id);
-            user2Data.put("partnerUsername", user1Username);
+    private static String clientIdOf(SocketIOClient client) {
+        return client.getSessionId().toString();
+    }
 
-            user1.sendEvent("matched", user1Data.toString());
-            user2.sendEvent("matched", user2Data.toString());
+    private String submitRating(String clientId, String data) {
+        String rater = clientIdToUsername.get(clientId);
+        String partner = ratablePartners.get(clientId);
+        int rating;
+        try {
+            rating = new JSONObject(data).optInt("rating");
+        } catch (Exception e) {
+            return "invalid";
+        }
+        if (rater == null || partner == null || partner.equals(rater) || rating < 1 || rating > 5) {
+            return "invalid";
+        }
+        boolean accepted = RatingIngestQueue.getInstance().submit(new RatingIngestQueue.Submission(
+            "randomChat", rater, clientIdToAccountId.get(clientId), partner, null, rating));
+        if (!accepted) {
+            log.warn("평점 저장 대기열이 가득 참: {} -> {}", rater, partner);
+            return "busy";
+        }
+        // 매칭 한 번에 평점 한 번
+        ratablePartners.remove(clientId, partner);
+        log.info("[평점] {} -> {} : {}점 (randomChat)", rater, partner, rating);
+        return "ok";
+    }
 
-            System.out.println("매칭 완료: " + user1Id + " (" + user1Username + ") <-> " + user2Id + " (" + user2Username + ")");
+    /**
+     * 블랙리스트 체크: 두 사용자 간 평균 평점이 2점 이하이면 매칭 불가
+     */
+    private boolean isBlacklisted(SocketIOClient user1, SocketIOClient user2) {
+        String user1Username = clientIdToUsername.getOrDefault(clientIdOf(user1), "unknown");
+        String user2Username = clientIdToUsername.getOrDefault(clientIdOf(user2), "unknown");
+        if (user1Username.equals("unknown") || user2Username.equals("unknown")) {
+            return false;
+        }
+        ObjectId user1AccountId = clientIdToAccountId.get(clientIdOf(user1));
+        ObjectId user2AccountId = clientIdToAccountId.get(clientIdOf(user2));
+        boolean blacklisted = ratingService.isBlacklisted(user1Username, user1AccountId, user2Username, user2AccountId);
+        if (blacklisted) {
+            log.info("블랙리스트로 인해 매칭 차단: {} <-> {}", user1Username, user2Username);
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * 매칭 엔진이 쌍을 확정하면 호출됨 (매칭 엔진 스레드)
+     * 블랙리스트 쌍은 엔진에서 건너뛰고 다음 대기자를 확인하므로, 다시 대기열에 넣는 반복이 없음
+     */
+    private synchronized void onPairMatched(SocketIOClient user1, SocketIOClient user2) {
+        String user1Id = clientIdOf(user1);
+        String user2Id = clientIdOf(user2);
+
+        // username 가져오기
+        String user1Username = clientIdToUsername.getOrDefault(user1Id, "unknown");
+        String user2Username = clientIdToUsername.getOrDefault(user2Id, "unknown");
+
+        matchedPairs.put(user1Id, user2Id);
+        matchedPairs.put(user2Id, user1Id);
+        partnerUsernames.put(user1Id, user2Username);
+        partnerUsernames.put(user2Id, user1Username);
+        ratablePartners.put(user1Id, user2Username);
+        ratablePartners.put(user2Id, user1Username);
+
+        // matched 이벤트에 partnerId (Socket ID)와 partnerUsername 전달
+        JSONObject user1Data = new JSONObject();
+        user1Data.put("partnerId", user2Id);
+        user1Data.put("partnerUsername", user2Username);
+        
+        JSONObject user2Data = new JSONObject();
+        user2Data.put("partnerId", user1Id);
+        user2Data.put("partnerUsername", user1Username);
+
+        user1.sendEvent("matched", user1Data.toString());
+        user2.sendEvent("matched", user2Data.toString());
+
+        log.info("매칭 완료: {} ({}) <-> {} ({})", user1Id, user1Username, user2Id, user2Username);
     }
 
     private synchronized void endMatching(SocketIOClient client) {
         String clientId = client.getSessionId().toString();
         
         // 대기열에서 제거
-        matchQueue.remove(client);
+        matchmaker.cancel(clientId);
+        if (cluster != null) cluster.withdraw(clientId);
         client.sendEvent("matchingEnded");
 
         // 매칭된 상대에게 알림
         String matchedClientId = matchedPairs.remove(clientId);
-        if (matchedClientId != null) {
+        String remoteNode = remotePartners.remove(clientId);
+        partnerUsernames.remove(clientId);
+        if (matchedClientId != null && remoteNode != null && cluster != null) {
+            cluster.relay(remoteNode, new JSONObject().put("type", "pairEnded").put("to", matchedClientId));
+            log.info("매칭 종료: {} <-> {} (노드 {})", clientId, matchedClientId, remoteNode);
+        } else if (matchedClientId != null) {
             matchedPairs.remove(matchedClientId);
+            partnerUsernames.remove(matchedClientId);
             SocketIOClient matchedClient = clients.get(matchedClientId);
             if (matchedClient != null) {
                 matchedClient.sendEvent("partnerDisconnected");
             }
-            System.out.println("매칭 종료: " + clientId + " <-> " + matchedClientId);
+            log.info("매칭 종료: {} <-> {}", clientId, matchedClientId);
         }
     }
 
+    /**
+     * 주기적으로 접속자/이벤트 처리량/중계 지연/송신 대기 바이트 로그
+     */
+    private void startStatsReporter(int intervalSeconds) {
+        if (intervalSeconds <= 0 || statsReporter != null) return;
+        statsReporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-stats");
+            t.setDaemon(true);
+            return t;
+        });
+        statsReporter.scheduleAtFixedRate(() -> {
+            try {
+                log.info(stats.report());
+            } catch (Exception e) {
+                log.error("통계 출력 실패: {}", e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public ChatServerStats getStats() {
+        return stats;
+    }
+
     public void stop() {
+        if (statsReporter != null) {
+            statsReporter.shutdownNow();
+            statsReporter = null;
+        }
+        if (authExecutor != null) {
+            authExecutor.shutdownNow();
+            authExecutor = null;
+        }
         if (server != null && isRunning) {
             try {
                 server.stop();
                 isRunning = false;
-                System.out.println("채팅 서버가 중지되었습니다.");
+                log.info("채팅 서버가 중지되었습니다.");
             } catch (Exception e) {
-                System.err.println("서버 중지 중 오류: " + e.getMessage());
+                log.error("서버 중지 중 오류: {}", e.getMessage());
             }
         }
     }
@@ -248,7 +673,7 @@ public class ChatServer {
      */
     private void printLocalIPAddresses() {
         try {
-            System.out.println("사용 가능한 네트워크 주소:");
+            log.info("사용 가능한 네트워크 주소:");
             Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
             while (interfaces.hasMoreElements()) {
                 NetworkInterface networkInterface = interfaces.nextElement();
@@ -259,12 +684,12 @@ public class ChatServer {
                 while (addresses.hasMoreElements()) {
                     InetAddress address = addresses.nextElement();
                     if (!address.isLoopbackAddress() && address.getHostAddress().indexOf(':') == -1) {
-                        System.out.println("  - http://" + address.getHostAddress() + ":" + port);
+                        log.info("  - http://{}:{}", address.getHostAddress(), port);
                     }
                 }
             }
         } catch (Exception e) {
-            System.err.println("IP 주소 출력 실패: " + e.getMessage());
+            log.warn("IP 주소 출력 실패: {}", e.getMessage());
         }
     }
 }
@@ -0,0 +1,168 @@
+package com.swingauth.chat.server;
+
+import com.corundumstudio.socketio.AckMode;
+import com.corundumstudio.socketio.Configuration;
+import com.corundumstudio.socketio.SocketConfig;
+import com.swingauth.logging.Logger;
+
+/**
+ * 채팅 서버(Socket.IO) 튜닝 설정
+ * 우선순위: 시스템 속성(chat.server.xxx) > 환경 변수(CHAT_SERVER_XXX) > 기본값
+ *
+ * - port: 포트 (기본 3001)
+ * - bossThreads / workerThreads: netty 스레드 수 (0이면 netty 기본값 = 코어 수 x 2)
+ * - epoll: Linux 네이티브 epoll 사용 (auto/true/false, 기본 auto = 사용 가능하면 사용)
+ * - tcpNoDelay: Nagle 끔 (기본 true, 짧은 채팅 메시지 지연 감소)
+ * - acceptBacklog: 접속 대기열 크기 (기본 1024)
+ * - writeBufferLow / writeBufferHigh: 송신 버퍼 워터마크 바이트 (기본 32KB / 64KB)
+ * - maxFramePayload: WebSocket 프레임 최대 크기 (기본 64KB)
+ * - maxHttpContent: 폴링 요청 최대 크기 (기본 64KB)
+ * - pingInterval / pingTimeout / upgradeTimeout: 밀리초 (기본 25000 / 60000 / 10000)
+ * - ackMode: AUTO / AUTO_SUCCESS_ONLY / MANUAL (기본 AUTO)
+ * - statsIntervalSeconds: 통계 로그 주기 (기본 60, 0이면 끔)
+ */
+public final class ChatServerSettings {
+    private static final Logger log = Logger.get(ChatServerSettings.class);
+
+    public final int port;
+    public final int bossThreads;
+    public final int workerThreads;
+    public final String epoll;
+    public final boolean tcpNoDelay;
+    public final int acceptBacklog;
+    public final int writeBufferLow;
+    public final int writeBufferHigh;
+    public final int maxFramePayload;
+    public final int maxHttpContent;
+    public final int pingInterval;
+    public final int pingTimeout;
+    public final int upgradeTimeout;
+    public final AckMode ackMode;
+    public final int statsIntervalSeconds;
+
+    private ChatServerSettings() {
+        port = intSetting("port", 3001);
+        bossThreads = intSetting("bossThreads", 1);
+        workerThreads = intSetting("workerThreads", 0);
+        epoll = setting("epoll", "auto");
+        tcpNoDelay = Boolean.parseBoolean(setting("tcpNoDelay", "true"));
+        acceptBacklog = intSetting("acceptBacklog", 1024);
+        writeBufferLow = intSetting("writeBufferLow", 32 * 1024);
+        writeBufferHigh = Math.max(writeBufferLow, intSetting("writeBufferHigh", 64 * 1024));
+        maxFramePayload = intSetting("maxFramePayload", 64 * 1024);
+        maxHttpContent = intSetting("maxHttpContent", 64 * 1024);
+        pingInterval = intSetting("pingInterval", 25000);
+        pingTimeout = intSetting("pingTimeout", 60000);
+        upgradeTimeout = intSetting("upgradeTimeout", 10000);
+        ackMode = ackModeSetting();
+        statsIntervalSeconds = intSetting("statsIntervalSeconds", 60);
+    }
+
+    public static ChatServerSettings load() {
+        return new ChatServerSettings();
+    }
+
+    /**
+     * netty-socketio 설정 생성
+     */
+    public Configuration toConfiguration() {
+        Configuration config = new Configuration();
+        // 0.0.0.0으로 설정하여 모든 네트워크 인터페이스에서 접근 가능하도록 함
+        config.setHostname("0.0.0.0");
+        config.setPort(port);
+
+        // CORS 설정
+        config.setOrigin("*");
+
+        // Socket.io 호환성 설정
+        config.setAllowCustomRequests(true);
+        config.setUpgradeTimeout(upgradeTimeout);
+        config.setPingTimeout(pingTimeout);
+        config.setPingInterval(pingInterval);
+
+        config.setBossThreads(bossThreads);
+        config.setWorkerThreads(workerThreads);
+        config.setUseLinuxNativeEpoll(useEpoll());
+        config.setMaxFramePayloadLength(maxFramePayload);
+        config.setMaxHttpContentLength(maxHttpContent);
+        config.setAckMode(ackMode);
+
+        SocketConfig socketConfig = new SocketConfig();
+        socketConfig.setTcpNoDelay(tcpNoDelay);
+        socketConfig.setAcceptBackLog(acceptBacklog);
+        socketConfig.setReuseAddress(true);
+        socketConfig.setWriteBufferWaterMarkLow(writeBufferLow);
+        socketConfig.setWriteBufferWaterMarkHigh(writeBufferHigh);
+        config.setSocketConfig(socketConfig);
+        return config;
+    }
+
+    /**
+     * epoll 사용 여부 (auto면 Linux에서 네이티브 라이브러리를 불러올 수 있을 때만)
+     */
+    public boolean useEpoll() {
+        if ("false".equalsIgnoreCase(epoll)) return false;
+        boolean available = isEpollAvailable();
+        if ("true".equalsIgnoreCase(epoll) && !available) {
+            log.warn("epoll을 사용할 수 없어 기본 NIO 전송을 사용합니다.");
+        }
+        return available;
+    }
+
+    private static boolean isEpollAvailable() {
+        if (!System.getProperty("os.name", "").toLowerCase().contains("linux")) return false;
+        try {
+            Class<?> epoll = Class.forName("io.netty.channel.epoll.Epoll");
+            return (Boolean) epoll.getMethod("isAvailable").invoke(null);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "port=" + port + ", bossThreads=" + bossThreads + ", workerThreads=" + workerThreads
+            + ", epoll=" + useEpoll() + ", tcpNoDelay=" + tcpNoDelay
+            + ", writeBuffer=" + writeBufferLow + "/" + writeBufferHigh
+            + ", maxFramePayload=" + maxFramePayload + ", ping=" + pingInterval + "/" + pingTimeout
+            + ", ackMode=" + ackMode;
+    }
+
+    private AckMode ackModeSetting() {
+        String value = setting("ackMode", "AUTO");
+        try {
+            return AckMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("잘못된 ackMode 무시: {}", value);
+            return AckMode.AUTO;
+        }
+    }
+
+    private static int intSetting(String name, int defaultValue) {
+        String value = setting(name, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("잘못된 설정 무시: {}={}", name, value);
+            return defaultValue;
+        }
+    }
+
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty("chat.server." + name);
+        if (value == null || value.isEmpty()) {
+            value = System.getenv("CHAT_SERVER_" + toEnvName(name));
+        }
+        return (value == null || value.isEmpty()) ? defaultValue : value;
+    }
+
+    private static String toEnvName(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) sb.append('_');
+            sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+}
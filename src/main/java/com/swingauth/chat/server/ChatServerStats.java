@@ -0,0 +1,91 @@
+package com.swingauth.chat.server;
+
+import com.swingauth.metrics.Histogram;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 채팅 서버 전송 통계
+ * - 접속자 수, 이벤트 종류별 수신 횟수(로그 주기마다 초당 처리량으로 환산)
+ * - 중계 지연: 메시지 수신부터 상대에게 보낼 데이터를 netty에 넘길 때까지 (마이크로초)
+ * - 송신 대기 바이트: 접속 채널들의 아직 소켓에 쓰지 못한 바이트 합
+ */
+public final class ChatServerStats {
+    private static final ChatRateLimits.Event[] EVENTS = ChatRateLimits.Event.values();
+
+    private final LongAdder[] events = new LongAdder[EVENTS.length];
+    private final long[] lastEventCounts = new long[EVENTS.length];
+    private final Histogram relayLatencyMicros = new Histogram();
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+    private final IntSupplier connectedClients;
+    private long lastReportNanos = System.nanoTime();
+
+    public ChatServerStats(IntSupplier connectedClients) {
+        this.connectedClients = connectedClients;
+        for (int i = 0; i < EVENTS.length; i++) {
+            events[i] = new LongAdder();
+        }
+    }
+
+    public void recordEvent(ChatRateLimits.Event event) {
+        events[event.ordinal()].increment();
+    }
+
+    public void recordRelay(long startNanos) {
+        relayLatencyMicros.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * 송신 대기 바이트 집계 대상 채널 등록 (닫히면 자동 제거)
+     */
+    void track(Channel channel) {
+        channels.add(channel);
+        channel.closeFuture().addListener(f -> channels.remove(channel));
+    }
+
+    public int getConnectedClients() {
+        return connectedClients.getAsInt();
+    }
+
+    public long getEventCount(ChatRateLimits.Event event) {
+        return events[event.ordinal()].sum();
+    }
+
+    public Histogram getRelayLatencyMicros() {
+        return relayLatencyMicros;
+    }
+
+    public long getPendingOutboundBytes() {
+        long total = 0;
+        for (Channel channel : channels) {
+            ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+            if (buffer != null) total += buffer.totalPendingWriteBytes();
+        }
+        return total;
+    }
+
+    /**
+     * 지난 보고 이후 통계 요약 (주기적 로그용, 한 스레드에서만 호출)
+     */
+    String report() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastReportNanos) / 1e9);
+        lastReportNanos = now;
+
+        StringBuilder sb = new StringBuilder("접속 ").append(getConnectedClients())
+            .append(", 송신 대기 ").append(getPendingOutboundBytes()).append("B, 이벤트/초");
+        for (int i = 0; i < EVENTS.length; i++) {
+            long count = events[i].sum();
+            sb.append(' ').append(EVENTS[i].eventName).append('=')
+                .append(String.format("%.1f", (count - lastEventCounts[i]) / seconds));
+            lastEventCounts[i] = count;
+        }
+        sb.append(", 중계 지연(us) ").append(relayLatencyMicros.snapshot());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.swingauth.chat.transcript;
+
+/**
+ * 대화 기록 한 줄
+ */
+public final class TranscriptEntry {
+    private final long timestampMillis;
+    private final String pairKey;
+    private final String from;
+    private final String text;
+
+    TranscriptEntry(long timestampMillis, String pairKey, String from, String text) {
+        this.timestampMillis = timestampMillis;
+        this.pairKey = pairKey;
+        this.from = from;
+        this.text = text;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * 두 참여자를 정렬해 이은 키 (TranscriptStore.pairKey)
+     */
+    public String getPairKey() {
+        return pairKey;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return timestampMillis + " " + from + ": " + text;
+    }
+}
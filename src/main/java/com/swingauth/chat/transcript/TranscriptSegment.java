@@ -0,0 +1,196 @@
+package com.swingauth.chat.transcript;
+
+import com.swingauth.logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메모리 매핑된 고정 크기 세그먼트 파일 하나
+ * - 레코드: [int 길이][long 시각][short 쌍 키 길이][쌍 키][short 보낸이 길이][보낸이][int 본문 길이][본문]
+ *   길이 0인 칸을 만나면 끝 (새 파일은 0으로 채워져 있음)
+ * - 쌍별 색인(쌍 키 -> 레코드 위치 목록)은 메모리에 두고, 시작 시 파일을 훑어 다시 만듦
+ * - 쓰기는 저장소의 기록 스레드만 하고, 색인 조회/추가는 세그먼트 단위로 동기화
+ */
+final class TranscriptSegment {
+    private static final Logger log = Logger.get(TranscriptStore.class); // 저장소와 같은 로거
+    private static final int HEADER_BYTES = 4;
+
+    final long id;
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, int[]> index = new HashMap<>(); // [0]은 개수, 이후 위치
+    private int position;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private boolean dirty;
+
+    private TranscriptSegment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static TranscriptSegment open(Path path, long id, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(capacity, channel.size());
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        TranscriptSegment segment = new TranscriptSegment(id, path, channel, buffer);
+        segment.recover();
+        return segment;
+    }
+
+    /**
+     * 기존 레코드를 훑어 쓰기 위치와 색인 복구
+     */
+    private void recover() {
+        int pos = 0;
+        while (pos + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + HEADER_BYTES + length > buffer.capacity()) break;
+            long timestamp = buffer.getLong(pos + HEADER_BYTES);
+            int keyLength = buffer.getShort(pos + HEADER_BYTES + 8) & 0xFFFF;
+            byte[] key = new byte[keyLength];
+            buffer.get(pos + HEADER_BYTES + 10, key);
+            addToIndex(new String(key, StandardCharsets.UTF_8), pos, timestamp);
+            pos += HEADER_BYTES + length;
+        }
+        position = pos;
+    }
+
+    static int recordSize(byte[] pairKey, byte[] from, byte[] text) {
+        return HEADER_BYTES + 8 + 2 + pairKey.length + 2 + from.length + 4 + text.length;
+    }
+
+    boolean hasRoom(int recordSize) {
+        // 끝 표시(길이 0)를 위해 4바이트 여유
+        return position + recordSize + HEADER_BYTES <= buffer.capacity();
+    }
+
+    boolean isEmpty() {
+        return position == 0;
+    }
+
+    /**
+     * 레코드 추가 (기록 스레드 전용)
+     */
+    void append(long timestamp, String pairKey, byte[] keyBytes, byte[] from, byte[] text) {
+        int start = position;
+        int length = recordSize(keyBytes, from, text) - HEADER_BYTES;
+        ByteBuffer b = buffer;
+        int p = start + HEADER_BYTES;
+        b.putLong(p, timestamp);
+        p += 8;
+        b.putShort(p, (short) keyBytes.length);
+        b.put(p + 2, keyBytes);
+        p += 2 + keyBytes.length;
+        b.putShort(p, (short) from.length);
+        b.put(p + 2, from);
+        p += 2 + from.length;
+        b.putInt(p, text.length);
+        b.put(p + 4, text);
+        // 길이는 마지막에 기록 -> 중간에 죽어도 반쯤 쓴 레코드는 복구 시 끝으로 인식
+        b.putInt(start, length);
+        position = start + HEADER_BYTES + length;
+        dirty = true;
+        addToIndex(pairKey, start, timestamp);
+    }
+
+    private synchronized void addToIndex(String pairKey, int offset, long timestamp) {
+        int[] offsets = index.get(pairKey);
+        if (offsets == null) {
+            offsets = new int[5];
+        } else if (offsets[0] + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[++offsets[0]] = offset;
+        index.put(pairKey, offsets);
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    synchronized boolean overlaps(long from, long to) {
+        return minTimestamp <= to && maxTimestamp >= from;
+    }
+
+    synchronized long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * 쌍의 기록 중 [from, to] 시각 범위
+     */
+    List<TranscriptEntry> read(String pairKey, long from, long to) {
+        int[] offsets;
+        synchronized (this) {
+            int[] found = index.get(pairKey);
+            if (found == null) return List.of();
+            offsets = Arrays.copyOf(found, found[0] + 1);
+        }
+        ByteBuffer b = buffer.duplicate();
+        List<TranscriptEntry> result = new ArrayList<>();
+        for (int i = 1; i <= offsets[0]; i++) {
+            int p = offsets[i] + HEADER_BYTES;
+            long timestamp = b.getLong(p);
+            if (timestamp < from || timestamp > to) continue;
+            p += 8;
+            int keyLength = b.getShort(p) & 0xFFFF;
+            p += 2 + keyLength;
+            int fromLength = b.getShort(p) & 0xFFFF;
+            String sender = string(b, p + 2, fromLength);
+            p += 2 + fromLength;
+            int textLength = b.getInt(p);
+            String text = string(b, p + 4, textLength);
+            result.add(new TranscriptEntry(timestamp, pairKey, sender, text));
+        }
+        return result;
+    }
+
+    private static String string(ByteBuffer b, int offset, int length) {
+        byte[] bytes = new byte[length];
+        b.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 디스크에 반영 (기록 스레드에서 주기적으로 호출)
+     */
+    void flush() {
+        if (!dirty) return;
+        buffer.force();
+        dirty = false;
+    }
+
+    void close() {
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("세그먼트 닫기 실패: {} - {}", path, e.getMessage());
+        }
+    }
+
+    boolean delete() {
+        close();
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 매핑이 아직 해제되지 않은 OS(Windows)에서는 다음 정리 주기에 다시 시도
+            return false;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.swingauth.chat.transcript;
+
+import com.swingauth.logging.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 랜덤채팅 대화 기록 저장소 (로컬 디스크, 추가 전용)
+ * - 중계 경로에서는 큐에 넣기만 하고(가득 차면 버리고 개수만 셈), 기록 스레드가 모아서 세그먼트에 씀
+ * - 세그먼트는 고정 크기 메모리 매핑 파일이며 가득 차면 새 파일로 넘어감
+ * - 보관 기간이 지난 세그먼트는 통째로 삭제
+ * - 신고 처리/자동 제재 근거 확인용으로 쌍 + 시간 범위로 조회
+ */
+public class TranscriptStore implements AutoCloseable {
+    private static final Logger log = Logger.get(TranscriptStore.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_TEXT_BYTES = 16 * 1024;
+    private static final int MAX_SEGMENT_MB = 1024;
+    private static final int BATCH = 512;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final long RETENTION_CHECK_INTERVAL_MILLIS = 60_000;
+
+    private static final class Pending {
+        final long timestamp;
+        final String pairKey;
+        final String from;
+        final String text;
+
+        Pending(long timestamp, String pairKey, String from, String text) {
+            this.timestamp = timestamp;
+            this.pairKey = pairKey;
+            this.from = from;
+            this.text = text;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long retentionMillis;
+    private final BlockingQueue<Pending> queue;
+    private final List<TranscriptSegment> segments = new CopyOnWriteArrayList<>(); // 오래된 순, 마지막이 쓰는 중
+    private final List<TranscriptSegment> pendingDeletes = new ArrayList<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * @param segmentBytes 세그먼트 파일 크기
+     * @param retentionMillis 보관 기간
+     * @param queueCapacity 기록 대기 최대 개수 (넘으면 버림)
+     */
+    public TranscriptStore(Path directory, int segmentBytes, long retentionMillis, int queueCapacity) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retentionMillis = retentionMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Files.createDirectories(directory);
+        loadSegments();
+        if (segments.isEmpty()) {
+            segments.add(TranscriptSegment.open(segmentPath(0), 0, segmentBytes));
+        }
+
+        writer = new Thread(this::writeLoop, "transcript-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 설정으로 생성 (실패하면 null: 기록 없이 채팅만 동작)
+     * - chat.transcript.enabled (기본 false: 대화 내용 전체가 디스크에 남으므로 명시적으로 켤 때만 기록)
+     * - chat.transcript.dir (기본 ~/.random-chat-transcripts)
+     * - chat.transcript.retentionDays (기본 30)
+     * - chat.transcript.segmentMb (기본 64, 1 ~ 1024)
+     */
+    public static TranscriptStore fromSystemProperties() {
+        if (!Boolean.getBoolean("chat.transcript.enabled")) return null;
+        String dir = System.getProperty("chat.transcript.dir",
+            System.getProperty("user.home") + "/.random-chat-transcripts");
+        long retentionDays = Long.getLong("chat.transcript.retentionDays", 30L);
+        int segmentMb = Integer.getInteger("chat.transcript.segmentMb", 64);
+        // 세그먼트는 int 크기로 한 번에 매핑하므로 1GB까지만
+        if (segmentMb < 1 || segmentMb > MAX_SEGMENT_MB) {
+            log.warn("chat.transcript.segmentMb는 1 ~ {} 사이여야 함 ({}), 기록 없이 동작", MAX_SEGMENT_MB, segmentMb);
+            return null;
+        }
+        try {
+            return new TranscriptStore(Paths.get(dir), Math.toIntExact(segmentMb * 1024L * 1024L),
+                TimeUnit.DAYS.toMillis(retentionDays), 65536);
+        } catch (Exception e) {
+            log.warn("대화 기록 저장소 열기 실패, 기록 없이 동작: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 두 참여자 순서와 무관한 쌍 키
+     */
+    public static String pairKey(String a, String b) {
+        return a.compareTo(b) <= 0 ? a + "\n" + b : b + "\n" + a;
+    }
+
+    /**
+     * 기록 요청 (중계 스레드에서 호출, 막히지 않음)
+     * @return 큐에 넣었으면 true (가득 차서 버렸으면 false)
+     */
+    public boolean append(String from, String to, String text) {
+        return append(from, to, text, System.currentTimeMillis());
+    }
+
+    public boolean append(String from, String to, String text, long timestampMillis) {
+        if (!running || from == null || to == null || text == null) return false;
+        if (queue.offer(new Pending(timestampMillis, pairKey(from, to), from, text))) return true;
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * 두 사람의 대화 중 [fromMillis, toMillis] 범위 (시간순)
+     */
+    public List<TranscriptEntry> read(String userA, String userB, long fromMillis, long toMillis) {
+        String key = pairKey(userA, userB);
+        List<TranscriptEntry> result = new ArrayList<>();
+        for (TranscriptSegment segment : segments) {
+            if (segment.overlaps(fromMillis, toMillis)) {
+                result.addAll(segment.read(key, fromMillis, toMillis));
+            }
+        }
+        result.sort(Comparator.comparingLong(TranscriptEntry::getTimestampMillis));
+        return result;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TranscriptSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(BATCH);
+        long lastFlush = System.currentTimeMillis();
+        long lastRetentionCheck = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH - 1);
+                    for (Pending p : batch) {
+                        write(p);
+                    }
+                    written.add(batch.size());
+                    batch.clear();
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastFlush >= FLUSH_INTERVAL_MILLIS) {
+                    active().flush();
+                    lastFlush = now;
+                }
+                if (now - lastRetentionCheck >= RETENTION_CHECK_INTERVAL_MILLIS) {
+                    deleteExpired(now);
+                    lastRetentionCheck = now;
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // 종료 시 남은 기록을 마저 씀
+                    queue.drainTo(batch);
+                    for (Pending p : batch) {
+                        write(p);
+                    }
+                    written.add(batch.size());
+                    batch.clear();
+                }
+            } catch (Exception e) {
+                log.error("기록 실패: {}", e.getMessage());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(Pending p) {
+        byte[] key = p.pairKey.getBytes(StandardCharsets.UTF_8);
+        byte[] from = p.from.getBytes(StandardCharsets.UTF_8);
+        byte[] text = p.text.getBytes(StandardCharsets.UTF_8);
+        if (text.length > MAX_TEXT_BYTES) {
+            text = new String(text, 0, MAX_TEXT_BYTES, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
+        }
+        int size = TranscriptSegment.recordSize(key, from, text);
+        TranscriptSegment segment = active();
+        if (!segment.hasRoom(size)) {
+            segment = roll(Math.max(segmentBytes, size * 2));
+        }
+        segment.append(p.timestamp, p.pairKey, key, from, text);
+    }
+
+    private TranscriptSegment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private TranscriptSegment roll(int capacity) {
+        TranscriptSegment current = active();
+        current.flush();
+        long nextId = current.id + 1;
+        try {
+            TranscriptSegment next = TranscriptSegment.open(segmentPath(nextId), nextId, capacity);
+            segments.add(next);
+            return next;
+        } catch (IOException e) {
+            throw new IllegalStateException("새 세그먼트 생성 실패: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 보관 기간이 지난 세그먼트 삭제 (쓰는 중인 세그먼트는 제외)
+     */
+    private void deleteExpired(long now) {
+        long cutoff = now - retentionMillis;
+        for (TranscriptSegment segment : segments) {
+            if (segment == active()) break;
+            if (segment.getMaxTimestamp() < cutoff) {
+                segments.remove(segment);
+                pendingDeletes.add(segment);
+            }
+        }
+        pendingDeletes.removeIf(TranscriptSegment::delete);
+    }
+
+    private void loadSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.comparing(Path::toString));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            segments.add(TranscriptSegment.open(file, id, segmentBytes));
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+}
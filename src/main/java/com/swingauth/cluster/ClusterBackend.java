@@ -0,0 +1,59 @@
+package com.swingauth.cluster;
+
+import java.util.List;
+
+/**
+ * 여러 시그널링 노드가 공유하는 상태
+ * - 공용 대기열: 노드 안에서 매칭되지 못한 대기자를 올려두고, 아무 노드나 원자적으로 쌍을 가져감
+ * - 방 목록: roomId -> 참여 노드
+ * - 노드 간 메시지 전달: 상대가 다른 노드에 있을 때 RTC/채팅 메시지 중계
+ *
+ * 통신 실패 시 IllegalStateException을 던지므로 호출하는 쪽에서 잡아서 처리
+ */
+public interface ClusterBackend extends AutoCloseable {
+
+    /**
+     * 노드로 전달된 메시지 처리 (백엔드 전달 스레드에서 호출됨)
+     */
+    interface MessageHandler {
+        void onMessage(String fromNode, String payload);
+    }
+
+    String getNodeId();
+
+    void publishWaiter(String pool, ClusterWaiter waiter);
+
+    /**
+     * 공용 대기열 (올라온 순서)
+     */
+    List<ClusterWaiter> listWaiters(String pool);
+
+    /**
+     * 두 대기자를 한 번에 대기열에서 가져옵니다. 둘 다 남아 있을 때만 성공
+     */
+    boolean claimPair(String pool, String key1, String key2);
+
+    /**
+     * 대기 취소. 이미 다른 노드가 가져갔으면 false
+     */
+    boolean withdrawWaiter(String pool, String key);
+
+    void putRoom(String roomId, List<String> nodeIds);
+
+    /**
+     * @return 방 참여 노드 (없으면 빈 목록)
+     */
+    List<String> getRoom(String roomId);
+
+    void removeRoom(String roomId);
+
+    /**
+     * 다른 노드로 메시지 전송 (채널을 구독한 핸들러로 전달)
+     */
+    void send(String nodeId, String channel, String payload);
+
+    void subscribe(String channel, MessageHandler handler);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,79 @@
+package com.swingauth.cluster;
+
+import com.swingauth.logging.Logger;
+
+import java.util.UUID;
+
+/**
+ * 설정에 따라 클러스터 백엔드 생성
+ * - cluster.mode (환경 변수 CLUSTER_MODE): none(기본, 단일 노드) / memory / tcp
+ * - cluster.broker (CLUSTER_BROKER): tcp 모드 브로커 주소 host:port (기본 127.0.0.1:7400)
+ * - cluster.nodeId (CLUSTER_NODE_ID): 노드 이름 (기본 무작위)
+ * - cluster.secret (CLUSTER_SECRET): 브로커 접속용 공유 비밀값 (tcp 모드 필수, 브로커와 모든 노드가 같은 값)
+ * - cluster.brokerHost (CLUSTER_BROKER_HOST): 브로커가 대기할 주소 (기본 127.0.0.1, 다른 서버의 노드를 받으려면 내부망 주소로)
+ * 우선순위: 시스템 속성 > 환경 변수
+ */
+public final class ClusterBackends {
+    private static final Logger log = Logger.get(ClusterBackends.class);
+    public static final int DEFAULT_BROKER_PORT = 7400;
+    public static final String DEFAULT_BROKER_HOST = "127.0.0.1";
+
+    private static final ClusterState LOCAL_STATE = new ClusterState();
+    private static ClusterBackend shared;
+    private static boolean initialized;
+
+    private ClusterBackends() {}
+
+    /**
+     * 프로세스 공용 백엔드 (영상통화/채팅 서버가 같은 노드 연결을 공유). 단일 노드 구성이면 null
+     */
+    public static synchronized ClusterBackend shared() {
+        if (!initialized) {
+            initialized = true;
+            shared = fromConfig();
+        }
+        return shared;
+    }
+
+    private static ClusterBackend fromConfig() {
+        String mode = setting("cluster.mode", "CLUSTER_MODE", "none");
+        String nodeId = setting("cluster.nodeId", "CLUSTER_NODE_ID", "node-" + UUID.randomUUID().toString().substring(0, 8));
+        try {
+            if ("memory".equalsIgnoreCase(mode)) {
+                return new InMemoryClusterBackend(LOCAL_STATE, nodeId);
+            }
+            if ("tcp".equalsIgnoreCase(mode)) {
+                String broker = setting("cluster.broker", "CLUSTER_BROKER", "127.0.0.1:" + DEFAULT_BROKER_PORT);
+                int colon = broker.lastIndexOf(':');
+                String host = colon > 0 ? broker.substring(0, colon) : broker;
+                int port = colon > 0 ? Integer.parseInt(broker.substring(colon + 1)) : DEFAULT_BROKER_PORT;
+                ClusterBackend backend = new TcpClusterBackend(host, port, nodeId, sharedSecret());
+                log.info("브로커 접속: {} (노드 {})", broker, nodeId);
+                return backend;
+            }
+        } catch (Exception e) {
+            log.error("클러스터 백엔드 생성 실패, 단일 노드로 동작: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 브로커 접속용 공유 비밀값 (설정이 없으면 null)
+     */
+    public static String sharedSecret() {
+        return setting("cluster.secret", "CLUSTER_SECRET", null);
+    }
+
+    /**
+     * 브로커가 대기할 주소
+     */
+    public static String brokerBindHost() {
+        return setting("cluster.brokerHost", "CLUSTER_BROKER_HOST", DEFAULT_BROKER_HOST);
+    }
+
+    private static String setting(String property, String env, String defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isEmpty()) value = System.getenv(env);
+        return (value == null || value.isEmpty()) ? defaultValue : value;
+    }
+}
@@ -0,0 +1,213 @@
+package com.swingauth.cluster;
+
+import com.swingauth.logging.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 노드들이 TCP로 접속하는 공유 상태 브로커 (TcpClusterBackend의 상대편)
+ * - 한 줄에 JSON 하나: 요청 {"id","op",...} -> 응답 {"id","ok","result"}
+ * - 노드로 보내는 메시지는 {"op":"deliver","from","channel","payload"}
+ * - 접속마다 스레드 하나 (노드 수가 적으므로 충분)
+ * - 인증 없는 브로커에 누구나 대기자/방 상태를 바꿀 수 있으므로, 첫 요청 hello의 secret이 공유 비밀값과 같아야 함
+ *   (다르거나 HELLO_TIMEOUT_MILLIS 안에 hello가 없으면 연결을 끊음), 대기 주소는 기본 루프백
+ */
+public class ClusterBrokerServer {
+    private static final Logger log = Logger.get(ClusterBrokerServer.class);
+    private static final int HELLO_TIMEOUT_MILLIS = 10_000;
+    private final String host;
+    private final int port;
+    private final byte[] secret;
+    private final ClusterState state = new ClusterState();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * @param host 대기할 주소 (다른 서버의 노드를 받을 때만 내부망 주소로)
+     * @param secret 노드가 hello에 보내야 하는 공유 비밀값 (비어 있으면 start에서 실패)
+     */
+    public ClusterBrokerServer(String host, int port, String secret) {
+        this.host = host;
+        this.port = port;
+        this.secret = secret != null ? secret.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        if (secret.length == 0) {
+            throw new IllegalStateException("클러스터 공유 비밀값이 없습니다. -Dcluster.secret 또는 CLUSTER_SECRET을 설정하세요.");
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName(host));
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "cluster-broker-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("{}:{}에서 대기 중", host, getPort());
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        connections.clear();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(HELLO_TIMEOUT_MILLIS); // hello를 받으면 해제
+                connections.add(socket);
+                Thread t = new Thread(() -> serve(socket), "cluster-broker-" + socket.getRemoteSocketAddress());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (running) log.error("접속 수락 실패: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        String nodeId = null;
+        ClusterState.NodeLink link = null;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                JSONObject request = new JSONObject(line);
+                String op = request.optString("op");
+                JSONObject response = new JSONObject().put("id", request.optLong("id"));
+                try {
+                    if ("hello".equals(op)) {
+                        if (nodeId != null) throw new IllegalStateException("이미 hello를 보냄");
+                        if (!secretMatches(request.optString("secret"))) {
+                            log.warn("노드 인증 실패: {}", socket.getRemoteSocketAddress());
+                            write(out, response.put("ok", false).put("error", "인증 실패"));
+                            return;
+                        }
+                        socket.setSoTimeout(0);
+                        nodeId = request.getString("nodeId");
+                        link = (from, channel, payload) -> write(out, new JSONObject()
+                            .put("op", "deliver").put("from", from).put("channel", channel).put("payload", payload));
+                        state.attach(nodeId, link);
+                        log.info("노드 접속: {}", nodeId);
+                        response.put("ok", true);
+                    } else if (nodeId == null) {
+                        response.put("ok", false).put("error", "hello 필요");
+                    } else {
+                        handle(nodeId, op, request, response);
+                    }
+                } catch (Exception e) {
+                    response.put("ok", false).put("error", String.valueOf(e.getMessage()));
+                }
+                write(out, response);
+            }
+        } catch (SocketTimeoutException e) {
+            log.warn("hello 없이 시간 초과: {}", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (running) log.warn("연결 오류 ({}): {}", nodeId, e.getMessage());
+        } finally {
+            connections.remove(socket);
+            if (nodeId != null) {
+                state.detach(nodeId, link);
+                log.info("노드 연결 종료: {}", nodeId);
+            }
+        }
+    }
+
+    private boolean secretMatches(String presented) {
+        // 길이 외의 정보가 응답 시간으로 새지 않도록 상수 시간 비교
+        return MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handle(String nodeId, String op, JSONObject request, JSONObject response) {
+        String pool = request.optString("pool");
+        switch (op) {
+            case "publish":
+                state.publish(pool, ClusterWaiter.fromJson(request.getJSONObject("waiter")));
+                response.put("ok", true);
+                break;
+            case "list": {
+                JSONArray waiters = new JSONArray();
+                for (ClusterWaiter w : state.list(pool)) {
+                    waiters.put(w.toJson());
+                }
+                response.put("ok", true).put("result", waiters);
+                break;
+            }
+            case "claimPair":
+                response.put("ok", true).put("result", state.claimPair(pool, request.getString("key1"), request.getString("key2")));
+                break;
+            case "withdraw":
+                response.put("ok", true).put("result", state.withdraw(pool, request.getString("key")));
+                break;
+            case "putRoom": {
+                List<String> nodes = new ArrayList<>();
+                JSONArray array = request.getJSONArray("nodes");
+                for (int i = 0; i < array.length(); i++) {
+                    nodes.add(array.getString(i));
+                }
+                state.putRoom(request.getString("roomId"), nodes);
+                response.put("ok", true);
+                break;
+            }
+            case "getRoom":
+                response.put("ok", true).put("result", new JSONArray(state.getRoom(request.getString("roomId"))));
+                break;
+            case "removeRoom":
+                state.removeRoom(request.getString("roomId"));
+                response.put("ok", true);
+                break;
+            case "send":
+                boolean delivered = state.send(nodeId, request.getString("to"), request.getString("channel"), request.getString("payload"));
+                response.put("ok", delivered);
+                if (!delivered) response.put("error", "노드에 연결할 수 없음: " + request.getString("to"));
+                break;
+            default:
+                response.put("ok", false).put("error", "알 수 없는 요청: " + op);
+        }
+    }
+
+    private static void write(Writer out, JSONObject message) {
+        synchronized (out) {
+            try {
+                out.write(message.toString());
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                // 연결 종료는 읽기 루프에서 처리
+            }
+        }
+    }
+}
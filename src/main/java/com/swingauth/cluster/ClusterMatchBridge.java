@@ -0,0 +1,284 @@
+package com.swingauth.cluster;
+
+import com.swingauth.logging.Logger;
+import com.swingauth.matching.CachedExclusion;
+import com.swingauth.matching.MatchTicket;
+import com.swingauth.matching.Matchmaker;
+import com.swingauth.matching.PairExclusionIndex;
+import org.json.JSONObject;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 노드 간 매칭 연결
+ * - 노드 안에서 exportAfterMillis 이상 매칭되지 못한 대기자를 로컬 매칭 엔진에서 빼서 공용 대기열에 올림
+ * - 주기적으로 공용 대기열을 보고, 자기 노드 대기자와 (어느 노드든) 다른 대기자를 선착순으로 짝지음
+ *   쌍 가져가기는 백엔드에서 원자적이므로 여러 노드가 동시에 시도해도 한 쌍만 성립
+ * - 상대가 다른 노드면 그 노드로 matched 메시지를 보내 양쪽이 각자 자기 접속자에게 알림
+ * - 이후 RTC/채팅 메시지는 relay()로 상대 노드에 전달하고, 받은 메시지는 Listener.onRelay로 넘김
+ */
+public class ClusterMatchBridge<T> {
+    private static final Logger log = Logger.get(ClusterMatchBridge.class);
+    private static final long TICK_MILLIS = 500;
+    private static final long EXCLUSION_CACHE_TTL_MILLIS = 10 * 60 * 1000L;
+
+    public interface Listener<T> {
+        /**
+         * 같은 노드의 두 대기자가 공용 대기열에서 짝지어짐
+         */
+        void onLocalMatched(T first, T second);
+
+        /**
+         * 이 노드의 대기자와 다른 노드의 대기자가 짝지어짐 (양쪽 노드에서 각각 호출)
+         * @param pairId 두 노드가 공유하는 쌍 id (방 id로 사용)
+         */
+        void onRemoteMatched(String pairId, T local, ClusterWaiter remote);
+
+        /**
+         * 상대 노드가 보낸 메시지 (RTC 중계, 채팅, pairEnded 등)
+         */
+        void onRelay(String fromNode, JSONObject message);
+    }
+
+    private final ClusterBackend backend;
+    private final String pool;
+    private final Matchmaker<T> matchmaker;
+    private final Predicate<T> alive;
+    private final Function<T, String> usernameOf;
+    private final BiPredicate<ClusterWaiter, ClusterWaiter> excluded;
+    private final long exportAfterMillis;
+    private final Listener<T> listener;
+    private final Map<String, T> exported = new ConcurrentHashMap<>(); // 이 노드가 공용 대기열에 올린 대기자
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param pool 공용 대기열 이름이자 메시지 채널 이름 (서비스별로 다르게)
+     * @param excluded 매칭 불가 쌍 (블랙리스트, 이름 기준). 결과가 true면 캐시됨
+     */
+    public ClusterMatchBridge(ClusterBackend backend, String pool, Matchmaker<T> matchmaker,
+                              Predicate<T> alive, Function<T, String> usernameOf,
+                              BiPredicate<ClusterWaiter, ClusterWaiter> excluded,
+                              long exportAfterMillis, Listener<T> listener) {
+        this.backend = backend;
+        this.pool = pool;
+        this.matchmaker = matchmaker;
+        this.alive = alive;
+        this.usernameOf = usernameOf;
+        this.excluded = new CachedExclusion<>(new PairExclusionIndex(EXCLUSION_CACHE_TTL_MILLIS),
+            ClusterWaiter::getKey, excluded);
+        this.exportAfterMillis = exportAfterMillis;
+        this.listener = listener;
+
+        backend.subscribe(pool, this::onMessage);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-" + pool + "-match");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public String getNodeId() {
+        return backend.getNodeId();
+    }
+
+    public ClusterBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * 공용 대기열에 올라가 있는 이 노드 대기자인지
+     */
+    public boolean isExported(String key) {
+        return exported.containsKey(key);
+    }
+
+    /**
+     * 공용 대기열에서 대기 취소
+     * @return 취소되었으면 true (이미 다른 노드와 짝지어졌으면 false)
+     */
+    public boolean withdraw(String key) {
+        if (exported.remove(key) == null) return false;
+        try {
+            return backend.withdrawWaiter(pool, key);
+        } catch (Exception e) {
+            log.error("대기 취소 실패: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 다른 노드로 메시지 전달
+     * @return 전송 성공 여부
+     */
+    public boolean relay(String nodeId, JSONObject message) {
+        try {
+            backend.send(nodeId, pool, message.toString());
+            return true;
+        } catch (Exception e) {
+            log.error("메시지 전달 실패 ({}): {}", nodeId, e.getMessage());
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (String key : exported.keySet()) {
+            withdraw(key);
+        }
+    }
+
+    private void tick() {
+        try {
+            exportLongWaiters();
+            dropDeadWaiters();
+            matchPool();
+        } catch (Exception e) {
+            log.error("노드 간 매칭 오류 ({}): {}", pool, e.getMessage());
+        }
+    }
+
+    private void exportLongWaiters() {
+        for (MatchTicket<T> ticket : matchmaker.waitingLongerThan(exportAfterMillis)) {
+            T participant = ticket.getParticipant();
+            if (!alive.test(participant) || !matchmaker.cancel(ticket.getKey())) continue;
+            exported.put(ticket.getKey(), participant);
+            try {
+                backend.publishWaiter(pool, new ClusterWaiter(ticket.getKey(), backend.getNodeId(),
+                    usernameOf.apply(participant), System.currentTimeMillis()));
+            } catch (Exception e) {
+                // 올리지 못했으면 로컬 대기열로 되돌림
+                exported.remove(ticket.getKey());
+                matchmaker.enqueue(ticket.getKey(), participant, null);
+                throw e;
+            }
+        }
+    }
+
+    private void dropDeadWaiters() {
+        for (Map.Entry<String, T> entry : exported.entrySet()) {
+            if (!alive.test(entry.getValue())) withdraw(entry.getKey());
+        }
+    }
+
+    /**
+     * 공용 대기열 선착순 매칭: 이 노드 대기자마다 가장 오래 기다린, 매칭 가능한 상대를 찾음
+     */
+    private void matchPool() {
+        if (exported.isEmpty()) return;
+        List<ClusterWaiter> waiters = backend.listWaiters(pool);
+        String self = backend.getNodeId();
+        Set<String> taken = new HashSet<>();
+
+        for (ClusterWaiter mine : waiters) {
+            if (!self.equals(mine.getNodeId()) || taken.contains(mine.getKey())) continue;
+            if (!exported.containsKey(mine.getKey())) continue;
+
+            for (ClusterWaiter other : waiters) {
+                if (other == mine || taken.contains(other.getKey())) continue;
+                if (excluded.test(mine, other)) continue;
+                if (!backend.claimPair(pool, mine.getKey(), other.getKey())) continue;
+
+                taken.add(mine.getKey());
+                taken.add(other.getKey());
+                onClaimed(mine, other);
+                break;
+            }
+        }
+    }
+
+    /**
+     * 공용 대기열에서 가져간 쌍 처리 (가져간 뒤 성립하지 못하면 남은 대기자를 모두 되돌림)
+     */
+    private void onClaimed(ClusterWaiter mine, ClusterWaiter other) {
+        T local = exported.remove(mine.getKey());
+        if (self().equals(other.getNodeId())) {
+            T second = exported.remove(other.getKey());
+            if (local != null && second != null) {
+                listener.onLocalMatched(local, second);
+                return;
+            }
+            // 한쪽이 그 사이 취소됨: 남은 쪽은 로컬 대기열로
+            requeue(mine.getKey(), local);
+            requeue(other.getKey(), second);
+            return;
+        }
+
+        if (local == null || !alive.test(local)) {
+            // 이 노드 대기자가 그 사이 나감: 상대 노드에는 알리지 않고 상대 대기자만 공용 대기열로 되돌림
+            release(other);
+            return;
+        }
+
+        String pairId = UUID.randomUUID().toString();
+        try {
+            backend.putRoom(pairId, List.of(self(), other.getNodeId()));
+        } catch (Exception e) {
+            log.error("방 등록 실패: {}", e.getMessage());
+        }
+        JSONObject matched = new JSONObject()
+            .put("type", "matched")
+            .put("pairId", pairId)
+            .put("target", other.getKey())
+            .put("peer", mine.toJson());
+        if (!relay(other.getNodeId(), matched)) {
+            // 상대 노드에 알리지 못함: 양쪽 모두 되돌림 (상대 노드가 끊겼으면 백엔드가 그 대기자를 받지 않음)
+            requeue(mine.getKey(), local);
+            release(other);
+            try {
+                backend.removeRoom(pairId);
+            } catch (Exception e) {
+                log.warn("방 삭제 실패: {}", e.getMessage());
+            }
+            return;
+        }
+        listener.onRemoteMatched(pairId, local, other);
+    }
+
+    private void requeue(String key, T participant) {
+        if (participant != null && alive.test(participant)) {
+            matchmaker.enqueue(key, participant, null);
+        }
+    }
+
+    // 다른 노드 대기자를 공용 대기열에 다시 올림 (그 노드는 아직 exported에 두고 있으므로 다시 매칭될 수 있음)
+    private void release(ClusterWaiter waiter) {
+        try {
+            backend.publishWaiter(pool, waiter);
+        } catch (Exception e) {
+            log.error("대기자 되돌리기 실패 ({}): {}", waiter.getKey(), e.getMessage());
+        }
+    }
+
+    private void onMessage(String fromNode, String payload) {
+        JSONObject message = new JSONObject(payload);
+        if ("matched".equals(message.optString("type"))) {
+            String pairId = message.getString("pairId");
+            ClusterWaiter peer = ClusterWaiter.fromJson(message.getJSONObject("peer"));
+            T local = exported.remove(message.getString("target"));
+            if (local == null || !alive.test(local)) {
+                // 그 사이 나간 대기자: 상대 노드에 쌍 종료 알림
+                relay(fromNode, new JSONObject().put("type", "pairEnded").put("pairId", pairId).put("to", peer.getKey()));
+                return;
+            }
+            listener.onRemoteMatched(pairId, local, peer);
+            return;
+        }
+        listener.onRelay(fromNode, message);
+    }
+
+    private String self() {
+        return backend.getNodeId();
+    }
+}
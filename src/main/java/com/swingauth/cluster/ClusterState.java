@@ -0,0 +1,109 @@
+package com.swingauth.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 공유 상태 본체 (같은 JVM의 InMemoryClusterBackend들, 또는 ClusterBrokerServer가 보관)
+ * - 대기열은 풀마다 LinkedHashMap(올라온 순서)이고 풀 단위로 동기화하여 쌍 가져가기를 원자적으로 처리
+ */
+public final class ClusterState {
+
+    /**
+     * 노드로 메시지를 넘기는 통로 (같은 JVM이면 직접 호출, 브로커면 소켓 전송)
+     */
+    interface NodeLink {
+        void deliver(String fromNode, String channel, String payload);
+    }
+
+    private final Map<String, Map<String, ClusterWaiter>> pools = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> rooms = new ConcurrentHashMap<>();
+    private final Map<String, NodeLink> nodes = new ConcurrentHashMap<>();
+
+    private Map<String, ClusterWaiter> pool(String name) {
+        return pools.computeIfAbsent(name, k -> new LinkedHashMap<>());
+    }
+
+    /**
+     * 연결이 끊긴 노드의 대기자는 올리지 않음 (가져간 쌍을 되돌릴 때 사라진 노드의 대기자가 남지 않도록)
+     * - detach는 노드를 먼저 지운 뒤 대기열을 잠그고 정리하므로, 잠근 상태에서 확인하면 빠지는 대기자가 없음
+     */
+    void publish(String poolName, ClusterWaiter waiter) {
+        Map<String, ClusterWaiter> pool = pool(poolName);
+        synchronized (pool) {
+            if (!nodes.containsKey(waiter.getNodeId())) return;
+            pool.put(waiter.getKey(), waiter);
+        }
+    }
+
+    List<ClusterWaiter> list(String poolName) {
+        Map<String, ClusterWaiter> pool = pool(poolName);
+        synchronized (pool) {
+            return new ArrayList<>(pool.values());
+        }
+    }
+
+    boolean claimPair(String poolName, String key1, String key2) {
+        if (key1.equals(key2)) return false;
+        Map<String, ClusterWaiter> pool = pool(poolName);
+        synchronized (pool) {
+            if (!pool.containsKey(key1) || !pool.containsKey(key2)) return false;
+            pool.remove(key1);
+            pool.remove(key2);
+            return true;
+        }
+    }
+
+    boolean withdraw(String poolName, String key) {
+        Map<String, ClusterWaiter> pool = pool(poolName);
+        synchronized (pool) {
+            return pool.remove(key) != null;
+        }
+    }
+
+    void putRoom(String roomId, List<String> nodeIds) {
+        rooms.put(roomId, Collections.unmodifiableList(new ArrayList<>(nodeIds)));
+    }
+
+    List<String> getRoom(String roomId) {
+        return rooms.getOrDefault(roomId, Collections.emptyList());
+    }
+
+    void removeRoom(String roomId) {
+        rooms.remove(roomId);
+    }
+
+    void attach(String nodeId, NodeLink link) {
+        nodes.put(nodeId, link);
+    }
+
+    /**
+     * 노드 연결 종료: 그 노드의 대기자는 더 이상 매칭할 수 없으므로 함께 제거
+     */
+    void detach(String nodeId, NodeLink link) {
+        if (!nodes.remove(nodeId, link)) return;
+        for (Map<String, ClusterWaiter> pool : pools.values()) {
+            synchronized (pool) {
+                Iterator<ClusterWaiter> it = pool.values().iterator();
+                while (it.hasNext()) {
+                    if (nodeId.equals(it.next().getNodeId())) it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 대상 노드가 연결되어 있으면 true
+     */
+    boolean send(String fromNode, String toNode, String channel, String payload) {
+        NodeLink link = nodes.get(toNode);
+        if (link == null) return false;
+        link.deliver(fromNode, channel, payload);
+        return true;
+    }
+}
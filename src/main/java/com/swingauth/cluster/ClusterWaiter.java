@@ -0,0 +1,57 @@
+package com.swingauth.cluster;
+
+import org.json.JSONObject;
+
+/**
+ * 클러스터 공용 대기열에 올라간 대기자 (어느 노드에 접속해 있는지 포함)
+ */
+public final class ClusterWaiter {
+    private final String key;
+    private final String nodeId;
+    private final String username;
+    private final long publishedAt;
+
+    public ClusterWaiter(String key, String nodeId, String username, long publishedAt) {
+        this.key = key;
+        this.nodeId = nodeId;
+        this.username = username;
+        this.publishedAt = publishedAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject()
+            .put("key", key)
+            .put("nodeId", nodeId)
+            .put("username", username == null ? "unknown" : username)
+            .put("publishedAt", publishedAt);
+    }
+
+    public static ClusterWaiter fromJson(JSONObject json) {
+        return new ClusterWaiter(
+            json.getString("key"),
+            json.getString("nodeId"),
+            json.optString("username", "unknown"),
+            json.optLong("publishedAt"));
+    }
+
+    @Override
+    public String toString() {
+        return key + "@" + nodeId;
+    }
+}
@@ -0,0 +1,102 @@
+package com.swingauth.cluster;
+
+import com.swingauth.logging.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 같은 JVM 안의 노드끼리 ClusterState를 직접 공유하는 백엔드 (단일 프로세스 다중 노드 구성/테스트용)
+ * - 수신 메시지는 노드 전용 스레드에서 처리하므로 보내는 쪽 스레드를 막지 않음
+ */
+public class InMemoryClusterBackend implements ClusterBackend {
+    private static final Logger log = Logger.get(InMemoryClusterBackend.class);
+    private final ClusterState state;
+    private final String nodeId;
+    private final Map<String, MessageHandler> handlers = new ConcurrentHashMap<>();
+    private final ExecutorService delivery;
+    private final ClusterState.NodeLink link;
+
+    public InMemoryClusterBackend(ClusterState state, String nodeId) {
+        this.state = state;
+        this.nodeId = nodeId;
+        this.delivery = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cluster-" + nodeId);
+            t.setDaemon(true);
+            return t;
+        });
+        this.link = (fromNode, channel, payload) -> delivery.execute(() -> dispatch(fromNode, channel, payload));
+        state.attach(nodeId, link);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publishWaiter(String pool, ClusterWaiter waiter) {
+        state.publish(pool, waiter);
+    }
+
+    @Override
+    public List<ClusterWaiter> listWaiters(String pool) {
+        return state.list(pool);
+    }
+
+    @Override
+    public boolean claimPair(String pool, String key1, String key2) {
+        return state.claimPair(pool, key1, key2);
+    }
+
+    @Override
+    public boolean withdrawWaiter(String pool, String key) {
+        return state.withdraw(pool, key);
+    }
+
+    @Override
+    public void putRoom(String roomId, List<String> nodeIds) {
+        state.putRoom(roomId, nodeIds);
+    }
+
+    @Override
+    public List<String> getRoom(String roomId) {
+        return state.getRoom(roomId);
+    }
+
+    @Override
+    public void removeRoom(String roomId) {
+        state.removeRoom(roomId);
+    }
+
+    @Override
+    public void send(String toNode, String channel, String payload) {
+        if (!state.send(nodeId, toNode, channel, payload)) {
+            throw new IllegalStateException("노드에 연결할 수 없음: " + toNode);
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, MessageHandler handler) {
+        handlers.put(channel, handler);
+    }
+
+    @Override
+    public void close() {
+        state.detach(nodeId, link);
+        delivery.shutdown();
+    }
+
+    private void dispatch(String fromNode, String channel, String payload) {
+        MessageHandler handler = handlers.get(channel);
+        if (handler == null) return;
+        try {
+            handler.onMessage(fromNode, payload);
+        } catch (Exception e) {
+            log.error("메시지 처리 오류 ({}): {}", channel, e.getMessage());
+        }
+    }
+}
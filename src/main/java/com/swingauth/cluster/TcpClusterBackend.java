@@ -0,0 +1,207 @@
+package com.swingauth.cluster;
+
+import com.swingauth.logging.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ClusterBrokerServer에 TCP로 접속하는 백엔드
+ * - 요청마다 id를 붙여 보내고 읽기 스레드가 응답을 해당 요청에 연결
+ * - 브로커가 보낸 deliver 메시지는 노드 전용 스레드에서 핸들러 호출 (읽기 스레드를 막지 않음)
+ * - 브로커 연결이 끊어지면 이후 요청은 실패 (재접속은 노드 재시작으로)
+ */
+public class TcpClusterBackend implements ClusterBackend {
+    private static final Logger log = Logger.get(TcpClusterBackend.class);
+    private static final long REQUEST_TIMEOUT_MILLIS = 5000;
+
+    private final String nodeId;
+    private final Socket socket;
+    private final Writer out;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, CompletableFuture<JSONObject>> pending = new ConcurrentHashMap<>();
+    private final Map<String, MessageHandler> handlers = new ConcurrentHashMap<>();
+    private final ExecutorService delivery;
+    private volatile boolean closed;
+
+    /**
+     * @param secret 브로커의 공유 비밀값 (hello에 함께 보냄, 다르면 브로커가 연결을 끊음)
+     */
+    public TcpClusterBackend(String host, int port, String nodeId, String secret) throws IOException {
+        this.nodeId = nodeId;
+        this.socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), (int) REQUEST_TIMEOUT_MILLIS);
+        socket.setTcpNoDelay(true);
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        this.delivery = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cluster-" + nodeId);
+            t.setDaemon(true);
+            return t;
+        });
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Thread reader = new Thread(() -> readLoop(in), "cluster-" + nodeId + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            call(new JSONObject().put("op", "hello").put("nodeId", nodeId).put("secret", secret != null ? secret : ""));
+        } catch (IllegalStateException e) {
+            close();
+            throw new IOException("브로커 접속 거부: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publishWaiter(String pool, ClusterWaiter waiter) {
+        call(new JSONObject().put("op", "publish").put("pool", pool).put("waiter", waiter.toJson()));
+    }
+
+    @Override
+    public List<ClusterWaiter> listWaiters(String pool) {
+        JSONArray array = call(new JSONObject().put("op", "list").put("pool", pool)).getJSONArray("result");
+        List<ClusterWaiter> waiters = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            waiters.add(ClusterWaiter.fromJson(array.getJSONObject(i)));
+        }
+        return waiters;
+    }
+
+    @Override
+    public boolean claimPair(String pool, String key1, String key2) {
+        return call(new JSONObject().put("op", "claimPair").put("pool", pool).put("key1", key1).put("key2", key2))
+            .getBoolean("result");
+    }
+
+    @Override
+    public boolean withdrawWaiter(String pool, String key) {
+        return call(new JSONObject().put("op", "withdraw").put("pool", pool).put("key", key)).getBoolean("result");
+    }
+
+    @Override
+    public void putRoom(String roomId, List<String> nodeIds) {
+        call(new JSONObject().put("op", "putRoom").put("roomId", roomId).put("nodes", new JSONArray(nodeIds)));
+    }
+
+    @Override
+    public List<String> getRoom(String roomId) {
+        JSONArray array = call(new JSONObject().put("op", "getRoom").put("roomId", roomId)).getJSONArray("result");
+        List<String> nodes = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            nodes.add(array.getString(i));
+        }
+        return nodes;
+    }
+
+    @Override
+    public void removeRoom(String roomId) {
+        call(new JSONObject().put("op", "removeRoom").put("roomId", roomId));
+    }
+
+    @Override
+    public void send(String toNode, String channel, String payload) {
+        call(new JSONObject().put("op", "send").put("to", toNode).put("channel", channel).put("payload", payload));
+    }
+
+    @Override
+    public void subscribe(String channel, MessageHandler handler) {
+        handlers.put(channel, handler);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+        delivery.shutdown();
+    }
+
+    private JSONObject call(JSONObject request) {
+        if (closed) throw new IllegalStateException("클러스터 브로커 연결이 종료됨");
+        long id = nextId.incrementAndGet();
+        CompletableFuture<JSONObject> future = new CompletableFuture<>();
+        pending.put(id, future);
+        try {
+            synchronized (out) {
+                out.write(request.put("id", id).toString());
+                out.write('\n');
+                out.flush();
+            }
+            JSONObject response = future.get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            if (!response.optBoolean("ok")) {
+                throw new IllegalStateException(response.optString("error", "브로커 요청 실패"));
+            }
+            return response;
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("브로커 요청 중단", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("브로커 요청 실패 (" + request.optString("op") + "): " + e.getMessage(), e);
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    private void readLoop(BufferedReader in) {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                JSONObject message = new JSONObject(line);
+                if ("deliver".equals(message.optString("op"))) {
+                    String from = message.getString("from");
+                    String channel = message.getString("channel");
+                    String payload = message.getString("payload");
+                    delivery.execute(() -> dispatch(from, channel, payload));
+                } else {
+                    CompletableFuture<JSONObject> future = pending.get(message.optLong("id"));
+                    if (future != null) future.complete(message);
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) log.warn("브로커 연결 끊김: {}", e.getMessage());
+        } finally {
+            closed = true;
+            IllegalStateException failure = new IllegalStateException("클러스터 브로커 연결이 종료됨");
+            for (CompletableFuture<JSONObject> future : pending.values()) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void dispatch(String fromNode, String channel, String payload) {
+        MessageHandler handler = handlers.get(channel);
+        if (handler == null) return;
+        try {
+            handler.onMessage(fromNode, payload);
+        } catch (Exception e) {
+            log.error("메시지 처리 오류 ({}): {}", channel, e.getMessage());
+        }
+    }
+}
@@ -3,13 +3,29 @@ package com.swingauth.db;
 import com.mongodb.MongoCommandException;
 import com.mongodb.MongoWriteException;
 import com.mongodb.client.*;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
 public class Mongo {
+  private static final String USER_STATS_MIGRATION = "userStats.v1";
+  // 로그인/블랙리스트 판정에 쓰는 사용자 통계 필드 (없으면 0으로 채움)
+  private static final String[] USER_STAT_FIELDS = {
+      "reportsReceived", "videoCallCount", "videoTotalRating", "randomChatCount", "chatTotalRating"
+  };
+
   private static MongoClient client;
   private static MongoDatabase db;
 
@@ -21,6 +37,7 @@ public class Mongo {
       client = MongoClients.create(uri);
       db = client.getDatabase(dbName);
       ensureIndexes();
+      migrateUserStats();
     }
     return db;
   }
@@ -51,6 +68,11 @@ public class Mongo {
     return getDb().getCollection("reports");
   }
 
+  // 신고 처리 대기열 (_id = 신고 당한 username, 최근 신고 순위)
+  public static MongoCollection<Document> moderationQueue() {
+    return getDb().getCollection("moderation_queue");
+  }
+
   // ★ 안전알림 캐시용 컬렉션
   public static MongoCollection<Document> alerts() {
     return getDb().getCollection("alerts");
@@ -61,6 +83,16 @@ public class Mongo {
     return getDb().getCollection("ratings");
   }
 
+  // 사용자별 받은 평점 집계 (userId + serviceType 당 문서 1개, 합계/개수)
+  public static MongoCollection<Document> ratingAggregates() {
+    return getDb().getCollection("rating_aggregates");
+  }
+
+  // 나눠서 실행하는 관리 작업의 진행 상태 (_id = 작업 이름, 중단 후 이어서 실행)
+  public static MongoCollection<Document> jobs() {
+    return getDb().getCollection("jobs");
+  }
+
   /** 인덱스 만들 때 충돌(이미 존재 등)은 그냥 무시하는 헬퍼 */
   private static void safeCreateIndex(MongoCollection<Document> coll, Bson keys, IndexOptions options) {
     try {
@@ -87,6 +119,8 @@ public class Mongo {
         new IndexOptions().unique(true).name("uniq_username")
     );
     safeCreateIndex(users(), Indexes.ascending("createdAt"));
+    // 정지된 계정만 있는 인덱스 (서버가 새로 정지된 계정을 주기적으로 조회)
+    safeCreateIndex(users(), Indexes.ascending("bannedAt"), new IndexOptions().sparse(true));
 
     // posts: 게시판 + 생성일 역순
     safeCreateIndex(posts(), Indexes.descending("board", "createdAt"));
@@ -103,6 +137,8 @@ public class Mongo {
         new IndexOptions().unique(true).name("uniq_post_user_like")
     );
     safeCreateIndex(likes(), Indexes.ascending("postId"));
+    // 사용자별 좋아요 목록 (BoardMemberships: postId만 읽으므로 인덱스만으로 처리)
+    safeCreateIndex(likes(), Indexes.ascending("username", "postId"));
 
     // ★ dislikes: (postId, username) 유니크 = 한 유저당 한 번만 싫어요
     safeCreateIndex(
@@ -111,6 +147,7 @@ public class Mongo {
         new IndexOptions().unique(true).name("uniq_post_user_dislike")
     );
     safeCreateIndex(dislikes(), Indexes.ascending("postId"));
+    safeCreateIndex(dislikes(), Indexes.ascending("username", "postId"));
 
     // ★ reports: 신고 (postId, reporterUsername) 유니크 = 한 유저당 같은 글은 한 번만 신고
     safeCreateIndex(
@@ -118,10 +155,18 @@ public class Mongo {
         Indexes.ascending("postId", "reporterUsername"),
         new IndexOptions().unique(true).name("uniq_report_post_reporter")
     );
+    // 신고한 사람 기준 목록 (BoardMemberships)
+    safeCreateIndex(reports(), Indexes.ascending("reporterUsername", "postId"));
     // 신고 당한 사람 기준 조회용
     safeCreateIndex(reports(), Indexes.ascending("reportedUsername"));
     // 최신 신고 순 정렬용
     safeCreateIndex(reports(), Indexes.descending("createdAt"));
+    // 신고 처리 대기열 순위 (상위 k명 조회)
+    safeCreateIndex(
+        moderationQueue(),
+        Indexes.descending("logPriority"),
+        new IndexOptions().name("idx_moderation_priority")
+    );
 
     // ★ alerts: 지역별 안전알림 캐시
     // regionKey + createdAt 내림차순 정렬용
@@ -181,5 +226,71 @@ public class Mongo {
         new IndexOptions().name("idx_serviceType"));
     safeCreateIndex(ratings(), Indexes.descending("createdAt"),
         new IndexOptions().name("idx_createdAt_desc"));
+
+    // rating_aggregates: 사용자 + 서비스 타입당 1개
+    safeCreateIndex(
+        ratingAggregates(),
+        Indexes.ascending("userId", "serviceType"),
+        new IndexOptions().unique(true).name("uniq_user_service")
+    );
+  }
+
+  /**
+   * 1회성 마이그레이션: 사용자 통계 필드 기본값 + 게시글 수(postCount) 비정규화
+   * - 로그인마다 하던 필드 보정(updateOne)/게시글 수 집계(countDocuments)를 없애기 위해 미리 채워 둠
+   */
+  private static void migrateUserStats() {
+    applyMigrationOnce(USER_STATS_MIGRATION, () -> {
+      for (String field : USER_STAT_FIELDS) {
+        users().updateMany(Filters.exists(field, false), Updates.set(field, 0));
+      }
+
+      // 작성자별 게시글 수를 한 번에 집계해 반영
+      List<WriteModel<Document>> updates = new ArrayList<>();
+      for (Document row : posts().aggregate(List.of(
+          Aggregates.group("$authorUsername", Accumulators.sum("count", 1))))) {
+        if (row.get("_id") == null) continue;
+        updates.add(new UpdateOneModel<>(
+            Filters.eq("username", row.get("_id")),
+            Updates.set("postCount", row.get("count"))));
+        if (updates.size() >= 500) {
+          users().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+          updates.clear();
+        }
+      }
+      if (!updates.isEmpty()) {
+        users().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+      }
+      users().updateMany(Filters.exists("postCount", false), Updates.set("postCount", 0));
+    });
+  }
+
+  /**
+   * 1회성 마이그레이션 실행
+   * - 적용 기록은 migrations 컬렉션에 남기므로 이후 실행에서는 조회 1번으로 끝
+   * - 실패하면 기록을 남기지 않아 다음 실행에서 다시 시도 (step은 여러 번 실행해도 같은 결과여야 함)
+   * - 서비스 데이터 마이그레이션은 getDb()가 아니라 서버 시작/관리 작업에서 호출 (service.DataMigrations)
+   * @return 이번 실행에서 적용했으면 true
+   */
+  public static boolean applyMigrationOnce(String migrationId, Runnable step) {
+    MongoCollection<Document> migrations = getDb().getCollection("migrations");
+    try {
+      if (migrations.find(Filters.eq("_id", migrationId)).first() != null) return false;
+
+      step.run();
+
+      migrations.insertOne(new Document("_id", migrationId).append("appliedAt", new Date()));
+      System.out.println("[Mongo] 마이그레이션 적용 완료: " + migrationId);
+      return true;
+    } catch (MongoWriteException e) {
+      // 다른 프로세스가 먼저 적용 기록을 남긴 경우 (중복 키)
+      if (e.getError() == null || e.getError().getCode() != 11000) {
+        System.err.println("[Mongo] 마이그레이션 실패 (다음 실행 시 재시도): " + e.getMessage());
+      }
+    } catch (Exception e) {
+      System.err.println("[Mongo] 마이그레이션 실패 (다음 실행 시 재시도): " + e.getMessage());
+    }
+    return false;
   }
+
 }
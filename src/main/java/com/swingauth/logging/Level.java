@@ -0,0 +1,20 @@
+package com.swingauth.logging;
+
+/**
+ * 로그 레벨 (뒤로 갈수록 심각)
+ */
+public enum Level {
+    DEBUG, INFO, WARN, ERROR;
+
+    /**
+     * 설정 문자열 해석 (대소문자 무시, 알 수 없으면 기본값)
+     */
+    static Level parse(String text, Level defaultLevel) {
+        if (text == null || text.isBlank()) return defaultLevel;
+        try {
+            return valueOf(text.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.swingauth.logging;
+
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.MetricRegistry;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 비동기 로그 출력 파이프라인 (프로세스에 하나)
+ * - 호출 스레드는 고정 크기 링 버퍼의 칸 하나를 CAS로 차지해 템플릿/인자만 넣고 바로 반환 (락/문자열 조립/콘솔 I/O 없음)
+ * - 백그라운드 writer 스레드 하나가 버퍼를 모아 읽어 메시지를 조립하고, 묶음 단위로 System.out/System.err에 출력
+ * - 버퍼가 가득 차면 호출 스레드를 막지 않고 해당 로그를 버림 (버린 건수는 지표와 경고 로그로 노출)
+ * - 인자는 출력 시점에 문자열로 바뀌므로, 로그 후에 바뀌는 가변 객체 대신 값(문자열/숫자)을 넘길 것
+ * - 설정: -Dlog.bufferSize (칸 수, 2의 거듭제곱으로 올림, 기본 8192)
+ */
+final class LogPipeline {
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final DateTimeFormatter SECOND_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.").withZone(ZoneId.systemDefault());
+
+    private static final LogPipeline instance = new LogPipeline(Integer.getInteger("log.bufferSize", 8192));
+
+    /**
+     * 링 버퍼 한 칸 (미리 만들어 두고 재사용)
+     */
+    private static final class Slot {
+        long timestamp;
+        Level level;
+        String logger;
+        String template;
+        int argCount;
+        Object arg0;
+        Object arg1;
+        Object[] args;
+
+        Object arg(int index) {
+            if (args != null) return args[index];
+            return index == 0 ? arg0 : arg1;
+        }
+
+        void clear() {
+            level = null;
+            logger = null;
+            template = null;
+            arg0 = null;
+            arg1 = null;
+            args = null;
+        }
+    }
+
+    private final Slot[] slots;
+    // 칸별 순서 번호: pos이면 쓰기 가능, pos + 1이면 읽기 가능 (Vyukov 방식 bounded 큐)
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head; // writer 스레드만 씀
+    private final Counter dropped;
+    private final Counter written;
+    private long droppedReported;
+    // writer 스레드 전용: 같은 초의 로그는 "yyyy-MM-dd HH:mm:ss." 부분을 재사용
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondText;
+    private final Thread writer;
+    private volatile boolean stopping;
+
+    private LogPipeline(int requestedSize) {
+        int capacity = Integer.highestOneBit(Math.max(64, requestedSize - 1)) << 1;
+        slots = new Slot[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+
+        MetricRegistry metrics = MetricRegistry.getInstance();
+        dropped = metrics.counter("log_events_dropped_total", "버퍼가 가득 차 버린 로그 수");
+        written = metrics.counter("log_events_written_total", "출력된 로그 수");
+        metrics.gauge("log_buffer_pending", "출력 대기 중인 로그 수", () -> tail.get() - head);
+
+        writer = new Thread(this::run, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "log-writer-shutdown"));
+    }
+
+    static LogPipeline getInstance() {
+        return instance;
+    }
+
+    /**
+     * 로그 1건을 버퍼에 넣음 (가득 차면 버리고 false)
+     */
+    boolean publish(Level level, String logger, String template, int argCount, Object arg0, Object arg1, Object[] args) {
+        long pos;
+        while (true) {
+            pos = tail.get();
+            long diff = sequences.get((int) pos & mask) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+            } else if (diff < 0) {
+                dropped.increment();
+                return false;
+            }
+            // diff > 0: 다른 스레드가 먼저 차지함 -> 다시 시도
+        }
+        int index = (int) pos & mask;
+        Slot slot = slots[index];
+        slot.timestamp = System.currentTimeMillis();
+        slot.level = level;
+        slot.logger = logger;
+        slot.template = template;
+        slot.argCount = argCount;
+        slot.arg0 = arg0;
+        slot.arg1 = arg1;
+        slot.args = args;
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    private void run() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        StringBuilder err = new StringBuilder(4 * 1024);
+        while (true) {
+            boolean wasStopping = stopping;
+            int drained = drainBatch(out, err);
+            if (drained > 0) continue;
+            reportDropped(err);
+            if (wasStopping) return;
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * 읽을 수 있는 로그를 최대 BATCH_SIZE건 조립해 한 번에 출력
+     */
+    private int drainBatch(StringBuilder out, StringBuilder err) {
+        long pos = head;
+        int count = 0;
+        while (count < BATCH_SIZE) {
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) break;
+            Slot slot = slots[index];
+            append(slot.level.compareTo(Level.WARN) >= 0 ? err : out, slot);
+            slot.clear();
+            sequences.lazySet(index, pos + mask + 1);
+            pos++;
+            count++;
+        }
+        if (count == 0) return 0;
+        head = pos;
+        written.add(count);
+        flush(System.out, out);
+        flush(System.err, err);
+        return count;
+    }
+
+    private void reportDropped(StringBuilder err) {
+        long total = dropped.get();
+        if (total == droppedReported) return;
+        appendTime(err, System.currentTimeMillis());
+        err.append(" WARN  [logging] 로그 버퍼가 가득 차 ")
+            .append(total - droppedReported).append("건을 출력하지 못했습니다.\n");
+        droppedReported = total;
+        flush(System.err, err);
+    }
+
+    private static void flush(PrintStream stream, StringBuilder buffer) {
+        if (buffer.length() == 0) return;
+        stream.print(buffer);
+        stream.flush();
+        buffer.setLength(0);
+        if (buffer.capacity() > 256 * 1024) buffer.trimToSize();
+    }
+
+    /**
+     * "시각 레벨 [이름] 메시지" 한 줄 조립 ({}는 인자로 치환, 마지막 인자가 예외면 스택 트레이스 추가)
+     */
+    private void append(StringBuilder sb, Slot slot) {
+        appendTime(sb, slot.timestamp);
+        sb.append(' ');
+        String levelName = slot.level.name();
+        sb.append(levelName);
+        for (int i = levelName.length(); i < 5; i++) sb.append(' ');
+        sb.append(" [").append(slot.logger).append("] ");
+
+        String template = slot.template;
+        int argIndex = 0;
+        int from = 0;
+        int at;
+        while (argIndex < slot.argCount && (at = template.indexOf("{}", from)) >= 0) {
+            sb.append(template, from, at).append(slot.arg(argIndex++));
+            from = at + 2;
+        }
+        sb.append(template, from, template.length()).append('\n');
+
+        if (slot.argCount > 0 && slot.arg(slot.argCount - 1) instanceof Throwable) {
+            StringWriter trace = new StringWriter();
+            ((Throwable) slot.arg(slot.argCount - 1)).printStackTrace(new PrintWriter(trace));
+            sb.append(trace);
+        }
+    }
+
+    private void appendTime(StringBuilder sb, long millis) {
+        long second = Math.floorDiv(millis, 1000L);
+        if (second != cachedSecond) {
+            cachedSecondText = SECOND_FORMAT.format(Instant.ofEpochSecond(second));
+            cachedSecond = second;
+        }
+        int millisOfSecond = (int) Math.floorMod(millis, 1000L);
+        sb.append(cachedSecondText);
+        if (millisOfSecond < 100) sb.append('0');
+        if (millisOfSecond < 10) sb.append('0');
+        sb.append(millisOfSecond);
+    }
+
+    /**
+     * 종료 시 남은 로그를 모두 출력 (최대 2초 대기)
+     */
+    private void shutdown() {
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
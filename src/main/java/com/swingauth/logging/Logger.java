@@ -0,0 +1,123 @@
+package com.swingauth.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 레벨별 로거 (출력은 LogPipeline writer 스레드가 비동기로 처리)
+ * - 메시지는 "{}" 자리표시자 템플릿 + 인자로 넘기고, 문자열 조립은 출력 시점에만 일어남
+ *   (예: log.info("매칭 완료: {} <-> {}", id1, id2))
+ * - 꺼진 레벨은 비교 한 번으로 끝나므로 메시지마다 호출해도 비용이 거의 없음
+ * - 마지막 인자가 예외면 스택 트레이스도 함께 출력
+ * - 레벨 설정: -Dlog.level=INFO (전체 기본값), -Dlog.level.<이름>=DEBUG (로거별)
+ */
+public final class Logger {
+    private static final Level DEFAULT_LEVEL = Level.parse(System.getProperty("log.level"), Level.INFO);
+
+    private final String name;
+    private final Level threshold;
+    private final int sampleEvery;
+    private final AtomicLong sampleCounter;
+    private final LogPipeline pipeline = LogPipeline.getInstance();
+
+    private Logger(String name, Level threshold, int sampleEvery) {
+        this.name = name;
+        this.threshold = threshold;
+        this.sampleEvery = sampleEvery;
+        this.sampleCounter = sampleEvery > 1 ? new AtomicLong() : null;
+    }
+
+    public static Logger get(Class<?> type) {
+        return get(type.getSimpleName());
+    }
+
+    public static Logger get(String name) {
+        return new Logger(name, Level.parse(System.getProperty("log.level." + name), DEFAULT_LEVEL), 1);
+    }
+
+    /**
+     * 같은 이름/레벨로 every번 중 1번만 출력하는 로거 (메시지마다 발생하는 이벤트용)
+     * - 이름은 "이름 1/every"로 표시되어 표본 로그임을 알 수 있음
+     */
+    public Logger sampled(int every) {
+        if (every <= 1) return this;
+        return new Logger(name + " 1/" + every, threshold, every);
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, 0, null, null, null);
+    }
+
+    public void debug(String template, Object arg) {
+        log(Level.DEBUG, template, 1, arg, null, null);
+    }
+
+    public void debug(String template, Object arg0, Object arg1) {
+        log(Level.DEBUG, template, 2, arg0, arg1, null);
+    }
+
+    public void debug(String template, Object... args) {
+        log(Level.DEBUG, template, args.length, null, null, args);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, 0, null, null, null);
+    }
+
+    public void info(String template, Object arg) {
+        log(Level.INFO, template, 1, arg, null, null);
+    }
+
+    public void info(String template, Object arg0, Object arg1) {
+        log(Level.INFO, template, 2, arg0, arg1, null);
+    }
+
+    public void info(String template, Object... args) {
+        log(Level.INFO, template, args.length, null, null, args);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, 0, null, null, null);
+    }
+
+    public void warn(String template, Object arg) {
+        log(Level.WARN, template, 1, arg, null, null);
+    }
+
+    public void warn(String template, Object arg0, Object arg1) {
+        log(Level.WARN, template, 2, arg0, arg1, null);
+    }
+
+    public void warn(String template, Object... args) {
+        log(Level.WARN, template, args.length, null, null, args);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, 0, null, null, null);
+    }
+
+    public void error(String template, Object arg) {
+        log(Level.ERROR, template, 1, arg, null, null);
+    }
+
+    public void error(String template, Object arg0, Object arg1) {
+        log(Level.ERROR, template, 2, arg0, arg1, null);
+    }
+
+    public void error(String template, Object... args) {
+        log(Level.ERROR, template, args.length, null, null, args);
+    }
+
+    private void log(Level level, String template, int argCount, Object arg0, Object arg1, Object[] args) {
+        if (level.compareTo(threshold) < 0) return;
+        if (sampleCounter != null && sampleCounter.getAndIncrement() % sampleEvery != 0) return;
+        pipeline.publish(level, name, template, argCount, arg0, arg1, args);
+    }
+}
@@ -0,0 +1,37 @@
+package com.swingauth.matching;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * 비용이 큰 제외 조건(DB 블랙리스트 조회 등)을 PairExclusionIndex에 기억해 두는 래퍼
+ * - 한 번 제외로 판정된 쌍은 TTL 동안 DB 조회 없이 바로 제외
+ */
+public class CachedExclusion<T> implements BiPredicate<T, T> {
+    private final PairExclusionIndex index;
+    private final Function<T, String> keyOf;
+    private final BiPredicate<T, T> lookup;
+
+    /**
+     * @param index 제외 쌍 기록
+     * @param keyOf 참가자 -> 인덱스 키 (접속 ID 등)
+     * @param lookup 실제 제외 여부 판정
+     */
+    public CachedExclusion(PairExclusionIndex index, Function<T, String> keyOf, BiPredicate<T, T> lookup) {
+        this.index = index;
+        this.keyOf = keyOf;
+        this.lookup = lookup;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        String keyA = keyOf.apply(a);
+        String keyB = keyOf.apply(b);
+        if (index.contains(keyA, keyB)) return true;
+        if (lookup.test(a, b)) {
+            index.add(keyA, keyB);
+            return true;
+        }
+        return false;
+    }
+}
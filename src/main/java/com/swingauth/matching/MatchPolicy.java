@@ -0,0 +1,57 @@
+package com.swingauth.matching;
+
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * 매칭 규칙 (어떤 쌍을 허용하고, 어떤 쌍을 우선할지)
+ * - 구현은 여러 샤드 스레드에서 동시에 호출될 수 있으므로 스레드 안전해야 함
+ * - 전송 방식(WebSocket, Socket.IO 등)과 무관하며, 영상통화/랜덤채팅이 같은 엔진을 사용
+ */
+public interface MatchPolicy<T> {
+
+    /**
+     * 참가자가 아직 매칭 가능한 상태인지 (연결 끊김 등)
+     */
+    boolean isAlive(T participant);
+
+    /**
+     * 두 참가자를 매칭하면 안 되면 true (블랙리스트 등)
+     */
+    boolean isExcluded(T a, T b);
+
+    /**
+     * 매칭 선호 점수 (클수록 우선 매칭, 같으면 먼저 온 상대 우선)
+     */
+    double score(T a, T b);
+
+    /**
+     * 생존 확인 / 제외 조건 / 점수 함수를 조합하여 규칙을 만듭니다.
+     */
+    static <T> MatchPolicy<T> of(Predicate<T> alive, BiPredicate<T, T> excluded, ToDoubleBiFunction<T, T> scorer) {
+        return new MatchPolicy<>() {
+            @Override
+            public boolean isAlive(T participant) {
+                return alive.test(participant);
+            }
+
+            @Override
+            public boolean isExcluded(T a, T b) {
+                return excluded.test(a, b);
+            }
+
+            @Override
+            public double score(T a, T b) {
+                return scorer.applyAsDouble(a, b);
+            }
+        };
+    }
+
+    /**
+     * 선착순 점수 (모든 쌍 동일 -> 가장 오래 기다린 상대와 매칭)
+     */
+    static <T> ToDoubleBiFunction<T, T> fifo() {
+        return (a, b) -> 0.0;
+    }
+}
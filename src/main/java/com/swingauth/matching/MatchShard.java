@@ -0,0 +1,147 @@
+package com.swingauth.matching;
+
+import com.swingauth.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 매칭 샤드 하나
+ * - 자기 대기열과 전용 스레드를 가지며, 대기열은 샤드 스레드에서만 접근 (락 없음)
+ * - 새 참가자가 들어오면 기존 대기자 중 최고 점수 상대만 찾음 (O(n)):
+ *   그 전까지 대기열 안에서 매칭 가능한 쌍은 이미 모두 매칭되었으므로 새 쌍은 신규 참가자를 포함한 쌍뿐
+ * - 대기 시간 완화(Relaxation) 사용 시: 기준 미달로 보류된 쌍이 있으면 주기적으로 재검사
+ */
+final class MatchShard<T> {
+    private static final Logger log = Logger.get(MatchShard.class);
+    private final int index;
+    private final Matchmaker<T> owner;
+    private final MatchPolicy<T> policy;
+    private final Relaxation relaxation;
+    private final ScheduledExecutorService executor;
+    private final List<MatchTicket<T>> waiting = new ArrayList<>(); // 대기 순서 유지 (오래된 순)
+    private boolean deferred; // 완화 기준 미달로 보류된 쌍이 있음 (샤드 스레드에서만 접근)
+
+    MatchShard(int index, Matchmaker<T> owner, MatchPolicy<T> policy, Relaxation relaxation) {
+        this.index = index;
+        this.owner = owner;
+        this.policy = policy;
+        this.relaxation = relaxation;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "match-" + owner.getName() + "-" + index);
+            t.setDaemon(true);
+            return t;
+        });
+        if (relaxation.isEnabled()) {
+            long tick = relaxation.tickMillis();
+            executor.scheduleWithFixedDelay(() -> guarded(this::onTick), tick, tick, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void submitArrival(MatchTicket<T> ticket) {
+        executor.execute(() -> guarded(() -> onArrival(ticket)));
+    }
+
+    void submitSweep() {
+        executor.execute(() -> guarded(this::sweep));
+    }
+
+    void submitCompact() {
+        executor.execute(() -> guarded(() -> {
+            compact();
+            notifyQueueChanged();
+        }));
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void onArrival(MatchTicket<T> ticket) {
+        compact();
+        if (!ticket.isWaiting()) return;
+
+        // 상대를 다른 스레드(스틸)가 먼저 가져가면 다음 후보로 재시도
+        MatchTicket<T> partner;
+        while (ticket.isWaiting() && (partner = findBestPartner(ticket, 0)) != null) {
+            if (owner.claimPair(partner, ticket)) break;
+        }
+        // 스틸 스레드가 잡는 중(CLAIMING)이어도 되돌아올 수 있으므로 목록에는 유지
+        if (!ticket.isDone()) waiting.add(ticket);
+        notifyQueueChanged();
+    }
+
+    /**
+     * 시간이 지나 기준이 낮아졌으므로 보류된 쌍이 있을 때만 재검사
+     */
+    private void onTick() {
+        if (deferred) sweep();
+    }
+
+    /**
+     * 대기열 전체 재검사 (스틸 실패로 항목이 되돌아왔을 때, 완화 기준이 낮아졌을 때 등)
+     * 오래 기다린 순서대로 상대를 고르므로 오래 기다린 사람이 먼저 좋은 상대를 가져감
+     */
+    private void sweep() {
+        compact();
+        deferred = false;
+        for (int i = 0; i < waiting.size(); i++) {
+            MatchTicket<T> a = waiting.get(i);
+            if (!a.isWaiting()) continue;
+            while (a.isWaiting()) {
+                MatchTicket<T> b = findBestPartner(a, i + 1);
+                if (b == null || owner.claimPair(a, b)) break;
+            }
+        }
+        compact();
+        notifyQueueChanged();
+    }
+
+    private MatchTicket<T> findBestPartner(MatchTicket<T> ticket, int from) {
+        if (!policy.isAlive(ticket.participant)) {
+            owner.drop(ticket);
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        int evaluated = 0;
+        PartnerChoice<T> choice = new PartnerChoice<>(relaxation, ticket, startNanos);
+        for (int i = from; i < waiting.size(); i++) {
+            MatchTicket<T> candidate = waiting.get(i);
+            if (candidate == ticket || !candidate.isWaiting()) continue;
+            if (!policy.isAlive(candidate.participant)) {
+                owner.drop(candidate);
+                continue;
+            }
+            evaluated++;
+            if (policy.isExcluded(ticket.participant, candidate.participant)) continue;
+
+            choice.offer(candidate, policy.score(ticket.participant, candidate.participant));
+        }
+        if (choice.hasDeferred()) deferred = true;
+        owner.scanned(ticket.participant, evaluated, System.nanoTime() - startNanos);
+        return choice.best();
+    }
+
+    private void compact() {
+        waiting.removeIf(MatchTicket::isDone);
+    }
+
+    private void notifyQueueChanged() {
+        List<T> snapshot = new ArrayList<>(waiting.size());
+        for (MatchTicket<T> t : waiting) {
+            if (t.isWaiting()) snapshot.add(t.participant);
+        }
+        owner.queueChanged(index, snapshot);
+    }
+
+    private void guarded(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("샤드 {}-{} 처리 오류", owner.getName(), index, e);
+        }
+    }
+}
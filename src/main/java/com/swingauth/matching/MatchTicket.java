@@ -0,0 +1,79 @@
+package com.swingauth.matching;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 대기열 항목
+ * - 상태 전이: WAITING -> CLAIMING -> DONE (매칭), WAITING -> DONE (취소)
+ * - 샤드 스레드와 샤드 간 스틸 스레드가 같은 항목을 동시에 잡지 못하도록 CAS로 소유권을 가져감
+ */
+public final class MatchTicket<T> {
+    static final int WAITING = 0;
+    static final int CLAIMING = 1;
+    static final int DONE = 2;
+
+    final String key;
+    final T participant;
+    final int shard;
+    final long enqueuedAtNanos;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    MatchTicket(String key, T participant, int shard) {
+        this.key = key;
+        this.participant = participant;
+        this.shard = shard;
+        this.enqueuedAtNanos = System.nanoTime();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public T getParticipant() {
+        return participant;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * 대기 시간 (밀리초)
+     */
+    public long waitedMillis(long nowNanos) {
+        return (nowNanos - enqueuedAtNanos) / 1_000_000L;
+    }
+
+    boolean isWaiting() {
+        return state.get() == WAITING;
+    }
+
+    boolean isDone() {
+        return state.get() == DONE;
+    }
+
+    boolean tryClaim() {
+        return state.compareAndSet(WAITING, CLAIMING);
+    }
+
+    void release() {
+        state.compareAndSet(CLAIMING, WAITING);
+    }
+
+    void complete() {
+        state.set(DONE);
+    }
+
+    /**
+     * 대기 취소. 이미 매칭이 확정되었으면 false
+     */
+    boolean cancel() {
+        while (true) {
+            int s = state.get();
+            if (s == DONE) return false;
+            if (s == WAITING && state.compareAndSet(WAITING, DONE)) return true;
+            // 다른 스레드가 잡는 중이면 결과가 나올 때까지 잠깐 대기
+            Thread.onSpinWait();
+        }
+    }
+}
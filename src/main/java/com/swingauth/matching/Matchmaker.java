@@ -0,0 +1,277 @@
+package com.swingauth.matching;
+
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 샤드 분할 매칭 엔진
+ * - 참가자를 샤드 키(지역 등) 또는 해시로 N개 샤드에 나누고, 샤드마다 전용 스레드에서 독립적으로 매칭
+ * - 오래 기다린 참가자는 주기적인 스틸 단계에서 다른 샤드의 대기자와 매칭
+ * - 한 참가자는 CAS로 소유권을 가져간 쪽만 매칭할 수 있으므로 중복 매칭 없음
+ * - 진행 보장: 도착 처리/재검사는 대기열을 한 번만 훑고, 제외된 쌍은 건너뛸 뿐 다시 넣지 않으므로
+ *   서로 블랙리스트인 두 명만 남아도 반복 없이 종료되고 둘 다 대기 상태로 남음
+ * - 매칭 규칙(MatchPolicy)과 결과 처리(Listener)만 바꾸면 영상통화/랜덤채팅 모두 사용 가능
+ * - 공정성: Relaxation을 주면 기다릴수록 점수 기준이 낮아지고, SLA를 넘긴 대기자를 최우선 매칭
+ *   (매칭된 참가자의 대기 시간은 getWaitTimes() 히스토그램에 기록)
+ */
+public class Matchmaker<T> {
+    private static final Logger log = Logger.get(Matchmaker.class);
+    private static final long STEAL_INTERVAL_MILLIS = 500;
+
+    /**
+     * 매칭 결과/대기열 변경 알림 (샤드 스레드 또는 스틸 스레드에서 호출됨)
+     */
+    public interface Listener<T> {
+        void onMatched(T first, T second);
+
+        default void onQueueChanged(int shard, List<T> shardWaiting, int totalWaiting) {}
+
+        /**
+         * 참가자 한 명의 상대 탐색이 끝남 (candidates: 규칙을 확인한 후보 수, 제외/점수 계산 시간 포함)
+         */
+        default void onScanned(T participant, int candidates, long elapsedNanos) {}
+    }
+
+    private final String name;
+    private final MatchPolicy<T> policy;
+    private final Relaxation relaxation;
+    private final Listener<T> listener;
+    private final List<MatchShard<T>> shards = new ArrayList<>();
+    private final Map<String, MatchTicket<T>> tickets = new ConcurrentHashMap<>();
+    private final long stealAfterNanos;
+    private final ScheduledExecutorService stealer;
+    private final Histogram waitTimes = new Histogram(); // 매칭까지 걸린 대기 시간 (ms)
+
+    public Matchmaker(String name, int shardCount, long stealAfterMillis,
+                      MatchPolicy<T> policy, Listener<T> listener) {
+        this(name, shardCount, stealAfterMillis, policy, Relaxation.none(), listener);
+    }
+
+    /**
+     * @param name 스레드 이름/로그용 이름
+     * @param shardCount 샤드 수 (1 이상)
+     * @param stealAfterMillis 이 시간 이상 기다린 참가자는 다른 샤드와도 매칭
+     * @param relaxation 대기 시간에 따른 점수 기준 완화
+     */
+    public Matchmaker(String name, int shardCount, long stealAfterMillis,
+                      MatchPolicy<T> policy, Relaxation relaxation, Listener<T> listener) {
+        this.name = name;
+        this.policy = policy;
+        this.relaxation = relaxation;
+        this.listener = listener;
+        this.stealAfterNanos = TimeUnit.MILLISECONDS.toNanos(stealAfterMillis);
+
+        int count = Math.max(1, shardCount);
+        for (int i = 0; i < count; i++) {
+            shards.add(new MatchShard<>(i, this, policy, relaxation));
+        }
+
+        if (count > 1) {
+            stealer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "match-" + name + "-steal");
+                t.setDaemon(true);
+                return t;
+            });
+            stealer.scheduleWithFixedDelay(this::stealAcrossShards,
+                STEAL_INTERVAL_MILLIS, STEAL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            stealer = null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public Relaxation getRelaxation() {
+        return relaxation;
+    }
+
+    /**
+     * 매칭된 참가자의 대기 시간 분포 (ms)
+     */
+    public Histogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * 대기열에 추가합니다.
+     * @param key 참가자 고유 키
+     * @param shardKey 샤드 선택 키 (지역 등, null이면 key 해시 사용)
+     * @return 새로 추가되었으면 true, 이미 대기 중이면 false
+     */
+    public boolean enqueue(String key, T participant, String shardKey) {
+        int shard = shardFor(key, shardKey);
+        MatchTicket<T> ticket = new MatchTicket<>(key, participant, shard);
+        if (tickets.putIfAbsent(key, ticket) != null) {
+            return false;
+        }
+        shards.get(shard).submitArrival(ticket);
+        return true;
+    }
+
+    /**
+     * 대기 취소
+     * @return 대기열에서 빠졌으면 true (이미 매칭되었거나 없으면 false)
+     */
+    public boolean cancel(String key) {
+        MatchTicket<T> ticket = tickets.get(key);
+        if (ticket == null || !ticket.cancel()) return false;
+        tickets.remove(key, ticket);
+        shards.get(ticket.shard).submitCompact();
+        return true;
+    }
+
+    public boolean isQueued(String key) {
+        return tickets.containsKey(key);
+    }
+
+    /**
+     * 전체 대기 인원
+     */
+    public int size() {
+        return tickets.size();
+    }
+
+    /**
+     * 일정 시간 이상 기다린 대기자 (오래된 순, 노드 간 매칭 등으로 넘길 대상 선정용)
+     */
+    public List<MatchTicket<T>> waitingLongerThan(long millis) {
+        long now = System.nanoTime();
+        List<MatchTicket<T>> result = new ArrayList<>();
+        for (MatchTicket<T> t : tickets.values()) {
+            if (t.isWaiting() && t.waitedMillis(now) >= millis) result.add(t);
+        }
+        result.sort(Comparator.comparingLong(t -> t.enqueuedAtNanos));
+        return result;
+    }
+
+    /**
+     * 모든 샤드 대기열을 다시 검사합니다.
+     */
+    public void sweep() {
+        for (MatchShard<T> shard : shards) {
+            shard.submitSweep();
+        }
+    }
+
+    public void shutdown() {
+        if (stealer != null) stealer.shutdownNow();
+        for (MatchShard<T> shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    int shardFor(String key, String shardKey) {
+        String routingKey = (shardKey != null && !shardKey.isEmpty()) ? shardKey : key;
+        return Math.floorMod(routingKey.hashCode(), shards.size());
+    }
+
+    /**
+     * 두 항목의 소유권을 모두 가져오면 매칭을 확정합니다.
+     */
+    boolean claimPair(MatchTicket<T> first, MatchTicket<T> second) {
+        if (!first.tryClaim()) return false;
+        if (!second.tryClaim()) {
+            first.release();
+            // 잡는 동안 놓친 상대가 있을 수 있으므로 재검사
+            shards.get(first.shard).submitSweep();
+            return false;
+        }
+        first.complete();
+        second.complete();
+        tickets.remove(first.key, first);
+        tickets.remove(second.key, second);
+        long now = System.nanoTime();
+        waitTimes.record(first.waitedMillis(now));
+        waitTimes.record(second.waitedMillis(now));
+
+        try {
+            listener.onMatched(first.participant, second.participant);
+        } catch (Exception e) {
+            log.error("매칭 알림 처리 오류", e);
+        }
+        return true;
+    }
+
+    /**
+     * 연결이 끊어진 참가자 정리
+     */
+    void drop(MatchTicket<T> ticket) {
+        if (ticket.cancel()) {
+            tickets.remove(ticket.key, ticket);
+        }
+    }
+
+    void scanned(T participant, int candidates, long elapsedNanos) {
+        try {
+            listener.onScanned(participant, candidates, elapsedNanos);
+        } catch (Exception e) {
+            log.error("탐색 알림 처리 오류", e);
+        }
+    }
+
+    void queueChanged(int shard, List<T> shardWaiting) {
+        try {
+            listener.onQueueChanged(shard, shardWaiting, tickets.size());
+        } catch (Exception e) {
+            log.error("대기열 알림 처리 오류", e);
+        }
+    }
+
+    /**
+     * 샤드 간 스틸: 오래 기다린 참가자끼리 샤드를 넘어 매칭
+     * (같은 샤드 안의 쌍은 이미 샤드에서 검사했으므로 다른 샤드 쌍만 확인)
+     */
+    private void stealAcrossShards() {
+        try {
+            long now = System.nanoTime();
+            List<MatchTicket<T>> candidates = new ArrayList<>();
+            for (MatchTicket<T> t : tickets.values()) {
+                if (t.isWaiting() && now - t.enqueuedAtNanos >= stealAfterNanos) {
+                    candidates.add(t);
+                }
+            }
+            if (candidates.size() < 2) return;
+            candidates.sort(Comparator.comparingLong(t -> t.enqueuedAtNanos));
+
+            for (int i = 0; i < candidates.size(); i++) {
+                MatchTicket<T> a = candidates.get(i);
+                if (!a.isWaiting() || !policy.isAlive(a.participant)) continue;
+
+                long scanStart = System.nanoTime();
+                int evaluated = 0;
+                PartnerChoice<T> choice = new PartnerChoice<>(relaxation, a, now);
+                for (int j = i + 1; j < candidates.size(); j++) {
+                    MatchTicket<T> b = candidates.get(j);
+                    if (b.shard == a.shard || !b.isWaiting() || !policy.isAlive(b.participant)) continue;
+                    evaluated++;
+                    if (policy.isExcluded(a.participant, b.participant)) continue;
+                    choice.offer(b, policy.score(a.participant, b.participant));
+                }
+                MatchTicket<T> best = choice.best();
+                scanned(a.participant, evaluated, System.nanoTime() - scanStart);
+
+                if (best != null && claimPair(a, best)) {
+                    shards.get(a.shard).submitCompact();
+                    shards.get(best.shard).submitCompact();
+                }
+            }
+        } catch (Exception e) {
+            log.error("샤드 간 매칭 오류", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.swingauth.matching;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 매칭에서 제외할 유저 쌍 인덱스
+ * - 유저 ID 문자열을 정수 ID로 인터닝하고, 유저별 인접 집합(상대 ID -> 만료 시각)으로 관리
+ * - 유저 제거는 해당 유저의 차수(degree)만큼만 작업 (전체 스캔/부분 문자열 비교 없음)
+ * - 항목은 TTL이 지나면 자동으로 무효가 되며, 조회 시 또는 주기적 정리로 삭제
+ * - 조회(contains)는 ConcurrentHashMap 읽기만 하므로 락 없이 어느 스레드에서든 호출 가능
+ */
+public class PairExclusionIndex {
+    private final long ttlMillis;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, Long>> adjacency = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicLong lastPurgeAt = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * @param ttlMillis 제외 항목 유지 시간 (0 이하면 만료 없음)
+     */
+    public PairExclusionIndex(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 두 유저 쌍을 제외 목록에 추가합니다. (이미 있으면 만료 시각만 갱신)
+     */
+    public void add(String userA, String userB) {
+        if (userA == null || userB == null || userA.equals(userB)) return;
+        long now = System.currentTimeMillis();
+        long expiresAt = ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+
+        int a = intern(userA);
+        int b = intern(userB);
+        adjacency.computeIfAbsent(a, k -> new ConcurrentHashMap<>()).put(b, expiresAt);
+        adjacency.computeIfAbsent(b, k -> new ConcurrentHashMap<>()).put(a, expiresAt);
+
+        // TTL 주기마다 한 번씩 만료 항목 정리
+        long last = lastPurgeAt.get();
+        if (ttlMillis > 0 && now - last >= ttlMillis && lastPurgeAt.compareAndSet(last, now)) {
+            purgeExpired();
+        }
+    }
+
+    /**
+     * 두 유저 쌍이 제외 목록에 있는지 확인합니다. (만료된 항목은 false)
+     */
+    public boolean contains(String userA, String userB) {
+        if (userA == null || userB == null) return false;
+        Integer a = ids.get(userA);
+        Integer b = ids.get(userB);
+        if (a == null || b == null) return false;
+
+        Map<Integer, Long> neighbors = adjacency.get(a);
+        if (neighbors == null) return false;
+        Long expiresAt = neighbors.get(b);
+        if (expiresAt == null) return false;
+
+        if (expiresAt <= System.currentTimeMillis()) {
+            unlink(a, b);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 두 유저 쌍을 제외 목록에서 제거합니다.
+     */
+    public void remove(String userA, String userB) {
+        if (userA == null || userB == null) return;
+        Integer a = ids.get(userA);
+        Integer b = ids.get(userB);
+        if (a == null || b == null) return;
+        unlink(a, b);
+    }
+
+    /**
+     * 유저와 관련된 모든 제외 기록을 삭제합니다. (재연결 시 다시 매칭 가능하도록)
+     * 작업량은 해당 유저의 제외 상대 수에 비례합니다.
+     */
+    public void removeUser(String userId) {
+        if (userId == null) return;
+        Integer id = ids.remove(userId);
+        if (id == null) return;
+
+        Map<Integer, Long> neighbors = adjacency.remove(id);
+        if (neighbors == null) return;
+        for (Integer other : neighbors.keySet()) {
+            Map<Integer, Long> reverse = adjacency.get(other);
+            if (reverse != null) {
+                reverse.remove(id);
+            }
+        }
+    }
+
+    /**
+     * 만료된 항목을 모두 정리합니다.
+     * @return 삭제된 (방향성 있는) 간선 수
+     */
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map<Integer, Long> neighbors : adjacency.values()) {
+            for (Map.Entry<Integer, Long> edge : neighbors.entrySet()) {
+                if (edge.getValue() <= now && neighbors.remove(edge.getKey(), edge.getValue())) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 현재 제외 쌍 개수 (만료 여부와 무관한 근사값)
+     */
+    public int size() {
+        int edges = 0;
+        for (Map<Integer, Long> neighbors : adjacency.values()) {
+            edges += neighbors.size();
+        }
+        return edges / 2;
+    }
+
+    private int intern(String userId) {
+        return ids.computeIfAbsent(userId, k -> nextId.getAndIncrement());
+    }
+
+    // 빈 인접 맵은 동시 add와의 경합을 피하기 위해 여기서 지우지 않음 (removeUser에서 정리)
+    private void unlink(int a, int b) {
+        Map<Integer, Long> forward = adjacency.get(a);
+        if (forward != null) forward.remove(b);
+        Map<Integer, Long> reverse = adjacency.get(b);
+        if (reverse != null) reverse.remove(a);
+    }
+}
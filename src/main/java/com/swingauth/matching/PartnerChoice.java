@@ -0,0 +1,47 @@
+package com.swingauth.matching;
+
+/**
+ * 후보 중 매칭 상대 선택
+ * - SLA를 넘긴 대기자가 최우선 (먼저 제시된 = 더 오래 기다린 후보)
+ * - 그 외에는 점수가 가장 높은 후보 (같으면 먼저 제시된 후보)
+ * - 완화 기준에 못 미쳐 보류된 후보가 있었는지 기록 (나중에 재검사가 필요한지 판단)
+ */
+final class PartnerChoice<T> {
+    private final Relaxation relaxation;
+    private final long nowNanos;
+    private final long selfWaitedNanos;
+
+    private MatchTicket<T> best;
+    private double bestScore = Double.NEGATIVE_INFINITY;
+    private boolean bestOverdue;
+    private boolean deferred;
+
+    PartnerChoice(Relaxation relaxation, MatchTicket<T> self, long nowNanos) {
+        this.relaxation = relaxation;
+        this.nowNanos = nowNanos;
+        this.selfWaitedNanos = nowNanos - self.enqueuedAtNanos;
+    }
+
+    void offer(MatchTicket<T> candidate, double score) {
+        long candidateWaited = nowNanos - candidate.enqueuedAtNanos;
+        if (!relaxation.accepts(score, Math.max(selfWaitedNanos, candidateWaited))) {
+            deferred = true;
+            return;
+        }
+        boolean overdue = relaxation.isOverdue(candidateWaited);
+        if (bestOverdue) return;
+        if (overdue || score > bestScore) {
+            best = candidate;
+            bestScore = score;
+            bestOverdue = overdue;
+        }
+    }
+
+    MatchTicket<T> best() {
+        return best;
+    }
+
+    boolean hasDeferred() {
+        return deferred;
+    }
+}
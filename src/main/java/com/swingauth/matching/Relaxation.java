@@ -0,0 +1,61 @@
+package com.swingauth.matching;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대기 시간에 따른 매칭 조건 완화
+ * - 처음에는 점수가 initialMinScore 이상인 쌍만 허용하고, 기다릴수록 기준을 선형으로 낮춤 (SLA 시점에 0)
+ * - 쌍 중 더 오래 기다린 쪽의 대기 시간을 기준으로 하므로 오래 기다린 사람은 누구와도 빨리 매칭됨
+ * - slaMillis 이상 기다리면 기준이 사라지고(매칭 가능한 상대가 있으면 바로 매칭), 이런 대기자가 최우선
+ */
+public final class Relaxation {
+    private static final Relaxation NONE = new Relaxation(Double.NEGATIVE_INFINITY, 0);
+
+    private final double initialMinScore;
+    private final long slaNanos;
+
+    /**
+     * @param initialMinScore 대기 직후 허용하는 최소 점수
+     * @param slaMillis 이 시간 안에 기준이 완전히 사라짐 (대기 시간 상한 목표)
+     */
+    public Relaxation(double initialMinScore, long slaMillis) {
+        this.initialMinScore = initialMinScore;
+        this.slaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, slaMillis));
+    }
+
+    /**
+     * 완화 없음 (처음부터 모든 쌍 허용)
+     */
+    public static Relaxation none() {
+        return NONE;
+    }
+
+    public boolean isEnabled() {
+        return slaNanos > 0 && initialMinScore != Double.NEGATIVE_INFINITY;
+    }
+
+    public long getSlaMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slaNanos);
+    }
+
+    /**
+     * 재검사 주기: SLA의 1/20 (최소 50ms)
+     */
+    long tickMillis() {
+        return Math.max(50, getSlaMillis() / 20);
+    }
+
+    boolean isOverdue(long waitedNanos) {
+        return isEnabled() && waitedNanos >= slaNanos;
+    }
+
+    /**
+     * 쌍의 점수가 현재 기준을 넘는지
+     * @param waitedNanos 쌍 중 더 오래 기다린 쪽의 대기 시간
+     */
+    boolean accepts(double score, long waitedNanos) {
+        if (!isEnabled() || waitedNanos >= slaNanos) return true;
+        double remaining = 1.0 - (double) waitedNanos / slaNanos;
+        return score >= initialMinScore * remaining;
+    }
+}
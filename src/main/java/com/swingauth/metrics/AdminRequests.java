@@ -0,0 +1,24 @@
+package com.swingauth.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 관리용 경로(/metrics, /traces) 요청 확인
+ * - 관리용 경로는 ngrok이 내보내지 않는 별도 커넥터(기본 127.0.0.1)에서만 제공하고 (ServerLauncher),
+ *   프록시/터널을 거쳐 온 요청(전달 헤더가 있는 요청)은 주소와 관계없이 거부
+ *   (ngrok 같은 로컬 터널은 127.0.0.1에서 접속하므로 접속 주소만으로는 구분할 수 없음)
+ */
+public final class AdminRequests {
+    private static final String[] FORWARDING_HEADERS = {
+        "Forwarded", "X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Proto", "X-Real-IP"
+    };
+
+    private AdminRequests() {}
+
+    public static boolean isAllowed(HttpServletRequest req) {
+        for (String header : FORWARDING_HEADERS) {
+            if (req.getHeader(header) != null) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.swingauth.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 단조 증가 카운터 (여러 스레드에서 동시에 증가시켜도 경합이 적은 LongAdder 사용)
+ */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,121 @@
+package com.swingauth.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 락 없는 로그 스케일 히스토그램 (대기 시간, 지연 시간 등 0 이상의 long 값)
+ * - 2의 거듭제곱 구간을 4등분한 버킷 사용 -> 상대 오차 약 25% 이내
+ * - 기록은 버킷 카운터 증가 한 번이라 여러 스레드에서 동시에 호출해도 부담 없음
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 2;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR_LIMIT = SUB_COUNT * 2; // 이 값 미만은 값 그대로 버킷
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * 현재까지의 분포 요약 (기록과 동시에 호출되면 근사값)
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long maxValue = max.get();
+        return new Snapshot(total, sum.sum(), maxValue,
+            Math.min(maxValue, percentile(copy, total, 0.50)),
+            Math.min(maxValue, percentile(copy, total, 0.90)),
+            Math.min(maxValue, percentile(copy, total, 0.99)));
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int bucketOf(long v) {
+        if (v < LINEAR_LIMIT) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR_LIMIT + (exp - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * 버킷에 들어가는 가장 큰 값
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) return bucket;
+        int exp = (bucket - LINEAR_LIMIT) / SUB_COUNT + SUB_BITS + 1;
+        int sub = (bucket - LINEAR_LIMIT) % SUB_COUNT;
+        long base = 1L << exp;
+        long width = base >>> SUB_BITS;
+        return base + width * (sub + 1) - 1;
+    }
+
+    private static long percentile(long[] buckets, long total, double p) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return upperBoundOf(i);
+        }
+        return upperBoundOf(buckets.length - 1);
+    }
+
+    public static final class Snapshot {
+        public final long count;
+        public final long sum;
+        public final long max;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+
+        Snapshot(long count, long sum, long max, long p50, long p90, long p99) {
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        public double mean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", max=" + max;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.swingauth.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 프로세스 전체 지표 모음 (카운터/게이지/히스토그램)
+ * - 지표는 클래스 초기화 시 한 번 등록해 필드에 보관하고, 핫 경로에서는 증가/기록만 함 (조회/락 없음)
+ * - 이미 다른 곳에서 세고 있는 값(LongAdder, 컬렉션 크기 등)은 읽기 함수로 등록해 값을 복사하지 않음
+ * - 값 계산은 /metrics 조회 시에만 일어나며 Prometheus 텍스트 형식으로 출력
+ * - 레이블은 "키", "값" 쌍으로 전달 (예: counter("chat_events_total", "...", "event", "sendMessage"))
+ */
+public final class MetricRegistry {
+    private static final MetricRegistry instance = new MetricRegistry();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), SUMMARY("summary");
+
+        final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * 같은 이름의 지표 묶음 (레이블 조합별 값)
+     */
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Object> series = new ConcurrentHashMap<>(); // 레이블 문자열 -> Counter/LongSupplier/DoubleSupplier/Histogram
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    private MetricRegistry() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_heap_used_bytes", "사용 중인 힙 메모리", () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm_threads_live", "살아 있는 스레드 수", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge("process_uptime_seconds", "프로세스 실행 시간",
+            () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    public static MetricRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * 카운터 (같은 이름/레이블이면 기존 카운터 반환)
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).series
+            .computeIfAbsent(labelText(labels), k -> new Counter());
+    }
+
+    /**
+     * 다른 곳에서 세고 있는 누적값을 카운터로 노출 (다시 등록하면 교체)
+     */
+    public void counter(String name, String help, LongSupplier source, String... labels) {
+        family(name, help, Type.COUNTER).series.put(labelText(labels), source);
+    }
+
+    /**
+     * 조회 시점의 값을 읽는 게이지 (다시 등록하면 교체)
+     */
+    public void gauge(String name, String help, DoubleSupplier source, String... labels) {
+        family(name, help, Type.GAUGE).series.put(labelText(labels), source);
+    }
+
+    /**
+     * 히스토그램 (같은 이름/레이블이면 기존 히스토그램 반환), 백분위 요약(summary)으로 출력
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.SUMMARY).series
+            .computeIfAbsent(labelText(labels), k -> new Histogram());
+    }
+
+    /**
+     * 이미 사용 중인 히스토그램을 등록 (다시 등록하면 교체)
+     */
+    public void histogram(String name, String help, Histogram source, String... labels) {
+        family(name, help, Type.SUMMARY).series.put(labelText(labels), source);
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("이미 다른 종류로 등록된 지표입니다: " + name + " (" + family.type.text + ")");
+        }
+        return family;
+    }
+
+    /**
+     * Prometheus 텍스트 형식(0.0.4)으로 출력
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : new TreeMap<>(families).values()) {
+            writeHeader(out, family.name, family.help, family.type.text);
+            Map<String, Object> series = new TreeMap<>(family.series);
+            for (Map.Entry<String, Object> e : series.entrySet()) {
+                String labels = e.getKey();
+                Object source = e.getValue();
+                if (source instanceof Histogram) {
+                    writeSummary(out, family.name, labels, ((Histogram) source).snapshot());
+                } else {
+                    writeSample(out, family.name, labels, null, valueOf(source));
+                }
+            }
+            if (family.type == Type.SUMMARY) {
+                // 최대값은 summary 형식에 없으므로 별도 게이지로 출력
+                writeHeader(out, family.name + "_max", family.help + " (최대값)", "gauge");
+                for (Map.Entry<String, Object> e : series.entrySet()) {
+                    writeSample(out, family.name + "_max", e.getKey(), null, ((Histogram) e.getValue()).snapshot().max);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static double valueOf(Object source) {
+        try {
+            if (source instanceof Counter) return ((Counter) source).get();
+            if (source instanceof LongSupplier) return ((LongSupplier) source).getAsLong();
+            return ((DoubleSupplier) source).getAsDouble();
+        } catch (Exception e) {
+            return Double.NaN; // 값 계산 실패가 전체 조회를 막지 않도록
+        }
+    }
+
+    private static void writeSummary(StringBuilder out, String name, String labels, Histogram.Snapshot snapshot) {
+        long[] values = {snapshot.p50, snapshot.p90, snapshot.p99};
+        for (int i = 0; i < QUANTILES.length; i++) {
+            writeSample(out, name, labels, "quantile=\"" + QUANTILES[i] + "\"", values[i]);
+        }
+        writeSample(out, name + "_sum", labels, null, snapshot.sum);
+        writeSample(out, name + "_count", labels, null, snapshot.count);
+    }
+
+    private static void writeHeader(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ');
+        for (int i = 0; i < help.length(); i++) {
+            char c = help.charAt(i);
+            if (c == '\\') out.append("\\\\");
+            else if (c == '\n') out.append("\\n");
+            else out.append(c);
+        }
+        out.append('\n').append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, String extraLabel, double value) {
+        out.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            out.append('{').append(labels);
+            if (extraLabel != null) {
+                if (!labels.isEmpty()) out.append(',');
+                out.append(extraLabel);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * ("키", "값", ...) -> 키="값",... (값의 \, ", 줄바꿈은 이스케이프)
+     */
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("레이블은 키/값 쌍이어야 합니다.");
+        }
+        if (labels.length == 0) return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') sb.append('\\').append(c);
+                else if (c == '\n') sb.append("\\n");
+                else sb.append(c);
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+}
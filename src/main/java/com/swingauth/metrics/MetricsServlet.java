@@ -0,0 +1,27 @@
+package com.swingauth.metrics;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * /metrics: MetricRegistry의 모든 지표를 Prometheus 텍스트 형식으로 출력
+ * - 관리용 커넥터에서만 제공하고, 전달 헤더가 있는 요청은 거부 (AdminRequests)
+ */
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!AdminRequests.isAllowed(req)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(MetricRegistry.getInstance().scrape());
+    }
+}
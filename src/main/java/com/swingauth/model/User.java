@@ -1,12 +1,15 @@
 package com.swingauth.model;
 
 import org.bson.Document;
+import org.bson.types.ObjectId;
 
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
 
 public class User {
+  public ObjectId id; // 문서 _id (새로 만든 객체는 null, toDoc에는 넣지 않음)
+
   // 필수
   public String username;
   public String passwordHash;
@@ -32,6 +35,13 @@ public class User {
   public Integer randomChatCount = 0;  // 랜덤채팅 평점 제출 횟수
   public Integer chatTotalRating = 0;  // 랜덤채팅에서 받은 평점 합
 
+  // 게시판 통계 (작성/삭제/신고 시 갱신, 자동 블랙리스트 판정용)
+  public Integer postCount = 0;        // 작성한 게시글 수
+  public Integer reportsReceived = 0;  // 받은 신고 수
+
+  // 로그인 시 발급한 세션 토큰 (시그널링 서버 등록용, DB에 저장하지 않음)
+  public String sessionToken;
+
   public Document toDoc() {
     return new Document(Map.of(
         "username", username,
@@ -55,12 +65,20 @@ public class User {
 
     // 랜덤 채팅 통계
     .append("randomChatCount", randomChatCount != null ? randomChatCount : 0)
-    .append("chatTotalRating", chatTotalRating != null ? chatTotalRating : 0);
+    .append("chatTotalRating", chatTotalRating != null ? chatTotalRating : 0)
+
+    // 게시판 통계
+    .append("postCount", postCount != null ? postCount : 0)
+    .append("reportsReceived", reportsReceived != null ? reportsReceived : 0);
   }
 
   public static User fromDoc(Document d) {
     if (d == null) return null;
     User u = new User();
+    Object id = d.get("_id");
+    if (id instanceof ObjectId) {
+      u.id = (ObjectId) id;
+    }
     u.username = d.getString("username");
     u.passwordHash = d.getString("passwordHash");
 
@@ -118,6 +136,21 @@ public class User {
       u.chatTotalRating = 0;
     }
 
+    // ===== 게시판 통계 =====
+    Object pc = d.get("postCount");
+    if (pc instanceof Number) {
+      u.postCount = ((Number) pc).intValue();
+    } else {
+      u.postCount = 0;
+    }
+
+    Object rr = d.get("reportsReceived");
+    if (rr instanceof Number) {
+      u.reportsReceived = ((Number) rr).intValue();
+    } else {
+      u.reportsReceived = 0;
+    }
+
     return u;
   }
 }
@@ -1,21 +1,33 @@
 package com.swingauth.service;
 
 import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.Histogram;
+import com.swingauth.metrics.MetricRegistry;
 import com.swingauth.model.User;
 import com.mongodb.MongoWriteException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
 import org.bson.Document;
-import org.mindrot.jbcrypt.BCrypt;
 
 import java.time.Instant;
-import java.util.Date;
 
 public class AuthService {
+  private static final Logger log = Logger.get(AuthService.class);
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Counter signUps = metrics.counter("auth_signups_total", "회원가입 성공 수");
+  private static final Counter loginSuccesses = metrics.counter("auth_logins_total", "로그인 시도 결과", "result", "success");
+  private static final Counter loginFailures = metrics.counter("auth_logins_total", "로그인 시도 결과", "result", "failure");
+  private static final Histogram loginMillis = metrics.histogram("auth_login_millis", "로그인 처리 시간(ms, BCrypt 포함)");
+
   private final MongoCollection<Document> users = Mongo.users();
-  // 게시글 개수 계산용
+  // postCount가 없는 (마이그레이션 전) 문서의 게시글 수 보정용
   private final MongoCollection<Document> posts = Mongo.posts();
   private final GeoService geo = new GeoService();
+  private final PasswordHasher hasher = PasswordHasher.getInstance();
+  private final LoginThrottle throttle = LoginThrottle.getInstance();
 
   public void signUp(String username, String password) {
     String uname = normalize(username);
@@ -31,7 +43,7 @@ public class AuthService {
 
     User u = new User();
     u.username = uname;
-    u.passwordHash = BCrypt.hashpw(password, BCrypt.gensalt()); // 해시
+    u.passwordHash = hasher.hash(password); // 해시 (전용 스레드 풀)
     u.createdAt = Instant.now();
     u.lastLoginAt = null;
     u.lastKnownIp = g.ip;
@@ -44,6 +56,7 @@ public class AuthService {
 
     try {
       users.insertOne(u.toDoc());
+      signUps.increment();
     } catch (MongoWriteException e) {
       // unique 인덱스 경합 시
       if (e.getError() != null && e.getError().getCode() == 11000) {
@@ -54,9 +67,41 @@ public class AuthService {
   }
 
   public User login(String username, String password) {
+    return login(username, password, null);
+  }
+
+  /**
+   * @param clientIp 접속 IP (시도 제한용, 데스크톱 앱처럼 모르면 null = 이 프로세스 전체를 한 IP로 취급)
+   */
+  public User login(String username, String password, String clientIp) {
+    long startNanos = System.nanoTime();
+    boolean success = false;
+    try {
+      User user = doLogin(username, password, clientIp);
+      success = true;
+      return user;
+    } finally {
+      (success ? loginSuccesses : loginFailures).increment();
+      loginMillis.record((System.nanoTime() - startNanos) / 1_000_000);
+    }
+  }
+
+  /**
+   * 로그인: 시도 제한 확인 + 사용자 문서 1회 조회 + BCrypt 확인 (전용 스레드 풀)
+   * - 통계 필드 기본값은 Mongo 1회성 마이그레이션과 User.fromDoc/BanRules의 기본값(0)으로 처리
+   * - 게시글 수는 users.postCount에 비정규화 (PostService 작성/삭제 시 갱신)
+   * - 자동 블랙리스트는 읽은 문서로 바로 판정하고, 정지될 때만 DB에 씀 (AutoBanEngine)
+   * - 해시 비용이 설정(-Dauth.bcrypt.cost)과 다르면 성공한 로그인 뒤 여유 있을 때 다시 해시
+   */
+  private User doLogin(String username, String password, String clientIp) {
     String uname = normalize(username);
+    // 아이디/IP별 시도 제한: 존재하지 않는 아이디 대입도 막도록 조회/BCrypt보다 먼저 (아이디 버킷은 실패할 때만 차감)
+    throttle.acquire(uname, clientIp);
     Document found = users.find(Filters.eq("username", uname)).first();
-    if (found == null) throw new IllegalArgumentException("존재하지 않는 아이디입니다.");
+    if (found == null) {
+      throttle.recordFailure(uname);
+      throw new IllegalArgumentException("존재하지 않는 아이디입니다.");
+    }
 
     // 이미 정지된 계정이면 바로 차단
     if (getBool(found, "isBanned")) {
@@ -64,149 +109,57 @@ public class AuthService {
     }
 
     User u = User.fromDoc(found);
-    if (!BCrypt.checkpw(password, u.passwordHash)) {
+    if (!hasher.verify(password, u.passwordHash)) {
+      throttle.recordFailure(uname);
       throw new IllegalArgumentException("비밀번호가 일치하지 않습니다.");
     }
 
-    // 통계 필드가 없으면 기본값으로 추가
-    ensureUserStatsFields(uname, found);
-
-    // (필요하면) 갱신된 도큐먼트 다시 읽기
-    Document userDoc = users.find(Filters.eq("username", uname)).first();
-    if (userDoc == null) {
-      userDoc = found;
+    // 자동 블랙리스트: 통계가 바뀔 때마다 AutoBanEngine이 판정하므로 여기서는 엔진 도입 전 데이터만 확인
+    if (!found.containsKey("postCount")) {
+      found.put("postCount", backfillPostCount(uname));
     }
-
-    // 자동 블랙리스트 판정 및 DB 반영
-    applyAutoBlacklist(uname, userDoc);
-
-    // 다시 한 번 정지 여부 확인
-    if (getBool(userDoc, "isBanned")) {
+    if (AutoBanEngine.getInstance().evaluate(found)) {
       throw new IllegalStateException("정지된 계정입니다. 관리자에게 문의하세요.");
     }
 
-    return User.fromDoc(userDoc);
+    if (hasher.needsRehash(u.passwordHash)) {
+      rehashLater(uname, password, u.passwordHash);
+    }
+    // 시그널링 서버가 DB 조회 없이 사용자를 확인하도록 서명된 토큰 발급
+    // (서명 키가 있는 서버 프로세스에서만, 다른 컴퓨터의 앱은 채팅 서버의 issueSessionToken으로 받음)
+    if (SessionTokens.isConfigured()) {
+      u.sessionToken = SessionTokens.getInstance().issue(found);
+    }
+    return u;
   }
 
   /**
-   * 사용자 계정에 통계 필드가 없으면 기본값으로 추가
+   * 현재 비용으로 다시 해시해 저장 (로그인 응답은 기다리지 않음, 해시 풀이 바쁘면 다음 로그인으로 미룸)
+   * - 그 사이 비밀번호가 바뀌었으면 덮어쓰지 않도록 기존 해시가 같을 때만 갱신
    */
-  private void ensureUserStatsFields(String username, Document userDoc) {
-    boolean needsUpdate = false;
-    Document updateFields = new Document();
-
-    // 신고 횟수
-    if (!userDoc.containsKey("reportsReceived")) {
-      updateFields.append("reportsReceived", 0);
-      needsUpdate = true;
-    }
-
-    // 영상통화 통계 필드
-    if (!userDoc.containsKey("videoCallCount")) {
-      updateFields.append("videoCallCount", 0);
-      needsUpdate = true;
-    }
-    if (!userDoc.containsKey("videoTotalRating")) {
-      updateFields.append("videoTotalRating", 0);
-      needsUpdate = true;
-    }
-
-    // 랜덤채팅 통계 필드
-    if (!userDoc.containsKey("randomChatCount")) {
-      updateFields.append("randomChatCount", 0);
-      needsUpdate = true;
-    }
-    if (!userDoc.containsKey("chatTotalRating")) {
-      updateFields.append("chatTotalRating", 0);
-      needsUpdate = true;
-    }
-
-    if (needsUpdate) {
-      users.updateOne(
-          Filters.eq("username", username),
-          new Document("$set", updateFields)
-      );
-      System.out.println("사용자 통계 필드 초기화: username=" + username);
-    }
+  private void rehashLater(String username, String password, String oldHash) {
+    hasher.rehashIfIdle(password, newHash -> {
+      try {
+        users.updateOne(
+            Filters.and(Filters.eq("username", username), Filters.eq("passwordHash", oldHash)),
+            Updates.set("passwordHash", newHash)
+        );
+      } catch (Exception e) {
+        log.warn("비밀번호 재해시 실패: {} - {}", username, e.getMessage());
+      }
+    });
   }
 
   /**
-   * 로그인 시 자동 블랙리스트 판정
-   * - 조건을 만족하면 users 컬렉션에 isBanned, bannedAt, banReason 필드 저장
+   * 마이그레이션 전에 만들어진 문서라 postCount가 없을 때만: 한 번 집계해 저장
    */
-  private void applyAutoBlacklist(String username, Document userDoc) {
-    // 이미 정지된 경우는 다시 계산할 필요 없음
-    if (getBool(userDoc, "isBanned")) return;
-
-    // posts DB에서 게시글 개수 가져오기
+  private long backfillPostCount(String username) {
     long postCount = posts.countDocuments(Filters.eq("authorUsername", username));
-
-    int reportsReceived = getInt(userDoc, "reportsReceived");
-    int videoCallCount = getInt(userDoc, "videoCallCount");
-    int videoTotalRating = getInt(userDoc, "videoTotalRating");
-    int randomChatCount = getInt(userDoc, "randomChatCount");
-    int chatTotalRating = getInt(userDoc, "chatTotalRating");
-
-    double avgVideo = (videoCallCount > 0)
-        ? (double) videoTotalRating / videoCallCount
-        : 0.0;
-    double avgChat = (randomChatCount > 0)
-        ? (double) chatTotalRating / randomChatCount
-        : 0.0;
-    double reportRatio = (postCount > 0)
-        ? (double) reportsReceived / (double) postCount
-        : 0.0;
-
-    boolean rule1 = postCount > 0 && reportRatio >= 10.0;
-    boolean rule2 = (videoCallCount >= 5) && (avgVideo < 2.0);
-    boolean rule3 = (randomChatCount >= 5) && (avgChat < 2.0);
-
-    boolean ratioOver5 = postCount > 0 && reportRatio >= 5.0;
-    boolean videoLow3 = (videoCallCount >= 5) && (avgVideo < 3.0);
-    boolean chatLow3 = (randomChatCount >= 5) && (avgChat < 3.0);
-    boolean rule4 = ratioOver5 && (videoLow3 || chatLow3);
-
-    boolean shouldBan = rule1 || rule2 || rule3 || rule4;
-    if (!shouldBan) return;
-
-    StringBuilder reason = new StringBuilder();
-    if (rule1) {
-      reason.append("[신고 기준] 신고/게시글 비율 10 이상; ");
-    }
-    if (rule2) {
-      reason.append("[영상통화 기준] 5회 이상, 평균 평점 2 미만; ");
-    }
-    if (rule3) {
-      reason.append("[랜덤채팅 기준] 5회 이상, 평균 평점 2 미만; ");
-    }
-    if (rule4) {
-      reason.append("[조합 기준] 신고 비율 5 이상 + 낮은 평점; ");
-    }
-
-    Document set = new Document()
-        .append("isBanned", true)
-        .append("bannedAt", Date.from(Instant.now()))
-        .append("banReason", reason.toString());
-
     users.updateOne(
-        Filters.eq("username", username),
-        new Document("$set", set)
+        Filters.and(Filters.eq("username", username), Filters.exists("postCount", false)),
+        Updates.set("postCount", postCount)
     );
-
-    // 현재 메모리상의 userDoc에도 반영
-    userDoc.put("isBanned", true);
-    userDoc.put("bannedAt", set.get("bannedAt"));
-    userDoc.put("banReason", set.get("banReason"));
-
-    System.out.println("[블랙리스트] " + username + " 정지 처리: " + reason);
-  }
-
-  private int getInt(Document doc, String key) {
-    Object v = doc.get(key);
-    if (v instanceof Number) {
-      return ((Number) v).intValue();
-    }
-    return 0;
+    return postCount;
   }
 
   private boolean getBool(Document doc, String key) {
@@ -0,0 +1,181 @@
+package com.swingauth.service;
+
+import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.MetricRegistry;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 자동 블랙리스트(계정 정지) 판정 엔진
+ * - 통계 필드를 바꾸는 쪽(신고, 평점, 영상통화 횟수, 게시글 삭제)이 increment로 갱신하면
+ *   갱신 직후 문서(통계 필드만)를 같은 왕복으로 받아 BanRules로 바로 판정 (이벤트당 쿼리 1번, 계산 O(1))
+ * - 정지되면 같은 프로세스의 리스너(채팅/영상통화 서버)에 즉시 알림
+ * - 신고/평점은 각자의 앱 프로세스에서 일어나므로, 서버 프로세스는 startWatching으로
+ *   다른 프로세스에서 정지된 계정을 주기적으로 가져와 알림 (-Dautoban.pollSeconds, 기본 5초, 0이면 끔)
+ */
+public final class AutoBanEngine {
+  private static final Logger log = Logger.get(AutoBanEngine.class);
+  private static final long POLL_SECONDS = Long.getLong("autoban.pollSeconds", 5L);
+  private static final int POLL_BATCH = 200;
+
+  // 판정에 필요한 필드만 받음
+  private static final Bson STATS_PROJECTION = Projections.include(
+      "username", "isBanned", "postCount", "reportsReceived",
+      "videoCallCount", "videoTotalRating", "randomChatCount", "chatTotalRating");
+
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Counter bans = metrics.counter("auth_auto_bans_total", "자동 정지된 계정 수");
+  private static final Counter evaluations = metrics.counter("autoban_evaluations_total", "통계 변경으로 판정한 횟수");
+  private static final AutoBanEngine instance = new AutoBanEngine(); // 지표 필드 초기화 이후에 생성
+
+  /**
+   * 계정 정지 알림 (접속 중인 세션 종료 등, 알림 스레드에서 호출되므로 오래 막지 말 것)
+   */
+  public interface BanListener {
+    void onBanned(String username, String reason);
+  }
+
+  private final List<BanListener> listeners = new CopyOnWriteArrayList<>();
+  private ScheduledExecutorService watcher;
+  private Date watchedUntil; // watcher 스레드 전용 (null = 아직 시작 위치를 모름)
+
+  private AutoBanEngine() {}
+
+  public static AutoBanEngine getInstance() {
+    return instance;
+  }
+
+  public void addListener(BanListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * 사용자 통계 갱신 + 판정
+   * @param filter 대상 사용자 (username 또는 _id)
+   * @param update $inc 등 통계 갱신
+   * @return 정지되었으면 true
+   */
+  public boolean increment(Bson filter, Bson update) {
+    Document after = users().findOneAndUpdate(filter, update,
+        new FindOneAndUpdateOptions().projection(STATS_PROJECTION).returnDocument(ReturnDocument.AFTER));
+    return after != null && evaluate(after);
+  }
+
+  /**
+   * 이미 읽은 사용자 문서로 판정 (로그인 등), 규칙에 걸리면 정지 처리
+   * @return 정지 대상이면 true (이미 정지된 계정 포함)
+   */
+  public boolean evaluate(Document userDoc) {
+    if (Boolean.TRUE.equals(userDoc.get("isBanned"))) return true;
+    evaluations.increment();
+    BanRules.Verdict verdict = BanRules.evaluate(userDoc);
+    if (!verdict.ban) return false;
+    ban(userDoc.getString("username"), verdict.reason);
+    return true;
+  }
+
+  /**
+   * 접속 등록 때 정지 여부 확인 (세션 토큰은 정지 전에 발급됐을 수 있음, _id 인덱스로 1건 조회)
+   * @param userId 토큰의 사용자 (없으면 username으로 조회)
+   * @return 정지됐으면 정지 사유 (사유가 없으면 빈 문자열, 계정이 없어도 정지로 봄), 아니면 null
+   */
+  public String banReason(ObjectId userId, String username) {
+    Document doc = users()
+        .find(userId != null ? Filters.eq("_id", userId) : Filters.eq("username", username))
+        .projection(Projections.include("isBanned", "banReason"))
+        .first();
+    if (doc == null) return "계정 없음";
+    if (!Boolean.TRUE.equals(doc.get("isBanned"))) return null;
+    String reason = doc.getString("banReason");
+    return reason != null ? reason : "";
+  }
+
+  /**
+   * 정지 처리: users 컬렉션에 isBanned, bannedAt, banReason 필드 저장 (처음 정지한 쪽만 알림)
+   */
+  private void ban(String username, String reason) {
+    // bannedAt은 DB 서버 시각으로 기록 (프로세스마다 시계가 달라도 startWatching 조회 순서가 맞도록)
+    long modified = users().updateOne(
+        Filters.and(Filters.eq("username", username), Filters.ne("isBanned", true)),
+        Updates.combine(
+            Updates.set("isBanned", true),
+            Updates.set("banReason", reason),
+            Updates.currentDate("bannedAt"))
+    ).getModifiedCount();
+    if (modified == 0) return; // 동시에 다른 쪽이 먼저 정지함
+
+    bans.increment();
+    log.info("[블랙리스트] {} 정지 처리: {}", username, reason);
+    notifyListeners(username, reason);
+  }
+
+  private void notifyListeners(String username, String reason) {
+    for (BanListener listener : listeners) {
+      try {
+        listener.onBanned(username, reason);
+      } catch (Exception e) {
+        log.warn("정지 알림 처리 실패: {}", username, e);
+      }
+    }
+  }
+
+  /**
+   * 다른 프로세스에서 정지된 계정도 리스너에 전달 (서버 프로세스에서 호출, 여러 번 호출해도 한 번만 시작)
+   * - bannedAt 인덱스로 마지막 확인 이후 정지된 계정만 조회
+   * - 같은 프로세스에서 정지한 계정도 다시 전달될 수 있으므로 리스너는 중복 호출에 안전해야 함
+   */
+  public synchronized void startWatching() {
+    if (watcher != null || POLL_SECONDS <= 0) return;
+    watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "autoban-watcher");
+      t.setDaemon(true);
+      return t;
+    });
+    watcher.scheduleWithFixedDelay(this::pollBans, 0, POLL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  private void pollBans() {
+    try {
+      if (watchedUntil == null) {
+        // 첫 확인: 이미 정지된 계정은 건너뛰고 가장 최근 정지 시각부터 지켜봄
+        Document latest = users().find(Filters.exists("bannedAt"))
+            .projection(Projections.include("bannedAt"))
+            .sort(Sorts.descending("bannedAt"))
+            .first();
+        watchedUntil = latest != null && latest.getDate("bannedAt") != null ? latest.getDate("bannedAt") : new Date(0);
+        return;
+      }
+      for (Document doc : users()
+          .find(Filters.and(Filters.gt("bannedAt", watchedUntil), Filters.eq("isBanned", true)))
+          .projection(Projections.include("username", "banReason", "bannedAt"))
+          .sort(Sorts.ascending("bannedAt"))
+          .limit(POLL_BATCH)) {
+        watchedUntil = doc.getDate("bannedAt");
+        notifyListeners(doc.getString("username"), doc.getString("banReason"));
+      }
+    } catch (Exception e) {
+      log.warn("정지 계정 확인 실패: {}", e.getMessage());
+    }
+  }
+
+  private static MongoCollection<Document> users() {
+    return Mongo.users();
+  }
+}
@@ -0,0 +1,95 @@
+package com.swingauth.service;
+
+import org.bson.Document;
+
+/**
+ * 자동 블랙리스트(계정 정지) 판정 규칙
+ * - DB를 읽거나 쓰지 않는 순수 계산: 사용자 문서에 이미 있는 통계 필드만으로 판정
+ * - 통계 필드가 없으면 0으로 간주 (마이그레이션 전 문서도 그대로 판정 가능)
+ *
+ * 규칙
+ * 1) 게시글이 있고 신고/게시글 비율 10 이상
+ * 2) 영상통화 5회 이상, 평균 평점 2 미만
+ * 3) 랜덤채팅 5회 이상, 평균 평점 2 미만
+ * 4) 신고 비율 5 이상 + (영상통화 또는 랜덤채팅 5회 이상, 평균 평점 3 미만)
+ */
+public final class BanRules {
+  private BanRules() {}
+
+  /**
+   * 판정 결과 (정지 대상이 아니면 reason == null)
+   */
+  public static final class Verdict {
+    public final boolean ban;
+    public final String reason;
+
+    private Verdict(boolean ban, String reason) {
+      this.ban = ban;
+      this.reason = reason;
+    }
+  }
+
+  private static final Verdict PASS = new Verdict(false, null);
+
+  /**
+   * 사용자 문서의 통계 필드(postCount, reportsReceived, videoCallCount, videoTotalRating,
+   * randomChatCount, chatTotalRating)로 판정
+   */
+  public static Verdict evaluate(Document userDoc) {
+    return evaluate(
+        getLong(userDoc, "postCount"),
+        getLong(userDoc, "reportsReceived"),
+        getLong(userDoc, "videoCallCount"),
+        getLong(userDoc, "videoTotalRating"),
+        getLong(userDoc, "randomChatCount"),
+        getLong(userDoc, "chatTotalRating"));
+  }
+
+  public static Verdict evaluate(long postCount, long reportsReceived,
+                                 long videoCallCount, long videoTotalRating,
+                                 long randomChatCount, long chatTotalRating) {
+    double avgVideo = (videoCallCount > 0)
+        ? (double) videoTotalRating / videoCallCount
+        : 0.0;
+    double avgChat = (randomChatCount > 0)
+        ? (double) chatTotalRating / randomChatCount
+        : 0.0;
+    double reportRatio = (postCount > 0)
+        ? (double) reportsReceived / (double) postCount
+        : 0.0;
+
+    boolean rule1 = postCount > 0 && reportRatio >= 10.0;
+    boolean rule2 = (videoCallCount >= 5) && (avgVideo < 2.0);
+    boolean rule3 = (randomChatCount >= 5) && (avgChat < 2.0);
+
+    boolean ratioOver5 = postCount > 0 && reportRatio >= 5.0;
+    boolean videoLow3 = (videoCallCount >= 5) && (avgVideo < 3.0);
+    boolean chatLow3 = (randomChatCount >= 5) && (avgChat < 3.0);
+    boolean rule4 = ratioOver5 && (videoLow3 || chatLow3);
+
+    if (!(rule1 || rule2 || rule3 || rule4)) return PASS;
+
+    StringBuilder reason = new StringBuilder();
+    if (rule1) {
+      reason.append("[신고 기준] 신고/게시글 비율 10 이상; ");
+    }
+    if (rule2) {
+      reason.append("[영상통화 기준] 5회 이상, 평균 평점 2 미만; ");
+    }
+    if (rule3) {
+      reason.append("[랜덤채팅 기준] 5회 이상, 평균 평점 2 미만; ");
+    }
+    if (rule4) {
+      reason.append("[조합 기준] 신고 비율 5 이상 + 낮은 평점; ");
+    }
+    return new Verdict(true, reason.toString());
+  }
+
+  private static long getLong(Document doc, String key) {
+    Object v = doc.get(key);
+    if (v instanceof Number) {
+      return ((Number) v).longValue();
+    }
+    return 0;
+  }
+}
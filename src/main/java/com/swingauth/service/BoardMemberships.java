@@ -0,0 +1,109 @@
+package com.swingauth.service;
+
+import com.swingauth.db.Mongo;
+import com.swingauth.model.User;
+import com.swingauth.util.ObjectIdSet;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 로그인한 사용자가 좋아요/싫어요/신고한 게시글 목록 (게시판 화면용)
+ * - 처음 필요할 때 likes/dislikes/reports를 postId만 골라 한 번씩 읽고 (username + postId 인덱스로 커버),
+ *   이후 "이미 눌렀는지" 확인은 메모리에서 처리 (게시글을 열 때마다 DB 조회 없음)
+ * - 이 화면에서 한 동작은 성공 직후 record*로 반영
+ * - 다른 기기에서 한 동작은 다시 불러올 때까지 반영되지 않음
+ *   (좋아요/싫어요는 PostService.setLiked/setDisliked가 원하는 상태로 맞추므로 어긋나도 반대로 뒤집히지 않고,
+ *    중복 신고는 DB 유니크 인덱스가 최종 확인)
+ */
+public class BoardMemberships {
+  private final String username;
+  private ObjectIdSet liked;    // null = 아직 안 읽음
+  private ObjectIdSet disliked;
+  private ObjectIdSet reported;
+
+  public BoardMemberships(User user) {
+    this.username = user != null ? user.username : null;
+  }
+
+  /**
+   * 미리 읽어 둠 (백그라운드 스레드에서 호출하면 화면 스레드가 기다리지 않음)
+   */
+  public synchronized void preload() {
+    ensureLoaded();
+  }
+
+  public synchronized boolean hasLiked(String postId) {
+    ensureLoaded();
+    return liked.contains(postId);
+  }
+
+  public synchronized boolean hasDisliked(String postId) {
+    ensureLoaded();
+    return disliked.contains(postId);
+  }
+
+  public synchronized boolean hasReported(String postId) {
+    ensureLoaded();
+    return reported.contains(postId);
+  }
+
+  public synchronized void recordLike(String postId, boolean nowLiked) {
+    ensureLoaded();
+    record(liked, postId, nowLiked);
+  }
+
+  public synchronized void recordDislike(String postId, boolean nowDisliked) {
+    ensureLoaded();
+    record(disliked, postId, nowDisliked);
+  }
+
+  public synchronized void recordReport(String postId) {
+    ensureLoaded();
+    record(reported, postId, true);
+  }
+
+  private static void record(ObjectIdSet set, String postId, boolean present) {
+    if (postId == null || !ObjectId.isValid(postId)) return;
+    ObjectId id = new ObjectId(postId);
+    if (present) {
+      set.add(id);
+    } else {
+      set.remove(id);
+    }
+  }
+
+  private void ensureLoaded() {
+    if (liked != null) return;
+    if (username == null) {
+      liked = new ObjectIdSet();
+      disliked = new ObjectIdSet();
+      reported = new ObjectIdSet();
+      return;
+    }
+    // 하나라도 실패하면 예외 전파 (다음 호출에서 다시 시도)
+    ObjectIdSet likedIds = load(Mongo.likes(), "username");
+    ObjectIdSet dislikedIds = load(Mongo.dislikes(), "username");
+    ObjectIdSet reportedIds = load(Mongo.reports(), "reporterUsername");
+    disliked = dislikedIds;
+    reported = reportedIds;
+    liked = likedIds;
+  }
+
+  private ObjectIdSet load(MongoCollection<Document> collection, String userField) {
+    List<ObjectId> ids = new ArrayList<>();
+    for (Document doc : collection.find(Filters.eq(userField, username))
+        .projection(Projections.fields(Projections.include("postId"), Projections.excludeId()))) {
+      String postId = doc.getString("postId");
+      if (postId != null && ObjectId.isValid(postId)) {
+        ids.add(new ObjectId(postId));
+      }
+    }
+    return ObjectIdSet.of(ids);
+  }
+}
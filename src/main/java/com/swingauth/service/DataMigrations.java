@@ -0,0 +1,27 @@
+package com.swingauth.service;
+
+import com.swingauth.db.Mongo;
+
+/**
+ * 서비스 데이터 1회성 마이그레이션 (집계/대기열을 기존 데이터로 처음 채움)
+ * - getDb()에서 실행하면 첫 DB 호출이 전체 재계산을 기다리므로, 서버가 요청을 받기 전(시작 시) 또는 관리 작업으로 실행
+ * - 적용 기록은 Mongo.applyMigrationOnce가 migrations 컬렉션에 남기므로 여러 서버가 시작해도 한 번 적용되면 이후는 조회 1번
+ */
+public final class DataMigrations {
+  private static final String RATING_AGGREGATES_MIGRATION = "ratingAggregates.v1";
+  private static final String MODERATION_QUEUE_MIGRATION = "moderationQueue.v1";
+
+  private DataMigrations() {}
+
+  /**
+   * 적용되지 않은 마이그레이션 실행 (호출한 스레드에서 끝날 때까지, 실패하면 기록을 남기지 않아 다음 시작 시 재시도)
+   */
+  public static void applyPending() {
+    // 유저 쌍 평점 문서로 사용자별 받은 평점 집계(rating_aggregates) 채우기
+    // 집계를 통째로 바꾸므로 평점을 쓰는 서버(RatingIngestQueue)가 요청을 받기 전에 실행
+    Mongo.applyMigrationOnce(RATING_AGGREGATES_MIGRATION, RatingAggregates::rebuild);
+    // 기존 신고로 신고 처리 대기열(moderation_queue) 채우기
+    // 앱(ReportService)은 서버와 관계없이 신고를 쓰므로 덮어쓰지 않고 반영되지 않은 신고만 더함
+    Mongo.applyMigrationOnce(MODERATION_QUEUE_MIGRATION, ModerationQueue::backfill);
+  }
+}
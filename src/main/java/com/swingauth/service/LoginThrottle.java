@@ -0,0 +1,99 @@
+package com.swingauth.service;
+
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.MetricRegistry;
+import com.swingauth.util.TokenBucket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 로그인 시도 제한 (아이디별 + 접속 IP별 토큰 버킷)
+ * - 비밀번호 검증(BCrypt) 전에 확인하므로, 한 계정 대입/여러 계정 대입(크리덴셜 스터핑) 모두 CPU를 쓰기 전에 막음
+ * - IP 버킷은 시도마다, 아이디 버킷은 실패한 시도에만 차감 (아이디만 아는 사람이 성공 로그인을 막지 못하도록)
+ * - 키별 상태는 long 하나(TokenBucket TAT), 키가 많아지면 가득 찬(최근 시도 없는) 버킷부터 정리
+ * - 설정: -Dauth.limit.user=초당횟수,버스트 (기본 0.1,5 = 5번 연속 실패 후 10초에 1번)
+ *        -Dauth.limit.ip=초당횟수,버스트 (기본 1,20)
+ */
+public final class LoginThrottle {
+  private static final int MAX_KEYS = 100_000;
+  private static final Logger log = Logger.get(LoginThrottle.class);
+
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Counter userThrottled = metrics.counter("auth_login_throttled_total", "시도 제한으로 거절된 로그인 수", "scope", "user");
+  private static final Counter ipThrottled = metrics.counter("auth_login_throttled_total", "시도 제한으로 거절된 로그인 수", "scope", "ip");
+  private static final LoginThrottle instance = new LoginThrottle(); // 지표 필드 초기화 이후에 생성
+
+  private final TokenBucket userBucket = bucket("auth.limit.user", 0.1, 5);
+  private final TokenBucket ipBucket = bucket("auth.limit.ip", 1, 20);
+  private final Map<String, AtomicLongArray> userState = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLongArray> ipState = new ConcurrentHashMap<>();
+
+  private LoginThrottle() {
+    metrics.gauge("auth_login_throttle_keys", "시도 제한 추적 중인 아이디/IP 수", () -> userState.size() + ipState.size());
+  }
+
+  public static LoginThrottle getInstance() {
+    return instance;
+  }
+
+  /**
+   * 시도 1회 기록 (IP 버킷 차감, 아이디는 최근 실패가 한도를 넘었는지만 확인). 제한을 넘으면 IllegalStateException
+   * @param clientIp 접속 IP (모르면 null = 이 프로세스 전체를 한 IP로 취급)
+   */
+  public void acquire(String username, String clientIp) {
+    long now = System.nanoTime();
+    String ipKey = clientIp == null || clientIp.isBlank() ? "local" : clientIp;
+    if (!ipBucket.tryAcquire(state(ipState, ipKey, now), 0, now)) {
+      ipThrottled.increment();
+      throw new IllegalStateException("로그인 시도가 너무 많습니다. 잠시 후 다시 시도하세요.");
+    }
+    AtomicLongArray failures = userState.get(username);
+    if (failures != null && !userBucket.hasToken(failures, 0, now)) {
+      userThrottled.increment();
+      throw new IllegalStateException("로그인 시도가 너무 많습니다. 잠시 후 다시 시도하세요.");
+    }
+  }
+
+  /**
+   * 실패한 시도 기록 (없는 아이디, 비밀번호 오류): 아이디 버킷 차감
+   */
+  public void recordFailure(String username) {
+    long now = System.nanoTime();
+    userBucket.tryAcquire(state(userState, username, now), 0, now);
+  }
+
+  private static AtomicLongArray state(Map<String, AtomicLongArray> states, String key, long now) {
+    AtomicLongArray state = states.get(key);
+    if (state != null) return state;
+    if (states.size() >= MAX_KEYS) {
+      // 다음 허용 시각(TAT)이 지난 버킷 = 다시 가득 찬 버킷이므로 지워도 동작이 같음
+      states.values().removeIf(s -> s.get(0) - now <= 0);
+    }
+    return states.computeIfAbsent(key, k -> TokenBucket.newState(1));
+  }
+
+  private static TokenBucket bucket(String property, double defaultRate, int defaultBurst) {
+    double rate = defaultRate;
+    int burst = defaultBurst;
+    String setting = System.getProperty(property);
+    if (setting != null && !setting.isBlank()) {
+      // 값 하나라도 잘못되면 (형식 오류, rate <= 0, burst < 1) 기본값 그대로 사용
+      try {
+        String[] parts = setting.split(",");
+        double configuredRate = Double.parseDouble(parts[0].trim());
+        int configuredBurst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : burst;
+        if (!(configuredRate > 0) || configuredBurst < 1) {
+          throw new IllegalArgumentException("rate > 0, burst >= 1 이어야 함");
+        }
+        rate = configuredRate;
+        burst = configuredBurst;
+      } catch (Exception e) {
+        log.warn("잘못된 시도 제한 설정 무시: {}={}", property, setting);
+      }
+    }
+    return new TokenBucket(rate, burst);
+  }
+}
@@ -0,0 +1,195 @@
+package com.swingauth.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.swingauth.db.Mongo;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 신고 처리 대기열 (moderation_queue 컬렉션, 신고 당한 사용자당 문서 1개)
+ * - 최근 신고가 빠르게 쌓이는 사용자가 위로 오도록 신고마다 가중치를 주고, 오래된 신고는 반감기(-Dmoderation.halfLifeHours, 기본 24시간)마다 절반으로 줄여 봄
+ * - 시간이 지나도 순서가 바뀌지 않도록 가중치를 고정 기준 시각부터 커지는 값(exp(λ·t))으로 더해 두고 로그로 저장 (logPriority)
+ *   -> 다른 사용자 문서를 고칠 필요 없이 logPriority 인덱스 순서가 곧 현재 순위, 상위 k명은 인덱스 앞에서 k개만 읽음
+ * - 현재 점수(반감기로 줄인 최근 신고 수) = exp(logPriority - λ·지금)
+ * - 갱신은 신고 1건마다 upsert 1번 (ReportService), 처음 만들 때는 backfill, 기록을 잃었을 때는 rebuild로 reports에서 다시 만듦
+ * - 반영한 신고 문서에는 APPLIED_FIELD를 남겨 backfill이 같은 신고를 두 번 더하지 않음
+ */
+public final class ModerationQueue {
+  private static final double HALF_LIFE_HOURS = Double.parseDouble(System.getProperty("moderation.halfLifeHours", "24"));
+  private static final double DECAY_PER_MILLI = Math.log(2) / (HALF_LIFE_HOURS * 3_600_000d);
+  // 가중치 기준 시각 (2024-01-01T00:00:00Z), 바꾸면 rebuild 필요
+  private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+  // reports 문서의 대기열 반영 표시 (ReportService가 저장할 때 true로 넣고, 반영에 실패하면 지움)
+  static final String APPLIED_FIELD = "inModerationQueue";
+
+  private ModerationQueue() {}
+
+  /**
+   * 대기열의 사용자 1명
+   */
+  public static final class Entry {
+    public final String username;
+    public final double score;       // 반감기로 줄인 최근 신고 수
+    public final long reportsTotal;  // 대기열에 오른 뒤 받은 전체 신고 수
+    public final Date lastReportAt;
+
+    Entry(String username, double score, long reportsTotal, Date lastReportAt) {
+      this.username = username;
+      this.score = score;
+      this.reportsTotal = reportsTotal;
+      this.lastReportAt = lastReportAt;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s (최근 점수 %.2f, 전체 %d건, 마지막 %s)", username, score, reportsTotal, lastReportAt);
+    }
+  }
+
+  /**
+   * 신고 1건 반영
+   */
+  public static void recordReport(String reportedUsername, Date reportedAt) {
+    UpdateOneModel<Document> model = reportModel(reportedUsername, 1, reportedAt);
+    try {
+      Mongo.moderationQueue().updateOne(model.getFilter(), model.getUpdate(), model.getOptions());
+    } catch (MongoWriteException e) {
+      // 처음 만드는 문서를 동시에 upsert하면 한쪽이 중복 키에 걸리므로, 이미 생긴 문서에 다시 적용
+      if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) throw e;
+      Mongo.moderationQueue().updateOne(model.getFilter(), model.getUpdate(), model.getOptions());
+    }
+  }
+
+  /**
+   * 한 사용자가 같은 시각 근처에 받은 신고 count건을 반영하는 upsert (원자적, 조회 후 갱신하지 않음)
+   */
+  static UpdateOneModel<Document> reportModel(String reportedUsername, int count, Date reportedAt) {
+    double weight = logWeight(reportedAt.getTime()) + Math.log(count);
+    return new UpdateOneModel<>(
+        Filters.eq("_id", reportedUsername),
+        List.of(combine(weight, (long) count, reportedAt)),
+        new UpdateOptions().upsert(true));
+  }
+
+  /**
+   * 기존 대기열 문서에 신고 가중치/건수를 더하는 $set 단계 (문서가 없으면 그대로 저장)
+   */
+  private static Document combine(Object weight, Object count, Object lastReportAt) {
+    // log(e^a + e^b) = max(a, b) + log(1 + e^-|a - b|) (큰 값끼리 더해도 넘치지 않음)
+    Document combined = expr("$add",
+        expr("$max", "$logPriority", weight),
+        expr("$ln", expr("$add", 1, expr("$exp", expr("$multiply", -1,
+            expr("$abs", expr("$subtract", "$logPriority", weight)))))));
+    return new Document("$set", new Document()
+        .append("logPriority", expr("$cond", expr("$isNumber", "$logPriority"), combined, weight))
+        .append("reportsTotal", expr("$add", expr("$ifNull", "$reportsTotal", 0L), count))
+        .append("lastReportAt", expr("$max", "$lastReportAt", lastReportAt)));
+  }
+
+  /**
+   * 최근 신고가 많은 순서로 상위 k명 (logPriority 인덱스에서 k개만 읽음)
+   */
+  public static List<Entry> top(int k) {
+    double now = logWeight(System.currentTimeMillis());
+    List<Entry> entries = new ArrayList<>(Math.max(0, k));
+    if (k <= 0) return entries;
+    for (Document doc : Mongo.moderationQueue().find()
+        .sort(Sorts.descending("logPriority"))
+        .limit(k)) {
+      Number reportsTotal = doc.get("reportsTotal", Number.class);
+      entries.add(new Entry(
+          doc.getString("_id"),
+          Math.exp(doc.getDouble("logPriority") - now),
+          reportsTotal != null ? reportsTotal.longValue() : 0L,
+          doc.getDate("lastReportAt")));
+    }
+    return entries;
+  }
+
+  /**
+   * 처리한 사용자를 대기열에서 뺌 (이후 새 신고부터 다시 쌓임)
+   * @return 대기열에 있었으면 true
+   */
+  public static boolean dismiss(String username) {
+    return Mongo.moderationQueue().deleteOne(Filters.eq("_id", username)).getDeletedCount() > 0;
+  }
+
+  /**
+   * reports 전체로 대기열을 다시 만듦 (같은 신고 이력이면 reportModel로 쌓은 것과 같은 순서)
+   * - 사용자 문서를 통째로 바꾸므로 실행 중에 들어온 신고는 덮어쓸 수 있음 (기록을 잃었을 때 관리 작업으로, 신고가 적을 때 실행)
+   * - dismiss로 뺀 사용자도 신고 이력이 있으면 다시 올라옴
+   */
+  public static void rebuild() {
+    Date cutoff = new Date();
+    aggregateInto(Filters.lt("createdAt", cutoff), new MergeOptions()
+        .whenMatched(MergeOptions.WhenMatched.REPLACE)
+        .whenNotMatched(MergeOptions.WhenNotMatched.INSERT));
+    markApplied(Filters.lt("createdAt", cutoff));
+  }
+
+  /**
+   * 아직 대기열에 반영되지 않은 신고(APPLIED_FIELD가 없는 reports)만 더함 (처음 채우는 마이그레이션, recordReport 실패분 복구)
+   * - 기존 문서에 reportModel과 같은 방식으로 합치므로 실행 중에 ReportService가 반영한 신고를 지우거나 두 번 세지 않음
+   * - 합친 뒤 반영 표시를 남김 (그 사이에 중단되면 다시 실행할 때 해당 신고가 한 번 더 더해질 수 있음)
+   */
+  public static void backfill() {
+    Bson pending = Filters.and(Filters.ne(APPLIED_FIELD, true), Filters.lt("createdAt", new Date()));
+    aggregateInto(pending, new MergeOptions()
+        .whenMatched(MergeOptions.WhenMatched.PIPELINE)
+        .whenMatchedPipeline(List.of(combine("$$new.logPriority", "$$new.reportsTotal", "$$new.lastReportAt")))
+        .whenNotMatched(MergeOptions.WhenNotMatched.INSERT));
+    markApplied(pending);
+  }
+
+  /**
+   * filter에 맞는 신고를 사용자별로 모아 대기열에 $merge
+   * - 지금 시각 기준 가중치 exp(λ·(t - 지금))를 더한 뒤 기준 시각으로 옮겨 저장 (더하는 값이 1 이하라 넘치지 않음)
+   */
+  private static void aggregateInto(Bson filter, MergeOptions merge) {
+    double now = logWeight(System.currentTimeMillis());
+    Document age = expr("$multiply", DECAY_PER_MILLI,
+        expr("$subtract", "$createdAt", new Date(EPOCH_MILLIS)));
+    Mongo.reports().aggregate(Arrays.asList(
+        Aggregates.match(Filters.and(
+            filter,
+            Filters.type("reportedUsername", "string"),
+            Filters.type("createdAt", "date"))),
+        Aggregates.group("$reportedUsername",
+            Accumulators.sum("recent", expr("$exp", expr("$subtract", age, now))),
+            Accumulators.sum("reportsTotal", 1L),
+            Accumulators.max("lastReportAt", "$createdAt")),
+        new Document("$project", new Document()
+            // 아주 오래된 신고만 있으면 합이 0이 되므로 가장 낮은 순위로 둠
+            .append("logPriority", expr("$add", now, expr("$ln", expr("$max", "$recent", Double.MIN_NORMAL))))
+            .append("reportsTotal", 1)
+            .append("lastReportAt", 1)),
+        Aggregates.merge(Mongo.moderationQueue().getNamespace().getCollectionName(), merge)
+    )).allowDiskUse(true).toCollection();
+  }
+
+  private static void markApplied(Bson filter) {
+    Mongo.reports().updateMany(Filters.and(filter, Filters.ne(APPLIED_FIELD, true)), Updates.set(APPLIED_FIELD, true));
+  }
+
+  private static double logWeight(long millis) {
+    return (millis - EPOCH_MILLIS) * DECAY_PER_MILLI;
+  }
+
+  private static Document expr(String operator, Object... args) {
+    return new Document(operator, args.length == 1 ? args[0] : Arrays.asList(args));
+  }
+}
@@ -0,0 +1,151 @@
+package com.swingauth.service;
+
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.Histogram;
+import com.swingauth.metrics.MetricRegistry;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * BCrypt 해시/검증 전용 스레드 풀
+ * - BCrypt는 1건에 수십~수백 ms CPU를 쓰므로, 동시에 몰려도 코어 수만큼만 계산하고 나머지는 제한된 대기열에서 기다림
+ * - 대기열이 가득 차면 바로 거절 (호출 스레드가 직접 계산하거나 무한정 쌓이지 않음)
+ * - 설정: -Dauth.bcrypt.cost (해시 비용, 기본 10), -Dauth.hash.threads (기본 CPU 코어 수),
+ *        -Dauth.hash.queue (대기열 크기, 기본 스레드 수 x 8), -Dauth.hash.timeoutMillis (대기+계산 제한, 기본 10초)
+ * - 비용 설정보다 낮은(또는 높은) 해시는 needsRehash로 확인해 로그인 성공 시 다시 해시
+ */
+public final class PasswordHasher {
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Histogram hashMillis = metrics.histogram("auth_hash_millis", "BCrypt 계산 시간(ms)", "op", "hash");
+  private static final Histogram verifyMillis = metrics.histogram("auth_hash_millis", "BCrypt 계산 시간(ms)", "op", "verify");
+  private static final Histogram queueWaitMillis = metrics.histogram("auth_hash_queue_wait_millis", "BCrypt 대기열 대기 시간(ms)");
+  private static final Counter rejected = metrics.counter("auth_hash_rejected_total", "대기열이 가득 차 거절된 해시/검증 수");
+  private static final PasswordHasher instance = new PasswordHasher(); // 지표 필드 초기화 이후에 생성
+
+  private final int cost;
+  private final long timeoutMillis;
+  private final ThreadPoolExecutor executor;
+
+  private PasswordHasher() {
+    int threads = Math.max(1, Integer.getInteger("auth.hash.threads", Runtime.getRuntime().availableProcessors()));
+    int queue = Math.max(1, Integer.getInteger("auth.hash.queue", threads * 8));
+    this.cost = Math.max(4, Math.min(30, Integer.getInteger("auth.bcrypt.cost", 10)));
+    this.timeoutMillis = Long.getLong("auth.hash.timeoutMillis", 10_000L);
+
+    AtomicInteger threadIndex = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queue), r -> {
+          Thread t = new Thread(r, "password-hash-" + threadIndex.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+
+    metrics.gauge("auth_hash_queue_depth", "BCrypt 대기열 길이", () -> executor.getQueue().size());
+    metrics.gauge("auth_hash_active", "BCrypt 계산 중인 스레드 수", executor::getActiveCount);
+  }
+
+  public static PasswordHasher getInstance() {
+    return instance;
+  }
+
+  public int getCost() {
+    return cost;
+  }
+
+  /**
+   * 설정된 비용으로 새 해시 생성
+   */
+  public String hash(String password) {
+    return run(() -> hashNow(password));
+  }
+
+  public boolean verify(String password, String passwordHash) {
+    if (password == null || passwordHash == null) return false;
+    return run(() -> {
+      long startNanos = System.nanoTime();
+      try {
+        return BCrypt.checkpw(password, passwordHash);
+      } catch (IllegalArgumentException e) {
+        return false; // 형식이 잘못된 해시
+      } finally {
+        verifyMillis.record((System.nanoTime() - startNanos) / 1_000_000);
+      }
+    });
+  }
+
+  /**
+   * 해시의 비용($2a$<cost>$...)이 설정과 다르면 true
+   */
+  public boolean needsRehash(String passwordHash) {
+    if (passwordHash == null || passwordHash.length() < 7 || passwordHash.charAt(0) != '$') return false;
+    int costStart = passwordHash.indexOf('$', 1) + 1;
+    if (costStart <= 0 || costStart + 2 > passwordHash.length()) return false;
+    try {
+      return Integer.parseInt(passwordHash.substring(costStart, costStart + 2)) != cost;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * 대기열이 비어 있을 때만 백그라운드로 다시 해시해 store에 전달 (급하지 않으므로 바쁘면 건너뜀)
+   * @return 예약했으면 true
+   */
+  public boolean rehashIfIdle(String password, Consumer<String> store) {
+    if (!executor.getQueue().isEmpty()) return false;
+    try {
+      executor.execute(() -> store.accept(hashNow(password)));
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  // 풀 스레드에서만 호출
+  private String hashNow(String password) {
+    long startNanos = System.nanoTime();
+    try {
+      return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+    } finally {
+      hashMillis.record((System.nanoTime() - startNanos) / 1_000_000);
+    }
+  }
+
+  private <T> T run(Callable<T> task) {
+    long submittedNanos = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        queueWaitMillis.record((System.nanoTime() - submittedNanos) / 1_000_000);
+        return task.call();
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new IllegalStateException("요청이 많습니다. 잠시 후 다시 시도하세요.");
+    }
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new IllegalStateException("요청이 많습니다. 잠시 후 다시 시도하세요.");
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("요청이 취소되었습니다.");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -1,10 +1,15 @@
 package com.swingauth.service;
 
+import com.mongodb.MongoWriteException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 import com.swingauth.db.Mongo;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.Histogram;
+import com.swingauth.metrics.MetricRegistry;
 import com.swingauth.model.Post;
 import com.swingauth.model.User;
 import org.bson.Document;
@@ -17,6 +22,12 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 public class PostService {
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Counter postsCreated = metrics.counter("board_posts_created_total", "작성된 게시글 수");
+  private static final Counter postsDeleted = metrics.counter("board_posts_deleted_total", "삭제된 게시글 수");
+  private static final Counter likeToggles = metrics.counter("board_reactions_total", "좋아요/싫어요 토글 수", "kind", "like");
+  private static final Counter dislikeToggles = metrics.counter("board_reactions_total", "좋아요/싫어요 토글 수", "kind", "dislike");
+  private static final Histogram listMillis = metrics.histogram("board_list_millis", "게시글 목록 조회 시간(ms)");
 
   private final MongoCollection<Document> posts = Mongo.posts();
   private final MongoCollection<Document> likes = Mongo.likes();       // 좋아요 기록
@@ -24,6 +35,7 @@ public class PostService {
 
   /** 게시판 + 지역 + 검색어 기반 목록 (페이징) */
   public List<Post> listByBoard(User user, String board, String keyword, int skip, int limit) {
+    long startNanos = System.nanoTime();
     List<Post> list = new ArrayList<>();
     List<Bson> filters = new ArrayList<>();
 
@@ -55,6 +67,7 @@ public class PostService {
         list.add(Post.fromDoc(cur.next()));
       }
     }
+    listMillis.record((System.nanoTime() - startNanos) / 1_000_000);
     return list;
   }
 
@@ -77,6 +90,9 @@ public class PostService {
     p.likesCount = 0;
 
     posts.insertOne(p.toDoc());
+    postsCreated.increment();
+    // 작성자 게시글 수 (로그인 시 자동 블랙리스트 판정에 사용, 매번 집계하지 않도록 비정규화)
+    Mongo.users().updateOne(Filters.eq("username", user.username), Updates.inc("postCount", 1));
     return p;
   }
 
@@ -113,6 +129,18 @@ public class PostService {
    *  @return 변경 후 좋아요 수
    */
   public int toggleLike(User user, String postId) {
+    Document filter = new Document("postId", postId)
+        .append("username", user.username);
+    return setLiked(user, postId, likes.find(filter).first() == null);
+  }
+
+  /** 👍 좋아요 상태를 지정한 값으로 맞춤 (이미 그 상태면 개수 변경 없음)
+   *  - 화면이 알고 있는 상태(BoardMemberships)로 호출하므로 "눌렀는지" 조회 없이
+   *    insert(유니크 인덱스 중복이면 이미 눌림) / delete 결과로 판단
+   *  @return 변경 후 좋아요 수
+   */
+  public int setLiked(User user, String postId, boolean liked) {
+    likeToggles.increment();
     ObjectId oid = new ObjectId(postId);
 
     // 게시글 조회 (작성자 정보 얻기)
@@ -125,32 +153,25 @@ public class PostService {
     Document filter = new Document("postId", postId)
         .append("username", user.username);
 
-    Document found = likes.find(filter).first();
-
-    int delta; // +1 or -1
+    boolean changed = liked
+        ? insertIfAbsent(likes, new Document(filter).append("createdAt", new Date()))
+        : likes.deleteOne(filter).getDeletedCount() > 0;
+    int delta = liked ? 1 : -1;
 
-    if (found == null) {
-      // 좋아요 추가
-      likes.insertOne(new Document(filter).append("createdAt", new Date()));
-      delta = 1;
-    } else {
-      // 좋아요 취소
-      likes.deleteOne(filter);
-      delta = -1;
-    }
-
-    // 게시글 좋아요 수 변경
-    posts.updateOne(
-        Filters.eq("_id", oid),
-        new Document("$inc", new Document("likesCount", delta))
-    );
-
-    // 작성자 누적 좋아요 수 변경
-    if (author != null) {
-      Mongo.users().updateOne(
-          Filters.eq("username", author),
-          new Document("$inc", new Document("likesReceived", delta))
+    if (changed) {
+      // 게시글 좋아요 수 변경
+      posts.updateOne(
+          Filters.eq("_id", oid),
+          new Document("$inc", new Document("likesCount", delta))
       );
+
+      // 작성자 누적 좋아요 수 변경
+      if (author != null) {
+        Mongo.users().updateOne(
+            Filters.eq("username", author),
+            new Document("$inc", new Document("likesReceived", delta))
+        );
+      }
     }
 
     // 변경된 좋아요 수 반환
@@ -173,6 +194,16 @@ public class PostService {
    *          false = 지금 상태가 "싫어요 취소"
    */
   public boolean toggleDislike(User user, String postId) {
+    Document filter = new Document("postId", postId)
+        .append("username", user.username);
+    boolean nowDisliked = dislikes.find(filter).first() == null;
+    setDisliked(user, postId, nowDisliked);
+    return nowDisliked;
+  }
+
+  /** 👎 싫어요 상태를 지정한 값으로 맞춤 (이미 그 상태면 변경 없음, setLiked와 같은 방식) */
+  public void setDisliked(User user, String postId, boolean disliked) {
+    dislikeToggles.increment();
     ObjectId oid = new ObjectId(postId);
 
     Document postDoc = posts.find(Filters.eq("_id", oid)).first();
@@ -184,31 +215,27 @@ public class PostService {
     Document filter = new Document("postId", postId)
         .append("username", user.username);
 
-    Document found = dislikes.find(filter).first();
-
-    int delta;
-    boolean nowDisliked;
-
-    if (found == null) {
-      // 새로 싫어요
-      dislikes.insertOne(new Document(filter).append("createdAt", new Date()));
-      delta = 1;
-      nowDisliked = true;
-    } else {
-      // 싫어요 취소
-      dislikes.deleteOne(filter);
-      delta = -1;
-      nowDisliked = false;
-    }
+    boolean changed = disliked
+        ? insertIfAbsent(dislikes, new Document(filter).append("createdAt", new Date()))
+        : dislikes.deleteOne(filter).getDeletedCount() > 0;
 
-    if (author != null) {
+    if (changed && author != null) {
       Mongo.users().updateOne(
           Filters.eq("username", author),
-          new Document("$inc", new Document("dislikesReceived", delta))
+          new Document("$inc", new Document("dislikesReceived", disliked ? 1 : -1))
       );
     }
+  }
 
-    return nowDisliked;
+  /** (postId, username) 유니크 인덱스가 있는 컬렉션에 삽입, 이미 있으면 false */
+  private static boolean insertIfAbsent(MongoCollection<Document> collection, Document doc) {
+    try {
+      collection.insertOne(doc);
+      return true;
+    } catch (MongoWriteException e) {
+      if (e.getError() != null && e.getError().getCode() == 11000) return false;
+      throw e;
+    }
   }
 
   /** 게시글 삭제
@@ -236,7 +263,12 @@ public class PostService {
     }
 
     // 1) 게시글 삭제
-    posts.deleteOne(Filters.eq("_id", oid));
+    if (posts.deleteOne(Filters.eq("_id", oid)).getDeletedCount() > 0) {
+      postsDeleted.increment();
+      // 동시에 두 번 삭제해도 실제로 지운 쪽만 감소
+      // 게시글이 줄면 신고/게시글 비율이 올라가므로 자동 블랙리스트 판정 (작성 시에는 비율이 내려가므로 판정 불필요)
+      AutoBanEngine.getInstance().increment(Filters.eq("username", author), Updates.inc("postCount", -1));
+    }
 
     // 2) 댓글만 삭제
     Mongo.comments().deleteMany(Filters.eq("postId", p.id));
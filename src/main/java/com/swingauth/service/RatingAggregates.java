@@ -0,0 +1,284 @@
+package com.swingauth.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.swingauth.db.Mongo;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 평점 집계 (합계/개수로 저장하고 평균은 계산해서 씀)
+ * - 유저 쌍: ratings 문서의 ratingSum, ratingCount를 원자적 upsert 1번으로 증가, averageRating = ratingSum / ratingCount
+ *   (기존 문서는 averageRating을 평점 1개로 보고 이어서 집계)
+ *   쌍 문서에는 방향별로 받은 평점도 함께 저장 (user1RatingSum/Count = user1이 받은 평점) -> 사용자별 집계를 다시 만들 수 있음
+ * - 사용자별: rating_aggregates 컬렉션의 (userId, serviceType) 문서에 받은 평점 합계/개수를 $inc upsert
+ * - 조회 후 갱신하지 않으므로 동시에 평점이 들어와도 누락되지 않고, 같은 평점 이력을 다시 적용하면 같은 결과
+ */
+public final class RatingAggregates {
+  private RatingAggregates() {}
+
+  /**
+   * 평점 1건 반영
+   * @param raterId 평점을 준 사용자
+   * @param ratedId 평점을 받은 사용자
+   * @return 반영 후 유저 쌍 평균
+   */
+  public static double record(ObjectId raterId, ObjectId ratedId, String serviceType, int rating) {
+    double pairAverage = addPairRating(raterId, ratedId, serviceType, rating);
+    addUserRating(ratedId, serviceType, rating);
+    return pairAverage;
+  }
+
+  /**
+   * 유저 쌍 평점 집계 (user1Id < user2Id 순서로 저장)
+   * @return 반영 후 평균
+   */
+  public static double addPairRating(ObjectId raterId, ObjectId ratedId, String serviceType, int rating) {
+    Bson filter = pairFilter(raterId, ratedId, serviceType);
+    List<Document> pipeline = pairPipeline(ratedId.compareTo(raterId) <= 0, rating);
+    FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+        .upsert(true)
+        .returnDocument(ReturnDocument.AFTER)
+        .projection(Projections.include("averageRating"));
+    Document after = retryOnDuplicate(() -> Mongo.ratings().findOneAndUpdate(filter, pipeline, options));
+    Object average = after != null ? after.get("averageRating") : null;
+    return average instanceof Number ? ((Number) average).doubleValue() : rating;
+  }
+
+  /**
+   * addPairRating과 같은 갱신을 bulkWrite용 모델로 (여러 평점을 한 번에 쓸 때)
+   */
+  public static UpdateOneModel<Document> pairRatingModel(ObjectId raterId, ObjectId ratedId, String serviceType, int rating) {
+    return new UpdateOneModel<>(pairFilter(raterId, ratedId, serviceType),
+        pairPipeline(ratedId.compareTo(raterId) <= 0, rating), new UpdateOptions().upsert(true));
+  }
+
+  /**
+   * 유저 쌍 평점 합계/개수 (문서가 없으면 {0, 0}, averageRating만 있는 기존 문서는 평점 1개)
+   * @return {합계, 개수}
+   */
+  public static double[] pairTotals(ObjectId userA, ObjectId userB, String serviceType) {
+    Document doc = Mongo.ratings().find(pairFilter(userA, userB, serviceType))
+        .projection(Projections.include("ratingSum", "ratingCount", "averageRating"))
+        .first();
+    if (doc == null) return new double[]{0, 0};
+    Object sum = doc.get("ratingSum");
+    Object count = doc.get("ratingCount");
+    if (sum instanceof Number && count instanceof Number) {
+      return new double[]{((Number) sum).doubleValue(), ((Number) count).doubleValue()};
+    }
+    Object average = doc.get("averageRating");
+    return average instanceof Number ? new double[]{((Number) average).doubleValue(), 1} : new double[]{0, 0};
+  }
+
+  // 쌍 문서는 user1Id < user2Id 순서로 저장
+  private static Bson pairFilter(ObjectId userA, ObjectId userB, String serviceType) {
+    boolean aFirst = userA.compareTo(userB) <= 0;
+    return Filters.and(
+        Filters.eq("user1Id", aFirst ? userA : userB),
+        Filters.eq("user2Id", aFirst ? userB : userA),
+        Filters.eq("serviceType", serviceType));
+  }
+
+  private static List<Document> pairPipeline(boolean ratedIsUser1, int rating) {
+    String ratedSide = ratedIsUser1 ? "user1" : "user2";
+    return Arrays.asList(
+        new Document("$set", new Document()
+            .append("ratingSum", expr("$add", totalSum(), rating))
+            .append("ratingCount", expr("$add", totalCount(), 1))
+            .append(ratedSide + "RatingSum", expr("$add", expr("$ifNull", "$" + ratedSide + "RatingSum", 0), rating))
+            .append(ratedSide + "RatingCount", expr("$add", expr("$ifNull", "$" + ratedSide + "RatingCount", 0), 1))
+            .append("createdAt", expr("$ifNull", "$createdAt", "$$NOW"))
+            .append("updatedAt", "$$NOW")),
+        new Document("$set", new Document("averageRating", expr("$divide", "$ratingSum", "$ratingCount"))));
+  }
+
+  /**
+   * 사용자가 받은 평점 집계 (서비스별)
+   */
+  public static void addUserRating(ObjectId userId, String serviceType, int rating) {
+    UpdateOneModel<Document> model = userRatingModel(userId, serviceType, rating, 1);
+    retryOnDuplicate(() -> Mongo.ratingAggregates().updateOne(model.getFilter(), model.getUpdate(), model.getOptions()));
+  }
+
+  /**
+   * 사용자가 받은 평점 여러 개를 한 번에 반영하는 bulkWrite용 모델
+   */
+  public static UpdateOneModel<Document> userRatingModel(ObjectId userId, String serviceType, long ratingSum, long ratingCount) {
+    return new UpdateOneModel<>(
+        Filters.and(Filters.eq("userId", userId), Filters.eq("serviceType", serviceType)),
+        Updates.combine(
+            Updates.inc("ratingSum", ratingSum),
+            Updates.inc("ratingCount", ratingCount),
+            Updates.currentDate("updatedAt")),
+        new UpdateOptions().upsert(true));
+  }
+
+  /**
+   * 사용자가 받은 평점 평균 (모든 서비스 합산, 집계 문서가 없으면 -1)
+   */
+  public static double userAverage(ObjectId userId) {
+    return userAverages(List.of(userId)).getOrDefault(userId, -1.0);
+  }
+
+  /**
+   * 여러 사용자의 받은 평점 평균을 한 번에 조회 (집계 문서가 없는 사용자는 결과에 없음)
+   */
+  public static Map<ObjectId, Double> userAverages(Collection<ObjectId> userIds) {
+    Map<ObjectId, double[]> totals = new HashMap<>(); // [합계, 개수]
+    for (Document doc : Mongo.ratingAggregates().find(Filters.in("userId", userIds))
+        .projection(Projections.include("userId", "ratingSum", "ratingCount"))) {
+      double[] total = totals.computeIfAbsent(doc.getObjectId("userId"), k -> new double[2]);
+      Object docSum = doc.get("ratingSum");
+      Object docCount = doc.get("ratingCount");
+      if (docSum instanceof Number) total[0] += ((Number) docSum).doubleValue();
+      if (docCount instanceof Number) total[1] += ((Number) docCount).longValue();
+    }
+    Map<ObjectId, Double> averages = new HashMap<>();
+    totals.forEach((userId, total) -> {
+      if (total[1] > 0) averages.put(userId, total[0] / total[1]);
+    });
+    return averages;
+  }
+
+  /**
+   * 유저 쌍 문서로 사용자별 집계를 다시 만듦 (DB 서버에서 $group 후 rating_aggregates에 $merge)
+   * - 방향 정보가 없는 평점(방향별 필드를 저장하기 전의 이력)은 두 사용자 모두 받은 것으로 계산
+   *   (이전 getAverageRating이 참여한 쌍의 평균을 쓰던 것과 같은 기준)
+   * - 집계 문서를 통째로 바꾸므로 실행 중에 들어온 평점 증가분은 덮어쓸 수 있음
+   *   (처음 채우는 마이그레이션은 서버가 요청을 받기 전에 실행(DataMigrations), 관리 작업은 평점이 적을 때 실행)
+   */
+  public static void rebuild() {
+    rebuild(null);
+  }
+
+  /**
+   * 사용자 1명의 집계만 다시 만듦
+   */
+  public static void rebuildUser(ObjectId userId) {
+    rebuild(userId);
+  }
+
+  /**
+   * _id가 afterId 초과, upToId 이하인 사용자의 집계만 다시 만듦 (나눠서 실행하는 작업용, null이면 끝까지)
+   * - user1Id/user2Id 인덱스로 범위에 속한 사용자가 참여한 쌍만 읽음
+   */
+  public static void rebuildRange(ObjectId afterId, ObjectId upToId) {
+    Document range = new Document();
+    if (afterId != null) range.append("$gt", afterId);
+    if (upToId != null) range.append("$lte", upToId);
+    rebuild(range.isEmpty() ? null : range);
+  }
+
+  /**
+   * @param userIdCondition 다시 계산할 사용자 _id 조건 (ObjectId 또는 {$gt, $lte} 같은 조건, 모두면 null)
+   */
+  private static void rebuild(Object userIdCondition) {
+    List<Bson> pipeline = new ArrayList<>();
+    Bson pairs = Filters.and(Filters.type("user1Id", "objectId"), Filters.type("user2Id", "objectId"));
+    if (userIdCondition != null) {
+      // 범위의 사용자가 user2로만 참여한 쌍도 포함해야 하므로 양쪽 모두 확인
+      pairs = Filters.and(pairs, Filters.or(
+          new Document("user1Id", userIdCondition),
+          new Document("user2Id", userIdCondition)));
+    }
+    pipeline.add(Aggregates.match(pairs));
+    pipeline.addAll(perUserPipeline(userIdCondition));
+    pipeline.add(Aggregates.merge(Mongo.ratingAggregates().getNamespace().getCollectionName(),
+        new MergeOptions()
+            .uniqueIdentifier(Arrays.asList("userId", "serviceType"))
+            .whenMatched(MergeOptions.WhenMatched.REPLACE)
+            .whenNotMatched(MergeOptions.WhenNotMatched.INSERT)));
+    Mongo.ratings().aggregate(pipeline).allowDiskUse(true).toCollection();
+  }
+
+  /**
+   * 쌍 문서 -> (userId, serviceType, ratingSum, ratingCount) 행으로 바꾸는 단계
+   * - 범위 밖 상대방 행은 버림 (그 사용자는 다른 묶음에서 모든 쌍으로 계산, 여기서 바꾸면 일부 쌍만으로 덮어씀)
+   */
+  private static List<Bson> perUserPipeline(Object userIdCondition) {
+    // 방향이 기록되지 않은 나머지 = 전체 - 방향별 합
+    Document unattributedSum = expr("$subtract", totalSum(),
+        expr("$add", expr("$ifNull", "$user1RatingSum", 0), expr("$ifNull", "$user2RatingSum", 0)));
+    Document unattributedCount = expr("$subtract", totalCount(),
+        expr("$add", expr("$ifNull", "$user1RatingCount", 0), expr("$ifNull", "$user2RatingCount", 0)));
+
+    return Arrays.asList(
+        new Document("$set", new Document()
+            .append("restSum", unattributedSum)
+            .append("restCount", unattributedCount)),
+        new Document("$project", new Document("_id", 0)
+            .append("serviceType", 1)
+            .append("sides", Arrays.asList(
+                side("$user1Id", "user1"),
+                side("$user2Id", "user2")))),
+        Aggregates.unwind("$sides"),
+        Aggregates.match(userIdCondition != null
+            ? Filters.and(Filters.gt("sides.ratingCount", 0), new Document("sides.userId", userIdCondition))
+            : Filters.gt("sides.ratingCount", 0)),
+        Aggregates.group(
+            new Document("userId", "$sides.userId").append("serviceType", "$serviceType"),
+            Accumulators.sum("ratingSum", "$sides.ratingSum"),
+            Accumulators.sum("ratingCount", "$sides.ratingCount")),
+        new Document("$project", new Document("_id", 0)
+            .append("userId", "$_id.userId")
+            .append("serviceType", "$_id.serviceType")
+            .append("ratingSum", 1)
+            .append("ratingCount", 1)
+            .append("updatedAt", "$$NOW")));
+  }
+
+  private static Document side(String userIdField, String prefix) {
+    return new Document("userId", userIdField)
+        .append("ratingSum", expr("$add", expr("$ifNull", "$" + prefix + "RatingSum", 0), "$restSum"))
+        .append("ratingCount", expr("$add", expr("$ifNull", "$" + prefix + "RatingCount", 0), "$restCount"));
+  }
+
+  // 쌍 전체 합계/개수 (합계/개수 없이 averageRating만 있는 기존 문서는 평점 1개로 간주)
+  private static Document totalSum() {
+    return expr("$ifNull", "$ratingSum", expr("$ifNull", "$averageRating", 0));
+  }
+
+  private static Document totalCount() {
+    return expr("$ifNull", "$ratingCount",
+        expr("$cond", expr("$eq", expr("$type", "$averageRating"), "missing"), 0, 1));
+  }
+
+  private static Document expr(String operator, Object... args) {
+    return new Document(operator, args.length == 1 ? args[0] : Arrays.asList(args));
+  }
+
+  // 처음 만드는 문서를 동시에 upsert하면 한쪽이 유니크 인덱스에 걸리므로, 이미 생긴 문서에 다시 적용
+  private static <T> T retryOnDuplicate(Supplier<T> write) {
+    try {
+      return write.get();
+    } catch (MongoWriteException e) {
+      if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) throw e;
+      return write.get();
+    } catch (MongoCommandException e) {
+      if (e.getErrorCode() != 11000) throw e;
+      return write.get();
+    }
+  }
+
+}
@@ -0,0 +1,381 @@
+package com.swingauth.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.WriteModel;
+import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.Histogram;
+import com.swingauth.metrics.MetricRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 평점 제출 비동기 저장 큐 (영상통화/랜덤채팅 서버)
+ * - submit은 RatingSnapshot에 바로 반영하고 큐에 넣기만 하므로 WebSocket/이벤트 루프 스레드가 DB를 기다리지 않음
+ * - 저장 스레드 1개가 쌓인 평점을 묶어 bulkWrite (쌍 문서, 사용자별 집계, 사용자 통계 순서)
+ * - 같은 묶음 안에서 같은 사람이 같은 상대에게 다시 낸 평점은 마지막 것만 저장 (중복 클릭/재전송)
+ * - 큐가 가득 차면(DB가 느림) submit이 false를 반환 -> 호출 쪽이 클라이언트에 다시 시도하라고 알림
+ * - 쓰기는 $add/$inc라 같은 갱신을 두 번 보내면 두 번 더해지므로, 보내기 전에 실패한 경우(연결/서버 선택 시간 초과)와
+ *   upsert 중복 키만 다시 시도 (-Drating.ingest.retries, 기본 3), 응답을 받지 못한 오류는 드라이버의 retryWrites에 맡기고 다시 보내지 않음
+ * - bulkWrite 오류는 모델별 결과로 실제로 적용되지 않은 평점만 버린 것으로 셈, 쌍 문서가 저장된 뒤의 집계/통계 실패는
+ *   평점을 버리지 않고 따로 셈 (RatingMaintenanceMain rebuild/recalc로 복구)
+ * - 종료 시 남은 평점을 저장한 뒤 끝냄
+ * - 설정: -Drating.ingest.capacity (기본 10000), -Drating.ingest.batch (한 번에 저장할 최대 개수, 기본 500)
+ */
+public final class RatingIngestQueue {
+  private static final Logger log = Logger.get(RatingIngestQueue.class);
+  private static final int CAPACITY = Integer.getInteger("rating.ingest.capacity", 10_000);
+  private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("rating.ingest.batch", 500));
+  private static final int RETRIES = Math.max(0, Integer.getInteger("rating.ingest.retries", 3));
+  private static final long SHUTDOWN_DRAIN_MILLIS = 5_000;
+
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Counter accepted = metrics.counter("rating_ingest_total", "평점 제출 처리 결과", "result", "accepted");
+  private static final Counter rejected = metrics.counter("rating_ingest_total", "평점 제출 처리 결과", "result", "rejected");
+  private static final Counter deduplicated = metrics.counter("rating_ingest_total", "평점 제출 처리 결과", "result", "deduplicated");
+  private static final Counter written = metrics.counter("rating_ingest_total", "평점 제출 처리 결과", "result", "written");
+  private static final Counter dropped = metrics.counter("rating_ingest_total", "평점 제출 처리 결과", "result", "dropped");
+  private static final Counter unknown = metrics.counter("rating_ingest_total", "평점 제출 처리 결과", "result", "unknown");
+  private static final Counter aggregateFailures = metrics.counter("rating_ingest_stage_failures_total",
+      "평점은 저장됐지만 반영하지 못한 갱신 수", "stage", "aggregates");
+  private static final Counter statFailures = metrics.counter("rating_ingest_stage_failures_total",
+      "평점은 저장됐지만 반영하지 못한 갱신 수", "stage", "userStats");
+  private static final Histogram batchSizes = metrics.histogram("rating_ingest_batch_size", "한 번에 저장한 평점 수");
+  private static final Histogram writeMillis = metrics.histogram("rating_ingest_write_millis", "평점 묶음 저장 시간(ms)");
+  private static final RatingIngestQueue instance = new RatingIngestQueue(); // 지표 필드 초기화 이후에 생성
+
+  /**
+   * 제출된 평점 1건 (ObjectId를 모르면 null -> 저장 스레드가 username으로 한 번에 조회)
+   */
+  public static final class Submission {
+    final String serviceType;
+    final String raterUsername;
+    final String ratedUsername;
+    final int rating;
+    ObjectId raterId;
+    ObjectId ratedId;
+    boolean settled; // 스냅샷에서 이미 뺐는지 (저장 스레드 전용)
+
+    public Submission(String serviceType, String raterUsername, ObjectId raterId,
+                      String ratedUsername, ObjectId ratedId, int rating) {
+      this.serviceType = serviceType;
+      this.raterUsername = raterUsername;
+      this.raterId = raterId;
+      this.ratedUsername = ratedUsername;
+      this.ratedId = ratedId;
+      this.rating = rating;
+    }
+
+    String dedupKey() {
+      return serviceType + '\n' + raterUsername + '\n' + ratedUsername;
+    }
+  }
+
+  private final BlockingQueue<Submission> queue = new ArrayBlockingQueue<>(CAPACITY);
+  private final RatingSnapshot snapshot = RatingSnapshot.getInstance();
+  private final Thread writer;
+  private volatile boolean stopping = false;
+
+  private RatingIngestQueue() {
+    metrics.gauge("rating_ingest_queue_depth", "저장 대기 중인 평점 수", queue::size);
+    writer = new Thread(this::runWriter, "rating-ingest");
+    writer.setDaemon(true);
+    writer.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "rating-ingest-shutdown"));
+  }
+
+  public static RatingIngestQueue getInstance() {
+    return instance;
+  }
+
+  /**
+   * 평점 제출 (기다리지 않음)
+   * @return 큐가 가득 차 받지 못했으면 false
+   */
+  public boolean submit(Submission submission) {
+    if (stopping) {
+      rejected.increment();
+      return false;
+    }
+    // 저장 스레드가 settle하기 전에 apply가 먼저 되도록 큐에 넣기 전에 반영
+    snapshot.apply(submission.serviceType, submission.raterUsername, submission.ratedUsername, submission.rating);
+    if (!queue.offer(submission)) {
+      settle(submission);
+      rejected.increment();
+      return false;
+    }
+    accepted.increment();
+    return true;
+  }
+
+  public int size() {
+    return queue.size();
+  }
+
+  private void runWriter() {
+    List<Submission> batch = new ArrayList<>(BATCH_SIZE);
+    while (!stopping || !queue.isEmpty()) {
+      try {
+        Submission first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        queue.drainTo(batch, BATCH_SIZE - 1);
+        writeBatch(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        // 쌍 문서를 쓰기 전에 실패한 경우만 여기로 옴 (사용자 조회 실패 등)
+        int unsaved = 0;
+        for (Submission submission : batch) {
+          if (!submission.settled) unsaved++;
+          settle(submission);
+        }
+        log.error("평점 묶음 저장 실패 ({}건 버림): {}", unsaved, e.getMessage());
+        dropped.add(unsaved);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void writeBatch(List<Submission> batch) throws InterruptedException {
+    long startNanos = System.nanoTime();
+
+    // 같은 사람 -> 같은 상대 평점은 마지막 것만
+    Map<String, Submission> latest = new LinkedHashMap<>();
+    for (Submission submission : batch) {
+      Submission replaced = latest.put(submission.dedupKey(), submission);
+      if (replaced != null) {
+        settle(replaced);
+        deduplicated.increment();
+      }
+    }
+    List<Submission> submissions = resolveIds(latest.values());
+    if (submissions.isEmpty()) return;
+
+    try {
+      List<Submission> saved = writePairs(submissions);
+      if (saved.isEmpty()) return;
+      written.add(saved.size());
+      batchSizes.record(saved.size());
+
+      // 여기부터는 평점이 이미 저장됐으므로 실패해도 버린 것으로 세지 않음
+      Map<ObjectId, Map<String, long[]>> perUser = new LinkedHashMap<>(); // userId -> serviceType -> {합계, 개수}
+      for (Submission s : saved) {
+        long[] totals = perUser.computeIfAbsent(s.ratedId, k -> new HashMap<>())
+            .computeIfAbsent(s.serviceType, k -> new long[2]);
+        totals[0] += s.rating;
+        totals[1]++;
+      }
+      writeUserAggregates(perUser);
+      writeUserStats(perUser);
+    } finally {
+      for (Submission s : latest.values()) settle(s);
+    }
+    writeMillis.record((System.nanoTime() - startNanos) / 1_000_000);
+  }
+
+  /**
+   * 1) 유저 쌍 문서
+   * @return 실제로 저장된 평점 (응답을 받지 못해 저장 여부를 모르면 빈 목록)
+   */
+  private List<Submission> writePairs(List<Submission> submissions) throws InterruptedException {
+    List<WriteModel<Document>> pairUpdates = new ArrayList<>(submissions.size());
+    for (Submission s : submissions) {
+      pairUpdates.add(RatingAggregates.pairRatingModel(s.raterId, s.ratedId, s.serviceType, s.rating));
+    }
+    Set<Integer> failed;
+    try {
+      failed = bulkWrite(Mongo.ratings(), pairUpdates);
+    } catch (RuntimeException e) {
+      // 일부가 이미 적용됐을 수 있어 다시 보내지 않음 (다시 보내면 두 번 더해짐)
+      log.error("평점 묶음 저장 결과를 알 수 없음 ({}건): {}", submissions.size(), e.getMessage());
+      unknown.add(submissions.size());
+      return List.of();
+    }
+    if (!failed.isEmpty()) {
+      log.error("평점 저장 실패 ({}건 버림)", failed.size());
+      dropped.add(failed.size());
+    }
+    List<Submission> saved = new ArrayList<>(submissions.size() - failed.size());
+    for (int i = 0; i < submissions.size(); i++) {
+      if (!failed.contains(i)) saved.add(submissions.get(i));
+    }
+    return saved;
+  }
+
+  /**
+   * 2) 사용자별 받은 평점 집계 (같은 사용자는 합쳐서 1번)
+   */
+  private void writeUserAggregates(Map<ObjectId, Map<String, long[]>> perUser) throws InterruptedException {
+    List<WriteModel<Document>> userUpdates = new ArrayList<>();
+    perUser.forEach((userId, byService) -> byService.forEach((serviceType, totals) ->
+        userUpdates.add(RatingAggregates.userRatingModel(userId, serviceType, totals[0], totals[1]))));
+    int failed;
+    try {
+      failed = bulkWrite(Mongo.ratingAggregates(), userUpdates).size();
+    } catch (RuntimeException e) {
+      log.error("사용자별 평점 집계 결과를 알 수 없음 ({}건): {}", userUpdates.size(), e.getMessage());
+      failed = userUpdates.size();
+    }
+    if (failed > 0) {
+      log.error("사용자별 평점 집계 반영 실패 {}건 (RatingMaintenanceMain rebuild로 복구)", failed);
+      aggregateFailures.add(failed);
+    }
+  }
+
+  /**
+   * 3) 사용자 통계 + 자동 블랙리스트 판정 (사용자별로 따로 반영, 한 명이 실패해도 나머지는 계속)
+   */
+  private void writeUserStats(Map<ObjectId, Map<String, long[]>> perUser) throws InterruptedException {
+    for (Map.Entry<ObjectId, Map<String, long[]>> user : perUser.entrySet()) {
+      Document inc = new Document();
+      user.getValue().forEach((serviceType, totals) -> {
+        if ("randomVideo".equals(serviceType)) {
+          inc.append("videoTotalRating", totals[0]);
+        } else if ("randomChat".equals(serviceType)) {
+          inc.append("chatTotalRating", totals[0]);
+          inc.append("randomChatCount", totals[1]); // 평점 제출 시에만 횟수 증가
+        }
+      });
+      if (inc.isEmpty()) continue;
+      try {
+        // 갱신 직후 통계로 자동 블랙리스트 판정 (정지되면 리스너가 접속 종료)
+        withRetry(() -> AutoBanEngine.getInstance().increment(Filters.eq("_id", user.getKey()), new Document("$inc", inc)));
+      } catch (RuntimeException e) {
+        log.error("사용자 평점 통계 반영 실패 (userId={}, RatingMaintenanceMain recalc로 복구): {}", user.getKey(), e.getMessage());
+        statFailures.increment();
+      }
+    }
+  }
+
+  /**
+   * ObjectId가 없는 평점의 사용자를 한 번에 조회 (찾지 못한 평점은 버림)
+   */
+  private List<Submission> resolveIds(Iterable<Submission> submissions) {
+    Set<String> missing = new HashSet<>();
+    for (Submission s : submissions) {
+      if (s.raterId == null) missing.add(s.raterUsername);
+      if (s.ratedId == null) missing.add(s.ratedUsername);
+    }
+    Map<String, ObjectId> ids = new HashMap<>();
+    if (!missing.isEmpty()) {
+      for (Document doc : Mongo.users().find(Filters.in("username", missing))
+          .projection(Projections.include("_id", "username"))) {
+        ids.put(doc.getString("username"), doc.getObjectId("_id"));
+      }
+    }
+    List<Submission> resolved = new ArrayList<>();
+    for (Submission s : submissions) {
+      if (s.raterId == null) s.raterId = ids.get(s.raterUsername);
+      if (s.ratedId == null) s.ratedId = ids.get(s.ratedUsername);
+      if (s.raterId == null || s.ratedId == null || s.raterId.equals(s.ratedId)) {
+        log.warn("평점 저장 건너뜀 (사용자 없음): {} -> {}", s.raterUsername, s.ratedUsername);
+        settle(s);
+        dropped.increment();
+        continue;
+      }
+      resolved.add(s);
+    }
+    return resolved;
+  }
+
+  /**
+   * ordered=false bulkWrite
+   * - 오류가 난 모델만 적용되지 않으므로 결과로 실패한 모델을 골라냄, 처음 만드는 문서를 동시에 upsert한 경우(중복 키)만 그 모델을 다시 적용
+   * - 서버에 보내기 전에 실패하면 아무것도 적용되지 않았으므로 그대로 다시 시도
+   * - 그 밖의 오류(응답을 받지 못함 등)는 일부가 적용됐을 수 있으므로 다시 보내지 않고 던짐
+   * @return 적용되지 않은 모델의 위치 (models 기준)
+   */
+  private Set<Integer> bulkWrite(MongoCollection<Document> collection, List<WriteModel<Document>> models) throws InterruptedException {
+    Set<Integer> failed = new HashSet<>();
+    List<Integer> pending = new ArrayList<>(models.size());
+    for (int i = 0; i < models.size(); i++) pending.add(i);
+    for (int attempt = 0; !pending.isEmpty(); attempt++) {
+      List<WriteModel<Document>> batch = new ArrayList<>(pending.size());
+      for (int index : pending) batch.add(models.get(index));
+      try {
+        collection.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+        break;
+      } catch (MongoBulkWriteException e) {
+        List<Integer> duplicates = new ArrayList<>();
+        for (BulkWriteError error : e.getWriteErrors()) {
+          int index = pending.get(error.getIndex());
+          if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY && attempt < RETRIES) {
+            duplicates.add(index);
+          } else {
+            failed.add(index);
+          }
+        }
+        if (e.getWriteConcernError() != null) {
+          // 적용은 됐지만 복제 확인을 받지 못함 (다시 보내지 않음)
+          log.warn("{} 쓰기 확인 실패: {}", collection.getNamespace().getCollectionName(), e.getWriteConcernError().getMessage());
+        }
+        pending = duplicates;
+      } catch (MongoTimeoutException | MongoSocketOpenException e) {
+        if (attempt >= RETRIES) {
+          failed.addAll(pending);
+          break;
+        }
+        backoff(attempt);
+      }
+    }
+    return failed;
+  }
+
+  // 서버에 보내기 전에 실패한 경우만 다시 시도 (findOneAndUpdate의 $inc는 다시 보내면 두 번 더해짐)
+  private void withRetry(Runnable write) throws InterruptedException {
+    for (int attempt = 0; ; attempt++) {
+      try {
+        write.run();
+        return;
+      } catch (MongoTimeoutException | MongoSocketOpenException e) {
+        if (attempt >= RETRIES) throw e;
+        backoff(attempt);
+      }
+    }
+  }
+
+  private static void backoff(int attempt) throws InterruptedException {
+    Thread.sleep(200L << Math.min(attempt, 4));
+  }
+
+  private void settle(Submission s) {
+    if (s.settled) return;
+    s.settled = true;
+    snapshot.settle(s.serviceType, s.raterUsername, s.ratedUsername, s.rating, 1);
+  }
+
+  // JVM 종료 시 남은 평점을 저장하고 끝냄 (최대 5초)
+  private void shutdown() {
+    stopping = true; // 저장 스레드는 1초 안에 깨어나 남은 평점을 마저 저장
+    try {
+      writer.join(SHUTDOWN_DRAIN_MILLIS);
+    } catch (InterruptedException ignored) {
+    }
+    if (!queue.isEmpty()) {
+      log.warn("종료 전에 저장하지 못한 평점: {}건", queue.size());
+    }
+  }
+}
@@ -3,13 +3,23 @@ package com.swingauth.service;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
 import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.Histogram;
+import com.swingauth.metrics.MetricRegistry;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
-import java.util.Date;
-
 public class RatingService {
-    private final MongoCollection<Document> ratings = Mongo.ratings();
+    private static final Logger log = Logger.get(RatingService.class);
+    private static final MetricRegistry metrics = MetricRegistry.getInstance();
+    private static final Counter ratingsCreated = metrics.counter("chat_ratings_total", "랜덤채팅 평점 저장 수");
+    private static final Counter blacklistChecks = metrics.counter("chat_blacklist_checks_total", "랜덤채팅 블랙리스트 조회 수");
+    private static final Counter blacklistHits = metrics.counter("chat_blacklist_hits_total", "블랙리스트로 판정된 쌍 수");
+    private static final Histogram blacklistCheckMillis = metrics.histogram(
+        "chat_blacklist_check_millis", "랜덤채팅 블랙리스트 조회 시간(ms)");
+    private static final String CHAT_SERVICE_TYPE = "randomChat";
+
     private final MongoCollection<Document> users = Mongo.users();
 
     /**
@@ -26,29 +36,6 @@ public class RatingService {
         return null;
     }
 
-    /**
-     * ObjectId를 사전순으로 정렬하여 항상 같은 순서로 저장
-     */
-    private ObjectId[] sortObjectIds(ObjectId id1, ObjectId id2) {
-        if (id1 == null && id2 == null) {
-            return new ObjectId[]{null, null};
-        }
-        if (id1 == null) {
-            return new ObjectId[]{id2, null};
-        }
-        if (id2 == null) {
-            return new ObjectId[]{id1, null};
-        }
-        // ObjectId를 문자열로 변환하여 비교
-        String str1 = id1.toHexString();
-        String str2 = id2.toHexString();
-        if (str1.compareTo(str2) <= 0) {
-            return new ObjectId[]{id1, id2};
-        } else {
-            return new ObjectId[]{id2, id1};
-        }
-    }
-
     /**
      * 랜덤 채팅 평점 저장
      * @param raterUsername 평점을 준 사용자
@@ -66,7 +53,7 @@ public class RatingService {
         // rating이 0이면 건너뛰기를 의미 (DB에 저장하지 않음)
         // rating이 1-5 사이면 정상 평점
         if (rating == 0) {
-            System.out.println("평점 건너뛰기 요청 - 저장하지 않습니다.");
+            log.debug("평점 건너뛰기 요청 - 저장하지 않습니다.");
             return false;
         }
 
@@ -74,55 +61,28 @@ public class RatingService {
             throw new IllegalArgumentException("평점은 0(건너뛰기) 또는 1-5 사이의 값이어야 합니다.");
         }
 
-        System.out.println("평점 저장 시도: raterUsername=" + raterUsername + ", ratedUsername=" + ratedUsername + ", rating=" + rating);
+        log.debug("평점 저장 시도: raterUsername={}, ratedUsername={}, rating={}", raterUsername, ratedUsername, rating);
 
         // username으로 ObjectId 찾기
         ObjectId raterId = getUserIdByUsername(raterUsername);
         ObjectId ratedId = getUserIdByUsername(ratedUsername);
 
         if (raterId == null) {
-            System.err.println("평점을 주는 사용자를 찾을 수 없습니다: " + raterUsername);
+            log.warn("평점을 주는 사용자를 찾을 수 없습니다: {}", raterUsername);
             throw new IllegalArgumentException("평점을 주는 사용자를 찾을 수 없습니다: " + raterUsername);
         }
         if (ratedId == null) {
-            System.err.println("평점을 받는 사용자를 찾을 수 없습니다: " + ratedUsername + " (이 값이 실제 username인지 확인하세요)");
+            log.warn("평점을 받는 사용자를 찾을 수 없습니다: {} (이 값이 실제 username인지 확인하세요)", ratedUsername);
             throw new IllegalArgumentException("평점을 받는 사용자를 찾을 수 없습니다: " + ratedUsername);
         }
         
-        System.out.println("ObjectId 찾기 성공: raterId=" + raterId + ", ratedId=" + ratedId);
+        log.debug("ObjectId 찾기 성공: raterId={}, ratedId={}", raterId, ratedId);
 
-        // ObjectId를 사전순으로 정렬하여 항상 같은 순서로 저장
-        ObjectId[] sorted = sortObjectIds(raterId, ratedId);
-        ObjectId user1Id = sorted[0];
-        ObjectId user2Id = sorted[1];
-
-        // 정렬된 user1Id, user2Id로 문서 찾기
-        Document filter = new Document("user1Id", user1Id)
-            .append("user2Id", user2Id)
-            .append("serviceType", "randomChat");
-        
-        // 기존 문서 확인
-        Document existingDoc = ratings.find(filter).first();
-        
-        double ratingValue = (double) rating;
-
-        if (existingDoc == null) {
-            Document newDoc = new Document()
-                .append("user1Id", user1Id)
-                .append("user2Id", user2Id)
-                .append("serviceType", "randomChat")
-                .append("createdAt", new Date())
-                .append("updatedAt", new Date())
-                .append("averageRating", ratingValue);
-            ratings.insertOne(newDoc);
-        } else {
-            Document update = new Document("$set", new Document()
-                .append("updatedAt", new Date())
-                .append("averageRating", ratingValue));
-            ratings.updateOne(filter, update);
-        }
+        // 유저 쌍/사용자별 합계와 개수를 원자적으로 증가 (평균은 합계/개수)
+        RatingAggregates.record(raterId, ratedId, "randomChat", rating);
         
         updateUserRatingStats(ratedId, rating, "randomChat");
+        ratingsCreated.increment();
         
         return true;
     }
@@ -146,11 +106,12 @@ public class RatingService {
             }
             
             Document update = new Document("$inc", incDoc);
-            users.updateOne(Filters.eq("_id", userId), update);
+            // 갱신 직후 통계로 자동 블랙리스트 판정
+            AutoBanEngine.getInstance().increment(Filters.eq("_id", userId), update);
             
-            System.out.println("[랜덤채팅] 사용자 평점 통계 업데이트: userId=" + userId + ", 받은 평점=" + rating);
+            log.debug("사용자 평점 통계 업데이트: userId={}, 받은 평점={}", userId, rating);
         } catch (Exception e) {
-            System.err.println("[오류] 사용자 평점 통계 업데이트 실패: " + e.getMessage());
+            log.error("사용자 평점 통계 업데이트 실패: {}", e.getMessage());
         }
     }
     
@@ -162,45 +123,43 @@ public class RatingService {
      * @return true면 블랙리스트 (매칭 불가), false면 매칭 가능
      */
     public boolean isBlacklisted(String username1, String username2) {
+        return isBlacklisted(username1, null, username2, null);
+    }
+
+    /**
+     * 블랙리스트 체크 (세션 토큰으로 ObjectId를 알면 사용자 조회 생략)
+     * - 쌍 평점 스냅샷에 있으면 DB 조회 없음, 방금 제출되어 아직 저장 중인 평점도 반영
+     * @param user1Id 사용자1 ObjectId (모르면 null)
+     * @param user2Id 사용자2 ObjectId (모르면 null)
+     */
+    public boolean isBlacklisted(String username1, ObjectId user1Id, String username2, ObjectId user2Id) {
         if (username1 == null || username1.isBlank() || username2 == null || username2.isBlank()) {
             return false;
         }
-        
-        ObjectId user1Id = getUserIdByUsername(username1);
-        ObjectId user2Id = getUserIdByUsername(username2);
-        
-        if (user1Id == null || user2Id == null) {
+        blacklistChecks.increment();
+        long startNanos = System.nanoTime();
+        try {
+            double averageRating = RatingSnapshot.getInstance().pairAverage(CHAT_SERVICE_TYPE, username1, username2,
+                () -> loadPairTotals(username1, user1Id, username2, user2Id));
+            // 평균 평점이 2점 이하이면 블랙리스트
+            if (averageRating >= 0 && averageRating <= 2.0) {
+                log.info("블랙리스트 체크: {} <-> {}, 평균 평점={} (매칭 불가)", username1, username2, averageRating);
+                blacklistHits.increment();
+                return true;
+            }
             return false;
+        } finally {
+            blacklistCheckMillis.record((System.nanoTime() - startNanos) / 1_000_000);
         }
-        
-        // ObjectId 정렬
-        ObjectId[] sorted = sortObjectIds(user1Id, user2Id);
-        ObjectId sortedUser1Id = sorted[0];
-        ObjectId sortedUser2Id = sorted[1];
-        
-        // 두 사용자 간 평점 문서 찾기
-        Document ratingDoc = ratings.find(
-            Filters.and(
-                Filters.eq("user1Id", sortedUser1Id),
-                Filters.eq("user2Id", sortedUser2Id),
-                Filters.eq("serviceType", "randomChat")
-            )
-        ).first();
-        
-        if (ratingDoc != null) {
-            Object avgRatingObj = ratingDoc.get("averageRating");
-            if (avgRatingObj instanceof Number) {
-                double averageRating = ((Number) avgRatingObj).doubleValue();
-                // 평균 평점이 2점 이하이면 블랙리스트
-                if (averageRating <= 2.0) {
-                    System.out.println("블랙리스트 체크: " + username1 + " <-> " + username2 + 
-                                     ", 평균 평점=" + averageRating + " (매칭 불가)");
-                    return true;
-                }
-            }
+    }
+
+    private double[] loadPairTotals(String username1, ObjectId user1Id, String username2, ObjectId user2Id) {
+        ObjectId id1 = user1Id != null ? user1Id : getUserIdByUsername(username1);
+        ObjectId id2 = user2Id != null ? user2Id : getUserIdByUsername(username2);
+        if (id1 == null || id2 == null) {
+            return new double[]{0, 0};
         }
-        
-        return false;
+        return RatingAggregates.pairTotals(id1, id2, CHAT_SERVICE_TYPE);
     }
 }
 
@@ -0,0 +1,126 @@
+package com.swingauth.service;
+
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.MetricRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 매칭용 유저 쌍 평점 스냅샷 (블랙리스트 판정)
+ * - DB에서 읽은 쌍 합계/개수(base)를 잠시 보관하고, 아직 DB에 쓰지 않은 평점(pending)을 더해 평균을 계산
+ * - 평점 제출 즉시 apply로 pending에 더하므로, RatingIngestQueue가 DB에 쓰기 전에도 블랙리스트가 바로 적용됨
+ * - 쓰기가 끝나면 settle로 pending에서 빼고 base를 다시 읽게 함 (-Drating.snapshot.ttlSeconds, 기본 60초마다 다시 읽음)
+ * - 키는 서비스 타입 + 두 username (매칭 쪽에서 ObjectId가 없어도 바로 확인)
+ */
+public final class RatingSnapshot {
+  private static final long TTL_MILLIS = Long.getLong("rating.snapshot.ttlSeconds", 60L) * 1000;
+  private static final int MAX_ENTRIES = Integer.getInteger("rating.snapshot.maxEntries", 100_000);
+
+  private static final MetricRegistry metrics = MetricRegistry.getInstance();
+  private static final Counter hits = metrics.counter("rating_snapshot_lookups_total", "쌍 평점 스냅샷 조회", "result", "hit");
+  private static final Counter loads = metrics.counter("rating_snapshot_lookups_total", "쌍 평점 스냅샷 조회", "result", "load");
+  private static final RatingSnapshot instance = new RatingSnapshot(); // 지표 필드 초기화 이후에 생성
+
+  private static final class Entry {
+    double baseSum;
+    double baseCount;
+    long loadedAtMillis; // 0 = base를 아직 안 읽었거나 다시 읽어야 함
+    long pendingSum;
+    long pendingCount;
+    long version;        // settle마다 증가 (쓰기 전에 읽은 base로 덮어쓰지 않도록)
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private RatingSnapshot() {
+    metrics.gauge("rating_snapshot_entries", "쌍 평점 스냅샷 항목 수", entries::size);
+  }
+
+  public static RatingSnapshot getInstance() {
+    return instance;
+  }
+
+  /**
+   * 제출된 평점을 바로 반영 (DB 쓰기 전)
+   */
+  public void apply(String serviceType, String userA, String userB, int rating) {
+    // trim과 같은 키에서 겹치지 않도록 compute 안에서 더함
+    entries.compute(key(serviceType, userA, userB), (k, entry) -> {
+      if (entry == null) entry = new Entry();
+      synchronized (entry) {
+        entry.pendingSum += rating;
+        entry.pendingCount++;
+      }
+      return entry;
+    });
+    if (entries.size() > MAX_ENTRIES) trim();
+  }
+
+  /**
+   * DB에 쓴(또는 버린) 평점을 pending에서 뺌, 다음 조회 때 base를 다시 읽음
+   */
+  public void settle(String serviceType, String userA, String userB, long ratingSum, long ratingCount) {
+    Entry entry = entries.get(key(serviceType, userA, userB));
+    if (entry == null) return;
+    synchronized (entry) {
+      entry.pendingSum -= ratingSum;
+      entry.pendingCount -= ratingCount;
+      entry.loadedAtMillis = 0;
+      entry.version++;
+    }
+  }
+
+  /**
+   * 유저 쌍 평균 (기록이 없으면 -1)
+   * @param loader DB의 {합계, 개수} (스냅샷에 없거나 오래됐을 때만 호출, 매칭 스레드에서 실행)
+   */
+  public double pairAverage(String serviceType, String userA, String userB, Supplier<double[]> loader) {
+    if (entries.size() > MAX_ENTRIES) trim();
+    Entry entry = entries.computeIfAbsent(key(serviceType, userA, userB), k -> new Entry());
+    long version;
+    synchronized (entry) {
+      if (entry.loadedAtMillis != 0 && System.currentTimeMillis() - entry.loadedAtMillis < TTL_MILLIS) {
+        hits.increment();
+        return average(entry);
+      }
+      version = entry.version;
+    }
+    loads.increment();
+    double[] totals = loader.get(); // DB 조회는 잠금 밖에서
+    synchronized (entry) {
+      if (entry.version == version) {
+        entry.baseSum = totals[0];
+        entry.baseCount = totals[1];
+        entry.loadedAtMillis = System.currentTimeMillis();
+        return average(entry);
+      }
+      // 읽는 동안 쓰기가 끝남: 방금 읽은 값에 그 평점이 있을 수도 없을 수도 있으므로 이번만 그대로 계산
+      double count = totals[1] + entry.pendingCount;
+      return count > 0 ? (totals[0] + entry.pendingSum) / count : -1;
+    }
+  }
+
+  private static double average(Entry entry) {
+    double count = entry.baseCount + entry.pendingCount;
+    return count > 0 ? (entry.baseSum + entry.pendingSum) / count : -1;
+  }
+
+  // 항목이 너무 많으면 쓰기 대기 중이 아닌 항목을 버림 (다음 조회 때 다시 읽음)
+  private void trim() {
+    for (String key : entries.keySet()) {
+      entries.computeIfPresent(key, (k, entry) -> {
+        synchronized (entry) {
+          return entry.pendingCount == 0 ? null : entry;
+        }
+      });
+    }
+  }
+
+  private static String key(String serviceType, String userA, String userB) {
+    return userA.compareTo(userB) <= 0
+        ? serviceType + '\n' + userA + '\n' + userB
+        : serviceType + '\n' + userB + '\n' + userA;
+  }
+}
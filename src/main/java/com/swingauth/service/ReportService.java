@@ -1,8 +1,14 @@
 package com.swingauth.service;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
 import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.MetricRegistry;
 import com.swingauth.model.Post;
 import com.swingauth.model.User;
 import org.bson.Document;
@@ -10,6 +16,9 @@ import org.bson.Document;
 import java.util.Date;
 
 public class ReportService {
+  private static final Logger log = Logger.get(ReportService.class);
+  private static final Counter reportsFiled =
+      MetricRegistry.getInstance().counter("board_reports_total", "접수된 게시글 신고 수");
 
   private final MongoCollection<Document> reports = Mongo.reports();
 
@@ -28,9 +37,9 @@ public class ReportService {
 
   /**
    * 게시글 신고 등록
-   * - reports 컬렉션에 신고 내용 저장
-   * - 신고 당한 사용자(users.reportsReceived) +1
-   * - 같은 유저가 같은 글을 여러 번 신고하면 IllegalStateException 발생
+   * - reports 컬렉션에 신고 내용 저장 (저장이 끝난 뒤 반환하므로 접수 완료 = 저장 완료)
+   * - 신고 당한 사용자(users.reportsReceived) +1, 신고 처리 대기열(ModerationQueue) 반영
+   * - 같은 유저가 같은 글을 여러 번 신고하면 IllegalStateException 발생 (유니크 인덱스 중복 키)
    */
   public void reportPost(User reporter, Post post, String type, String reason) {
     if (post == null || post.id == null) {
@@ -55,22 +64,38 @@ public class ReportService {
         .append("type", selectedType)
         .append("reason", trimmed)
         .append("createdAt", new Date());
+    if (reportedUsername != null) {
+      doc.append(ModerationQueue.APPLIED_FIELD, true); // 아래에서 바로 반영 (실패하면 지워서 backfill이 다시 반영)
+    }
 
     try {
       reports.insertOne(doc);
-    } catch (Exception e) {
+    } catch (MongoWriteException e) {
       // 유니크 인덱스(같은 글에 같은 사람이 두번 신고) 위반
-      if (e.getMessage() != null && e.getMessage().contains("E11000")) {
+      if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
         throw new IllegalStateException("이미 이 게시글을 신고했습니다.");
       }
       throw e;
     }
+    reportsFiled.increment();
 
     if (reportedUsername != null) {
-      Mongo.users().updateOne(
+      // 받은 신고 수 증가 + 자동 블랙리스트 판정 (기준을 넘으면 바로 정지되고 접속 중인 세션도 종료)
+      AutoBanEngine.getInstance().increment(
           Filters.eq("username", reportedUsername),
-          new Document("$inc", new Document("reportsReceived", 1))
+          Updates.inc("reportsReceived", 1)
       );
+      try {
+        ModerationQueue.recordReport(reportedUsername, doc.getDate("createdAt"));
+      } catch (Exception e) {
+        // 신고는 저장됐으므로 실패로 알리지 않음 (반영 표시를 지워 두면 ModerationMain backfill로 복구)
+        log.warn("신고 처리 대기열 반영 실패: {} ({})", reportedUsername, e.getMessage());
+        try {
+          reports.updateOne(Filters.eq("_id", doc.getObjectId("_id")), Updates.unset(ModerationQueue.APPLIED_FIELD));
+        } catch (Exception ignored) {
+          // 표시도 지우지 못하면 ModerationMain rebuild로 복구
+        }
+      }
     }
   }
 }
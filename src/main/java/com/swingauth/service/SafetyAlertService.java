@@ -362,7 +362,16 @@ public class SafetyAlertService {
                     " body=" + response.body());
         }
 
-        String body = response.body();
+        return parseMoisAlerts(response.body(), regionKeywordKo);
+    }
+
+    /**
+     * 행안부 재난문자 API 응답(JSON)을 Alert 목록으로 변환.
+     * regionKeywordKo 가 비어있지 않으면 메시지/지역 문자열에 키워드가 있는 것만 남김.
+     * (네트워크/DB를 쓰지 않으므로 서비스 인스턴스 없이 호출 가능)
+     */
+    public static List<Alert> parseMoisAlerts(String body, String regionKeywordKo) {
+        List<Alert> result = new ArrayList<>();
 
         JSONArray items = extractMoisItemsArray(body);
         if (items == null) {
@@ -419,24 +428,28 @@ public class SafetyAlertService {
 
     /* ==================== 시간/JSON 파싱 유틸 ==================== */
 
+    private static final String[] MOIS_TIME_PATTERNS = {
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyyMMddHHmmss",
+            "yyyyMMddHHmm",
+            "yyyyMMdd"
+    };
+
+    // DateTimeFormatter는 불변/스레드 안전이므로 알림마다 새로 만들지 않고 재사용
+    private static final DateTimeFormatter[] MOIS_TIME_FORMATTERS =
+            Arrays.stream(MOIS_TIME_PATTERNS).map(DateTimeFormatter::ofPattern).toArray(DateTimeFormatter[]::new);
+
     /**
      * 행안부 CRT_DT 포맷은 문서에 명시가 없어서
      * 몇 가지 가능한 포맷을 순서대로 시도.
      */
-    private OffsetDateTime parseMoisTimeOrNull(String s) {
+    private static OffsetDateTime parseMoisTimeOrNull(String s) {
         if (s == null || s.isBlank()) return null;
 
-        String[] patterns = {
-                "yyyy-MM-dd HH:mm:ss",
-                "yyyyMMddHHmmss",
-                "yyyyMMddHHmm",
-                "yyyyMMdd"
-        };
-
-        for (String p : patterns) {
+        for (int i = 0; i < MOIS_TIME_PATTERNS.length; i++) {
             try {
-                DateTimeFormatter f = DateTimeFormatter.ofPattern(p);
-                if (p.length() >= 12) { // 날짜+시간
+                DateTimeFormatter f = MOIS_TIME_FORMATTERS[i];
+                if (MOIS_TIME_PATTERNS[i].length() >= 12) { // 날짜+시간
                     LocalDateTime ldt = LocalDateTime.parse(s, f);
                     return ldt.atZone(KST).toOffsetDateTime();
                 } else { // 날짜만
@@ -453,7 +466,7 @@ public class SafetyAlertService {
      * 행안부 JSON 응답에서 실제 데이터 배열을 찾아서 반환.
      * - body가 JSONArray 인 케이스까지 모두 처리
      */
-    private JSONArray extractMoisItemsArray(String body) {
+    private static JSONArray extractMoisItemsArray(String body) {
         try {
             String trimmed = body.trim();
 
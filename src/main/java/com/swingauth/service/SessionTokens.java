@@ -0,0 +1,241 @@
+package com.swingauth.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 로그인 세션 토큰 (HMAC-SHA256 서명)
+ * - 서버가 발급하고 (채팅 서버 issueSessionToken, 서버를 띄운 앱은 로그인 시 바로 발급),
+ *   다른 컴퓨터의 앱은 로그인 후 서버가 준 일회용 challenge에 비밀번호 해시로 서명해 받음 (비밀번호는 다시 보내지 않음)
+ *   시그널링 서버(영상통화/랜덤채팅)는 서명만 확인해 사용자를 식별 (DB 조회 없음)
+ * - 형식: base64url(JSON {sub: ObjectId, name: username, region, iat, exp}) + "." + base64url(서명)
+ * - 서명 키는 서버에만 둠: 환경 변수 SESSION_TOKEN_SECRET, -Dsession.tokenSecret,
+ *   또는 서버 로컬 파일 (-Dsession.tokenSecretFile, 기본 ~/.swingauth/session-token.key, 서버 시작 시 없으면 만듦)
+ *   앱은 모두 같은 DB 계정을 쓰므로 DB에는 두지 않음, 키가 없으면 발급/확인 모두 거부 (getInstance가 예외)
+ *   서버가 여러 대면 같은 키를 설정해야 함
+ * - 유효 기간: -Dsession.ttlHours (기본 24시간)
+ * - 토큰 도입 전 클라이언트(username만 보냄)는 -Dsession.allowUnsigned=true일 때만 허용
+ */
+public final class SessionTokens {
+  private static final Path SECRET_FILE = Paths.get(System.getProperty("session.tokenSecretFile",
+      System.getProperty("user.home") + "/.swingauth/session-token.key"));
+  private static final String HMAC = "HmacSHA256";
+  private static final long TTL_SECONDS = Long.getLong("session.ttlHours", 24L) * 3600;
+  private static final boolean ALLOW_UNSIGNED = Boolean.getBoolean("session.allowUnsigned");
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+  private static final String PROOF_CONTEXT = "swingauth-session\n";
+  private static final SecureRandom CHALLENGE_RANDOM = new SecureRandom();
+
+  private static volatile SessionTokens instance;
+
+  /**
+   * 서명이 확인된 토큰 내용
+   */
+  public static final class Claims {
+    public final ObjectId userId; // 서명 없이 허용한 이름이면 null
+    public final String username;
+    public final String region; // 모르면 null
+    public final long expiresAtSeconds;
+
+    private Claims(ObjectId userId, String username, String region, long expiresAtSeconds) {
+      this.userId = userId;
+      this.username = username;
+      this.region = region;
+      this.expiresAtSeconds = expiresAtSeconds;
+    }
+  }
+
+  private final SecretKeySpec key;
+
+  private SessionTokens(byte[] secret) {
+    this.key = new SecretKeySpec(secret, HMAC);
+  }
+
+  /**
+   * 처음 호출할 때 서명 키를 읽음
+   * @throws IllegalStateException 서명 키가 설정되지 않았을 때 (다음 호출에서 다시 읽음)
+   */
+  public static SessionTokens getInstance() {
+    SessionTokens tokens = instance;
+    if (tokens == null) {
+      synchronized (SessionTokens.class) {
+        tokens = instance;
+        if (tokens == null) {
+          tokens = new SessionTokens(loadSecret());
+          instance = tokens;
+        }
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * 이 프로세스에 서명 키가 있는지 (없으면 토큰을 발급/확인할 수 없음)
+   */
+  public static boolean isConfigured() {
+    try {
+      getInstance();
+      return true;
+    } catch (IllegalStateException e) {
+      return false;
+    }
+  }
+
+  /**
+   * 서버 시작 시 호출: 환경 변수/설정으로 키를 주지 않았고 로컬 키 파일도 없으면 무작위 키 파일을 만듦 (소유자만 읽기)
+   */
+  public static void ensureServerSecret() throws IOException {
+    if (configuredSecret() != null || Files.exists(SECRET_FILE)) return;
+    byte[] generated = new byte[32];
+    new SecureRandom().nextBytes(generated);
+    Path dir = SECRET_FILE.toAbsolutePath().getParent();
+    if (dir != null) Files.createDirectories(dir);
+    try {
+      Files.createFile(SECRET_FILE, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } catch (FileAlreadyExistsException e) {
+      return; // 동시에 시작한 다른 서버가 먼저 만듦
+    } catch (UnsupportedOperationException e) {
+      Files.createFile(SECRET_FILE); // POSIX 권한이 없는 파일 시스템 (Windows)
+    }
+    Files.write(SECRET_FILE, Base64.getEncoder().encodeToString(generated).getBytes(StandardCharsets.US_ASCII),
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * 사용자 문서(_id, username, region)로 토큰 발급
+   */
+  public String issue(Document userDoc) {
+    long now = System.currentTimeMillis() / 1000;
+    JSONObject payload = new JSONObject()
+        .put("sub", userDoc.getObjectId("_id").toHexString())
+        .put("name", userDoc.getString("username"))
+        .put("iat", now)
+        .put("exp", now + TTL_SECONDS);
+    String region = userDoc.getString("region");
+    if (region != null) payload.put("region", region);
+
+    String body = ENCODER.encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+    return body + "." + ENCODER.encodeToString(sign(body));
+  }
+
+  /**
+   * 서명/만료 확인
+   * @return 유효하면 내용, 위조/만료/형식 오류면 null
+   */
+  public Claims verify(String token) {
+    if (token == null) return null;
+    int dot = token.indexOf('.');
+    if (dot <= 0 || dot != token.lastIndexOf('.')) return null;
+    String body = token.substring(0, dot);
+    try {
+      byte[] signature = DECODER.decode(token.substring(dot + 1));
+      if (!MessageDigest.isEqual(signature, sign(body))) return null;
+
+      JSONObject payload = new JSONObject(new String(DECODER.decode(body), StandardCharsets.UTF_8));
+      long expiresAt = payload.getLong("exp");
+      if (expiresAt < System.currentTimeMillis() / 1000) return null;
+      return new Claims(new ObjectId(payload.getString("sub")), payload.getString("name"),
+          payload.optString("region", null), expiresAt);
+    } catch (IllegalArgumentException | JSONException e) {
+      return null; // base64/ObjectId/JSON 형식 오류
+    }
+  }
+
+  /**
+   * 시그널링 서버 등록 값 확인: 토큰이면 검증, 아니면 설정에 따라 username으로만 허용(userId 없음)
+   * @return 허용하지 않으면 null
+   */
+  public Claims authenticate(String credential) {
+    if (credential == null || credential.isBlank()) return null;
+    Claims claims = verify(credential);
+    if (claims != null || !ALLOW_UNSIGNED || "unknown".equals(credential)) return claims;
+    return new Claims(null, credential, null, Long.MAX_VALUE);
+  }
+
+  /**
+   * 토큰 발급용 일회용 challenge (서버가 만들어 issueSessionToken 응답으로 보냄)
+   */
+  public static String newChallenge() {
+    byte[] nonce = new byte[32];
+    CHALLENGE_RANDOM.nextBytes(nonce);
+    return ENCODER.encodeToString(nonce);
+  }
+
+  /**
+   * challenge 서명 (서명 키 없이 앱/서버 공용): 로그인을 마친 앱이 DB에서 읽은 비밀번호 해시를 키로 사용
+   */
+  public static String challengeProof(String passwordHash, String username, String challenge) {
+    String message = PROOF_CONTEXT + username + "\n" + challenge;
+    return ENCODER.encodeToString(hmac(new SecretKeySpec(passwordHash.getBytes(StandardCharsets.UTF_8), HMAC),
+        message.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * 앱이 보낸 challenge 서명 확인 (상수 시간 비교)
+   */
+  public static boolean verifyChallengeProof(String passwordHash, String username, String challenge, String proof) {
+    if (passwordHash == null || proof == null) return false;
+    try {
+      return MessageDigest.isEqual(DECODER.decode(proof),
+          DECODER.decode(challengeProof(passwordHash, username, challenge)));
+    } catch (IllegalArgumentException e) {
+      return false; // base64 형식 오류
+    }
+  }
+
+  private byte[] sign(String body) {
+    return hmac(key, body.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static byte[] hmac(SecretKeySpec key, byte[] data) {
+    try {
+      Mac mac = Mac.getInstance(HMAC); // Mac은 스레드 안전하지 않으므로 호출마다 생성 (로그인/접속 시 1회)
+      mac.init(key);
+      return mac.doFinal(data);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] loadSecret() {
+    String configured = configuredSecret();
+    if (configured != null) {
+      return configured.getBytes(StandardCharsets.UTF_8);
+    }
+    if (Files.isReadable(SECRET_FILE)) {
+      try {
+        String stored = new String(Files.readAllBytes(SECRET_FILE), StandardCharsets.US_ASCII).trim();
+        if (!stored.isEmpty()) return Base64.getDecoder().decode(stored);
+      } catch (IOException | IllegalArgumentException e) {
+        throw new IllegalStateException("세션 토큰 서명 키 파일을 읽을 수 없습니다: " + SECRET_FILE, e);
+      }
+    }
+    throw new IllegalStateException("세션 토큰 서명 키가 없습니다 (SESSION_TOKEN_SECRET, -Dsession.tokenSecret 또는 " + SECRET_FILE + ")");
+  }
+
+  private static String configuredSecret() {
+    String configured = System.getenv("SESSION_TOKEN_SECRET");
+    if (configured == null || configured.isBlank()) {
+      configured = System.getProperty("session.tokenSecret");
+    }
+    return configured == null || configured.isBlank() ? null : configured;
+  }
+}
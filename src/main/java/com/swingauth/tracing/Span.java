@@ -0,0 +1,106 @@
+package com.swingauth.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 추적 구간 하나 (시작~종료 시간 + 속성)
+ * - 같은 요청 흐름의 구간은 traceId를 공유하고, parentId로 부모 구간을 가리킴
+ * - 스레드 로컬 문맥 없이 Span 객체를 직접 넘겨 전파 (매칭 스레드/DB 조회/전송 어디서든 child 생성 가능)
+ * - 종료(end)된 구간만 Tracer 링 버퍼에 기록되며, end는 여러 번 불러도 한 번만 기록
+ * - 추적이 꺼져 있으면 NOOP: child/tag/end 모두 아무것도 하지 않음 (null 검사 불필요)
+ */
+public final class Span {
+    public static final Span NOOP = new Span(null, "", "", null, "", 0L);
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    private final String parentId;
+    private final String name;
+    private final long startNanos;
+    private long endNanos; // 0이면 진행 중 (this로 보호)
+    private Map<String, Object> attributes; // this로 보호
+
+    Span(Tracer tracer, String traceId, String spanId, String parentId, String name, long startNanos) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * 지금 시작하는 하위 구간
+     */
+    public Span child(String name) {
+        return child(name, System.nanoTime());
+    }
+
+    /**
+     * 이미 시작된 작업의 하위 구간 (startNanos = System.nanoTime() 기준 시작 시각)
+     */
+    public Span child(String name, long startNanos) {
+        if (tracer == null) return this;
+        return new Span(tracer, traceId, Tracer.newId(), spanId, name, startNanos);
+    }
+
+    public Span tag(String key, Object value) {
+        if (tracer == null) return this;
+        synchronized (this) {
+            if (attributes == null) attributes = new LinkedHashMap<>();
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 숫자 속성 누적 (여러 번 일어나는 작업의 횟수/시간 합계용)
+     */
+    public Span add(String key, long delta) {
+        if (tracer == null) return this;
+        synchronized (this) {
+            if (attributes == null) attributes = new LinkedHashMap<>();
+            attributes.merge(key, delta, (a, b) -> ((Long) a) + ((Long) b));
+        }
+        return this;
+    }
+
+    public void end() {
+        if (tracer == null) return;
+        synchronized (this) {
+            if (endNanos != 0) return;
+            endNanos = System.nanoTime();
+        }
+        tracer.record(this);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    String getParentId() {
+        return parentId;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getStartEpochMicros() {
+        return tracer.toEpochMicros(startNanos);
+    }
+
+    synchronized long getDurationMicros() {
+        return endNanos == 0 ? -1 : (endNanos - startNanos) / 1000;
+    }
+
+    synchronized Map<String, Object> getAttributes() {
+        return attributes == null ? Map.of() : new LinkedHashMap<>(attributes);
+    }
+}
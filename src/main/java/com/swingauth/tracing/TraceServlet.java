@@ -0,0 +1,92 @@
+package com.swingauth.tracing;
+
+import com.swingauth.metrics.AdminRequests;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /traces: Tracer에 보관된 구간을 추적(traceId)별로 묶어 JSON으로 출력 (최근 추적 먼저)
+ * - traceId: 해당 추적만 조회
+ * - minMillis: 이 시간 이상 걸린 구간이 있는 추적만 (예: /traces?minMillis=3000 -> 3초 넘게 걸린 매칭)
+ * - limit: 최대 추적 수 (기본 50)
+ * - 사용자 이름/매칭 상대가 담기므로 관리용 커넥터에서만 제공하고, 전달 헤더가 있는 요청은 거부 (AdminRequests)
+ */
+public class TraceServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_LIMIT = 50;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!AdminRequests.isAllowed(req)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        String traceId = req.getParameter("traceId");
+        long minMicros = parseLong(req.getParameter("minMillis"), 0) * 1000;
+        int limit = (int) parseLong(req.getParameter("limit"), DEFAULT_LIMIT);
+
+        // 오래된 순으로 훑으며 묶으므로, 나중에 끝난 구간이 있는 추적일수록 뒤에 위치
+        Map<String, List<Span>> traces = new LinkedHashMap<>();
+        for (Span span : Tracer.getInstance().recentSpans()) {
+            if (traceId != null && !traceId.equals(span.getTraceId())) continue;
+            List<Span> spans = traces.remove(span.getTraceId());
+            if (spans == null) spans = new ArrayList<>();
+            spans.add(span);
+            traces.put(span.getTraceId(), spans);
+        }
+
+        List<Map.Entry<String, List<Span>>> entries = new ArrayList<>(traces.entrySet());
+        JSONArray result = new JSONArray();
+        for (int i = entries.size() - 1; i >= 0 && result.length() < limit; i--) {
+            List<Span> spans = entries.get(i).getValue();
+            long longestMicros = 0;
+            for (Span span : spans) longestMicros = Math.max(longestMicros, span.getDurationMicros());
+            if (longestMicros < minMicros) continue;
+
+            JSONArray spanArray = new JSONArray();
+            for (Span span : spans) spanArray.put(toJson(span));
+            result.put(new JSONObject()
+                .put("traceId", entries.get(i).getKey())
+                .put("longestMillis", longestMicros / 1000.0)
+                .put("spans", spanArray));
+        }
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(new JSONObject()
+            .put("enabled", Tracer.getInstance().isEnabled())
+            .put("traces", result)
+            .toString(2));
+    }
+
+    private static JSONObject toJson(Span span) {
+        JSONObject json = new JSONObject()
+            .put("name", span.getName())
+            .put("spanId", span.getSpanId())
+            .put("startMicros", span.getStartEpochMicros())
+            .put("durationMillis", span.getDurationMicros() / 1000.0);
+        if (span.getParentId() != null) json.put("parentId", span.getParentId());
+        Map<String, Object> attributes = span.getAttributes();
+        if (!attributes.isEmpty()) json.put("attributes", new JSONObject(attributes));
+        return json;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.swingauth.tracing;
+
+import com.swingauth.metrics.MetricRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 프로세스 내 추적기 (외부 수집기 없음)
+ * - 종료된 구간을 고정 크기 링 버퍼에 덮어쓰며 보관 (가장 오래된 것부터 사라짐, 락 없음)
+ * - 보관된 구간은 /traces(TraceServlet)에서 JSON으로 조회
+ * - 설정: -Dtrace.enabled=false (끄기), -Dtrace.bufferSize (보관 구간 수, 기본 4096)
+ */
+public final class Tracer {
+    private static final Tracer instance = new Tracer(
+        !"false".equalsIgnoreCase(System.getProperty("trace.enabled")),
+        Integer.getInteger("trace.bufferSize", 4096));
+
+    private final boolean enabled;
+    private final AtomicReferenceArray<Span> ring;
+    private final AtomicLong recorded = new AtomicLong();
+    // System.nanoTime() -> 벽시계 시각 변환 기준
+    private final long baseEpochMicros = System.currentTimeMillis() * 1000;
+    private final long baseNanos = System.nanoTime();
+
+    private Tracer(boolean enabled, int capacity) {
+        this.enabled = enabled;
+        this.ring = new AtomicReferenceArray<>(Math.max(16, capacity));
+        MetricRegistry.getInstance().counter("trace_spans_recorded_total", "기록된 추적 구간 수", recorded::get);
+    }
+
+    public static Tracer getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 새 추적(traceId) 시작
+     */
+    public Span startTrace(String name) {
+        if (!enabled) return Span.NOOP;
+        return new Span(this, newId(), newId(), null, name, System.nanoTime());
+    }
+
+    void record(Span span) {
+        long index = recorded.getAndIncrement();
+        ring.set((int) (index % ring.length()), span);
+    }
+
+    /**
+     * 보관 중인 구간 (오래된 순)
+     */
+    public List<Span> recentSpans() {
+        long end = recorded.get();
+        long start = Math.max(0, end - ring.length());
+        List<Span> spans = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            Span span = ring.get((int) (i % ring.length()));
+            if (span != null) spans.add(span);
+        }
+        return spans;
+    }
+
+    long toEpochMicros(long nanos) {
+        return baseEpochMicros + (nanos - baseNanos) / 1000;
+    }
+
+    static String newId() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    }
+}
@@ -447,7 +447,14 @@ public class AuthFrame extends JFrame implements ThemeManager.ThemeChangeListene
       SwingWorker<User, Void> worker = new SwingWorker<>() {
         @Override protected User doInBackground() {
           try {
-            return auth.login(username.getText(), new String(password.getPassword()));
+            String pw = new String(password.getPassword());
+            User u = auth.login(username.getText(), pw);
+            if (u.sessionToken == null) {
+              // 이 프로세스에 서명 키가 없으면(다른 컴퓨터의 서버에 접속) 채팅 서버에서 토큰을 받음
+              status.setText("서버에서 로그인 확인 중...");
+              u.sessionToken = SessionTokenClient.request(u.username, u.passwordHash);
+            }
+            return u;
           } catch (IllegalArgumentException | IllegalStateException ex) {
             // 아이디 없음, 비밀번호 오류, 정지 계정 등
             status.setText("로그인 실패: " + ex.getMessage());
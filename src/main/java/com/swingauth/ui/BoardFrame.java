@@ -4,6 +4,7 @@ import com.swingauth.comment.Comment;
 import com.swingauth.comment.CommentService;
 import com.swingauth.model.Post;
 import com.swingauth.model.User;
+import com.swingauth.service.BoardMemberships;
 import com.swingauth.service.PostService;
 import com.swingauth.service.ReportService;
 
@@ -23,6 +24,7 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
   private final PostService postService = new PostService();
   private final CommentService commentService = new CommentService();
   private final ReportService reportService = new ReportService();
+  private final BoardMemberships memberships; // 내가 좋아요/싫어요/신고한 글 (한 번 읽고 메모리에서 확인)
 
   private JTextField searchField;
   private JPanel cardsPanel;
@@ -48,6 +50,7 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
   public BoardFrame(User user, String boardName) {
     this.user = user;
     this.boardName = boardName;
+    this.memberships = new BoardMemberships(user);
 
     setTitle(boardName);
     setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -297,6 +300,11 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
       @Override
       protected List<CardData> doInBackground() {
         List<CardData> result = new ArrayList<>();
+        try {
+          memberships.preload(); // 글을 열 때 화면 스레드에서 조회하지 않도록 (이미 읽었으면 바로 반환)
+        } catch (Exception ignored) {
+          // 실패하면 글을 열 때 다시 시도
+        }
         List<Post> posts = postService.listByBoard(user, boardName, currentKeyword, loadedCount, PAGE_SIZE);
         for (Post p : posts) {
           int cc = commentService.countByPostId(p.id);
@@ -484,8 +492,8 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
 
     boolean isOwner = p.authorUsername != null && p.authorUsername.equals(user.username);
 
-    JButton btnLike = new JButton("좋아요");
-    JButton btnDislike = new JButton("싫어요");
+    JButton btnLike = new JButton(memberships.hasLiked(p.id) ? "좋아요 취소" : "좋아요");
+    JButton btnDislike = new JButton(memberships.hasDisliked(p.id) ? "싫어요 취소" : "싫어요");
     JButton btnEdit = new JButton("수정");
     JButton btnDelete = new JButton("삭제");   // ★ 삭제 버튼 추가
     JButton btnComment = new JButton("댓글 등록");
@@ -552,8 +560,8 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
       btnDelete.setEnabled(false);
     }
 
-    // 이미 신고했는지 미리 체크해서 버튼 상태 변경
-    boolean alreadyReported = reportService.hasReported(user, p);
+    // 이미 신고했는지 미리 체크해서 버튼 상태 변경 (메모리에서 확인)
+    boolean alreadyReported = memberships.hasReported(p.id);
     if (alreadyReported) {
       btnReport.setEnabled(false);
       btnReport.setText("신고 완료");
@@ -586,7 +594,10 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
     // ===== 버튼 액션들 =====
     btnLike.addActionListener(e -> {
       try {
-        int newLikes = postService.toggleLike(user, p.id);
+        boolean like = !memberships.hasLiked(p.id);
+        int newLikes = postService.setLiked(user, p.id, like);
+        memberships.recordLike(p.id, like);
+        btnLike.setText(like ? "좋아요 취소" : "좋아요");
         data.likesCount = newLikes;
         refreshCommentsAndInfo.run();
         resetAndLoad(); // 목록 카드 숫자 갱신
@@ -599,7 +610,10 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
 
     btnDislike.addActionListener(e -> {
       try {
-        boolean nowDisliked = postService.toggleDislike(user, p.id);
+        boolean nowDisliked = !memberships.hasDisliked(p.id);
+        postService.setDisliked(user, p.id, nowDisliked);
+        memberships.recordDislike(p.id, nowDisliked);
+        btnDislike.setText(nowDisliked ? "싫어요 취소" : "싫어요");
         String msg = nowDisliked
             ? "이 게시글에 싫어요를 눌렀습니다."
             : "이 게시글의 싫어요를 취소했습니다.";
@@ -812,10 +826,17 @@ public class BoardFrame extends JFrame implements ThemeManager.ThemeChangeListen
               JOptionPane.showMessageDialog(dialog,
                   "신고가 접수되었습니다.",
                   "알림", JOptionPane.INFORMATION_MESSAGE);
+              memberships.recordReport(p.id);
               btnReport.setEnabled(false);
               btnReport.setText("신고 완료");
             } catch (Exception ex) {
               Throwable cause = ex.getCause();
+              if (cause instanceof IllegalStateException) {
+                // 다른 기기 등에서 이미 신고함 (DB 유니크 인덱스 확인 결과) -> 목록에 반영
+                memberships.recordReport(p.id);
+                btnReport.setEnabled(false);
+                btnReport.setText("신고 완료");
+              }
               String msg = (cause != null ? cause.getMessage() : ex.getMessage());
               JOptionPane.showMessageDialog(dialog,
                   "신고 처리 실패: " + msg,
@@ -221,7 +221,7 @@ public class MatchingFrame extends JFrame implements ThemeManager.ThemeChangeLis
                     System.out.println("Socket 연결됨: " + socket.id());
                     // username 등록 (연결 직후 즉시 등록)
                     if (user != null && user.username != null && !user.username.isBlank()) {
-                        socket.emit("registerUsername", user.username);
+                        socket.emit("registerUsername", user.sessionToken != null ? user.sessionToken : user.username);
                         System.out.println("Username 등록 전송: " + user.username + " (Socket ID: " + socket.id() + ")");
                     } else {
                         System.err.println("경고: username이 없어 등록할 수 없습니다. user=" + user);
@@ -335,6 +335,19 @@ public class MatchingFrame extends JFrame implements ThemeManager.ThemeChangeLis
                 });
             });
 
+            socket.on("banned", args -> {
+                String reason = args.length > 0 && args[0] != null ? args[0].toString() : "";
+                SwingUtilities.invokeLater(() -> {
+                    isMatching = false;
+                    statusLabel.setText("계정 정지됨");
+                    startButton.setEnabled(false);
+                    endButton.setEnabled(false);
+                    JOptionPane.showMessageDialog(this,
+                        "계정이 정지되어 연결이 종료되었습니다." + (reason.isEmpty() ? "" : "\n사유: " + reason),
+                        "계정 정지", JOptionPane.WARNING_MESSAGE);
+                });
+            });
+
             socket.on("matchingEnded", args -> {
                 SwingUtilities.invokeLater(() -> {
                     isMatching = false;
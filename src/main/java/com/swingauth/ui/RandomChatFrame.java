@@ -2,7 +2,7 @@ package com.swingauth.ui;
 
 import com.swingauth.config.ServerConfig;
 import com.swingauth.model.User;
-import com.swingauth.service.RatingService;
+import io.socket.client.AckWithTimeout;
 import io.socket.client.IO;
 import io.socket.client.Socket;
 import org.json.JSONObject;
@@ -33,6 +33,7 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
     private JLabel charCountLabel;
     private boolean isConnected = false;
     private static final int MAX_CHARS = 100;
+    private static final long RATING_ACK_TIMEOUT_MILLIS = 3000; // 서버 평점 제출 응답 대기
     private User currentUser;
     private String partnerId; // 상대방 ID (Socket ID)
     private String partnerUsername; // 상대방 username
@@ -205,7 +206,7 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
             setupSocketListeners();
             // username 등록 (이미 연결된 소켓이어도 등록)
             if (currentUser != null && currentUser.username != null && !currentUser.username.isBlank()) {
-                socket.emit("registerUsername", currentUser.username);
+                socket.emit("registerUsername", currentUser.sessionToken != null ? currentUser.sessionToken : currentUser.username);
                 System.out.println("RandomChatFrame: Username 등록 전송: " + currentUser.username + " (Socket ID: " + socket.id() + ")");
             }
             // 이미 매칭된 상태이므로 바로 활성화
@@ -316,7 +317,7 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
                 addMessage("시스템", "서버에 연결되었습니다.", false);
                 // username 등록
                 if (currentUser != null && currentUser.username != null && !currentUser.username.isBlank()) {
-                    socket.emit("registerUsername", currentUser.username);
+                    socket.emit("registerUsername", currentUser.sessionToken != null ? currentUser.sessionToken : currentUser.username);
                     System.out.println("RandomChatFrame: Username 등록 전송: " + currentUser.username + " (Socket ID: " + socket.id() + ")");
                 }
             });
@@ -335,6 +336,16 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
             }
         });
 
+        socket.on("banned", args -> {
+            String reason = args.length > 0 && args[0] != null ? args[0].toString() : "";
+            SwingUtilities.invokeLater(() -> {
+                isConnected = false;
+                inputField.setEnabled(false);
+                sendButton.setEnabled(false);
+                addMessage("시스템", "계정이 정지되어 연결이 종료되었습니다." + (reason.isEmpty() ? "" : " 사유: " + reason), false);
+            });
+        });
+
         socket.on("partnerDisconnected", args -> {
             SwingUtilities.invokeLater(() -> {
                 isConnected = false;
@@ -545,7 +556,6 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
             } else if (rating > 0) {
                 // 평점 저장
                 try {
-                    RatingService ratingService = new RatingService();
                     // partnerId는 Socket ID이거나 username일 수 있음
                     // 실제 username을 사용해야 함
                     // partnerUsername 사용
@@ -566,20 +576,8 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
                             "평점 저장 실패", 
                             JOptionPane.WARNING_MESSAGE);
                     } else {
-                        try {
-                            ratingService.createRating(currentUser.username, ratedUsername, rating);
-                            JOptionPane.showMessageDialog(this, 
-                                "평점이 저장되었습니다. 감사합니다!", 
-                                "평점 제출 완료", 
-                                JOptionPane.INFORMATION_MESSAGE);
-                        } catch (IllegalArgumentException e) {
-                            JOptionPane.showMessageDialog(this, 
-                                "평점 저장 실패: " + e.getMessage(), 
-                                "평점 저장 오류", 
-                                JOptionPane.ERROR_MESSAGE);
-                            System.err.println("평점 저장 실패: " + e.getMessage());
-                            e.printStackTrace();
-                        }
+                        // 채팅 서버로 제출 (서버가 모아서 저장), 결과는 응답이 오면 따로 알림
+                        submitRatingToServer(rating);
                     }
                 } catch (IllegalArgumentException e) {
                     // 사용자에게 알림 표시
@@ -603,6 +601,54 @@ public class RandomChatFrame extends JFrame implements ThemeManager.ThemeChangeL
         closeWithoutRating();
     }
     
+    /**
+     * 채팅 서버에 평점 제출 (상대는 서버가 기억하는 마지막 매칭 상대)
+     * - 응답을 기다리지 않고 보냄, 결과(저장됨/서버 혼잡/응답 없음)는 응답이 오면 EDT에서 알림
+     * - 서버가 받지 못했어도 직접 저장하지 않음 (응답만 늦은 경우 같은 평점이 두 번 저장됨)
+     */
+    private void submitRatingToServer(int rating) {
+        if (socket == null || !socket.connected()) {
+            showRatingResult("채팅 서버에 연결되어 있지 않아 평점을 제출하지 못했습니다.", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JSONObject payload = new JSONObject().put("rating", rating);
+        socket.emit("submitRating", new Object[]{payload.toString()}, new AckWithTimeout(RATING_ACK_TIMEOUT_MILLIS) {
+            @Override
+            public void onSuccess(Object... args) {
+                String status = args.length > 0 ? String.valueOf(args[0]) : "";
+                switch (status) {
+                    case "ok":
+                        showRatingResult("평점이 저장되었습니다. 감사합니다!", JOptionPane.INFORMATION_MESSAGE);
+                        break;
+                    case "busy":
+                        showRatingResult("서버가 혼잡해 평점을 받지 못했습니다. 잠시 후 다시 시도해주세요.", JOptionPane.WARNING_MESSAGE);
+                        break;
+                    default:
+                        showRatingResult("평점을 저장할 수 없습니다. (이미 평가했거나 대화 상대 정보가 없습니다)", JOptionPane.WARNING_MESSAGE);
+                        break;
+                }
+            }
+
+            @Override
+            public void onTimeout() {
+                // 요청 제한으로 무시됐거나 서버가 늦게 처리 중일 수 있음 (저장 여부를 알 수 없음)
+                showRatingResult("서버 응답이 없어 평점 저장 여부를 확인하지 못했습니다.", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+    }
+
+    // 소켓/타이머 스레드에서 호출됨, 창은 이미 숨겨졌을 수 있으므로 보이지 않으면 부모 없이 표시
+    private void showRatingResult(String message, int messageType) {
+        SwingUtilities.invokeLater(() -> {
+            if (messageType != JOptionPane.INFORMATION_MESSAGE) {
+                System.err.println("평점 제출 결과: " + message);
+            }
+            JOptionPane.showMessageDialog(isShowing() ? this : null, message,
+                    messageType == JOptionPane.INFORMATION_MESSAGE ? "평점 제출 완료" : "평점 저장 실패",
+                    messageType);
+        });
+    }
+
     private void closeWithoutRating() {
         // 매칭 종료 이벤트 전송 (서버에서 매칭 상태 정리를 위해 필요)
         // 서버가 상대방에게 partnerDisconnected를 보내지만, 
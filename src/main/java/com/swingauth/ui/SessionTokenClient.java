@@ -0,0 +1,92 @@
+package com.swingauth.ui;
+
+import com.swingauth.config.ServerConfig;
+import com.swingauth.service.SessionTokens;
+import io.socket.client.Ack;
+import io.socket.client.IO;
+import io.socket.client.Socket;
+import org.json.JSONObject;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 채팅 서버에서 세션 토큰 받기 (서명 키는 서버에만 있으므로 로그인 직후 1회)
+ * - 잠깐 접속해 issueSessionToken({username})으로 challenge를 받고, 로그인 때 읽은 비밀번호 해시로 서명한
+ *   {username, proof}를 보내 token을 받은 뒤 연결을 끊음 (비밀번호는 서버로 보내지 않음)
+ * - 백그라운드 스레드에서 호출 (최대 TIMEOUT_SECONDS 대기)
+ */
+final class SessionTokenClient {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private SessionTokenClient() {}
+
+    /**
+     * @return 발급된 토큰, 서버에 연결하지 못했거나 거절되면 null
+     */
+    static String request(String username, String passwordHash) {
+        Socket socket;
+        try {
+            IO.Options options = IO.Options.builder()
+                    .setTransports(new String[]{"websocket", "polling"})
+                    .setReconnection(false)
+                    .setTimeout(TIMEOUT_SECONDS * 1000)
+                    .build();
+            socket = IO.socket(ServerConfig.getServerURL(), options);
+        } catch (Exception e) {
+            System.err.println("[SessionTokenClient] 서버 주소 오류: " + e.getMessage());
+            return null;
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> token = new AtomicReference<>();
+        JSONObject hello = new JSONObject().put("username", username);
+        socket.on(Socket.EVENT_CONNECT, args ->
+            socket.emit("issueSessionToken", new Object[]{hello.toString()}, (Ack) challengeArgs -> {
+                JSONObject challenge = reply(challengeArgs);
+                if (challenge == null || !challenge.has("challenge")) {
+                    done.countDown();
+                    return;
+                }
+                String proof = SessionTokens.challengeProof(passwordHash, username, challenge.getString("challenge"));
+                JSONObject signed = new JSONObject().put("username", username).put("proof", proof);
+                socket.emit("issueSessionToken", new Object[]{signed.toString()}, (Ack) tokenArgs -> {
+                    JSONObject reply = reply(tokenArgs);
+                    if (reply != null && reply.has("token")) {
+                        token.set(reply.getString("token"));
+                    }
+                    done.countDown();
+                });
+            }));
+        socket.on(Socket.EVENT_CONNECT_ERROR, args -> {
+            System.err.println("[SessionTokenClient] 채팅 서버 연결 실패: " + (args.length > 0 ? args[0] : ""));
+            done.countDown();
+        });
+        socket.connect();
+        try {
+            if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("[SessionTokenClient] 토큰 발급 응답 없음");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            socket.off();
+            socket.disconnect();
+        }
+        return token.get();
+    }
+
+    /**
+     * 응답 JSON, 응답이 없거나 거부({error})면 null
+     */
+    private static JSONObject reply(Object[] ackArgs) {
+        if (ackArgs.length == 0) return null;
+        JSONObject reply = new JSONObject(String.valueOf(ackArgs[0]));
+        if (reply.has("error")) {
+            System.err.println("[SessionTokenClient] 토큰 발급 거부: " + reply.optString("error"));
+            return null;
+        }
+        return reply;
+    }
+}
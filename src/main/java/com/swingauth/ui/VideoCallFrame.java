@@ -7,6 +7,8 @@ import com.swingauth.util.NetworkDiscovery;
 import javax.swing.*;
 import java.awt.Desktop;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -131,9 +133,7 @@ public class VideoCallFrame extends JFrame {
                 if (serverInfo != null) {
                     // 서버를 찾았으면 ngrok URL이 있으면 HTTPS로, 없으면 HTTP로 접속
                     String accessUrl = serverInfo.getAccessUrl();
-                    String fullUrl = accessUrl + "/video-call.html?username=" + 
-                        java.net.URLEncoder.encode(username, java.nio.charset.StandardCharsets.UTF_8) +
-                        "&theme=" + (isDarkMode ? "dark" : "light");
+                    String fullUrl = accessUrl + "/video-call.html" + callPageQuery(username, isDarkMode);
                     
                     System.out.println("========================================");
                     System.out.println("[VideoCallFrame] 영상통화 서버 발견!");
@@ -170,6 +170,19 @@ public class VideoCallFrame extends JFrame {
         discoveryThread.start();
     }
     
+    /**
+     * 영상통화 페이지 쿼리 (username, 로그인 세션 토큰, 테마)
+     * - 서버는 token의 서명으로 사용자를 확인하고, username은 화면 표시/예전 서버 호환용
+     */
+    private String callPageQuery(String username, boolean isDarkMode) {
+        StringBuilder query = new StringBuilder("?username=")
+            .append(URLEncoder.encode(username, StandardCharsets.UTF_8));
+        if (user != null && user.sessionToken != null) {
+            query.append("&token=").append(URLEncoder.encode(user.sessionToken, StandardCharsets.UTF_8));
+        }
+        return query.append("&theme=").append(isDarkMode ? "dark" : "light").toString();
+    }
+
     /**
      * 로컬 서버 시작 (서버를 찾지 못한 경우)
      */
@@ -201,9 +214,7 @@ public class VideoCallFrame extends JFrame {
                 accessUrl = "http://localhost:" + port;
             }
             
-            String fullUrl = accessUrl + "/video-call.html?username=" + 
-                java.net.URLEncoder.encode(username, java.nio.charset.StandardCharsets.UTF_8) +
-                "&theme=" + (isDarkMode ? "dark" : "light");
+            String fullUrl = accessUrl + "/video-call.html" + callPageQuery(username, isDarkMode);
             
             System.out.println("[VideoCallFrame] 접속 URL: " + fullUrl);
             
@@ -1,5 +1,7 @@
 package com.swingauth.util;
 
+import com.swingauth.logging.Logger;
+
 import java.io.IOException;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
@@ -9,6 +11,7 @@ import java.util.Enumeration;
  * 같은 네트워크에서 채팅 서버를 자동으로 찾는 유틸리티
  */
 public class NetworkDiscovery {
+    private static final Logger log = Logger.get(NetworkDiscovery.class);
     private static final int DISCOVERY_PORT = 3002;
     private static final int VIDEO_DISCOVERY_PORT = 3003; // 영상통화 서버용 포트
     private static final String DISCOVERY_MESSAGE = "CHAT_SERVER_DISCOVERY";
@@ -29,7 +32,7 @@ public class NetworkDiscovery {
                 InetAddress broadcast = InetAddress.getByName("255.255.255.255");
                 DatagramPacket packet = new DatagramPacket(message, message.length, broadcast, DISCOVERY_PORT);
                 
-                System.out.println("🔔 서버 브로드캐스트 시작: " + serverIP + " (포트 " + DISCOVERY_PORT + ") - 2초마다 자동 전송 중...");
+                log.info("🔔 서버 브로드캐스트 시작: {} (포트 {}) - 2초마다 자동 전송 중...", serverIP, DISCOVERY_PORT);
                 
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
@@ -40,7 +43,7 @@ public class NetworkDiscovery {
                     } catch (InterruptedException e) {
                         break;
                     } catch (IOException e) {
-                        System.err.println("브로드캐스트 전송 오류: " + e.getMessage());
+                        log.warn("브로드캐스트 전송 오류: {}", e.getMessage());
                         try {
                             Thread.sleep(2000);
                         } catch (InterruptedException ie) {
@@ -49,8 +52,7 @@ public class NetworkDiscovery {
                     }
                 }
             } catch (IOException e) {
-                System.err.println("서버 브로드캐스트 실패: " + e.getMessage());
-                e.printStackTrace();
+                log.error("서버 브로드캐스트 실패", e);
             }
         });
         broadcastThread.setDaemon(true);
@@ -80,15 +82,15 @@ public class NetworkDiscovery {
             long startTime = System.currentTimeMillis();
             int attempts = 0;
             
-            System.out.println("🔍 네트워크에서 서버 찾는 중... (최대 " + (timeoutMs / 1000) + "초)");
-            System.out.println("   내 IP: " + localIP);
+            log.info("🔍 네트워크에서 서버 찾는 중... (최대 {}초)", timeoutMs / 1000);
+            log.info("   내 IP: {}", localIP);
             
             while (System.currentTimeMillis() - startTime < timeoutMs) {
                 try {
                     // 주기적으로 브로드캐스트 요청 전송
                     if (attempts % 2 == 0) { // 2초마다 요청 전송
                         socket.send(requestPacket);
-                        System.out.println("📤 서버 발견 요청 전송... (시도 " + (attempts / 2 + 1) + ")");
+                        log.debug("📤 서버 발견 요청 전송... (시도 {})", attempts / 2 + 1);
                     }
                     attempts++;
                     
@@ -96,7 +98,7 @@ public class NetworkDiscovery {
                     String response = new String(responsePacket.getData(), 0, responsePacket.getLength(), StandardCharsets.UTF_8);
                     String responderIP = responsePacket.getAddress().getHostAddress();
                     
-                    System.out.println("📥 응답 수신: " + response + " (from: " + responderIP + ")");
+                    log.debug("📥 응답 수신: {} (from: {})", response, responderIP);
                     
                     if (response.startsWith(RESPONSE_PREFIX)) {
                         String serverIP = response.substring(RESPONSE_PREFIX.length()).trim();
@@ -105,10 +107,10 @@ public class NetworkDiscovery {
                         // 자신의 서버가 아닌 경우 즉시 반환
                         if (!serverIP.equals(localIP) && !serverIP.equals("localhost") && 
                             !responderIP.equals(localIP)) {
-                            System.out.println("✅ 다른 서버 발견: " + serverIP + " (응답자: " + responderIP + ")");
+                            log.info("✅ 다른 서버 발견: {} (응답자: {})", serverIP, responderIP);
                             return serverIP;
                         } else {
-                            System.out.println("⚠️  자신의 서버입니다: " + serverIP + " (계속 찾는 중...)");
+                            log.info("⚠️  자신의 서버입니다: {} (계속 찾는 중...)", serverIP);
                         }
                     }
                 } catch (SocketTimeoutException e) {
@@ -118,7 +120,7 @@ public class NetworkDiscovery {
                         // 계속 시도
                     }
                 } catch (IOException e) {
-                    System.err.println("서버 발견 중 오류: " + e.getMessage());
+                    log.warn("서버 발견 중 오류: {}", e.getMessage());
                     try {
                         Thread.sleep(500);
                     } catch (InterruptedException ie) {
@@ -132,18 +134,17 @@ public class NetworkDiscovery {
                 // 찾은 서버 중 하나라도 자신의 서버가 아니면 선택
                 for (String serverIP : foundServers) {
                     if (!serverIP.equals(localIP) && !serverIP.equals("localhost")) {
-                        System.out.println("✅ 발견된 서버 중 다른 서버 선택: " + serverIP);
+                        log.info("✅ 발견된 서버 중 다른 서버 선택: {}", serverIP);
                         return serverIP;
                     }
                 }
                 // 자신의 서버만 찾은 경우
-                System.out.println("⚠️  자신의 서버만 발견되었습니다. 다른 서버를 찾지 못했습니다.");
+                log.info("⚠️  자신의 서버만 발견되었습니다. 다른 서버를 찾지 못했습니다.");
             } else {
-                System.out.println("❌ 서버를 찾을 수 없습니다. (타임아웃: " + timeoutMs + "ms)");
+                log.warn("❌ 서버를 찾을 수 없습니다. (타임아웃: {}ms)", timeoutMs);
             }
         } catch (IOException e) {
-            System.err.println("서버 발견 실패: " + e.getMessage());
-            e.printStackTrace();
+            log.error("서버 발견 실패", e);
         }
         return null;
     }
@@ -158,7 +159,7 @@ public class NetworkDiscovery {
                 socket.setSoTimeout(0); // 무한 대기
                 byte[] buffer = new byte[1024];
                 
-                System.out.println("👂 서버 리스너 시작: 포트 " + DISCOVERY_PORT + "에서 요청 대기 중...");
+                log.info("👂 서버 리스너 시작: 포트 {}에서 요청 대기 중...", DISCOVERY_PORT);
                 
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
@@ -174,7 +175,7 @@ public class NetworkDiscovery {
                             continue;
                         }
                         
-                        System.out.println("📨 서버 발견 요청 수신: " + message + " (요청자: " + clientIP + ")");
+                        log.debug("📨 서버 발견 요청 수신: {} (요청자: {})", message, clientIP);
                         
                         if (DISCOVERY_MESSAGE.equals(message)) {
                             // 서버 IP 응답 전송
@@ -184,20 +185,18 @@ public class NetworkDiscovery {
                                 packet.getAddress(), packet.getPort()
                             );
                             socket.send(responsePacket);
-                            System.out.println("✅ 서버 발견 요청에 응답 전송: " + serverIP + " → " + clientIP);
+                            log.info("✅ 서버 발견 요청에 응답 전송: {} → {}", serverIP, clientIP);
                         } else {
-                            System.out.println("⚠️  알 수 없는 메시지: " + message + " (요청자: " + clientIP + ")");
+                            log.warn("⚠️  알 수 없는 메시지: {} (요청자: {})", message, clientIP);
                         }
                     } catch (IOException e) {
                         if (!socket.isClosed()) {
-                            System.err.println("서버 리스너 오류: " + e.getMessage());
-                            e.printStackTrace();
+                            log.warn("서버 리스너 오류", e);
                         }
                     }
                 }
             } catch (SocketException e) {
-                System.err.println("서버 리스너 시작 실패: " + e.getMessage());
-                e.printStackTrace();
+                log.error("서버 리스너 시작 실패", e);
             }
         });
         listenerThread.setDaemon(true);
@@ -214,7 +213,7 @@ public class NetworkDiscovery {
                 socket.setSoTimeout(0); // 무한 대기
                 byte[] buffer = new byte[1024];
                 
-                System.out.println("👂 영상통화 서버 리스너 시작: 포트 " + VIDEO_DISCOVERY_PORT + "에서 요청 대기 중...");
+                log.info("👂 영상통화 서버 리스너 시작: 포트 {}에서 요청 대기 중...", VIDEO_DISCOVERY_PORT);
                 
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
@@ -230,7 +229,7 @@ public class NetworkDiscovery {
                             continue;
                         }
                         
-                        System.out.println("📨 영상통화 서버 발견 요청 수신: " + message + " (요청자: " + clientIP + ")");
+                        log.debug("📨 영상통화 서버 발견 요청 수신: {} (요청자: {})", message, clientIP);
                         
                         if (VIDEO_DISCOVERY_MESSAGE.equals(message)) {
                             // 서버 정보 응답 전송 (ngrok URL 포함)
@@ -244,21 +243,18 @@ public class NetworkDiscovery {
                                 packet.getAddress(), packet.getPort()
                             );
                             socket.send(responsePacket);
-                            System.out.println("✅ 영상통화 서버 발견 요청에 응답 전송: " + serverIP + ":" + port + 
-                                (ngrokUrl != null ? " (ngrok: " + ngrokUrl + ")" : "") + " → " + clientIP);
+                            log.info("✅ 영상통화 서버 발견 요청에 응답 전송: {}:{}{} → {}", serverIP, port, (ngrokUrl != null ? " (ngrok: " + ngrokUrl + ")" : ""), clientIP);
                         } else {
-                            System.out.println("⚠️  알 수 없는 메시지: " + message + " (요청자: " + clientIP + ")");
+                            log.warn("⚠️  알 수 없는 메시지: {} (요청자: {})", message, clientIP);
                         }
                     } catch (IOException e) {
                         if (!socket.isClosed()) {
-                            System.err.println("영상통화 서버 리스너 오류: " + e.getMessage());
-                            e.printStackTrace();
+                            log.warn("영상통화 서버 리스너 오류", e);
                         }
                     }
                 }
             } catch (SocketException e) {
-                System.err.println("영상통화 서버 리스너 시작 실패: " + e.getMessage());
-                e.printStackTrace();
+                log.error("영상통화 서버 리스너 시작 실패", e);
             }
         });
         listenerThread.setDaemon(true);
@@ -283,9 +279,7 @@ public class NetworkDiscovery {
                 InetAddress broadcast = InetAddress.getByName("255.255.255.255");
                 DatagramPacket packet = new DatagramPacket(message, message.length, broadcast, VIDEO_DISCOVERY_PORT);
                 
-                System.out.println("🔔 영상통화 서버 브로드캐스트 시작: " + serverIP + ":" + port + 
-                    (ngrokUrl != null ? " (ngrok: " + ngrokUrl + ")" : "") + 
-                    " (포트 " + VIDEO_DISCOVERY_PORT + ") - 2초마다 자동 전송 중...");
+                log.info("🔔 영상통화 서버 브로드캐스트 시작: {}:{}{} (포트 {}) - 2초마다 자동 전송 중...", serverIP, port, (ngrokUrl != null ? " (ngrok: " + ngrokUrl + ")" : ""), VIDEO_DISCOVERY_PORT);
                 
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
@@ -294,7 +288,7 @@ public class NetworkDiscovery {
                     } catch (InterruptedException e) {
                         break;
                     } catch (IOException e) {
-                        System.err.println("영상통화 서버 브로드캐스트 전송 오류: " + e.getMessage());
+                        log.warn("영상통화 서버 브로드캐스트 전송 오류: {}", e.getMessage());
                         try {
                             Thread.sleep(2000);
                         } catch (InterruptedException ie) {
@@ -303,8 +297,7 @@ public class NetworkDiscovery {
                     }
                 }
             } catch (IOException e) {
-                System.err.println("영상통화 서버 브로드캐스트 실패: " + e.getMessage());
-                e.printStackTrace();
+                log.error("영상통화 서버 브로드캐스트 실패", e);
             }
         });
         broadcastThread.setDaemon(true);
@@ -336,14 +329,14 @@ public class NetworkDiscovery {
             long startTime = System.currentTimeMillis();
             int attempts = 0;
             
-            System.out.println("🔍 네트워크에서 영상통화 서버 찾는 중... (최대 " + (timeoutMs / 1000) + "초)");
-            System.out.println("   내 IP: " + localIP);
+            log.info("🔍 네트워크에서 영상통화 서버 찾는 중... (최대 {}초)", timeoutMs / 1000);
+            log.info("   내 IP: {}", localIP);
             
             while (System.currentTimeMillis() - startTime < timeoutMs) {
                 try {
                     if (attempts % 2 == 0) {
                         socket.send(requestPacket);
-                        System.out.println("📤 영상통화 서버 발견 요청 전송... (시도 " + (attempts / 2 + 1) + ")");
+                        log.debug("📤 영상통화 서버 발견 요청 전송... (시도 {})", attempts / 2 + 1);
                     }
                     attempts++;
                     
@@ -351,7 +344,7 @@ public class NetworkDiscovery {
                     String response = new String(responsePacket.getData(), 0, responsePacket.getLength(), StandardCharsets.UTF_8);
                     String responderIP = responsePacket.getAddress().getHostAddress();
                     
-                    System.out.println("📥 응답 수신: " + response + " (from: " + responderIP + ")");
+                    log.debug("📥 응답 수신: {} (from: {})", response, responderIP);
                     
                     if (response.startsWith(VIDEO_RESPONSE_PREFIX)) {
                         String serverInfo = response.substring(VIDEO_RESPONSE_PREFIX.length()).trim();
@@ -364,7 +357,7 @@ public class NetworkDiscovery {
 
                         // ngrok URL이 있으면 즉시 저장하고 우선 사용
                         if (ngrokUrl != null && !ngrokUrl.isEmpty()) {
-                            System.out.println("✅ ngrok 영상통화 서버 발견: " + ngrokUrl + " (origin: " + ip + ":" + port + ")");
+                            log.info("✅ ngrok 영상통화 서버 발견: {} (origin: {}:{})", ngrokUrl, ip, port);
                             ngrokServer = new VideoServerInfo(ip, port, ngrokUrl);
                             // ngrok 서버를 찾았으면 즉시 반환 (최우선)
                             return ngrokServer;
@@ -372,21 +365,21 @@ public class NetworkDiscovery {
 
                         // ngrok이 없으면 첫 번째로 발견한 서버 저장 (자신의 서버라도)
                         if (firstServer == null) {
-                            System.out.println("📌 첫 번째 영상통화 서버 발견: " + ip + ":" + port + " (ngrok 없음, origin: " + responderIP + ")");
+                            log.info("📌 첫 번째 영상통화 서버 발견: {}:{} (ngrok 없음, origin: {})", ip, port, responderIP);
                             firstServer = new VideoServerInfo(ip, port, null);
                         } else {
-                            System.out.println("📌 추가 영상통화 서버 발견: " + ip + ":" + port + " (ngrok 없음, origin: " + responderIP + ")");
+                            log.info("📌 추가 영상통화 서버 발견: {}:{} (ngrok 없음, origin: {})", ip, port, responderIP);
                         }
                     }
                 } catch (SocketTimeoutException e) {
                     // 타임아웃 - 계속 시도 (ngrok 서버를 찾기 위해 계속 대기)
                     // ngrok 서버가 이미 발견되었으면 즉시 반환
                     if (ngrokServer != null) {
-                        System.out.println("✅ ngrok 서버 발견 완료, 연결합니다.");
+                        log.info("✅ ngrok 서버 발견 완료, 연결합니다.");
                         return ngrokServer;
                     }
                 } catch (IOException e) {
-                    System.err.println("영상통화 서버 발견 중 오류: " + e.getMessage());
+                    log.warn("영상통화 서버 발견 중 오류: {}", e.getMessage());
                     try {
                         Thread.sleep(500);
                     } catch (InterruptedException ie) {
@@ -397,17 +390,16 @@ public class NetworkDiscovery {
             
             // 타임아웃 후 최종 선택
             if (ngrokServer != null) {
-                System.out.println("✅ ngrok 영상통화 서버 선택: " + ngrokServer.ngrokUrl);
+                log.info("✅ ngrok 영상통화 서버 선택: {}", ngrokServer.ngrokUrl);
                 return ngrokServer;
             } else if (firstServer != null) {
-                System.out.println("✅ 첫 번째로 발견한 영상통화 서버 선택: " + firstServer.ip + ":" + firstServer.port);
+                log.info("✅ 첫 번째로 발견한 영상통화 서버 선택: {}:{}", firstServer.ip, firstServer.port);
                 return firstServer;
             } else {
-                System.out.println("❌ 영상통화 서버를 찾을 수 없습니다. (타임아웃: " + timeoutMs + "ms)");
+                log.warn("❌ 영상통화 서버를 찾을 수 없습니다. (타임아웃: {}ms)", timeoutMs);
             }
         } catch (IOException e) {
-            System.err.println("영상통화 서버 발견 실패: " + e.getMessage());
-            e.printStackTrace();
+            log.error("영상통화 서버 발견 실패", e);
         }
         return null;
     }
@@ -495,24 +487,23 @@ public class NetworkDiscovery {
             
             // 모든 네트워크 인터페이스 IP 출력
             if (!allIPs.isEmpty()) {
-                System.out.println("발견된 네트워크 인터페이스 IPv4 주소:");
+                log.info("발견된 네트워크 인터페이스 IPv4 주소:");
                 if (defaultGateway != null) {
-                    System.out.println("  기본 게이트웨이(라우터): " + defaultGateway);
+                    log.info("  기본 게이트웨이(라우터): {}", defaultGateway);
                 }
                 for (int i = 0; i < allIPs.size(); i++) {
                     IPInfo info = allIPs.get(i);
                     String marker = (i == 0) ? " ← 선택됨 (최우선)" : "";
                     String type = info.isVirtual ? " [가상]" : " [물리]";
                     String subnet = info.sameSubnetAsGateway ? " [라우터와 같은 서브넷]" : "";
-                    System.out.println("  - " + info.ip + " (" + info.interfaceName + ")" + type + subnet + marker);
+                    log.info("  - {} ({}){}{}{}", info.ip, info.interfaceName, type, subnet, marker);
                 }
             }
             
             // 최우선 IP 반환
             return allIPs.isEmpty() ? "localhost" : allIPs.get(0).ip;
         } catch (Exception e) {
-            System.err.println("IP 주소 자동 감지 실패: " + e.getMessage());
-            e.printStackTrace();
+            log.error("IP 주소 자동 감지 실패", e);
         }
         return "localhost";
     }
@@ -581,7 +572,7 @@ public class NetworkDiscovery {
                 }
             }
         } catch (Exception e) {
-            System.err.println("기본 게이트웨이 검색 실패: " + e.getMessage());
+            log.error("기본 게이트웨이 검색 실패: {}", e.getMessage());
         }
         return null;
     }
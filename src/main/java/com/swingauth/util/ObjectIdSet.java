@@ -0,0 +1,125 @@
+package com.swingauth.util;
+
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ObjectId 집합 (정렬된 배열, 원소당 12바이트)
+ * - ObjectId 12바이트를 앞 8바이트(long) + 뒤 4바이트(int)로 나눠 정렬된 두 배열에 보관하고 이진 탐색으로 조회
+ * - HashSet<String>(원소당 100바이트 이상)보다 작고, 한 번에 채운 뒤 조회가 대부분인 경우에 적합
+ * - 추가/삭제는 O(n) 배열 이동 (사용자 동작 단위로만 호출하는 용도)
+ * - 스레드 안전하지 않음 (호출하는 쪽에서 동기화)
+ */
+public final class ObjectIdSet {
+    private long[] high;
+    private int[] low;
+    private int size;
+
+    public ObjectIdSet() {
+        this(16);
+    }
+
+    public ObjectIdSet(int capacity) {
+        high = new long[Math.max(1, capacity)];
+        low = new int[high.length];
+    }
+
+    /**
+     * 순서/중복 상관없는 목록으로 한 번에 생성 (정렬 1번)
+     */
+    public static ObjectIdSet of(Collection<ObjectId> ids) {
+        List<ObjectId> sorted = new ArrayList<>(ids);
+        sorted.sort(null); // ObjectId 비교 = 바이트 부호 없는 비교 = 아래 high/low 비교 순서와 같음
+        ObjectIdSet set = new ObjectIdSet(sorted.size());
+        for (ObjectId id : sorted) {
+            ByteBuffer bytes = ByteBuffer.wrap(id.toByteArray());
+            long h = bytes.getLong();
+            int l = bytes.getInt();
+            int last = set.size - 1;
+            if (last >= 0 && set.high[last] == h && set.low[last] == l) continue;
+            set.high[set.size] = h;
+            set.low[set.size] = l;
+            set.size++;
+        }
+        return set;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(ObjectId id) {
+        if (id == null) return false;
+        ByteBuffer bytes = ByteBuffer.wrap(id.toByteArray());
+        return indexOf(bytes.getLong(), bytes.getInt()) >= 0;
+    }
+
+    /**
+     * 16진수 문자열 ObjectId 조회 (형식이 틀리면 false)
+     */
+    public boolean contains(String hex) {
+        return hex != null && ObjectId.isValid(hex) && contains(new ObjectId(hex));
+    }
+
+    /**
+     * @return 새로 추가했으면 true
+     */
+    public boolean add(ObjectId id) {
+        ByteBuffer bytes = ByteBuffer.wrap(id.toByteArray());
+        long h = bytes.getLong();
+        int l = bytes.getInt();
+        int index = indexOf(h, l);
+        if (index >= 0) return false;
+        int insertAt = -index - 1;
+        if (size == high.length) {
+            int capacity = high.length * 2;
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+        }
+        System.arraycopy(high, insertAt, high, insertAt + 1, size - insertAt);
+        System.arraycopy(low, insertAt, low, insertAt + 1, size - insertAt);
+        high[insertAt] = h;
+        low[insertAt] = l;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return 있어서 지웠으면 true
+     */
+    public boolean remove(ObjectId id) {
+        ByteBuffer bytes = ByteBuffer.wrap(id.toByteArray());
+        int index = indexOf(bytes.getLong(), bytes.getInt());
+        if (index < 0) return false;
+        System.arraycopy(high, index + 1, high, index, size - index - 1);
+        System.arraycopy(low, index + 1, low, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * 이진 탐색 (없으면 -(넣을 위치) - 1)
+     */
+    private int indexOf(long h, int l) {
+        int from = 0;
+        int to = size - 1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            int cmp = Long.compareUnsigned(high[mid], h);
+            if (cmp == 0) cmp = Integer.compareUnsigned(low[mid], l);
+            if (cmp < 0) {
+                from = mid + 1;
+            } else if (cmp > 0) {
+                to = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(from + 1);
+    }
+}
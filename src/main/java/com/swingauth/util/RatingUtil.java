@@ -1,47 +1,42 @@
 package com.swingauth.util;
 
 import com.swingauth.db.Mongo;
+import com.swingauth.service.RatingAggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * 평점 관련 유틸리티 클래스
  */
 public class RatingUtil {
+    private static final String REBUILD_JOB = "ratingAggregates.rebuild";
+    
     
     /**
-     * 특정 사용자의 평균 평점을 실시간으로 계산합니다.
+     * 특정 사용자가 받은 평균 평점을 집계에서 조회합니다.
      * @param username 사용자명
      * @return 평균 평점 (없으면 5.0)
      */
     public static double getUserAverageRating(String username) {
         try {
-            var userDoc = Mongo.users().find(Filters.eq("username", username)).first();
-            if (userDoc == null) return 5.0;
-            
-            Object id = userDoc.get("_id");
-            if (!(id instanceof ObjectId)) return 5.0;
-            
-            ObjectId userId = (ObjectId) id;
-            
-            // 해당 사용자가 참여한 모든 유저 쌍의 averageRating을 합산
-            double sum = 0.0;
-            int count = 0;
-            
-            for (var doc : Mongo.ratings().find(
-                Filters.or(
-                    Filters.eq("user1Id", userId),
-                    Filters.eq("user2Id", userId)
-                )
-            )) {
-                Object avgRating = doc.get("averageRating");
-                if (avgRating != null && avgRating instanceof Number) {
-                    sum += ((Number) avgRating).doubleValue();
-                    count++;
-                }
-            }
+            ObjectId userId = findUserId(username);
+            if (userId == null) return 5.0;
             
-            return count > 0 ? sum / count : 5.0;
+            // 받은 평점 집계(rating_aggregates)만 읽음
+            double average = RatingAggregates.userAverage(userId);
+            return average >= 0 ? average : 5.0;
         } catch (Exception e) {
             return 5.0;
         }
@@ -54,23 +49,8 @@ public class RatingUtil {
      */
     public static int resetUserAverageRating(String username) {
         try {
-            var userDoc = Mongo.users().find(Filters.eq("username", username)).first();
-            if (userDoc == null) return 0;
-            
-            Object id = userDoc.get("_id");
-            if (!(id instanceof ObjectId)) return 0;
-            
-            ObjectId userId = (ObjectId) id;
-            
-            var result = Mongo.ratings().deleteMany(
-                Filters.and(
-                    Filters.eq("userId", userId),
-                    Filters.eq("serviceType", "average")
-                )
-            );
-            
-            return (int) result.getDeletedCount();
-            
+            ObjectId userId = findUserId(username);
+            return userId != null ? resetUserAverageRating(userId) : 0;
         } catch (Exception e) {
             System.err.println("[오류] 평균 평점 초기화 실패: " + username);
             return 0;
@@ -79,18 +59,20 @@ public class RatingUtil {
     
     /**
      * 특정 사용자 ID의 평균 평점을 초기화합니다 (삭제).
+     * 받은 평점 집계(rating_aggregates)와 이전 방식의 "average" 문서를 모두 지웁니다.
      * @param userId 사용자 ObjectId
      * @return 삭제된 문서 수
      */
     public static int resetUserAverageRating(ObjectId userId) {
         try {
-            var result = Mongo.ratings().deleteMany(
+            long deleted = Mongo.ratingAggregates().deleteMany(Filters.eq("userId", userId)).getDeletedCount();
+            deleted += Mongo.ratings().deleteMany(
                 Filters.and(
                     Filters.eq("userId", userId),
                     Filters.eq("serviceType", "average")
                 )
-            );
-            return (int) result.getDeletedCount();
+            ).getDeletedCount();
+            return (int) deleted;
         } catch (Exception e) {
             System.err.println("[오류] 평균 평점 초기화 실패: " + userId);
             return 0;
@@ -99,15 +81,16 @@ public class RatingUtil {
     
     /**
      * 모든 사용자의 평균 평점을 초기화합니다 (삭제).
-     * 주의: 모든 평균 평점이 삭제됩니다!
+     * 주의: 모든 평균 평점이 삭제됩니다! (유저 쌍 평점은 남으므로 rebuildAllAverageRatings로 다시 만들 수 있음)
      * @return 삭제된 문서 수
      */
     public static int resetAllAverageRatings() {
         try {
-            var result = Mongo.ratings().deleteMany(
+            long deleted = Mongo.ratingAggregates().deleteMany(new Document()).getDeletedCount();
+            deleted += Mongo.ratings().deleteMany(
                 Filters.eq("serviceType", "average")
-            );
-            return (int) result.getDeletedCount();
+            ).getDeletedCount();
+            return (int) deleted;
         } catch (Exception e) {
             System.err.println("[오류] 전체 평균 평점 초기화 실패");
             return 0;
@@ -145,55 +128,23 @@ public class RatingUtil {
     
     /**
      * 특정 사용자의 평균 평점을 재계산합니다.
+     * 사용자가 참여한 유저 쌍 평점으로 DB 서버에서 집계해 rating_aggregates에 반영합니다.
      * @param username 사용자명
      * @return 재계산 성공 여부
      */
     public static boolean recalculateUserAverageRating(String username) {
         try {
-            var userDoc = Mongo.users().find(Filters.eq("username", username)).first();
-            if (userDoc == null) return false;
+            ObjectId userId = findUserId(username);
+            if (userId == null) return false;
             
-            Object id = userDoc.get("_id");
-            if (!(id instanceof ObjectId)) return false;
-            
-            ObjectId userId = (ObjectId) id;
-            
-            // 기존 평균 평점 삭제
-            resetUserAverageRating(userId);
-            
-            // 평점 재계산 (averageRating 필드 사용)
-            double sum = 0.0;
-            int count = 0;
-            
-            for (var doc : Mongo.ratings().find(
+            // 이전 방식의 "average" 문서는 더 이상 읽지 않으므로 정리
+            Mongo.ratings().deleteMany(
                 Filters.and(
-                    Filters.or(
-                        Filters.eq("user1Id", userId),
-                        Filters.eq("user2Id", userId)
-                    ),
-                    Filters.ne("serviceType", "average")
+                    Filters.eq("userId", userId),
+                    Filters.eq("serviceType", "average")
                 )
-            )) {
-                Object avgRating = doc.get("averageRating");
-                if (avgRating != null && avgRating instanceof Number) {
-                    sum += ((Number) avgRating).doubleValue();
-                    count++;
-                }
-            }
-            
-            double averageRating = count > 0 ? sum / count : 5.0;
-            
-            var filter = new org.bson.Document("userId", userId)
-                .append("serviceType", "average");
-            
-            var upsertDoc = new org.bson.Document("userId", userId)
-                .append("serviceType", "average")
-                .append("averageRating", averageRating);
-            
-            Mongo.ratings().updateOne(filter, new org.bson.Document("$set", upsertDoc)
-                .append("$unset", new org.bson.Document("user1Id", "").append("user2Id", "")), 
-                new com.mongodb.client.model.UpdateOptions().upsert(true));
-            
+            );
+            RatingAggregates.rebuildUser(userId);
             return true;
             
         } catch (Exception e) {
@@ -202,8 +153,92 @@ public class RatingUtil {
         }
     }
     
+    /**
+     * 전체 재계산 진행 상황
+     */
+    public static class RebuildProgress {
+        public final int chunksDone;
+        public final long usersDone;
+        public final long totalUsers;      // 시작할 때의 추정치
+        public final ObjectId lastUserId;  // 여기까지 반영됨 (다음 실행은 이 다음 사용자부터)
+        public final boolean finished;
+        
+        RebuildProgress(int chunksDone, long usersDone, long totalUsers, ObjectId lastUserId, boolean finished) {
+            this.chunksDone = chunksDone;
+            this.usersDone = usersDone;
+            this.totalUsers = totalUsers;
+            this.lastUserId = lastUserId;
+            this.finished = finished;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d/%d명 (%d묶음, 마지막 userId=%s)%s",
+                usersDone, totalUsers, chunksDone, lastUserId, finished ? " 완료" : "");
+        }
+    }
+    
+    /**
+     * 모든 사용자의 평균 평점을 다시 계산합니다.
+     * - 사용자 _id 순서로 chunkSize명씩 나눠 DB 서버에서 $group 후 rating_aggregates에 $merge (문서를 앱으로 가져오지 않음)
+     * - 묶음마다 진행 상태를 jobs 컬렉션에 저장하므로, 중단되면 다음 실행에서 이어서 진행
+     * @param chunkSize 한 번에 계산할 사용자 수
+     * @param restart true면 저장된 진행 상태를 무시하고 처음부터
+     * @param listener 묶음이 끝날 때마다 호출 (null 가능)
+     * @return 마지막 진행 상황
+     */
+    public static RebuildProgress rebuildAllAverageRatings(int chunkSize, boolean restart, Consumer<RebuildProgress> listener) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다.");
+        }
+        var users = Mongo.users();
+        var jobs = Mongo.jobs();
+        
+        Document state = restart ? null : jobs.find(Filters.eq("_id", REBUILD_JOB)).first();
+        boolean resume = state != null && state.get("finishedAt") == null;
+        ObjectId lastUserId = resume ? state.getObjectId("lastUserId") : null;
+        long usersDone = resume ? state.get("usersDone", Number.class).longValue() : 0;
+        int chunksDone = resume ? state.get("chunksDone", Number.class).intValue() : 0;
+        Date startedAt = resume ? state.getDate("startedAt") : new Date();
+        long totalUsers = users.estimatedDocumentCount();
+        
+        while (true) {
+            Bson remaining = lastUserId != null ? Filters.gt("_id", lastUserId) : new Document();
+            // 이번 묶음의 마지막 사용자 (_id 인덱스로 chunkSize번째만 찾음, 없으면 남은 전부)
+            Document boundary = users.find(remaining)
+                .projection(Projections.include("_id"))
+                .sort(Sorts.ascending("_id"))
+                .skip(chunkSize - 1)
+                .first();
+            ObjectId upToId = boundary != null ? boundary.getObjectId("_id") : null;
+            long chunkUsers = upToId != null ? chunkSize : users.countDocuments(remaining);
+            
+            RatingAggregates.rebuildRange(lastUserId, upToId);
+            
+            boolean finished = upToId == null;
+            if (!finished) lastUserId = upToId;
+            usersDone += chunkUsers;
+            chunksDone++;
+            
+            Document saved = new Document("_id", REBUILD_JOB)
+                .append("lastUserId", lastUserId)
+                .append("usersDone", usersDone)
+                .append("chunksDone", chunksDone)
+                .append("totalUsers", totalUsers)
+                .append("startedAt", startedAt)
+                .append("updatedAt", new Date())
+                .append("finishedAt", finished ? new Date() : null);
+            jobs.replaceOne(Filters.eq("_id", REBUILD_JOB), saved, new ReplaceOptions().upsert(true));
+            
+            RebuildProgress progress = new RebuildProgress(chunksDone, usersDone, totalUsers, lastUserId, finished);
+            if (listener != null) listener.accept(progress);
+            if (finished) return progress;
+        }
+    }
+    
     /**
      * 두 유저의 평균 평점을 모두 조회합니다.
+     * 사용자 조회 1번, 평균 평점 조회 1번, 유저 쌍 평점 조회 1번으로 끝납니다.
      * @param userId1 첫 번째 유저 ObjectId (문자열 또는 ObjectId)
      * @param userId2 두 번째 유저 ObjectId (문자열 또는 ObjectId)
      * @return 두 유저의 평균 평점 정보를 담은 문자열
@@ -216,137 +251,51 @@ public class RatingUtil {
         result.append("----------------------------------------\n");
         
         try {
-            String user1Username = null;
-            String user2Username = null;
+            // 입력값은 ObjectId 또는 username (ObjectId 형식이 아닌 문자열)
+            ObjectId inputId1 = toObjectId(userId1);
+            ObjectId inputId2 = toObjectId(userId2);
+            List<ObjectId> ids = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            if (inputId1 != null) ids.add(inputId1); else if (userId1 instanceof String) names.add((String) userId1);
+            if (inputId2 != null) ids.add(inputId2); else if (userId2 instanceof String) names.add((String) userId2);
             
-            // userId1 처리
-            ObjectId user1Id = null;
-            if (userId1 instanceof ObjectId) {
-                user1Id = (ObjectId) userId1;
-            } else if (userId1 instanceof String) {
-                String input1 = (String) userId1;
-                try {
-                    user1Id = new ObjectId(input1);
-                } catch (Exception e) {
-                    // 문자열이 ObjectId 형식이 아니면 username으로 조회
-                    var userDoc = Mongo.users().find(Filters.eq("username", input1)).first();
-                    if (userDoc != null) {
-                        user1Username = input1;
-                        Object id = userDoc.get("_id");
-                        if (id instanceof ObjectId) {
-                            user1Id = (ObjectId) id;
-                        }
-                    }
+            // 두 사용자를 한 번에 조회
+            Map<ObjectId, String> usernameById = new HashMap<>();
+            Map<String, ObjectId> idByUsername = new HashMap<>();
+            if (!ids.isEmpty() || !names.isEmpty()) {
+                for (Document doc : Mongo.users().find(Filters.or(Filters.in("_id", ids), Filters.in("username", names)))
+                        .projection(Projections.include("_id", "username"))) {
+                    Object id = doc.get("_id");
+                    if (!(id instanceof ObjectId)) continue;
+                    usernameById.put((ObjectId) id, doc.getString("username"));
+                    idByUsername.put(doc.getString("username"), (ObjectId) id);
                 }
             }
+            ObjectId user1Id = inputId1 != null ? inputId1 : idByUsername.get(userId1);
+            ObjectId user2Id = inputId2 != null ? inputId2 : idByUsername.get(userId2);
+            String user1Username = user1Id != null ? usernameById.get(user1Id) : null;
+            String user2Username = user2Id != null ? usernameById.get(user2Id) : null;
             
-            // userId1의 username 조회 (ObjectId인 경우)
-            if (user1Id != null && user1Username == null) {
-                var userDoc = Mongo.users().find(Filters.eq("_id", user1Id)).first();
-                if (userDoc != null) {
-                    user1Username = userDoc.getString("username");
-                }
-            }
-            
-            // userId2 처리
-            ObjectId user2Id = null;
-            if (userId2 instanceof ObjectId) {
-                user2Id = (ObjectId) userId2;
-            } else if (userId2 instanceof String) {
-                String input2 = (String) userId2;
-                try {
-                    user2Id = new ObjectId(input2);
-                } catch (Exception e) {
-                    // 문자열이 ObjectId 형식이 아니면 username으로 조회
-                    var userDoc = Mongo.users().find(Filters.eq("username", input2)).first();
-                    if (userDoc != null) {
-                        user2Username = input2;
-                        Object id = userDoc.get("_id");
-                        if (id instanceof ObjectId) {
-                            user2Id = (ObjectId) id;
-                        }
-                    }
-                }
-            }
-            
-            // userId2의 username 조회 (ObjectId인 경우)
-            if (user2Id != null && user2Username == null) {
-                var userDoc = Mongo.users().find(Filters.eq("_id", user2Id)).first();
-                if (userDoc != null) {
-                    user2Username = userDoc.getString("username");
-                }
-            }
+            // 두 사용자의 받은 평점 평균을 한 번에 조회
+            List<ObjectId> found = new ArrayList<>();
+            if (user1Id != null) found.add(user1Id);
+            if (user2Id != null) found.add(user2Id);
+            Map<ObjectId, Double> averages = found.isEmpty() ? Map.of() : RatingAggregates.userAverages(found);
             
             // ========== userId1 정보 ==========
             result.append("\n[userId1 정보]\n");
-            if (user1Id == null) {
-                result.append("❌ userId1을 찾을 수 없습니다: ").append(userId1).append("\n");
-            } else {
-                result.append("✅ userId1: ").append(user1Id).append("\n");
-                if (user1Username != null) {
-                    result.append("✅ username: ").append(user1Username).append("\n");
-                }
-                
-                var avgDoc1 = Mongo.ratings().find(
-                    Filters.and(
-                        Filters.eq("userId", user1Id),
-                        Filters.eq("serviceType", "average")
-                    )
-                ).first();
-                
-                if (avgDoc1 != null) {
-                    Object ar1 = avgDoc1.get("averageRating");
-                    double avg1 = 5.0;
-                    if (ar1 instanceof Double) {
-                        avg1 = (Double) ar1;
-                    } else if (ar1 instanceof Number) {
-                        avg1 = ((Number) ar1).doubleValue();
-                    }
-                    result.append("✅ 평균 평점: ").append(avg1).append("점\n");
-                } else {
-                    result.append("⚠️  평균 평점: 없음 (기본값 5.0점)\n");
-                    result.append("  - 평균 평점 문서가 아직 생성되지 않았습니다.\n");
-                }
-            }
+            appendUserInfo(result, "userId1", userId1, user1Id, user1Username, averages);
             
             // ========== userId2 정보 ==========
             result.append("\n[userId2 정보]\n");
-            if (user2Id == null) {
-                result.append("❌ userId2를 찾을 수 없습니다: ").append(userId2).append("\n");
-            } else {
-                result.append("✅ userId2: ").append(user2Id).append("\n");
-                if (user2Username != null) {
-                    result.append("✅ username: ").append(user2Username).append("\n");
-                }
-                
-                var avgDoc2 = Mongo.ratings().find(
-                    Filters.and(
-                        Filters.eq("userId", user2Id),
-                        Filters.eq("serviceType", "average")
-                    )
-                ).first();
-                
-                if (avgDoc2 != null) {
-                    Object ar2 = avgDoc2.get("averageRating");
-                    double avg2 = 5.0;
-                    if (ar2 instanceof Double) {
-                        avg2 = (Double) ar2;
-                    } else if (ar2 instanceof Number) {
-                        avg2 = ((Number) ar2).doubleValue();
-                    }
-                    result.append("✅ 평균 평점: ").append(avg2).append("점\n");
-                } else {
-                    result.append("⚠️  평균 평점: 없음 (기본값 5.0점)\n");
-                    result.append("  - 평균 평점 문서가 아직 생성되지 않았습니다.\n");
-                }
-            }
+            appendUserInfo(result, "userId2", userId2, user2Id, user2Username, averages);
             
             // ========== 두 유저 쌍의 평점 정보 (serviceType: "randomVideo" 문서) ==========
             if (user1Id != null && user2Id != null) {
                 result.append("\n[두 유저 쌍 평점 정보]\n");
                 
                 // user1Id, user2Id로 정렬하여 일관된 검색
-                org.bson.types.ObjectId sortedUser1Id, sortedUser2Id;
+                ObjectId sortedUser1Id, sortedUser2Id;
                 if (user1Id.compareTo(user2Id) < 0) {
                     sortedUser1Id = user1Id;
                     sortedUser2Id = user2Id;
@@ -367,66 +316,42 @@ public class RatingUtil {
                     Object averageObj = pairDoc.get("averageRating");
                     double pairAverage = 5.0;
                     
-                    if (averageObj != null && averageObj instanceof Number) {
+                    if (averageObj instanceof Number) {
                         pairAverage = ((Number) averageObj).doubleValue();
                     }
                     
                     // user1 정보 표시
                     result.append("  - user1");
-                    if (user1Username != null) {
-                        result.append(" - username: ").append(user1Username);
+                    String sortedUser1Name = usernameById.get(sortedUser1Id);
+                    if (sortedUser1Name != null) {
+                        result.append(" - username: ").append(sortedUser1Name);
                     }
                     result.append(" - userId: ").append(sortedUser1Id);
                     result.append("\n");
                     
                     // user2 정보 표시
                     result.append("  - user2");
-                    if (user2Username != null) {
-                        result.append(" - username: ").append(user2Username);
+                    String sortedUser2Name = usernameById.get(sortedUser2Id);
+                    if (sortedUser2Name != null) {
+                        result.append(" - username: ").append(sortedUser2Name);
                     }
                     result.append(" - userId: ").append(sortedUser2Id);
                     result.append("\n");
                     
-                    result.append("  - 유저 쌍 평균: ").append(pairAverage).append("점\n");
+                    result.append("  - 유저 쌍 평균: ").append(pairAverage).append("점");
+                    Object countObj = pairDoc.get("ratingCount");
+                    if (countObj instanceof Number) {
+                        result.append(" (평점 ").append(((Number) countObj).longValue()).append("개)");
+                    }
+                    result.append("\n");
                 } else {
                     result.append("  ⚠️ 두 유저 쌍의 평점 문서가 없습니다.\n");
                 }
                 
                 // ========== 합산 평균 ==========
                 result.append("\n[합산 평균]\n");
-                var avgDoc1 = Mongo.ratings().find(
-                    Filters.and(
-                        Filters.eq("userId", user1Id),
-                        Filters.eq("serviceType", "average")
-                    )
-                ).first();
-                var avgDoc2 = Mongo.ratings().find(
-                    Filters.and(
-                        Filters.eq("userId", user2Id),
-                        Filters.eq("serviceType", "average")
-                    )
-                ).first();
-                
-                double avg1 = 5.0;
-                double avg2 = 5.0;
-                
-                if (avgDoc1 != null) {
-                    Object ar1 = avgDoc1.get("averageRating");
-                    if (ar1 instanceof Double) {
-                        avg1 = (Double) ar1;
-                    } else if (ar1 instanceof Number) {
-                        avg1 = ((Number) ar1).doubleValue();
-                    }
-                }
-                
-                if (avgDoc2 != null) {
-                    Object ar2 = avgDoc2.get("averageRating");
-                    if (ar2 instanceof Double) {
-                        avg2 = (Double) ar2;
-                    } else if (ar2 instanceof Number) {
-                        avg2 = ((Number) ar2).doubleValue();
-                    }
-                }
+                double avg1 = averages.getOrDefault(user1Id, 5.0);
+                double avg2 = averages.getOrDefault(user2Id, 5.0);
                 
                 double combinedAvg = (avg1 + avg2) / 2.0;
                 result.append("  - userId1 평균: ").append(avg1).append("점");
@@ -452,6 +377,40 @@ public class RatingUtil {
         return result.toString();
     }
     
+    private static void appendUserInfo(StringBuilder result, String label, Object input, ObjectId userId,
+                                       String username, Map<ObjectId, Double> averages) {
+        if (userId == null) {
+            result.append("❌ ").append(label).append("을(를) 찾을 수 없습니다: ").append(input).append("\n");
+            return;
+        }
+        result.append("✅ ").append(label).append(": ").append(userId).append("\n");
+        if (username != null) {
+            result.append("✅ username: ").append(username).append("\n");
+        }
+        Double average = averages.get(userId);
+        if (average != null) {
+            result.append("✅ 평균 평점: ").append(average).append("점\n");
+        } else {
+            result.append("⚠️  평균 평점: 없음 (기본값 5.0점)\n");
+            result.append("  - 아직 받은 평점이 없습니다.\n");
+        }
+    }
+    
+    private static ObjectId toObjectId(Object value) {
+        if (value instanceof ObjectId) return (ObjectId) value;
+        if (value instanceof String && ObjectId.isValid((String) value)) return new ObjectId((String) value);
+        return null;
+    }
+    
+    private static ObjectId findUserId(String username) {
+        Document userDoc = Mongo.users().find(Filters.eq("username", username))
+            .projection(Projections.include("_id"))
+            .first();
+        if (userDoc == null) return null;
+        Object id = userDoc.get("_id");
+        return id instanceof ObjectId ? (ObjectId) id : null;
+    }
+    
     /**
      * 두 유저의 평균 평점을 모두 조회합니다 (username 사용).
      * @param username1 첫 번째 유저명
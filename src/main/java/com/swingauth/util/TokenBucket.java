@@ -0,0 +1,70 @@
+package com.swingauth.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 토큰 버킷 규칙 (GCRA: Generic Cell Rate Algorithm)
+ * - 버킷 상태는 "다음 요청이 허용되는 이론상 시각(TAT)" long 하나뿐이라 CAS 한 번으로 갱신 (락/할당 없음)
+ * - 상태는 호출하는 쪽이 AtomicLongArray 칸으로 보관하므로 세션마다 배열 하나만 만들면 여러 규칙을 함께 관리 가능
+ * - 규칙 객체 자체는 불변이라 모든 세션이 공유
+ */
+public final class TokenBucket {
+    private final long emissionIntervalNanos; // 토큰 하나가 채워지는 간격
+    private final long toleranceNanos;        // 버스트 허용량 (burst - 1 개분)
+    private final double ratePerSecond;
+    private final int burst;
+
+    /**
+     * @param ratePerSecond 초당 허용 횟수 (0보다 커야 함)
+     * @param burst 한 번에 몰아서 허용하는 최대 횟수 (1 이상)
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be > 0");
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.toleranceNanos = emissionIntervalNanos * (this.burst - 1);
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * 새 버킷 상태 칸 여러 개 (처음에는 버스트만큼 가득 찬 상태)
+     */
+    public static AtomicLongArray newState(int slots) {
+        return new AtomicLongArray(slots); // TAT 0 = 과거 -> 가득 참
+    }
+
+    public boolean tryAcquire(AtomicLongArray state, int slot) {
+        return tryAcquire(state, slot, System.nanoTime());
+    }
+
+    /**
+     * 토큰이 남아 있는지 (상태 변경 없음)
+     */
+    public boolean hasToken(AtomicLongArray state, int slot, long nowNanos) {
+        long tat = state.get(slot);
+        long base = (tat == 0 || tat - nowNanos < 0) ? nowNanos : tat;
+        return base - nowNanos <= toleranceNanos;
+    }
+
+    /**
+     * 토큰 하나 사용
+     * @return 허용되면 true (거부되면 상태 변경 없음)
+     */
+    public boolean tryAcquire(AtomicLongArray state, int slot, long nowNanos) {
+        while (true) {
+            long tat = state.get(slot);
+            long base = (tat == 0 || tat - nowNanos < 0) ? nowNanos : tat;
+            if (base - nowNanos > toleranceNanos) return false;
+            if (state.compareAndSet(slot, tat, base + emissionIntervalNanos)) return true;
+        }
+    }
+}
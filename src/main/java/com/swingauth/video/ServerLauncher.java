@@ -1,9 +1,14 @@
 package com.swingauth.video;
 
+import com.swingauth.metrics.MetricsServlet;
+import com.swingauth.service.DataMigrations;
+import com.swingauth.service.SessionTokens;
+import com.swingauth.tracing.TraceServlet;
 import com.swingauth.video.server.MatchWebSocketCreator;
 import com.swingauth.util.NetworkDiscovery;
 import com.swingauth.util.NgrokUtil;
 import org.eclipse.jetty.server.*;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
@@ -23,6 +28,9 @@ public class ServerLauncher {
     private Server server;
     private int port = 0; // 명시적으로 0으로 초기화
     private int httpsPort;
+    private ServerConnector adminConnector; // /metrics, /traces 전용 (ngrok 터널에 노출되지 않음)
+    private static final String PUBLIC_CONNECTOR = "public";
+    private static final String ADMIN_CONNECTOR = "admin";
     private String localIpAddress;
     private ServerConnector connector; // 포트 정보를 가져오기 위해 저장
     private static final String PORT_FILE_PATH = System.getProperty("user.home") + "/.video-call-server-port";
@@ -439,6 +447,15 @@ public class ServerLauncher {
                     continue;
                 }
                 
+                // 세션 토큰 서명 키 준비 (설정이 없으면 서버 로컬 키 파일을 만듦, 채팅 서버와 같은 컴퓨터면 같은 키)
+                try {
+                    SessionTokens.ensureServerSecret();
+                } catch (Exception e) {
+                    System.err.println("세션 토큰 서명 키 파일을 만들지 못했습니다 (사용자 등록 거부): " + e.getMessage());
+                }
+                // 평점 집계/신고 대기열 1회성 마이그레이션 (평점을 받기 전에 끝냄, 이미 적용됐으면 조회 1번)
+                DataMigrations.applyPending();
+
                 server = new Server();
                 connector = new ServerConnector(server);
                 
@@ -449,6 +466,14 @@ public class ServerLauncher {
                 server.addConnector(connector);
                 this.httpsPort = 0; // HTTPS는 ngrok 등을 통해 제공
 
+                // 관리용 커넥터 (/metrics, /traces): ngrok은 위 포트만 내보내므로 터널로는 접근 불가
+                // -Dvideo.adminHost (기본 127.0.0.1), -Dvideo.adminPort (기본 0 = 빈 포트 자동 선택)
+                adminConnector = new ServerConnector(server);
+                adminConnector.setName(ADMIN_CONNECTOR);
+                adminConnector.setHost(System.getProperty("video.adminHost", "127.0.0.1"));
+                adminConnector.setPort(Integer.getInteger("video.adminPort", 0));
+                server.addConnector(adminConnector);
+
                 ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
                 context.setContextPath("/");
 
@@ -456,6 +481,7 @@ public class ServerLauncher {
                 context.addServlet(new ServletHolder(new MatchWebSocketCreator()), "/ws");
                 JettyWebSocketServletContainerInitializer.configure(context, null);
 
+
                 // 정적 파일 서빙 - 클래스패스 리소스 사용
                 URL resourceBase = getClass().getClassLoader().getResource("public");
                 if (resourceBase == null) {
@@ -483,11 +509,21 @@ public class ServerLauncher {
                 defaultServlet.setInitParameter("dirAllowed", "false");
                 context.addServlet(defaultServlet, "/");
 
-                server.setHandler(context);
+                // 지표 (Prometheus 텍스트 형식), 매칭/시그널링 추적 구간 (JSON): 관리용 커넥터에서만
+                ServletContextHandler adminContext = new ServletContextHandler();
+                adminContext.setContextPath("/");
+                adminContext.setVirtualHosts(new String[]{"@" + ADMIN_CONNECTOR});
+                adminContext.addServlet(new ServletHolder(new MetricsServlet()), "/metrics");
+                adminContext.addServlet(new ServletHolder(new TraceServlet()), "/traces");
+                context.setVirtualHosts(new String[]{"@" + PUBLIC_CONNECTOR});
+                connector.setName(PUBLIC_CONNECTOR);
+
+                server.setHandler(new ContextHandlerCollection(adminContext, context));
                 
                 // 서버 시작 (동기적으로 완료될 때까지 대기)
                 System.out.println("서버 시작 중... (포트: " + targetPort + ")");
                 server.start();
+                System.out.println("관리용 주소 (/metrics, /traces): http://" + adminConnector.getHost() + ":" + adminConnector.getLocalPort());
                 
                 // 성공적으로 시작되면 루프 종료
                 break;
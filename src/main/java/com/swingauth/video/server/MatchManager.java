@@ -1,18 +1,81 @@
 package com.swingauth.video.server;
 
+import com.swingauth.cluster.ClusterBackend;
+import com.swingauth.cluster.ClusterBackends;
+import com.swingauth.cluster.ClusterMatchBridge;
+import com.swingauth.cluster.ClusterWaiter;
 import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.matching.CachedExclusion;
+import com.swingauth.matching.MatchPolicy;
+import com.swingauth.matching.Matchmaker;
+import com.swingauth.matching.PairExclusionIndex;
+import com.swingauth.matching.Relaxation;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.Histogram;
+import com.swingauth.metrics.MetricRegistry;
+import com.swingauth.service.AutoBanEngine;
+import com.swingauth.service.RatingAggregates;
+import com.swingauth.service.RatingSnapshot;
+import com.swingauth.service.SessionTokens;
+import com.swingauth.tracing.Span;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
 import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.json.JSONObject;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class MatchManager {
-    private static final MatchManager instance = new MatchManager();
-    private final Queue<MatchSocket> waitingQueue = new LinkedList<>();
+    private static final long FAILED_PAIR_TTL_MILLIS = 10 * 60 * 1000L; // 실패 기록 유지 시간 (10분)
+    private static final long STEAL_AFTER_MILLIS = 3000; // 이 시간 이상 기다리면 다른 샤드(지역)와도 매칭
+    // 샤드 수 (기본: CPU 코어 수), 샤드 기준 ("region" 또는 "hash")
+    private static final int SHARD_COUNT = Integer.getInteger("match.shards", Runtime.getRuntime().availableProcessors());
+    private static final boolean SHARD_BY_REGION = !"hash".equalsIgnoreCase(System.getProperty("match.shardBy", "region"));
+    // 대기 직후에는 평균 평점 4점 이상인 쌍만 매칭, 기다릴수록 기준을 낮춰 SLA 시점에는 매칭 가능한 누구와도 매칭
+    private static final double MIN_PAIR_SCORE = Double.parseDouble(System.getProperty("match.minScore", "4.0"));
+    private static final long WAIT_SLA_MILLIS = Long.getLong("match.slaMillis", 10_000L);
+    private static final int WAIT_LOG_EVERY = 100; // 대기 시간 기록 N건마다 분포 로그
+    // 다중 노드 구성 시 이 시간 이상 노드 안에서 매칭되지 못하면 공용 대기열로 넘김
+    private static final long CLUSTER_EXPORT_AFTER_MILLIS = Long.getLong("cluster.exportAfterMillis", 5000L);
+    private static final String VIDEO_SERVICE_TYPE = "randomVideo"; // 쌍 평점/블랙리스트 판정 기준
+    private static final Logger log = Logger.get(MatchManager.class);
+    private static final MatchManager instance = new MatchManager(); // 설정 상수 초기화 이후에 생성
+
     private final Map<String, Room> rooms = new ConcurrentHashMap<>();
-    private final Map<String, MatchSocket> sockets = new ConcurrentHashMap<>();
     private final Map<String, String> userIdToUsername = new ConcurrentHashMap<>(); // userId -> username
-    private final Set<String> failedPairs = new HashSet<>(); // 매칭 실패한 유저 쌍 기록 (무한 루프 방지)
+    private final Map<String, MatchSocket> registeredSockets = new ConcurrentHashMap<>(); // userId -> 등록된 소켓 (정지 시 세션 종료용)
+    private final Map<String, String> userIdToRegion = new ConcurrentHashMap<>(); // userId -> 샤드 키(지역)
+    private final RatingSnapshot ratingSnapshot = RatingSnapshot.getInstance(); // 쌍 평점 (제출 즉시 반영)
+    private final Map<String, Double> ratingCache = new ConcurrentHashMap<>(); // username -> 평균 평점 (대기 중에만 유지)
+    private final PairExclusionIndex failedPairs = new PairExclusionIndex(FAILED_PAIR_TTL_MILLIS); // 매칭 실패한 유저 쌍 기록 (무한 루프 방지)
+    // 영상통화 매칭 규칙: 블랙리스트 쌍 제외 (실패 기록에 캐시) + 평균 평점 높은 쌍 우선
+    private final VideoMatchListener videoMatchListener = new VideoMatchListener();
+    private final Matchmaker<MatchSocket> matchmaker = new Matchmaker<>(
+        "video", SHARD_COUNT, STEAL_AFTER_MILLIS,
+        MatchPolicy.of(MatchSocket::isOpen,
+            new CachedExclusion<>(failedPairs, MatchSocket::getUserId, this::isPairBlacklisted),
+            this::pairScore),
+        new Relaxation(MIN_PAIR_SCORE, WAIT_SLA_MILLIS),
+        videoMatchListener);
+    private final ClusterMatchBridge<MatchSocket> cluster = createClusterBridge(); // 단일 노드면 null
+
+    // 지표 (매칭/방/평점 조회)
+    private final MetricRegistry metrics = MetricRegistry.getInstance();
+    private final Counter localMatches = metrics.counter("video_matches_total", "영상통화 매칭 수", "scope", "local");
+    private final Counter remoteMatches = metrics.counter("video_matches_total", "영상통화 매칭 수", "scope", "remote");
+    private final Histogram averageRatingLookupMillis = metrics.histogram(
+        "video_rating_lookup_millis", "매칭 중 평점 조회 소요 시간(ms)", "query", "average");
+    private final Histogram pairRatingLookupMillis = metrics.histogram(
+        "video_rating_lookup_millis", "매칭 중 평점 조회 소요 시간(ms)", "query", "pair");
+
+    private MatchManager() {
+        metrics.gauge("video_queue_waiting", "영상통화 대기 인원", matchmaker::size);
+        metrics.gauge("video_rooms", "진행 중인 영상통화 방 수", rooms::size);
+        metrics.histogram("video_match_wait_millis", "영상통화 매칭까지 대기 시간(ms)", matchmaker.getWaitTimes());
+        AutoBanEngine.getInstance().addListener(this::onBanned);
+    }
     
     // 매칭을 위한 username 가져오기 (맵에서 먼저 확인)
     private String getUsernameForMatching(MatchSocket socket) {
@@ -33,229 +96,379 @@ public class MatchManager {
     public static MatchManager getInstance() {
         return instance;
     }
+
+    /**
+     * 토큰으로 확인된 사용자의 ObjectId (토큰 없이 등록했으면 null -> username으로 조회)
+     */
+    private static ObjectId accountIdOf(MatchSocket socket) {
+        SessionTokens.Claims claims = socket.getClaims();
+        return claims != null ? claims.userId : null;
+    }
     
-    public void registerUsername(String userId, String username) {
-        if (userId != null && username != null) {
-            userIdToUsername.put(userId, username);
+    /**
+     * 토큰으로 확인된 사용자 등록 (정지된 계정이면 banned를 보내고 연결 종료)
+     * - 등록을 먼저 하고 정지 여부를 확인하므로, 확인 중에 정지돼도 onBanned가 이 소켓을 찾음
+     * - 정지 여부를 확인하지 못하면(DB 오류) 토큰 확인 실패와 같이 등록하지 않음
+     * @return 등록됐으면 true
+     */
+    public boolean registerUsername(MatchSocket socket) {
+        String userId = socket.getUserId();
+        String username = socket.getUsername();
+        if (userId == null || username == null) return false;
+        userIdToUsername.put(userId, username);
+        registeredSockets.put(userId, socket);
+        // 다른 프로세스(앱)에서 정지된 계정도 받도록 첫 등록 때 확인 시작 (이후 호출은 무시됨)
+        AutoBanEngine.getInstance().startWatching();
+
+        String banReason;
+        try {
+            banReason = AutoBanEngine.getInstance().banReason(accountIdOf(socket), username);
+        } catch (Exception e) {
+            log.warn("정지 여부 확인 실패, 등록 거부: {} ({})", username, e.getMessage());
+            unregister(userId, socket);
+            return false;
+        }
+        if (banReason != null) {
+            log.info("정지된 계정 등록 거부: {} (userId={})", username, userId);
+            unregister(userId, socket);
+            socket.closeBanned(banReason);
+            return false;
         }
+        return true;
     }
 
-    public synchronized void enqueue(MatchSocket socket) {
-        String userId = socket.getUserId();
-        
-        // 이미 대기열에 있거나 소켓이 닫혀있으면 무시
-        if (sockets.containsKey(userId) || !socket.isOpen()) {
-            // 이미 대기열에 있으면 현재 상태만 전송
-            if (sockets.containsKey(userId)) {
-                int queueSize = waitingQueue.size();
-                socket.sendQueueStatus(Math.max(0, queueSize - 1));
-            }
-            return;
+    private void unregister(String userId, MatchSocket socket) {
+        if (registeredSockets.remove(userId, socket)) {
+            userIdToUsername.remove(userId);
         }
-        
-        waitingQueue.offer(socket);
-        sockets.put(userId, socket);
-        int queueSize = waitingQueue.size();
-        
-        // 모든 대기 중인 클라이언트에게 업데이트된 대기열 상태 전송
-        int otherPeopleCount = Math.max(0, queueSize - 1);
-        for (MatchSocket s : waitingQueue) {
-            if (s.isOpen()) {
-                s.sendQueueStatus(otherPeopleCount);
+    }
+
+    /**
+     * 자동 블랙리스트로 정지된 계정의 접속 종료 (통화 중이면 상대에게 통화 종료 전달, 중복 호출 안전)
+     */
+    private void onBanned(String username, String reason) {
+        for (MatchSocket socket : registeredSockets.values()) {
+            if (!username.equals(socket.getUsername())) continue;
+            for (Room room : rooms.values()) {
+                if (room.user1 == socket || room.user2 == socket) {
+                    endCall(room, socket);
+                }
             }
+            log.info("정지된 계정 접속 종료: {} (userId={})", username, socket.getUserId());
+            socket.closeBanned(reason);
         }
-        
-        // 대기열에 추가된 후 매칭 시도
-        tryMatch();
     }
 
-    public synchronized void dequeue(MatchSocket socket) {
+    public void enqueue(MatchSocket socket) {
+        // 소켓이 닫혀있으면 무시
+        if (!socket.isOpen()) return;
+
         String userId = socket.getUserId();
-        MatchSocket existing = sockets.get(userId);
-        if (existing != null) {
-            waitingQueue.remove(existing);
-            sockets.remove(userId);
-            
-            // 남은 대기 중인 클라이언트에게 업데이트된 상태 전송
-            int otherPeopleCount = Math.max(0, waitingQueue.size() - 1);
-            for (MatchSocket s : waitingQueue) {
-                if (s.isOpen()) {
-                    s.sendQueueStatus(otherPeopleCount);
+        if (!matchmaker.enqueue(userId, socket, shardKeyFor(socket))) {
+            // 이미 대기열에 있으면 현재 상태만 전송
+            socket.sendQueueStatus(Math.max(0, matchmaker.size() - 1));
+        }
+        // 대기열 상태 전송과 매칭 시도는 담당 샤드 스레드에서 처리
+    }
+
+    public void dequeue(MatchSocket socket) {
+        // 대기열에서 제거 (남은 대기자 상태 전송은 샤드 스레드에서 처리)
+        matchmaker.cancel(socket.getUserId());
+        if (cluster != null) cluster.withdraw(socket.getUserId());
+    }
+
+    /**
+     * 모든 샤드의 대기열을 다시 검사하여 매칭을 시도합니다.
+     */
+    public void tryMatch() {
+        matchmaker.sweep();
+    }
+
+    /**
+     * 샤드 선택 키: 유저의 지역(region). 모르면 null (userId 해시로 분배)
+     */
+    private String shardKeyFor(MatchSocket socket) {
+        if (!SHARD_BY_REGION || matchmaker.getShardCount() == 1) return null;
+        String userId = socket.getUserId();
+        String region = userIdToRegion.get(userId);
+        if (region != null) return region.isEmpty() ? null : region;
+
+        region = "";
+        SessionTokens.Claims claims = socket.getClaims();
+        String username = getUsernameForMatching(socket);
+        if (claims != null && claims.userId != null) {
+            // 토큰에 로그인 시점의 지역이 있으므로 조회 생략
+            if (claims.region != null) region = claims.region;
+        } else if (!"unknown".equals(username)) {
+            Span span = socket.getQueueSpan().child("mongo.regionLookup");
+            try {
+                Document userDoc = Mongo.users()
+                    .find(Filters.eq("username", username))
+                    .projection(Projections.include("region"))
+                    .first();
+                if (userDoc != null && userDoc.getString("region") != null) {
+                    region = userDoc.getString("region");
                 }
+            } catch (Exception e) {
+                // 조회 실패 시 해시 분배
+            } finally {
+                span.end();
             }
         }
-        // 대기열에서 제거된 후 다른 사용자들과 매칭 시도
-        tryMatch();
+        userIdToRegion.put(userId, region);
+        return region.isEmpty() ? null : region;
     }
 
-    public synchronized void tryMatch() {
-        // 먼저 연결이 끊어진 소켓들을 대기열에서 제거
-        List<MatchSocket> toRemove = new ArrayList<>();
-        for (MatchSocket socket : waitingQueue) {
-            if (!socket.isOpen() || !sockets.containsKey(socket.getUserId())) {
-                toRemove.add(socket);
-            }
+    /**
+     * 대기 중인 유저의 평균 평점 (대기하는 동안 캐시)
+     */
+    private double getCachedAverageRating(MatchSocket socket) {
+        String username = getUsernameForMatching(socket);
+        Double cached = ratingCache.get(username);
+        if (cached != null) return cached;
+        Span span = socket.getQueueSpan().child("mongo.averageRating").tag("username", username);
+        ObjectId accountId = accountIdOf(socket);
+        double rating = accountId != null ? getAverageRating(accountId) : getAverageRating(username);
+        span.end();
+        ratingCache.put(username, rating);
+        return rating;
+    }
+
+    /**
+     * 이전에 만났고 쌍 평균 평점이 2점 이하면 매칭 불가 (블랙리스트)
+     */
+    private boolean isPairBlacklisted(MatchSocket u1, MatchSocket u2) {
+        ObjectId id1 = accountIdOf(u1);
+        ObjectId id2 = accountIdOf(u2);
+        if (id1 == null || id2 == null) {
+            return isPairBlacklisted(getUsernameForMatching(u1), getUsernameForMatching(u2), u1.getQueueSpan());
         }
-        waitingQueue.removeAll(toRemove);
-        
-        // 대기열에 2명 이상이 있으면 매칭 시도
-        // 조건: 두 사용자의 평균 평점이 4점 이상이면 매칭
-        while (waitingQueue.size() >= 2) {
-            List<MatchSocket> queueList = new ArrayList<>(waitingQueue);
-            MatchSocket user1 = null;
-            MatchSocket user2 = null;
-            double bestCombinedAvg = -1;
-            
-            // 모든 가능한 쌍을 확인하여 매칭 가능한 쌍 중 평균 평점이 가장 높은 쌍을 찾기
-            for (int i = 0; i < queueList.size(); i++) {
-                for (int j = i + 1; j < queueList.size(); j++) {
-                    MatchSocket u1 = queueList.get(i);
-                    MatchSocket u2 = queueList.get(j);
-                    
-                    if (!u1.isOpen() || !u2.isOpen()) continue;
-                    
-                    String u1Username = getUsernameForMatching(u1);
-                    String u2Username = getUsernameForMatching(u2);
-                    
-                    // 이 두 유저 쌍의 기존 평점 확인 (이전에 만난 적 있는 경우)
-                    double pairAvg = getPairAverageRating(u1Username, u2Username);
-                    if (pairAvg >= 0 && pairAvg <= 2.0) {
-                        // 이전에 만났고, 평균 평점이 2점 이하면 매칭 불가
-                        continue;
-                    }
-                    
-                    double u1Rating = getAverageRating(u1Username);
-                    double u2Rating = getAverageRating(u2Username);
-                    double combinedAvg = (u1Rating + u2Rating) / 2.0;
-                    
-                    // 매칭 가능한 쌍 중 평균 평점이 가장 높은 쌍 선택
-                    if (combinedAvg > bestCombinedAvg) {
-                        user1 = u1;
-                        user2 = u2;
-                        bestCombinedAvg = combinedAvg;
-                    }
-                }
-            }
-            
-            // 매칭 가능한 쌍을 찾지 못했으면 대기
-            if (user1 == null || user2 == null) {
-                break;
-            }
-            
-            // 선택된 쌍을 대기열에서 제거
-            waitingQueue.remove(user1);
-            waitingQueue.remove(user2);
-            
-            // 유효성 검사
-            if (user1 == null || user2 == null) {
-                if (user1 != null) waitingQueue.offer(user1);
-                if (user2 != null) waitingQueue.offer(user2);
-                break;
-            }
-            
-            if (!user1.isOpen() || !user2.isOpen()) {
-                if (user1.isOpen() && sockets.containsKey(user1.getUserId())) {
-                    waitingQueue.offer(user1);
-                }
-                if (user2.isOpen() && sockets.containsKey(user2.getUserId())) {
-                    waitingQueue.offer(user2);
-                }
-                continue;
-            }
-            
-            // username 가져오기 (맵에서 먼저 확인, 없으면 MatchSocket의 username 필드 확인)
-            String user1Username = userIdToUsername.get(user1.getUserId());
-            if (user1Username == null || user1Username.isEmpty() || "unknown".equals(user1Username)) {
-                user1Username = user1.getUsername();
-                if (user1Username != null && !user1Username.isEmpty() && !"unknown".equals(user1Username)) {
-                    // MatchSocket의 username이 있으면 맵에도 저장
-                    userIdToUsername.put(user1.getUserId(), user1Username);
-                } else {
-                    user1Username = "unknown";
-                }
-            }
-            
-            String user2Username = userIdToUsername.get(user2.getUserId());
-            if (user2Username == null || user2Username.isEmpty() || "unknown".equals(user2Username)) {
-                user2Username = user2.getUsername();
-                if (user2Username != null && !user2Username.isEmpty() && !"unknown".equals(user2Username)) {
-                    // MatchSocket의 username이 있으면 맵에도 저장
-                    userIdToUsername.put(user2.getUserId(), user2Username);
-                } else {
-                    user2Username = "unknown";
-                }
-            }
-            
+        Span span = u1.getQueueSpan().child("mongo.pairRating").tag("partner", getUsernameForMatching(u2));
+        double pairAvg = getPairAverageRating(getUsernameForMatching(u1), id1, getUsernameForMatching(u2), id2);
+        span.end();
+        return pairAvg >= 0 && pairAvg <= 2.0;
+    }
+
+    private boolean isPairBlacklisted(String username1, String username2, Span parent) {
+        Span span = parent.child("mongo.pairRating").tag("partner", username2);
+        double pairAvg = getPairAverageRating(username1, username2);
+        span.end();
+        return pairAvg >= 0 && pairAvg <= 2.0;
+    }
+
+    /**
+     * 매칭 가능한 쌍 중 두 사용자의 평균 평점이 높은 쌍 우선
+     */
+    private double pairScore(MatchSocket u1, MatchSocket u2) {
+        double u1Rating = getCachedAverageRating(u1);
+        double u2Rating = getCachedAverageRating(u2);
+        return (u1Rating + u2Rating) / 2.0;
+    }
+
+    /**
+     * 로그용 소수점 한 자리 반올림 (String.format 없이 매칭 스레드에서 바로 계산)
+     */
+    private static double oneDecimal(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+
+    private class VideoMatchListener implements Matchmaker.Listener<MatchSocket> {
+        @Override
+        public void onMatched(MatchSocket user1, MatchSocket user2) {
+            String user1Username = getUsernameForMatching(user1);
+            String user2Username = getUsernameForMatching(user2);
+
             // 평점 체크: 두 사용자의 평균 평점 계산
-            double user1AvgRating = getAverageRating(user1Username);
-            double user2AvgRating = getAverageRating(user2Username);
-            double ratingSum = user1AvgRating + user2AvgRating;
-            double combinedAvgRating = ratingSum / 2.0;
-            
-            // 유저 쌍 키 생성 (정렬하여 항상 같은 순서로)
-            String pairKey = user1.getUserId().compareTo(user2.getUserId()) < 0 
-                ? user1.getUserId() + "_" + user2.getUserId()
-                : user2.getUserId() + "_" + user1.getUserId();
-            
-            // 이미 매칭 실패한 쌍이면 건너뛰기 (무한 루프 방지)
-            if (failedPairs.contains(pairKey)) {
-                if (user1.isOpen() && sockets.containsKey(user1.getUserId())) {
-                    waitingQueue.offer(user1);
-                }
-                continue;
-            }
-            
-            // 이 두 유저 쌍의 기존 평점이 2점 이하면 매칭하지 않음
-            double pairAvgRating = getPairAverageRating(user1Username, user2Username);
-            if (pairAvgRating >= 0 && pairAvgRating <= 2.0) {
-                failedPairs.add(pairKey);
-                if (user1.isOpen() && sockets.containsKey(user1.getUserId())) {
-                    waitingQueue.offer(user1);
-                }
-                if (user2.isOpen() && sockets.containsKey(user2.getUserId())) {
-                    waitingQueue.offer(user2);
-                }
-                continue;
-            }
-            
-            // 매칭 성공 시 실패 기록에서 제거
-            failedPairs.remove(pairKey);
-            
-            // 두 사용자가 모두 유효하고 평점 조건을 만족하면 매칭
-            String roomId = UUID.randomUUID().toString();
-            
+            Span span1 = user1.getQueueSpan();
+            Span span2 = user2.getQueueSpan();
+            double user1AvgRating = getCachedAverageRating(user1);
+            double user2AvgRating = getCachedAverageRating(user2);
+            double combinedAvgRating = (user1AvgRating + user2AvgRating) / 2.0;
+
+            // 매칭 성공 시 실패 기록/평점 캐시에서 제거 (통화 후 평점이 바뀜)
+            failedPairs.remove(user1.getUserId(), user2.getUserId());
+            ratingCache.remove(user1Username);
+            ratingCache.remove(user2Username);
+
             // 매칭 로그 출력
-            System.out.println("[매칭] " + user1Username + "(" + String.format("%.1f", user1AvgRating) + ") ↔ " + 
-                             user2Username + "(" + String.format("%.1f", user2AvgRating) + ") [평균: " + String.format("%.1f", combinedAvgRating) + "]");
+            log.info("{}({}) ↔ {}({}) [평균: {}]", user1Username, oneDecimal(user1AvgRating),
+                user2Username, oneDecimal(user2AvgRating), oneDecimal(combinedAvgRating));
             
             // 두 유저의 영상통화 횟수 증가
-            incrementVideoCallCount(user1Username);
-            incrementVideoCallCount(user2Username);
+            incrementVideoCallCount(accountIdOf(user1), user1Username, span1);
+            incrementVideoCallCount(accountIdOf(user2), user2Username, span2);
             
-            Room room = new Room(roomId, user1, user2);
-            rooms.put(roomId, room);
+            Room room = createRoom(user1, user2);
+            localMatches.increment();
 
             // partnerUsername을 포함하여 전송
-            user1.sendMatched(roomId, user2.getUserId(), user2Username);
-            user2.sendMatched(roomId, user1.getUserId(), user1Username);
+            sendMatched(user1, span1, room.roomId, user2.getUserId(), user2Username);
+            sendMatched(user2, span2, room.roomId, user1.getUserId(), user1Username);
+            span1.tag("roomId", room.roomId).tag("partnerTraceId", span2.getTraceId());
+            span2.tag("roomId", room.roomId).tag("partnerTraceId", span1.getTraceId());
+            user1.endQueueSpan("matched");
+            user2.endQueueSpan("matched");
+
+            Histogram waitTimes = matchmaker.getWaitTimes();
+            if (waitTimes.getCount() % WAIT_LOG_EVERY == 0) {
+                log.info("대기 시간(ms) {} (SLA {}ms)", waitTimes.snapshot(), WAIT_SLA_MILLIS);
+            }
+        }
+
+        @Override
+        public void onQueueChanged(int shard, List<MatchSocket> shardWaiting, int totalWaiting) {
+            // 같은 샤드에서 대기 중인 클라이언트에게 업데이트된 대기열 상태 전송
+            int otherPeopleCount = Math.max(0, totalWaiting - 1);
+            for (MatchSocket s : shardWaiting) {
+                if (s.isOpen()) {
+                    s.sendQueueStatus(otherPeopleCount);
+                }
+            }
+        }
+
+        @Override
+        public void onScanned(MatchSocket participant, int candidates, long elapsedNanos) {
+            // 상대 탐색(제외/점수 계산, 캐시 안 된 평점 조회 포함)의 횟수/시간을 대기 구간에 누적
+            participant.getQueueSpan()
+                .add("scans", 1)
+                .add("scanCandidates", candidates)
+                .add("scanMicros", elapsedNanos / 1000);
         }
     }
+
+    private void sendMatched(MatchSocket socket, Span parent, String roomId, String peerId, String partnerUsername) {
+        Span span = parent.child("ws.sendMatched");
+        socket.sendMatched(roomId, peerId, partnerUsername);
+        span.end();
+    }
     
     /**
      * 유저의 영상통화 횟수를 1 증가시킵니다.
+     * @param accountId 토큰으로 확인된 ObjectId (없으면 username으로 찾음)
      * @param username 유저명
      */
-    private void incrementVideoCallCount(String username) {
+    private void incrementVideoCallCount(ObjectId accountId, String username, Span parent) {
+        Span span = parent.child("mongo.incrementVideoCallCount");
         try {
+            // 판정은 하지 않음: 막 시작한 통화는 아직 평점이 없어 평균만 낮아 보이므로,
+            // 영상통화 평균 평점 기준은 평점이 저장될 때(RatingIngestQueue) 판정
             Mongo.users().updateOne(
-                Filters.eq("username", username),
+                accountId != null ? Filters.eq("_id", accountId) : Filters.eq("username", username),
                 new Document("$inc", new Document("videoCallCount", 1))
             );
         } catch (Exception e) {
             // 로그 생략
+            span.tag("error", e.getClass().getSimpleName());
+        } finally {
+            span.end();
         }
     }
 
+    /**
+     * 매칭된 유저의 대기 시간 분포 (ms, 부하 상황에서 SLA/기준 점수 조정용)
+     */
+    public Histogram.Snapshot getWaitTimeSnapshot() {
+        return matchmaker.getWaitTimes().snapshot();
+    }
+
+    /**
+     * 다중 노드 설정(cluster.mode)이 있으면 노드 간 매칭 연결 생성
+     */
+    private ClusterMatchBridge<MatchSocket> createClusterBridge() {
+        ClusterBackend backend = ClusterBackends.shared();
+        if (backend == null) return null;
+        return new ClusterMatchBridge<>(backend, "video", matchmaker,
+            MatchSocket::isOpen, this::getUsernameForMatching,
+            (a, b) -> isPairBlacklisted(a.getUsername(), b.getUsername(), Span.NOOP),
+            CLUSTER_EXPORT_AFTER_MILLIS, new VideoClusterListener());
+    }
+
+    /**
+     * 다른 노드와의 매칭/중계 메시지 처리
+     */
+    private class VideoClusterListener implements ClusterMatchBridge.Listener<MatchSocket> {
+        @Override
+        public void onLocalMatched(MatchSocket first, MatchSocket second) {
+            videoMatchListener.onMatched(first, second);
+        }
+
+        @Override
+        public void onRemoteMatched(String pairId, MatchSocket local, ClusterWaiter remote) {
+            String localUsername = getUsernameForMatching(local);
+            ratingCache.remove(localUsername);
+            log.info("{} ↔ {} (노드 {})", localUsername, remote.getUsername(), remote.getNodeId());
+
+            // 영상통화 횟수는 각 노드가 자기 접속자 것만 증가
+            Span span = local.getQueueSpan().tag("roomId", pairId).tag("remoteNode", remote.getNodeId());
+            incrementVideoCallCount(accountIdOf(local), localUsername, span);
+            rooms.put(pairId, new Room(pairId, local, remote.getKey(), remote.getNodeId()));
+            remoteMatches.increment();
+            sendMatched(local, span, pairId, remote.getKey(), remote.getUsername());
+            local.endQueueSpan("matched");
+        }
+
+        @Override
+        public void onRelay(String fromNode, JSONObject message) {
+            String type = message.optString("type");
+            String roomId = message.optString("pairId", null);
+            Room room = roomId != null ? rooms.get(roomId) : null;
+            if (room == null) return;
+
+            if ("rtc".equals(type)) {
+                if (room.user1.isOpen()) room.user1.sendMessage(message.getString("message"));
+            } else if ("pairEnded".equals(type)) {
+                rooms.remove(roomId);
+                if (room.user1.isOpen()) room.user1.sendMessage("{\"type\":\"callEnded\"}");
+            }
+        }
+    }
+
+    /**
+     * 같은 방의 상대에게 메시지 전달 (상대가 다른 노드에 있으면 중계)
+     */
+    public void forward(Room room, MatchSocket from, String message) {
+        if (room.isRemote()) {
+            if (cluster != null) {
+                cluster.relay(room.remoteNode, new JSONObject()
+                    .put("type", "rtc").put("pairId", room.roomId).put("message", message));
+            }
+            return;
+        }
+        MatchSocket other = (room.user1 == from) ? room.user2 : room.user1;
+        if (other != null && other.isOpen()) {
+            other.sendMessage(message);
+        }
+    }
+
+    /**
+     * 통화 종료: 상대에게 알리고 방 제거
+     */
+    public void endCall(Room room, MatchSocket from) {
+        if (room.isRemote()) {
+            if (cluster != null) {
+                cluster.relay(room.remoteNode, new JSONObject()
+                    .put("type", "pairEnded").put("pairId", room.roomId));
+                try {
+                    cluster.getBackend().removeRoom(room.roomId);
+                } catch (Exception e) {
+                    // 방 목록 정리 실패는 무시 (다음 매칭에 영향 없음)
+                }
+            }
+        } else {
+            forward(room, from, "{\"type\":\"callEnded\"}");
+        }
+        removeRoom(room.roomId);
+    }
+
+    /**
+     * 같은 노드의 두 유저로 새 방을 만듭니다.
+     */
+    public Room createRoom(MatchSocket user1, MatchSocket user2) {
+        Room room = new Room(UUID.randomUUID().toString(), user1, user2);
+        rooms.put(room.roomId, room);
+        return room;
+    }
+
     public Room getRoom(String roomId) {
         return rooms.get(roomId);
     }
@@ -264,25 +477,19 @@ public class MatchManager {
         rooms.remove(roomId);
     }
 
-    public synchronized void removeSocket(String userId) {
-        MatchSocket socket = sockets.remove(userId);
-        if (socket != null) {
-            waitingQueue.remove(socket);
-            
-            // 해당 유저와 관련된 failedPairs 기록 삭제 (재연결 시 다시 매칭 가능하도록)
-            failedPairs.removeIf(pairKey -> pairKey.contains(userId));
-            
-            // 남은 대기 중인 클라이언트에게 업데이트된 상태 전송
-            int otherPeopleCount = Math.max(0, waitingQueue.size() - 1);
-            for (MatchSocket s : waitingQueue) {
-                if (s.isOpen()) {
-                    s.sendQueueStatus(otherPeopleCount);
-                }
-            }
-            
-            // 대기열에서 제거된 후 다른 사용자들과 매칭 시도
-            tryMatch();
+    public void removeSocket(String userId) {
+        // 대기열에서 제거 (남은 대기자 상태 전송은 샤드 스레드에서 처리)
+        matchmaker.cancel(userId);
+        if (cluster != null) cluster.withdraw(userId);
+        userIdToRegion.remove(userId);
+        registeredSockets.remove(userId);
+        String username = userIdToUsername.get(userId);
+        if (username != null) {
+            ratingCache.remove(username);
         }
+
+        // 해당 유저와 관련된 failedPairs 기록 삭제 (재연결 시 다시 매칭 가능하도록)
+        failedPairs.removeUser(userId);
     }
 
     /**
@@ -292,59 +499,46 @@ public class MatchManager {
      * @return 해당 쌍의 평균 평점 (기록 없으면 -1 반환)
      */
     private double getPairAverageRating(String username1, String username2) {
+        return getPairAverageRating(username1, null, username2, null);
+    }
+
+    /**
+     * 두 유저 쌍의 평균 평점 (스냅샷에 없을 때만 DB 조회, ObjectId를 알면 사용자 조회 생략)
+     * - 방금 제출되어 아직 저장 중인 평점도 스냅샷에 반영되어 있음
+     */
+    private double getPairAverageRating(String username1, ObjectId objId1, String username2, ObjectId objId2) {
+        long startNanos = System.nanoTime();
         try {
-            // username으로 ObjectId 조회
-            Document userDoc1 = Mongo.users().find(Filters.eq("username", username1)).first();
-            Document userDoc2 = Mongo.users().find(Filters.eq("username", username2)).first();
-            
-            if (userDoc1 == null || userDoc2 == null) return -1;
-            
-            Object id1 = userDoc1.get("_id");
-            Object id2 = userDoc2.get("_id");
-            
-            if (!(id1 instanceof org.bson.types.ObjectId) || !(id2 instanceof org.bson.types.ObjectId)) return -1;
-            
-            org.bson.types.ObjectId objId1 = (org.bson.types.ObjectId) id1;
-            org.bson.types.ObjectId objId2 = (org.bson.types.ObjectId) id2;
-            
-            // user1Id, user2Id 정렬 (일관된 순서로)
-            org.bson.types.ObjectId sortedId1, sortedId2;
-            if (objId1.compareTo(objId2) < 0) {
-                sortedId1 = objId1;
-                sortedId2 = objId2;
-            } else {
-                sortedId1 = objId2;
-                sortedId2 = objId1;
-            }
-            
-            // ratings 컬렉션에서 해당 유저 쌍의 문서 조회
-            Document ratingDoc = Mongo.ratings().find(
-                Filters.and(
-                    Filters.eq("user1Id", sortedId1),
-                    Filters.eq("user2Id", sortedId2)
-                )
-            ).first();
-            
-            if (ratingDoc == null) return -1; // 기록 없음
-            
-            // averageRating 조회
-            Object avgRating = ratingDoc.get("averageRating");
-            if (avgRating instanceof Number) {
-                return ((Number) avgRating).doubleValue();
-            }
-            
-            return -1;
+            return ratingSnapshot.pairAverage(VIDEO_SERVICE_TYPE, username1, username2,
+                () -> loadPairTotals(username1, objId1, username2, objId2));
         } catch (Exception e) {
             return -1;
+        } finally {
+            pairRatingLookupMillis.record((System.nanoTime() - startNanos) / 1_000_000);
         }
     }
 
+    private double[] loadPairTotals(String username1, ObjectId objId1, String username2, ObjectId objId2) {
+        ObjectId id1 = objId1 != null ? objId1 : findUserId(username1);
+        ObjectId id2 = objId2 != null ? objId2 : findUserId(username2);
+        if (id1 == null || id2 == null) return new double[]{0, 0}; // 기록 없음
+        return RatingAggregates.pairTotals(id1, id2, VIDEO_SERVICE_TYPE);
+    }
+
+    private static ObjectId findUserId(String username) {
+        Document userDoc = Mongo.users().find(Filters.eq("username", username))
+            .projection(Projections.include("_id"))
+            .first();
+        return userDoc != null && userDoc.get("_id") instanceof ObjectId ? userDoc.getObjectId("_id") : null;
+    }
+
     /**
-     * 사용자의 평균 평점을 실시간으로 계산합니다.
+     * 사용자가 받은 평균 평점 (rating_aggregates 집계에서 조회)
      * @param username 사용자명
      * @return 평균 평점 (없으면 5.0)
      */
     private double getAverageRating(String username) {
+        long startNanos = System.nanoTime();
         try {
             Document userDoc = Mongo.users().find(Filters.eq("username", username)).first();
             if (userDoc == null) return 5.0;
@@ -352,40 +546,59 @@ public class MatchManager {
             Object id = userDoc.get("_id");
             if (!(id instanceof org.bson.types.ObjectId)) return 5.0;
             
-            org.bson.types.ObjectId userId = (org.bson.types.ObjectId) id;
-            
-            // 해당 사용자가 참여한 모든 유저 쌍의 averageRating을 합산
-            double sum = 0.0;
-            int count = 0;
-            
-            for (Document doc : Mongo.ratings().find(
-                Filters.or(
-                    Filters.eq("user1Id", userId),
-                    Filters.eq("user2Id", userId)
-                )
-            )) {
-                Object avgRating = doc.get("averageRating");
-                if (avgRating != null && avgRating instanceof Number) {
-                    sum += ((Number) avgRating).doubleValue();
-                    count++;
-                }
-            }
-            
-            return count > 0 ? sum / count : 5.0;
+            return sumAverageRating((org.bson.types.ObjectId) id);
+        } catch (Exception e) {
+            return 5.0;
+        } finally {
+            averageRatingLookupMillis.record((System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    /**
+     * 사용자의 평균 평점 (ObjectId를 이미 알 때, 사용자 조회 없이 평점 문서만 조회)
+     */
+    private double getAverageRating(ObjectId userId) {
+        long startNanos = System.nanoTime();
+        try {
+            return sumAverageRating(userId);
         } catch (Exception e) {
             return 5.0;
+        } finally {
+            averageRatingLookupMillis.record((System.nanoTime() - startNanos) / 1_000_000);
         }
     }
 
+    private double sumAverageRating(ObjectId userId) {
+        // 받은 평점 집계(서비스별 문서 최대 2개)만 읽음, 평점 이력 길이와 무관
+        double average = RatingAggregates.userAverage(userId);
+        return average >= 0 ? average : 5.0;
+    }
+
     public static class Room {
         public final String roomId;
         public final MatchSocket user1;
-        public final MatchSocket user2;
+        public final MatchSocket user2; // 상대가 다른 노드에 있으면 null
+        public final String remotePeerId; // 다른 노드 상대의 userId
+        public final String remoteNode;   // 다른 노드 상대가 접속한 노드
 
         public Room(String roomId, MatchSocket user1, MatchSocket user2) {
             this.roomId = roomId;
             this.user1 = user1;
             this.user2 = user2;
+            this.remotePeerId = null;
+            this.remoteNode = null;
+        }
+
+        public Room(String roomId, MatchSocket local, String remotePeerId, String remoteNode) {
+            this.roomId = roomId;
+            this.user1 = local;
+            this.user2 = null;
+            this.remotePeerId = remotePeerId;
+            this.remoteNode = remoteNode;
+        }
+
+        public boolean isRemote() {
+            return remoteNode != null;
         }
     }
 }
@@ -1,28 +1,72 @@
 package com.swingauth.video.server;
 
-import com.swingauth.db.Mongo;
+import com.swingauth.logging.Logger;
+import com.swingauth.metrics.Counter;
+import com.swingauth.metrics.MetricRegistry;
+import com.swingauth.service.RatingIngestQueue;
+import com.swingauth.service.SessionTokens;
+import com.swingauth.tracing.Span;
+import com.swingauth.tracing.Tracer;
 import com.swingauth.video.server.MatchManager.Room;
-import com.mongodb.client.model.Filters;
-import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.WebSocketListener;
 
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.json.JSONObject;
 
 public class MatchSocket implements WebSocketListener {
+    private static final Logger log = Logger.get(MatchSocket.class);
+
+    // 지표 (클래스 로드 시 한 번 등록, 이후에는 증가/기록만)
+    private static final MetricRegistry metrics = MetricRegistry.getInstance();
+    private static final AtomicInteger openSockets = new AtomicInteger();
+    private static final Counter connections = metrics.counter("video_ws_connections_total", "영상통화 WebSocket 접속 수");
+    private static final Counter rtcMessages = messageCounter("rtc");
+    private static final Counter endCallMessages = messageCounter("endCall");
+    private static final Counter registerMessages = messageCounter("registerUsername");
+    private static final Counter joinMessages = messageCounter("joinQueue");
+    private static final Counter leaveMessages = messageCounter("leaveQueue");
+    private static final Counter ratingMessages = messageCounter("submitRating");
+    private static final Counter otherMessages = messageCounter("other");
+    private static final Counter socketErrors = metrics.counter("video_ws_errors_total", "영상통화 WebSocket 오류 수");
+    private static final Counter sendFailures = metrics.counter("video_ws_send_failures_total", "영상통화 WebSocket 전송 실패 수");
+    private static final Counter ratingsAccepted = metrics.counter("video_ratings_total", "영상통화 평점 제출 결과", "result", "accepted");
+    private static final Counter ratingsRejected = metrics.counter("video_ratings_total", "영상통화 평점 제출 결과", "result", "rejected");
+
+    static {
+        metrics.gauge("video_ws_open", "열려 있는 영상통화 WebSocket 수", openSockets::get);
+    }
+
+    private static Counter messageCounter(String type) {
+        return metrics.counter("video_ws_messages_total", "영상통화 WebSocket 수신 메시지 수 (종류별)", "type", type);
+    }
+
     private Session session;
+    private boolean counted; // openSockets에 포함되어 있는지 (닫힘/오류 중복 감소 방지)
     private String userId;
     private String username;
+    private volatile SessionTokens.Claims claims; // 등록(토큰 확인) 전에는 null
+    // 평점을 남길 수 있는 마지막 통화 상대 username (매칭 때 서버가 기록, 평점 1번 받으면 null)
+    private final AtomicReference<String> ratablePartner = new AtomicReference<>();
     private final MatchManager manager = MatchManager.getInstance();
+    // 추적: 접속 1건 = 추적 1건, 대기열 참가마다 그 아래 video.queue 구간 (매칭/취소/종료 시 끝남)
+    private volatile Span sessionSpan = Span.NOOP;
+    private volatile Span queueSpan;
 
     @Override
     public void onWebSocketConnect(Session session) {
         this.session = session;
         this.userId = UUID.randomUUID().toString();
+        connections.increment();
+        openSockets.incrementAndGet();
+        counted = true;
+        sessionSpan = Tracer.getInstance().startTrace("video.session").tag("userId", userId);
         sendMessage("{\"type\":\"hello\",\"userId\":\"" + userId + "\"}");
     }
 
@@ -31,12 +75,14 @@ public class MatchSocket implements WebSocketListener {
         try {
             // RTC 메시지는 먼저 처리 (JSON 파싱 전에 체크)
             if (message.contains("\"type\":\"rtc.")) {
+                rtcMessages.increment();
                 handleRtcMessage(message);
                 return;
             }
             
             // endCall 메시지도 먼저 체크
             if (message.contains("\"type\":\"endCall\"")) {
+                endCallMessages.increment();
                 handleEndCall(message);
                 return;
             }
@@ -47,21 +93,40 @@ public class MatchSocket implements WebSocketListener {
                 String type = json.optString("type", "");
                 
                 if ("registerUsername".equals(type)) {
-                    this.username = json.optString("username", null);
-                    if (this.username != null && !this.username.isEmpty() && !"unknown".equals(this.username)) {
-                        manager.registerUsername(userId, username);
-                        System.out.println("[MatchSocket] Username 등록됨: userId=" + userId + ", username=" + this.username);
+                    registerMessages.increment();
+                    // 로그인 때 받은 서명 토큰으로 사용자 확인 (토큰 없는 예전 클라이언트는 설정에 따라 username 허용)
+                    String credential = json.optString("token", "");
+                    if (credential.isEmpty()) credential = json.optString("username", null);
+                    SessionTokens.Claims verified = SessionTokens.isConfigured()
+                        ? SessionTokens.getInstance().authenticate(credential) : null; // 서명 키가 없으면 모두 거부
+                    if (verified != null) {
+                        this.claims = verified;
+                        this.username = verified.username;
+                        // 토큰 발급 후 정지된 계정이면 여기서 banned를 받고 끊김
+                        if (manager.registerUsername(this)) {
+                            sessionSpan.tag("username", this.username);
+                            log.info("Username 등록됨: userId={}, username={}", userId, this.username);
+                        }
                     } else {
-                        System.err.println("[MatchSocket] Username 등록 실패: userId=" + userId + ", username=" + this.username);
+                        log.warn("Username 등록 실패 (토큰 확인 실패): userId={}, username={}",
+                            userId, json.optString("username", null));
                     }
                 } else if ("joinQueue".equals(type)) {
+                    joinMessages.increment();
+                    startQueueSpan();
                     manager.enqueue(this);
                 } else if ("leaveQueue".equals(type)) {
+                    leaveMessages.increment();
                     manager.dequeue(this);
+                    endQueueSpan("cancelled");
                 } else if ("submitRating".equals(type)) {
+                    ratingMessages.increment();
                     handleSubmitRating(json);
                 } else if ("endCall".equals(type)) {
+                    endCallMessages.increment();
                     handleEndCall(message);
+                } else {
+                    otherMessages.increment();
                 }
             } catch (org.json.JSONException e) {
                 // JSON 파싱 실패 시 원본 메시지로 처리 시도
@@ -72,8 +137,7 @@ public class MatchSocket implements WebSocketListener {
                 }
             }
         } catch (Exception e) {
-            System.err.println("메시지 처리 오류: " + message);
-            e.printStackTrace();
+            log.error("메시지 처리 오류: {}", message, e);
         }
     }
 
@@ -85,12 +149,10 @@ public class MatchSocket implements WebSocketListener {
             Room room = manager.getRoom(roomId);
             if (room == null) return;
 
-            MatchSocket other = (room.user1 == this) ? room.user2 : room.user1;
-            if (other != null && other.isOpen()) {
-                other.sendMessage(message);
-            }
+            // 상대가 다른 노드에 있으면 클러스터로 중계
+            manager.forward(room, this, message);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("시그널링 메시지 처리 오류", e);
         }
     }
 
@@ -100,15 +162,11 @@ public class MatchSocket implements WebSocketListener {
             if (roomId != null) {
                 Room room = manager.getRoom(roomId);
                 if (room != null) {
-                    MatchSocket other = (room.user1 == this) ? room.user2 : room.user1;
-                    if (other != null && other.isOpen()) {
-                        other.sendMessage("{\"type\":\"callEnded\"}");
-                    }
-                    manager.removeRoom(roomId);
+                    manager.endCall(room, this);
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("시그널링 메시지 처리 오류", e);
         }
     }
 
@@ -122,12 +180,26 @@ public class MatchSocket implements WebSocketListener {
 
     @Override
     public void onWebSocketClose(int statusCode, String reason) {
+        uncount();
         manager.removeSocket(userId);
+        endQueueSpan("closed");
+        sessionSpan.tag("closeStatus", statusCode).end();
     }
 
     @Override
     public void onWebSocketError(Throwable cause) {
+        socketErrors.increment();
+        uncount();
         manager.removeSocket(userId);
+        endQueueSpan("closed");
+        sessionSpan.tag("error", String.valueOf(cause)).end();
+    }
+
+    private synchronized void uncount() {
+        if (counted) {
+            counted = false;
+            openSockets.decrementAndGet();
+        }
     }
 
     @Override
@@ -140,16 +212,31 @@ public class MatchSocket implements WebSocketListener {
             try {
                 session.getRemote().sendString(message);
             } catch (IOException e) {
-                e.printStackTrace();
+                sendFailures.increment();
+                log.warn("메시지 전송 실패: userId={}", userId, e);
             }
         }
     }
 
+    /**
+     * 계정 정지로 접속 종료 (사유 전달 후 닫음, 정리는 onWebSocketClose에서)
+     */
+    public void closeBanned(String reason) {
+        sendMessage(new JSONObject().put("type", "banned").put("reason", reason == null ? "" : reason).toString());
+        if (session != null && session.isOpen()) {
+            session.close(StatusCode.POLICY_VIOLATION, "banned");
+        }
+    }
+
     public void sendQueueStatus(int queueSize) {
         sendMessage("{\"type\":\"enqueued\",\"queueSize\":" + queueSize + "}");
     }
 
+    /**
+     * 매칭 알림 (이 통화 상대에게만 평점 1번 허용, 이전 통화의 남은 평점 기회는 없어짐)
+     */
     public void sendMatched(String roomId, String peerId, String partnerUsername) {
+        ratablePartner.set(partnerUsername);
         String message = String.format(
             "{\"type\":\"matched\",\"roomId\":\"%s\",\"peerId\":\"%s\",\"partnerUsername\":\"%s\"}",
             roomId, peerId, partnerUsername
@@ -157,6 +244,34 @@ public class MatchSocket implements WebSocketListener {
         sendMessage(message);
     }
 
+    /**
+     * 현재 대기 구간 (대기 중이 아니면 NOOP). 매칭 스레드에서 평점 조회/전송 구간의 부모로 사용
+     */
+    public Span getQueueSpan() {
+        Span span = queueSpan;
+        return span != null ? span : Span.NOOP;
+    }
+
+    private synchronized void startQueueSpan() {
+        if (queueSpan == null) {
+            queueSpan = sessionSpan.child("video.queue");
+        }
+    }
+
+    /**
+     * 대기 구간 종료 (outcome: matched/cancelled/closed, 이미 끝났으면 무시)
+     */
+    public void endQueueSpan(String outcome) {
+        Span span;
+        synchronized (this) {
+            span = queueSpan;
+            queueSpan = null;
+        }
+        if (span != null) {
+            span.tag("outcome", outcome).end();
+        }
+    }
+
     public boolean isOpen() {
         return session != null && session.isOpen();
     }
@@ -170,177 +285,63 @@ public class MatchSocket implements WebSocketListener {
     }
 
     /**
-     * 평점 제출 처리
+     * 토큰으로 확인된 사용자 (등록 전이면 null)
      */
-    private void handleSubmitRating(JSONObject json) {
-        try {
-            // 메시지에서 currentUsername을 먼저 확인하고, 없으면 this.username 사용
-            String currentUsername = json.optString("currentUsername", null);
-            if (currentUsername == null || currentUsername.isEmpty() || "unknown".equals(currentUsername)) {
-                currentUsername = this.username;
-            }
-            
-            String partnerUsername = json.optString("partnerUsername");
-            int rating = json.optInt("rating");
-            String serviceType = json.optString("serviceType", "randomVideo");
-            
-            if (currentUsername == null || currentUsername.isEmpty() || "unknown".equals(currentUsername) 
-                    || partnerUsername == null || partnerUsername.isEmpty() || "unknown".equals(partnerUsername) 
-                    || rating < 1 || rating > 5) {
-                System.err.println("[오류] 평점 데이터 유효성 검사 실패");
-                return;
-            }
-            
-            // MongoDB에 평점 저장
-            boolean success = saveRatingToMongo(currentUsername, partnerUsername, rating, serviceType);
-            
-            if (success) {
-                System.out.println("[평점] " + currentUsername + " → " + partnerUsername + " : " + rating + "점 (" + serviceType + ")");
-            }
-            
-            sendMessage("{\"type\":\"ratingSubmitted\",\"status\":\"success\"}");
-        } catch (Exception e) {
-            System.err.println("[오류] 평점 처리 실패: " + e.getMessage());
-        }
+    public SessionTokens.Claims getClaims() {
+        return claims;
     }
 
     /**
-     * MongoDB에 평점 저장
-     * @return 저장 성공 여부
+     * 평점 제출 처리: 저장 큐에 넣고 바로 응답 (DB 저장은 RatingIngestQueue 스레드에서 묶어서)
+     * - 상대와 서비스는 매칭 때 서버가 기록한 값만 사용 (메시지의 partnerUsername은 확인용, serviceType은 무시)
+     * - 매칭 1번에 평점 1번, 상대가 다르거나 이미 평가했으면 status "invalid"
+     * - 매칭용 쌍 평점 스냅샷에는 바로 반영되므로 블랙리스트는 저장 전에도 적용됨
+     * - 큐가 가득 차면 status "busy"로 응답 (클라이언트가 다시 제출)
      */
-    private boolean saveRatingToMongo(String currentUser, String partnerUser, int rating, String serviceType) {
+    private void handleSubmitRating(JSONObject json) {
         try {
-            // username을 ObjectId로 변환
-            ObjectId currentUserId = getUserIdFromUsername(currentUser);
-            ObjectId partnerUserId = getUserIdFromUsername(partnerUser);
-            
-            if (currentUserId == null || partnerUserId == null) {
-                System.err.println("[오류] 사용자 ID 조회 실패: " + currentUser + " 또는 " + partnerUser);
-                return false;
+            // 평점을 남기는 사람은 등록 때 토큰으로 확인된 사용자만 (메시지의 currentUsername은 믿지 않음)
+            SessionTokens.Claims rater = this.claims;
+            if (rater == null) {
+                log.warn("등록되지 않은 연결의 평점 거부: userId={}", userId);
+                sendMessage("{\"type\":\"ratingSubmitted\",\"status\":\"unauthorized\"}");
+                return;
             }
+            String currentUsername = rater.username;
             
-            // user1Id와 user2Id를 ObjectId 16진수 문자열 비교로 사전순 정렬
-            ObjectId[] sorted = sortObjectIds(currentUserId, partnerUserId);
-            ObjectId user1Id = sorted[0];
-            ObjectId user2Id = sorted[1];
-            
-            // 필터: ObjectId 타입으로 검색
-            Document filter = new Document("user1Id", user1Id)
-                .append("user2Id", user2Id)
-                .append("serviceType", serviceType);
-            
-            // 기존 문서 확인 (같은 유저 쌍에 대한 기존 평점이 있는지 확인)
-            Document existingDoc = Mongo.ratings().find(filter).first();
-            boolean isNewDocument = (existingDoc == null);
-            
-            if (isNewDocument) {
-                // 새 문서 생성: 첫 번째 평점이 평균이 됨
-                Document newDoc = new Document()
-                    .append("user1Id", user1Id)
-                    .append("user2Id", user2Id)
-                    .append("serviceType", serviceType)
-                    .append("createdAt", new java.util.Date())
-                    .append("updatedAt", new java.util.Date())
-                    .append("averageRating", (double) rating);
-                
-                Mongo.ratings().insertOne(newDoc);
-                
-                // 피평가자(partnerUser)의 평점 합계 업데이트
-                updateUserRatingStats(partnerUserId, rating, serviceType);
-                
-                return true;
-            } else {
-                // 기존 문서 업데이트: 기존 평균과 새 평점의 평균 계산
-                double oldAverage = 5.0;
-                Object avgObj = existingDoc.get("averageRating");
-                if (avgObj instanceof Number) {
-                    oldAverage = ((Number) avgObj).doubleValue();
-                }
-                double newAverage = Math.round(((oldAverage + rating) / 2.0) * 10.0) / 10.0;
-                
-                Document update = new Document("$set", new Document()
-                    .append("updatedAt", new java.util.Date())
-                    .append("averageRating", newAverage));
-                
-                Mongo.ratings().updateOne(filter, update);
-                
-                // 피평가자(partnerUser)의 평점 합계 업데이트
-                updateUserRatingStats(partnerUserId, rating, serviceType);
-                
-                return true;
-            }
+            String partnerUsername = ratablePartner.get();
+            String claimedPartner = json.optString("partnerUsername", partnerUsername);
+            int rating = json.optInt("rating");
+            String serviceType = "randomVideo";
             
-        } catch (com.mongodb.MongoWriteException e) {
-            if (e.getError().getCode() == 11000) {
-                return true; // 이미 저장되어 있으므로 성공으로 간주
-            } else {
-                System.err.println("[오류] 평점 저장 실패: " + e.getMessage());
-                return false;
-            }
-        } catch (Exception e) {
-            System.err.println("[오류] 평점 저장 실패: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * username으로부터 MongoDB의 ObjectId를 조회
-     * @param username 사용자명
-     * @return ObjectId, 존재하지 않으면 null
-     */
-    private ObjectId getUserIdFromUsername(String username) {
-        try {
-            Document userDoc = Mongo.users().find(Filters.eq("username", username)).first();
-            if (userDoc != null) {
-                Object id = userDoc.get("_id");
-                if (id instanceof ObjectId) {
-                    return (ObjectId) id;
-                }
+            if (partnerUsername == null || "unknown".equals(partnerUsername) || currentUsername.equals(partnerUsername)
+                    || !partnerUsername.equals(claimedPartner)
+                    || rating < 1 || rating > 5
+                    || !ratablePartner.compareAndSet(partnerUsername, null)) { // 매칭 1번에 평점 1번
+                log.warn("평점 거부 (매칭 상대 아님/이미 평가/범위 밖): {} → {}", currentUsername, claimedPartner);
+                ratingsRejected.increment();
+                sendMessage("{\"type\":\"ratingSubmitted\",\"status\":\"invalid\"}");
+                return;
             }
-            return null;
-        } catch (Exception e) {
-            System.err.println("[오류] 사용자 조회 실패: " + username);
-            return null;
-        }
-    }
-
-    /**
-     * 두 ObjectId를 16진수 문자열 기준으로 사전순 정렬 (항상 일관된 정렬 결과 보장)
-     */
-    private ObjectId[] sortObjectIds(ObjectId id1, ObjectId id2) {
-        String str1 = id1.toHexString();
-        String str2 = id2.toHexString();
-        if (str1.compareTo(str2) < 0) {
-            return new ObjectId[]{id1, id2};
-        } else {
-            return new ObjectId[]{id2, id1};
-        }
-    }
-
-    /**
-     * 유저의 평점 합계를 업데이트합니다.
-     * @param userId 유저 ObjectId
-     * @param rating 평점 값
-     * @param serviceType 서비스 타입 ("randomVideo" 또는 "randomChat")
-     */
-    private void updateUserRatingStats(ObjectId userId, int rating, String serviceType) {
-        try {
-            Document incDoc = new Document();
             
-            // 서비스별 평점 합계 업데이트
-            if ("randomVideo".equals(serviceType)) {
-                incDoc.append("videoTotalRating", rating);
-            } else if ("randomChat".equals(serviceType)) {
-                incDoc.append("chatTotalRating", rating);
+            boolean accepted = RatingIngestQueue.getInstance().submit(new RatingIngestQueue.Submission(
+                serviceType, currentUsername, rater.userId, partnerUsername, null, rating));
+            if (!accepted) {
+                // 저장하지 못했으므로 다시 제출할 수 있게 되돌림 (그 사이 새로 매칭됐으면 그대로 둠)
+                ratablePartner.compareAndSet(null, partnerUsername);
             }
+            sessionSpan.child("rating.enqueue").tag("serviceType", serviceType).tag("accepted", accepted).end();
+            (accepted ? ratingsAccepted : ratingsRejected).increment();
             
-            if (!incDoc.isEmpty()) {
-                Document update = new Document("$inc", incDoc);
-                Mongo.users().updateOne(Filters.eq("_id", userId), update);
-                System.out.println("[영상통화] 사용자 평점 통계 업데이트: userId=" + userId + ", 받은 평점=" + rating);
+            if (accepted) {
+                log.info("[평점] {} → {} : {}점 ({})", currentUsername, partnerUsername, rating, serviceType);
+                sendMessage("{\"type\":\"ratingSubmitted\",\"status\":\"success\"}");
+            } else {
+                log.warn("평점 저장 대기열이 가득 참: {} → {}", currentUsername, partnerUsername);
+                sendMessage("{\"type\":\"ratingSubmitted\",\"status\":\"busy\"}");
             }
         } catch (Exception e) {
-            System.err.println("[오류] 유저 평점 통계 업데이트 실패: " + e.getMessage());
+            log.error("평점 처리 실패: {}", e.getMessage());
         }
     }
 }
@@ -95,6 +95,14 @@ if (window.urlParams) {
 }
 console.log('[app.js] URL에서 username:', currentUsername);
 
+// 로그인 세션 토큰 (서버가 서명으로 사용자를 확인). 주소창/방문 기록에 남지 않도록 URL에서는 지움
+const sessionToken = window.urlParams.get('token');
+if (sessionToken && window.history && window.history.replaceState) {
+  const cleanParams = new URLSearchParams(location.search);
+  cleanParams.delete('token');
+  window.history.replaceState(null, '', location.pathname + '?' + cleanParams.toString() + location.hash);
+}
+
 // userId가 설정되기 전까지 username 저장
 let pendingUsername = currentUsername && currentUsername !== 'unknown' ? currentUsername : null;
 
@@ -116,11 +124,11 @@ ws.addEventListener('message', async (ev) => {
       if (pendingUsername && pendingUsername !== 'unknown') {
         console.log('[app.js] Username 등록 전송 (userId: ' + userId + '):', pendingUsername);
         currentUsername = pendingUsername;
-        wsSend({ type: 'registerUsername', username: pendingUsername });
+        wsSend({ type: 'registerUsername', username: pendingUsername, token: sessionToken });
         pendingUsername = null;
       } else if (currentUsername && currentUsername !== 'unknown') {
         console.log('[app.js] Username 등록 전송 (userId: ' + userId + '):', currentUsername);
-        wsSend({ type: 'registerUsername', username: currentUsername });
+        wsSend({ type: 'registerUsername', username: currentUsername, token: sessionToken });
       } else {
         console.error('[app.js] Username 등록 실패: currentUsername=' + currentUsername + ', pendingUsername=' + pendingUsername);
       }
@@ -153,6 +161,12 @@ ws.addEventListener('message', async (ev) => {
       setStatus('대기 종료');
       showHangupButton(false);
       break;
+    case 'banned':
+      // 자동 블랙리스트로 계정이 정지됨 (서버가 바로 연결을 닫음)
+      setStatus('계정 정지됨');
+      showHangupButton(false);
+      alert('계정이 정지되어 영상통화가 종료되었습니다.' + (msg.reason ? '\n사유: ' + msg.reason : ''));
+      break;
     case 'matched':
       roomId = msg.roomId;
       peerId = msg.peerId;
@@ -286,6 +300,12 @@ ws.addEventListener('message', async (ev) => {
             setStatus('Idle');
           }
         }, 3000);
+      } else if (msg.status === 'busy') {
+        setStatus('평가 저장이 밀려 있습니다. 잠시 후 다시 시도하세요.');
+      } else if (msg.status === 'unauthorized') {
+        setStatus('로그인 확인이 안 되어 평가를 저장하지 못했습니다.');
+      } else if (msg.status === 'invalid') {
+        setStatus('이미 평가했거나 평가할 수 없는 통화입니다.');
       }
       break;
   }